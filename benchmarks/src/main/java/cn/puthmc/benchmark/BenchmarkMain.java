@@ -0,0 +1,24 @@
+package cn.puthmc.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * 基准测试入口
+ * 参数原样交给 JMH；未指定 -prof 时默认附加 GC 分析器，
+ * 在吞吐量之外同时报告分配速率（gc.alloc.rate）和每次操作分配的字节数（gc.alloc.rate.norm）
+ */
+public class BenchmarkMain {
+    
+    public static void main(String[] args) throws Exception {
+        boolean hasProfiler = Arrays.stream(args).anyMatch(arg -> arg.startsWith("-prof") || arg.equals("-lprof"));
+        boolean listOnly = Arrays.stream(args).anyMatch(arg -> arg.equals("-l") || arg.equals("-h") || arg.equals("-lp"));
+        if (hasProfiler || listOnly) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        String[] withGc = Arrays.copyOf(args, args.length + 2);
+        withGc[args.length] = "-prof";
+        withGc[args.length + 1] = "gc";
+        org.openjdk.jmh.Main.main(withGc);
+    }
+}
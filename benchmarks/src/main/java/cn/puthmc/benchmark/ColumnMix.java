@@ -0,0 +1,136 @@
+package cn.puthmc.benchmark;
+
+import cn.puthmc.model.ColumnInfo;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试使用的典型列组合
+ * 每种组合给出列定义和确定性的样本值，同一行号总是得到相同的值，便于不同版本之间对比
+ */
+public enum ColumnMix {
+    
+    // 整数、浮点、文本、日期、二进制混合的宽表
+    MIXED(new String[]{
+        "INTEGER", "BIGINT", "REAL", "NUMERIC", "TEXT", "VARCHAR(64)", "DATETIME", "BLOB",
+        "INTEGER", "TEXT", "DOUBLE", "TEXT", "BOOLEAN", "TEXT", "INTEGER", "TEXT"
+    }),
+    
+    // 以长文本为主的宽表，如日志、内容类表
+    WIDE_TEXT(new String[]{
+        "INTEGER", "VARCHAR(255)", "VARCHAR(255)", "CHAR(32)", "TEXT", "TEXT", "TEXT", "LONGTEXT",
+        "VARCHAR(1024)", "MEDIUMTEXT", "TEXT", "VARCHAR(255)", "TEXT", "TEXT", "CHAR(8)", "LONGTEXT",
+        "TEXT", "VARCHAR(512)", "TEXT", "TEXT", "TEXT", "VARCHAR(255)", "TEXT", "TEXT"
+    }),
+    
+    // 以数值为主的表，如计量、交易类表
+    NUMERIC(new String[]{
+        "INTEGER", "BIGINT", "SMALLINT", "TINYINT", "REAL", "DOUBLE", "FLOAT", "DECIMAL(12)",
+        "NUMERIC", "BOOLEAN", "BIGINT", "INTEGER", "DOUBLE", "DECIMAL(18)", "INTEGER", "BIGINT"
+    }),
+    
+    // 主键加若干二进制大字段，如附件、图片表
+    BLOB(new String[]{
+        "INTEGER", "VARCHAR(64)", "BLOB", "LONGBLOB", "VARBINARY(255)", "MEDIUMBLOB"
+    });
+    
+    private final String[] types;
+    
+    ColumnMix(String[] types) {
+        this.types = types;
+    }
+    
+    public int columnCount() {
+        return types.length;
+    }
+    
+    /**
+     * @return 列定义，第一列为主键
+     */
+    public List<ColumnInfo> columns() {
+        List<ColumnInfo> columns = new ArrayList<>(types.length);
+        for (int i = 0; i < types.length; i++) {
+            ColumnInfo column = new ColumnInfo("c" + i, baseType(types[i]));
+            column.setSize(size(types[i]));
+            column.setPrimaryKey(i == 0);
+            column.setNullable(i != 0);
+            columns.add(column);
+        }
+        return columns;
+    }
+    
+    /**
+     * 生成样本值，非主键列约 1/17 为 NULL
+     * @param column 列序号
+     * @param row 行号
+     * @return 样本值
+     */
+    public Object sampleValue(int column, int row) {
+        if (column > 0 && (row + column) % 17 == 0) {
+            return null;
+        }
+        String type = baseType(types[column]);
+        switch (type) {
+            case "INTEGER":
+            case "BIGINT":
+            case "SMALLINT":
+            case "TINYINT":
+                return (long) row * 31 + column;
+            case "REAL":
+            case "DOUBLE":
+            case "FLOAT":
+                return row * 1.25 + column;
+            case "NUMERIC":
+            case "DECIMAL":
+                return String.valueOf(row * 7 + column);
+            case "BOOLEAN":
+                return row % 2 == 0;
+            case "DATETIME":
+                return new Timestamp(1_700_000_000_000L + row * 1000L);
+            case "BLOB":
+            case "LONGBLOB":
+            case "MEDIUMBLOB":
+            case "VARBINARY":
+                return bytes(row, column, type.equals("VARBINARY") ? 200 : 4096);
+            default:
+                return text(row, column, textLength(type, size(types[column])));
+        }
+    }
+    
+    private static int textLength(String type, int size) {
+        if (size > 0) {
+            return Math.min(size, 256);
+        }
+        return type.equals("TEXT") ? 200 : 1024;
+    }
+    
+    private static String text(int row, int column, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        sb.append("row-").append(row).append('-').append(column).append(':');
+        while (sb.length() < length) {
+            sb.append((char) ('a' + (sb.length() * 7 + row) % 26));
+        }
+        sb.setLength(length);
+        return sb.toString();
+    }
+    
+    private static byte[] bytes(int row, int column, int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31 + row + column);
+        }
+        return data;
+    }
+    
+    private static String baseType(String type) {
+        int paren = type.indexOf('(');
+        return paren < 0 ? type : type.substring(0, paren);
+    }
+    
+    private static int size(String type) {
+        int paren = type.indexOf('(');
+        return paren < 0 ? 0 : Integer.parseInt(type.substring(paren + 1, type.length() - 1));
+    }
+}
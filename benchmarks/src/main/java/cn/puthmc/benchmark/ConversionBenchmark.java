@@ -0,0 +1,107 @@
+package cn.puthmc.benchmark;
+
+import cn.puthmc.converter.ConversionPlan;
+import cn.puthmc.converter.RowBatch;
+import cn.puthmc.db.DatabaseManager;
+import cn.puthmc.model.ColumnInfo;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 值转换基准测试
+ * 对比旧版逐值字符串匹配与预编译转换计划在整批数据上的开销，按列组合分别测量
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ConversionBenchmark {
+    
+    private static final int ROWS = 1000;
+    
+    @Param({"MIXED", "WIDE_TEXT", "NUMERIC", "BLOB"})
+    public ColumnMix mix;
+    
+    @Param({"MYSQL", "SQLITE"})
+    public DatabaseManager.DatabaseType targetType;
+    
+    private List<ColumnInfo> columns;
+    private Object[][] source; // [列][行]
+    private RowBatch batch;
+    private ConversionPlan plan;
+    
+    @Setup
+    public void setup() {
+        columns = mix.columns();
+        source = new Object[columns.size()][ROWS];
+        for (int i = 0; i < columns.size(); i++) {
+            for (int row = 0; row < ROWS; row++) {
+                source[i][row] = mix.sampleValue(i, row);
+            }
+        }
+        plan = ConversionPlan.compile(columns, sourceType(), targetType);
+        batch = plan.newBatch(ROWS);
+    }
+    
+    private DatabaseManager.DatabaseType sourceType() {
+        return targetType == DatabaseManager.DatabaseType.MYSQL ?
+            DatabaseManager.DatabaseType.SQLITE : DatabaseManager.DatabaseType.MYSQL;
+    }
+    
+    @Benchmark
+    public void legacyConvertValue(Blackhole bh) {
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnInfo column = columns.get(i);
+            Object[] values = source[i];
+            for (int row = 0; row < ROWS; row++) {
+                bh.consume(LegacyConverter.convertValue(values[row], column, targetType));
+            }
+        }
+    }
+    
+    @Benchmark
+    public void conversionPlan(Blackhole bh) {
+        for (int i = 0; i < columns.size(); i++) {
+            ConversionPlan.ValueConverter converter = plan.get(i);
+            Object[] values = source[i];
+            for (int row = 0; row < ROWS; row++) {
+                Object value = values[row];
+                bh.consume(value == null ? null : converter.convert(value));
+            }
+        }
+    }
+    
+    @Benchmark
+    public RowBatch conversionPlanBatch() {
+        loadBatch();
+        plan.apply(batch);
+        return batch;
+    }
+    
+    @Benchmark
+    public RowBatch legacyConvertValueBatch() {
+        loadBatch();
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnInfo column = columns.get(i);
+            for (int row = 0; row < ROWS; row++) {
+                batch.set(i, row, LegacyConverter.convertValue(batch.get(i, row), column, targetType));
+            }
+        }
+        return batch;
+    }
+    
+    private void loadBatch() {
+        batch.clear();
+        for (int i = 0; i < columns.size(); i++) {
+            for (int row = 0; row < ROWS; row++) {
+                batch.set(i, row, source[i][row]);
+            }
+        }
+        batch.setSize(ROWS);
+    }
+}
@@ -0,0 +1,95 @@
+package cn.puthmc.benchmark;
+
+import cn.puthmc.db.DatabaseManager;
+import cn.puthmc.model.ColumnInfo;
+
+import java.sql.Timestamp;
+
+/**
+ * 旧版逐值转换逻辑
+ * 原 DataMigrator.convertValue 的副本，作为转换计划的性能基线
+ */
+public class LegacyConverter {
+    
+    public static Object convertValue(Object value, ColumnInfo column, DatabaseManager.DatabaseType targetType) {
+        if (value == null) {
+            return null;
+        }
+        
+        String columnType = column.getDataType().toUpperCase();
+        
+        // 处理布尔值
+        if (value instanceof Boolean) {
+            return ((Boolean) value) ? 1 : 0;
+        }
+        
+        // 处理BIT类型
+        if (columnType.contains("BIT")) {
+            if (value instanceof Boolean) {
+                return ((Boolean) value) ? 1 : 0;
+            }
+            if (value instanceof Number) {
+                return ((Number) value).intValue() != 0 ? 1 : 0;
+            }
+        }
+        
+        // 处理JSON类型
+        if (columnType.contains("JSON")) {
+            if (targetType == DatabaseManager.DatabaseType.SQLITE) {
+                return value.toString();
+            }
+        }
+        
+        // 处理ENUM和SET类型
+        if (columnType.contains("ENUM") || columnType.contains("SET")) {
+            if (targetType == DatabaseManager.DatabaseType.SQLITE) {
+                return value.toString();
+            }
+        }
+        
+        // 处理YEAR类型
+        if (columnType.contains("YEAR")) {
+            if (targetType == DatabaseManager.DatabaseType.SQLITE) {
+                if (value instanceof Number) {
+                    return ((Number) value).intValue();
+                }
+                return Integer.parseInt(value.toString());
+            }
+        }
+        
+        // 处理日期时间
+        if (value instanceof Timestamp || value instanceof java.util.Date) {
+            if (targetType == DatabaseManager.DatabaseType.SQLITE) {
+                return value.toString();
+            }
+        }
+        
+        // 处理MySQL空间数据类型
+        if (columnType.contains("GEOMETRY") || columnType.contains("POINT") || 
+            columnType.contains("LINESTRING") || columnType.contains("POLYGON") ||
+            columnType.contains("MULTIPOINT") || columnType.contains("MULTILINESTRING") ||
+            columnType.contains("MULTIPOLYGON") || columnType.contains("GEOMETRYCOLLECTION")) {
+            return value;
+        }
+        
+        // 处理字符串到数值的转换
+        if (targetType == DatabaseManager.DatabaseType.MYSQL && value instanceof String) {
+            String stringValue = (String) value;
+            if (columnType.contains("INT") || columnType.contains("DECIMAL") || 
+                columnType.contains("NUMERIC") || columnType.contains("FLOAT") || 
+                columnType.contains("DOUBLE")) {
+                try {
+                    if (columnType.contains("INT")) {
+                        return Long.parseLong(stringValue);
+                    } else {
+                        return Double.parseDouble(stringValue);
+                    }
+                } catch (NumberFormatException e) {
+                    // 基线中不记录日志
+                }
+            }
+        }
+        
+        return value;
+    }
+}
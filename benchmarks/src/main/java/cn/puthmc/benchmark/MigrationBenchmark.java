@@ -0,0 +1,252 @@
+package cn.puthmc.benchmark;
+
+import cn.puthmc.converter.DataMigrator;
+import cn.puthmc.converter.MigrationOptions;
+import cn.puthmc.db.DatabaseManager;
+import cn.puthmc.metrics.MigrationMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 端到端迁移基准
+ * 按负载定义生成SQLite源库，迁移到SQLite文件或本机MySQL，重复若干轮，
+ * 记录每轮的行/秒、MB/秒、堆内存峰值和各阶段耗时，结果写为JSON便于不同版本之间对比。
+ * <pre>
+ * java -cp target/benchmarks.jar cn.puthmc.benchmark.MigrationBenchmark [负载.json] [结果.json]
+ * </pre>
+ */
+public class MigrationBenchmark {
+    
+    private static final long HEAP_SAMPLE_MILLIS = 20;
+    
+    private final WorkloadSpec spec;
+    private final ObjectMapper mapper = new ObjectMapper();
+    
+    public MigrationBenchmark(WorkloadSpec spec) {
+        this.spec = spec;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        WorkloadSpec spec = args.length > 0 ? mapper.readValue(new File(args[0]), WorkloadSpec.class) : WorkloadSpec.defaults();
+        if (spec.getTables().isEmpty()) {
+            spec.setTables(WorkloadSpec.defaults().getTables());
+        }
+        File output = new File(args.length > 1 ? args[1] : spec.getWorkDir() + "/result.json");
+        
+        Map<String, Object> report = new MigrationBenchmark(spec).run();
+        Files.createDirectories(output.getAbsoluteFile().getParentFile().toPath());
+        mapper.writerWithDefaultPrettyPrinter().writeValue(output, report);
+        
+        @SuppressWarnings("unchecked")
+        Map<String, Object> summary = (Map<String, Object>) report.get("summary");
+        System.out.println("结果已写入 " + output.getPath() + ": " + summary);
+    }
+    
+    /**
+     * 生成源库并执行所有轮次
+     * @return 基准报告
+     */
+    public Map<String, Object> run() throws Exception {
+        File workDir = new File(spec.getWorkDir());
+        File source = new File(workDir, "source.db");
+        
+        long generateStart = System.nanoTime();
+        new SyntheticDataGenerator(spec).generate(source);
+        long generateMillis = (System.nanoTime() - generateStart) / 1_000_000;
+        
+        List<Map<String, Object>> runs = new ArrayList<>();
+        for (int i = 0; i < spec.getRuns(); i++) {
+            runs.add(runOnce(i + 1, source, workDir));
+        }
+        
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("environment", environment());
+        report.put("workload", workload());
+        report.put("sourceBytes", source.length());
+        report.put("generateMillis", generateMillis);
+        report.put("runs", runs);
+        report.put("summary", summarize(runs));
+        return report;
+    }
+    
+    private Map<String, Object> runOnce(int index, File source, File workDir) throws Exception {
+        DatabaseManager.ConnectionFactory target = prepareTarget(workDir);
+        MigrationOptions options = new MigrationOptions();
+        mapper.updateValue(options, spec.getOptions());
+        
+        Map<String, Long> tableStart = new ConcurrentHashMap<>();
+        Map<String, Long> tableMillis = new ConcurrentHashMap<>();
+        DataMigrator.ProgressCallback callback = new DataMigrator.ProgressCallback() {
+            @Override
+            public void onProgress(String message, double progress) {}
+            
+            @Override
+            public void onTableStart(String tableName, long totalRows) {
+                tableStart.put(tableName, System.nanoTime());
+            }
+            
+            @Override
+            public void onTableComplete(String tableName, long migratedRows) {
+                Long start = tableStart.get(tableName);
+                if (start != null) {
+                    tableMillis.put(tableName, (System.nanoTime() - start) / 1_000_000);
+                }
+            }
+            
+            @Override
+            public void onError(String message, Exception error) {
+                System.err.println(message);
+            }
+        };
+        
+        MigrationMetrics metrics = MigrationMetrics.getInstance();
+        metrics.reset();
+        System.gc();
+        HeapSampler heap = new HeapSampler();
+        heap.start();
+        
+        long start = System.nanoTime();
+        DataMigrator.MigrationResult result;
+        try {
+            result = new DataMigrator(options).migrate(
+                DatabaseManager.sqliteConnectionFactory(source.getPath()), target, callback);
+        } finally {
+            heap.interrupt();
+            heap.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("run", index);
+        run.put("success", result.isSuccess());
+        if (!result.isSuccess()) {
+            run.put("error", result.getErrorMessage());
+        }
+        run.put("rows", result.getTotalRows());
+        run.put("seconds", round(seconds));
+        run.put("rowsPerSecond", round(result.getTotalRows() / seconds));
+        run.put("sourceMBPerSecond", round(source.length() / 1048576.0 / seconds));
+        run.put("estimatedBytes", metrics.getBytesWritten());
+        run.put("estimatedMBPerSecond", round(metrics.getBytesWritten() / 1048576.0 / seconds));
+        run.put("peakHeapBytes", heap.peak.get());
+        run.put("phaseMillis", result.getPhaseMillis());
+        run.put("tableMillis", tableMillis);
+        run.put("batches", metrics.getBatchesWritten());
+        run.put("batchWriteMillisP50", round(metrics.getBatchWriteMillisP50()));
+        run.put("batchWriteMillisP99", round(metrics.getBatchWriteMillisP99()));
+        run.put("commits", metrics.getCommits());
+        run.put("commitMillisP99", round(metrics.getCommitMillisP99()));
+        System.out.printf("第 %d 轮: %s%n", index, run);
+        return run;
+    }
+    
+    /**
+     * 清空目标：SQLite删除目标文件，MySQL删除并重建基准库
+     */
+    private DatabaseManager.ConnectionFactory prepareTarget(File workDir) throws Exception {
+        if ("sqlite".equals(spec.getTarget())) {
+            File target = new File(workDir, "target.db");
+            Files.deleteIfExists(target.toPath());
+            return DatabaseManager.sqliteConnectionFactory(target.getPath());
+        }
+        
+        String url = String.format("jdbc:mysql://%s:%d/?useSSL=false&allowPublicKeyRetrieval=true",
+                                   spec.getMysqlHost(), spec.getMysqlPort());
+        try (Connection conn = DriverManager.getConnection(url, spec.getMysqlUser(), spec.getMysqlPassword());
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP DATABASE IF EXISTS `" + spec.getMysqlDatabase() + "`");
+            stmt.execute("CREATE DATABASE `" + spec.getMysqlDatabase() + "` CHARACTER SET utf8mb4");
+        }
+        return DatabaseManager.mysqlConnectionFactory(spec.getMysqlHost(), spec.getMysqlPort(), spec.getMysqlDatabase(),
+                                                      spec.getMysqlUser(), spec.getMysqlPassword());
+    }
+    
+    private Map<String, Object> environment() {
+        Map<String, Object> env = new LinkedHashMap<>();
+        env.put("javaVersion", System.getProperty("java.version"));
+        env.put("javaVm", System.getProperty("java.vm.name"));
+        env.put("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+        env.put("processors", Runtime.getRuntime().availableProcessors());
+        env.put("maxHeapBytes", Runtime.getRuntime().maxMemory());
+        return env;
+    }
+    
+    /**
+     * @return 负载定义，不含数据库密码
+     */
+    private Map<String, Object> workload() {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> workload = mapper.convertValue(spec, LinkedHashMap.class);
+        workload.remove("mysqlPassword");
+        workload.put("totalRows", spec.totalRows());
+        return workload;
+    }
+    
+    private static Map<String, Object> summarize(List<Map<String, Object>> runs) {
+        List<Double> rates = new ArrayList<>();
+        long peakHeap = 0;
+        for (Map<String, Object> run : runs) {
+            if (Boolean.TRUE.equals(run.get("success"))) {
+                rates.add((Double) run.get("rowsPerSecond"));
+                peakHeap = Math.max(peakHeap, (Long) run.get("peakHeapBytes"));
+            }
+        }
+        rates.sort(null);
+        
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("successfulRuns", rates.size());
+        if (!rates.isEmpty()) {
+            summary.put("medianRowsPerSecond", rates.get(rates.size() / 2));
+            summary.put("bestRowsPerSecond", rates.get(rates.size() - 1));
+            summary.put("worstRowsPerSecond", rates.get(0));
+            summary.put("peakHeapBytes", peakHeap);
+        }
+        return summary;
+    }
+    
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+    
+    /**
+     * 定时采样已用堆内存，记录迁移期间的峰值
+     */
+    private static class HeapSampler extends Thread {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        final AtomicLong peak = new AtomicLong();
+        
+        HeapSampler() {
+            super("dbbridge-bench-heap");
+            setDaemon(true);
+        }
+        
+        @Override
+        public void run() {
+            try {
+                while (!isInterrupted()) {
+                    peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                    Thread.sleep(HEAP_SAMPLE_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                // 迁移结束
+            }
+            peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package cn.puthmc.benchmark;
+
+import cn.puthmc.converter.SqlConverter;
+import cn.puthmc.db.DatabaseManager;
+import cn.puthmc.model.ColumnInfo;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQL 生成基准测试
+ * 测量建表时的类型映射和每张表写入前的语句拼接，按列组合分别测量
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SqlGenerationBenchmark {
+    
+    @Param({"MIXED", "WIDE_TEXT", "NUMERIC", "BLOB"})
+    public ColumnMix mix;
+    
+    @Param({"MYSQL", "SQLITE"})
+    public DatabaseManager.DatabaseType targetType;
+    
+    private List<ColumnInfo> columns;
+    private String[] sourceTypes;
+    private int[] sizes;
+    
+    @Setup
+    public void setup() {
+        columns = mix.columns();
+        sourceTypes = new String[columns.size()];
+        sizes = new int[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            sourceTypes[i] = columns.get(i).getDataType();
+            sizes[i] = columns.get(i).getSize();
+        }
+    }
+    
+    @Benchmark
+    public void convertDataType(Blackhole bh) {
+        for (int i = 0; i < sourceTypes.length; i++) {
+            bh.consume(SqlConverter.convertDataType(sourceTypes[i], sizes[i], targetType));
+        }
+    }
+    
+    @Benchmark
+    public String generateInsertSql() {
+        return SqlConverter.generateInsertSql("bench_table", columns, targetType);
+    }
+    
+    @Benchmark
+    public String generateUpsertSql() {
+        return SqlConverter.generateUpsertSql("bench_table", columns, targetType);
+    }
+    
+    // 多行模板按行数缓存，这里测量的是命中缓存时的开销
+    @Benchmark
+    public String generateMultiRowInsertSql() {
+        return SqlConverter.generateMultiRowInsertSql("bench_table", columns, targetType, 100);
+    }
+}
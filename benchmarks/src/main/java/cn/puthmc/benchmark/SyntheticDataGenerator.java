@@ -0,0 +1,155 @@
+package cn.puthmc.benchmark;
+
+import cn.puthmc.db.DatabaseManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 确定性的合成数据生成器
+ * 按负载定义生成SQLite源库，每张表使用由种子和表序号派生的独立随机序列，
+ * 相同的种子和定义总是生成内容完全相同的源库。
+ * 文本和二进制列的长度服从以基准长度为均值的帕累托分布，偏斜度越大，少数行越长，最长不超过基准长度的32倍。
+ */
+public class SyntheticDataGenerator {
+    
+    private static final int BATCH_SIZE = 1000;
+    private static final int MAX_LENGTH_FACTOR = 32;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2020, 1, 1, 0, 0);
+    private static final DateTimeFormatter DATETIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
+    private final WorkloadSpec spec;
+    
+    public SyntheticDataGenerator(WorkloadSpec spec) {
+        this.spec = spec;
+    }
+    
+    /**
+     * 生成源库，已存在的文件会被覆盖
+     * @param file SQLite文件
+     */
+    public void generate(File file) throws IOException, SQLException {
+        Files.deleteIfExists(file.toPath());
+        File parent = file.getAbsoluteFile().getParentFile();
+        Files.createDirectories(parent.toPath());
+        
+        try (Connection conn = DatabaseManager.createSQLiteConnection(file.getPath())) {
+            try (Statement stmt = conn.createStatement()) {
+                // 生成的源库可以随时重建，不需要日志和同步
+                stmt.execute("PRAGMA journal_mode=OFF");
+                stmt.execute("PRAGMA synchronous=OFF");
+            }
+            conn.setAutoCommit(false);
+            
+            List<WorkloadSpec.TableSpec> tables = spec.getTables();
+            for (int i = 0; i < tables.size(); i++) {
+                generateTable(conn, tables.get(i), new SplittableRandom(spec.getSeed() * 31 + i));
+            }
+        }
+    }
+    
+    private void generateTable(Connection conn, WorkloadSpec.TableSpec table, SplittableRandom random) throws SQLException {
+        List<String> columns = table.getColumns();
+        StringBuilder ddl = new StringBuilder("CREATE TABLE \"").append(table.getName()).append("\" (id INTEGER PRIMARY KEY");
+        StringBuilder insert = new StringBuilder("INSERT INTO \"").append(table.getName()).append("\" VALUES (?");
+        for (int c = 0; c < columns.size(); c++) {
+            ddl.append(", c").append(c + 1).append(' ').append(columns.get(c));
+            insert.append(", ?");
+        }
+        ddl.append(')');
+        insert.append(')');
+        
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(ddl.toString());
+        }
+        
+        try (PreparedStatement ps = conn.prepareStatement(insert.toString())) {
+            for (long row = 1; row <= table.getRows(); row++) {
+                ps.setLong(1, row);
+                for (int c = 0; c < columns.size(); c++) {
+                    ps.setObject(c + 2, random.nextDouble() < spec.getNullRatio() ? null : value(columns.get(c), random));
+                }
+                ps.addBatch();
+                if (row % BATCH_SIZE == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+        conn.commit();
+    }
+    
+    private Object value(String type, SplittableRandom random) {
+        String upper = type.toUpperCase();
+        int paren = upper.indexOf('(');
+        String base = paren < 0 ? upper : upper.substring(0, paren).trim();
+        switch (base) {
+            case "INTEGER":
+            case "INT":
+            case "BIGINT":
+            case "SMALLINT":
+            case "TINYINT":
+                return random.nextLong(1_000_000_000L);
+            case "REAL":
+            case "DOUBLE":
+            case "FLOAT":
+                return random.nextDouble() * 1_000_000;
+            case "DECIMAL":
+            case "NUMERIC":
+                return random.nextLong(100_000_000L) / 100.0;
+            case "BOOLEAN":
+                return random.nextBoolean() ? 1 : 0;
+            case "DATE":
+                return EPOCH.plusDays(random.nextInt(3650)).toLocalDate().toString();
+            case "DATETIME":
+            case "TIMESTAMP":
+                return EPOCH.plusSeconds(random.nextLong(315_360_000L)).format(DATETIME_FORMAT);
+            case "BLOB":
+                return blob(length(spec.getBlobLength(), 0, random), random);
+            default:
+                return text(length(spec.getTextLength(), declaredSize(upper, paren), random), random);
+        }
+    }
+    
+    private int length(int base, int limit, SplittableRandom random) {
+        double factor = 1;
+        if (spec.getSkew() > 0) {
+            // 帕累托分布 (1-u)^(-skew)，乘以 (1-skew) 使均值保持为基准长度
+            factor = Math.pow(1 - random.nextDouble(), -spec.getSkew()) * (1 - spec.getSkew());
+        }
+        long length = Math.max(1, Math.round(base * Math.min(factor, MAX_LENGTH_FACTOR)));
+        return (int) (limit > 0 ? Math.min(length, limit) : length);
+    }
+    
+    private static String text(int length, SplittableRandom random) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            int r = random.nextInt(32);
+            chars[i] = r < 26 ? (char) ('a' + r) : ' ';
+        }
+        return new String(chars);
+    }
+    
+    private static byte[] blob(int length, SplittableRandom random) {
+        byte[] data = new byte[length];
+        random.nextBytes(data);
+        return data;
+    }
+    
+    private static int declaredSize(String type, int paren) {
+        if (paren < 0) {
+            return 0;
+        }
+        String args = type.substring(paren + 1, type.indexOf(')', paren));
+        return Integer.parseInt(args.split(",")[0].trim());
+    }
+}
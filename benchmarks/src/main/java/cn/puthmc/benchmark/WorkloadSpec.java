@@ -0,0 +1,234 @@
+package cn.puthmc.benchmark;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 端到端迁移基准的负载定义
+ * 可以从 JSON 文件读取，字段与 setter 同名；未指定的字段使用默认值
+ */
+public class WorkloadSpec {
+    
+    private long seed = 42; // 随机种子，相同种子和定义生成完全相同的源库
+    private double nullRatio = 0.05; // 非主键列为 NULL 的比例
+    private int textLength = 64; // 文本列的基准长度（字符）
+    private int blobLength = 1024; // 二进制列的基准长度（字节）
+    private double skew = 0; // 文本和二进制长度的偏斜度，0 为固定长度，越大少数行越长
+    private String target = "sqlite"; // 目标库：sqlite 或 mysql
+    private String mysqlHost = "127.0.0.1";
+    private int mysqlPort = 3306;
+    private String mysqlDatabase = "dbbridge_bench"; // 每轮运行前会删除并重建该库
+    private String mysqlUser = "root";
+    private String mysqlPassword = "";
+    private String workDir = "target/e2e"; // 源库和SQLite目标库所在目录
+    private int runs = 3; // 迁移重复次数，源库只生成一次
+    private Map<String, Object> options = new LinkedHashMap<>(); // 迁移选项，键为 MigrationOptions 的属性名
+    private List<TableSpec> tables = new ArrayList<>();
+    
+    /**
+     * 单张表的定义，第一列固定为整数主键 id，其余列按类型依次命名为 c1、c2...
+     */
+    public static class TableSpec {
+        private String name;
+        private long rows;
+        private List<String> columns = new ArrayList<>();
+        
+        public TableSpec() {}
+        
+        public TableSpec(String name, long rows, List<String> columns) {
+            setName(name);
+            setRows(rows);
+            setColumns(columns);
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public void setName(String name) {
+            if (name == null || name.isEmpty()) {
+                throw new IllegalArgumentException("表名不能为空");
+            }
+            this.name = name;
+        }
+        
+        public long getRows() {
+            return rows;
+        }
+        
+        public void setRows(long rows) {
+            if (rows < 0) {
+                throw new IllegalArgumentException("行数不能为负数: " + rows);
+            }
+            this.rows = rows;
+        }
+        
+        public List<String> getColumns() {
+            return columns;
+        }
+        
+        public void setColumns(List<String> columns) {
+            this.columns = new ArrayList<>(columns);
+        }
+    }
+    
+    /**
+     * @return 默认负载：窄数值表、宽文本表和二进制表各一张
+     */
+    public static WorkloadSpec defaults() {
+        WorkloadSpec spec = new WorkloadSpec();
+        spec.tables.add(new TableSpec("narrow", 500_000,
+            List.of("INTEGER", "INTEGER", "REAL", "DECIMAL(12,2)", "BOOLEAN", "DATETIME", "VARCHAR(32)")));
+        spec.tables.add(new TableSpec("wide_text", 100_000,
+            List.of("VARCHAR(64)", "VARCHAR(255)", "TEXT", "TEXT", "TEXT", "TEXT", "INTEGER", "DATETIME",
+                    "TEXT", "TEXT", "VARCHAR(128)", "TEXT")));
+        spec.tables.add(new TableSpec("blobs", 20_000,
+            List.of("VARCHAR(64)", "INTEGER", "BLOB", "BLOB")));
+        return spec;
+    }
+    
+    public long totalRows() {
+        return tables.stream().mapToLong(TableSpec::getRows).sum();
+    }
+    
+    // Getters and Setters
+    public long getSeed() {
+        return seed;
+    }
+    
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+    
+    public double getNullRatio() {
+        return nullRatio;
+    }
+    
+    public void setNullRatio(double nullRatio) {
+        if (nullRatio < 0 || nullRatio > 1) {
+            throw new IllegalArgumentException("NULL比例必须在0到1之间: " + nullRatio);
+        }
+        this.nullRatio = nullRatio;
+    }
+    
+    public int getTextLength() {
+        return textLength;
+    }
+    
+    public void setTextLength(int textLength) {
+        if (textLength < 1) {
+            throw new IllegalArgumentException("文本长度必须大于0: " + textLength);
+        }
+        this.textLength = textLength;
+    }
+    
+    public int getBlobLength() {
+        return blobLength;
+    }
+    
+    public void setBlobLength(int blobLength) {
+        if (blobLength < 1) {
+            throw new IllegalArgumentException("二进制长度必须大于0: " + blobLength);
+        }
+        this.blobLength = blobLength;
+    }
+    
+    public double getSkew() {
+        return skew;
+    }
+    
+    public void setSkew(double skew) {
+        if (skew < 0 || skew >= 1) {
+            throw new IllegalArgumentException("偏斜度必须在0（含）到1（不含）之间: " + skew);
+        }
+        this.skew = skew;
+    }
+    
+    public String getTarget() {
+        return target;
+    }
+    
+    public void setTarget(String target) {
+        if (!"sqlite".equals(target) && !"mysql".equals(target)) {
+            throw new IllegalArgumentException("目标库只能是 sqlite 或 mysql: " + target);
+        }
+        this.target = target;
+    }
+    
+    public String getMysqlHost() {
+        return mysqlHost;
+    }
+    
+    public void setMysqlHost(String mysqlHost) {
+        this.mysqlHost = mysqlHost;
+    }
+    
+    public int getMysqlPort() {
+        return mysqlPort;
+    }
+    
+    public void setMysqlPort(int mysqlPort) {
+        this.mysqlPort = mysqlPort;
+    }
+    
+    public String getMysqlDatabase() {
+        return mysqlDatabase;
+    }
+    
+    public void setMysqlDatabase(String mysqlDatabase) {
+        this.mysqlDatabase = mysqlDatabase;
+    }
+    
+    public String getMysqlUser() {
+        return mysqlUser;
+    }
+    
+    public void setMysqlUser(String mysqlUser) {
+        this.mysqlUser = mysqlUser;
+    }
+    
+    public String getMysqlPassword() {
+        return mysqlPassword;
+    }
+    
+    public void setMysqlPassword(String mysqlPassword) {
+        this.mysqlPassword = mysqlPassword;
+    }
+    
+    public String getWorkDir() {
+        return workDir;
+    }
+    
+    public void setWorkDir(String workDir) {
+        this.workDir = workDir;
+    }
+    
+    public int getRuns() {
+        return runs;
+    }
+    
+    public void setRuns(int runs) {
+        if (runs < 1) {
+            throw new IllegalArgumentException("运行次数必须大于0: " + runs);
+        }
+        this.runs = runs;
+    }
+    
+    public Map<String, Object> getOptions() {
+        return options;
+    }
+    
+    public void setOptions(Map<String, Object> options) {
+        this.options = new LinkedHashMap<>(options);
+    }
+    
+    public List<TableSpec> getTables() {
+        return tables;
+    }
+    
+    public void setTables(List<TableSpec> tables) {
+        this.tables = new ArrayList<>(tables);
+    }
+}
@@ -1,5 +1,6 @@
 package cn.puthmc;
 
+import cn.puthmc.cli.MigrationCli;
 import cn.puthmc.ui.MainFrame;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,12 +13,18 @@ import java.awt.*;
 /**
  * DBBridge - 主应用程序入口
  * 支持SQLite和MySQL数据库之间的双向转换
+ * 带参数启动时转入命令行迁移（见 MigrationCli），不初始化图形界面
  */
 public class Main {
     
     private static final Logger logger = LoggerFactory.getLogger(Main.class);
     
     public static void main(String[] args) {
+        if (args.length > 0) {
+            MigrationCli.main(args);
+            return;
+        }
+        
         logger.info("DBBridge 正在启动...");
         
         // 设置系统外观
@@ -0,0 +1,270 @@
+package cn.puthmc.cli;
+
+import cn.puthmc.converter.DataMigrator;
+import cn.puthmc.converter.DataVerifier;
+import cn.puthmc.converter.MigrationOptions;
+import cn.puthmc.db.DatabaseManager;
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 无界面的命令行迁移入口
+ * 从 JSON 任务文件读取连接、表和迁移选项后直接驱动 DataMigrator，不初始化 AWT/Swing，适合服务器和定时任务。
+ * 退出码反映迁移结果，见 EXIT_* 常量。
+ * <pre>
+ * java -jar dbbridge.jar job.json
+ * java -jar dbbridge.jar --validate job.json
+ * </pre>
+ */
+public class MigrationCli {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MigrationCli.class);
+    
+    public static final int EXIT_OK = 0; // 迁移成功（开启校验时校验也通过）
+    public static final int EXIT_FAILED = 1; // 迁移失败，目标库已回滚
+    public static final int EXIT_USAGE = 2; // 参数或任务文件错误，未开始迁移
+    public static final int EXIT_VERIFY_MISMATCH = 3; // 迁移成功但校验发现不一致
+    public static final int EXIT_PARTIAL = 4; // 迁移失败，但并行模式下已有部分表提交
+    public static final int EXIT_INTERRUPTED = 130; // 被信号中断，迁移已取消（进程实际退出码由JVM按信号设置，SIGINT为130）
+    
+    // 收到终止信号后等待迁移回滚并返回的最长时间
+    private static final long SHUTDOWN_WAIT_SECONDS = 30;
+    
+    private static final String USAGE = String.join("\n",
+        "用法: java -jar dbbridge.jar [--validate] <任务文件.json>",
+        "  --validate  只检查任务文件和迁移选项，不连接数据库",
+        "退出码: 0 成功, 1 失败, 2 参数或任务文件错误, 3 校验不一致, 4 部分表已迁移, 130 被中断");
+    
+    private final ObjectMapper mapper = JsonMapper.builder()
+        .enable(JsonReadFeature.ALLOW_JAVA_COMMENTS)
+        .enable(JsonReadFeature.ALLOW_TRAILING_COMMA)
+        .build();
+    
+    private volatile boolean interrupted = false;
+    // 迁移结束并写完结果后计数，终止信号处理等待它
+    private final CountDownLatch finished = new CountDownLatch(1);
+    
+    public static void main(String[] args) {
+        System.exit(new MigrationCli().run(args));
+    }
+    
+    /**
+     * 执行命令行
+     * @param args 命令行参数
+     * @return 退出码
+     */
+    public int run(String[] args) {
+        // 确保迁移过程中任何间接依赖都不会初始化图形环境
+        System.setProperty("java.awt.headless", "true");
+        
+        boolean validateOnly = false;
+        String jobPath = null;
+        for (String arg : args) {
+            if ("--validate".equals(arg)) {
+                validateOnly = true;
+            } else if ("-h".equals(arg) || "--help".equals(arg)) {
+                System.out.println(USAGE);
+                return EXIT_OK;
+            } else if (arg.startsWith("-") || jobPath != null) {
+                System.err.println("无法识别的参数: " + arg);
+                System.err.println(USAGE);
+                return EXIT_USAGE;
+            } else {
+                jobPath = arg;
+            }
+        }
+        if (jobPath == null) {
+            System.err.println(USAGE);
+            return EXIT_USAGE;
+        }
+        
+        MigrationJob job;
+        MigrationOptions options;
+        DatabaseManager.ConnectionFactory sourceFactory;
+        DatabaseManager.ConnectionFactory targetFactory;
+        try {
+            job = mapper.readValue(new File(jobPath), MigrationJob.class);
+            if (job.getSource() == null || job.getTarget() == null) {
+                throw new IllegalArgumentException("任务文件必须包含 source 和 target");
+            }
+            options = buildOptions(job);
+            sourceFactory = job.getSource().toFactory("source");
+            targetFactory = job.getTarget().toFactory("target");
+        } catch (JacksonException e) {
+            System.err.println("任务文件格式错误: " + e.getOriginalMessage());
+            return EXIT_USAGE;
+        } catch (IOException e) {
+            System.err.println("无法读取任务文件: " + e.getMessage());
+            return EXIT_USAGE;
+        } catch (IllegalArgumentException e) {
+            System.err.println("任务文件无效: " + e.getMessage());
+            return EXIT_USAGE;
+        }
+        
+        if (validateOnly) {
+            System.out.println("任务文件有效: " + job.getSource().describe() + " -> " + job.getTarget().describe());
+            System.out.println(options);
+            return EXIT_OK;
+        }
+        
+        logger.info("命令行迁移: {} -> {}", job.getSource().describe(), job.getTarget().describe());
+        DataMigrator migrator = new DataMigrator(options);
+        Thread hook = shutdownHook(migrator);
+        Runtime.getRuntime().addShutdownHook(hook);
+        try {
+            DataMigrator.MigrationResult result = migrator.migrate(sourceFactory, targetFactory, new ConsoleProgress());
+            int exitCode = exitCode(result);
+            System.out.println(summarize(result, exitCode));
+            if (job.getReportFile() != null) {
+                try {
+                    File report = new File(job.getReportFile());
+                    mapper.writerWithDefaultPrettyPrinter().writeValue(report, report(result, exitCode));
+                } catch (IOException e) {
+                    logger.warn("写入迁移结果失败: {}", e.getMessage());
+                }
+            }
+            return exitCode;
+        } finally {
+            finished.countDown();
+            if (!interrupted) {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            }
+        }
+    }
+    
+    /**
+     * 由任务文件构建迁移选项，未知的选项名和非法取值都会抛出 IllegalArgumentException
+     */
+    private MigrationOptions buildOptions(MigrationJob job) throws IOException {
+        MigrationOptions options = new MigrationOptions();
+        try {
+            mapper.updateValue(options, job.getOptions());
+        } catch (IllegalArgumentException e) {
+            // 选项名错误或 setter 校验失败时 Jackson 会包装原始异常
+            Throwable cause = e;
+            while (cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            String message = cause instanceof JacksonException ? ((JacksonException) cause).getOriginalMessage() : cause.getMessage();
+            throw new IllegalArgumentException("迁移选项错误: " + message, e);
+        }
+        options.setIncludeTables(job.getTables());
+        options.setExcludeTables(job.getExcludeTables());
+        job.getTableWriteModes().forEach(options::setTableWriteMode);
+        job.getTableChangeColumns().forEach(options::setTableChangeColumn);
+        return options;
+    }
+    
+    /**
+     * 收到终止信号（Ctrl+C、kill）时取消迁移，并等待回滚完成、结果写出后再让进程退出
+     */
+    private Thread shutdownHook(DataMigrator migrator) {
+        return new Thread(() -> {
+            interrupted = true;
+            logger.warn("收到终止信号，正在取消迁移...");
+            migrator.cancel();
+            try {
+                finished.await(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "dbbridge-cli-shutdown");
+    }
+    
+    private int exitCode(DataMigrator.MigrationResult result) {
+        if (interrupted) {
+            return EXIT_INTERRUPTED;
+        }
+        if (!result.isSuccess()) {
+            return result.getMigratedTables() > 0 ? EXIT_PARTIAL : EXIT_FAILED;
+        }
+        DataVerifier.VerificationReport verification = result.getVerification();
+        if (verification != null && !verification.isMatch()) {
+            return EXIT_VERIFY_MISMATCH;
+        }
+        return EXIT_OK;
+    }
+    
+    private static String summarize(DataMigrator.MigrationResult result, int exitCode) {
+        if (result.isSuccess()) {
+            return String.format("迁移完成: %d/%d 个表, %d 行, 耗时 %.1f 秒%s (退出码 %d)",
+                                 result.getMigratedTables(), result.getTotalTables(), result.getTotalRows(),
+                                 result.getDuration() / 1000.0,
+                                 result.getVerification() == null ? "" :
+                                     result.getVerification().isMatch() ? ", 校验通过" : ", 校验不一致",
+                                 exitCode);
+        }
+        return String.format("迁移失败: %s, 已提交 %d/%d 个表 (退出码 %d)",
+                             result.getErrorMessage(), result.getMigratedTables(), result.getTotalTables(), exitCode);
+    }
+    
+    private static Map<String, Object> report(DataMigrator.MigrationResult result, int exitCode) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("exitCode", exitCode);
+        report.put("success", result.isSuccess());
+        report.put("error", result.getErrorMessage());
+        report.put("totalTables", result.getTotalTables());
+        report.put("migratedTables", result.getMigratedTables());
+        report.put("rows", result.getTotalRows());
+        report.put("createdIndexes", result.getCreatedIndexes());
+        report.put("failedIndexes", result.getFailedIndexes());
+        report.put("durationMillis", result.getDuration());
+        report.put("phaseMillis", result.getPhaseMillis());
+        DataVerifier.VerificationReport verification = result.getVerification();
+        if (verification != null) {
+            List<String> mismatched = new ArrayList<>();
+            for (DataVerifier.TableReport table : verification.getMismatchedTables()) {
+                mismatched.add(table.toString());
+            }
+            Map<String, Object> verify = new LinkedHashMap<>();
+            verify.put("match", verification.isMatch());
+            verify.put("mismatchedTables", mismatched);
+            report.put("verification", verify);
+        }
+        return report;
+    }
+    
+    /**
+     * 把进度输出到标准输出，进度按整10%输出一次，避免刷屏
+     * DataMigrator 已保证回调串行调用
+     */
+    private static class ConsoleProgress implements DataMigrator.ProgressCallback {
+        private int lastDecile = -1;
+        
+        @Override
+        public void onProgress(String message, double progress) {
+            int decile = (int) (progress * 10);
+            if (decile != lastDecile) {
+                lastDecile = decile;
+                System.out.printf("[%3d%%] %s%n", (int) (progress * 100), message);
+            }
+        }
+        
+        @Override
+        public void onTableStart(String tableName, long totalRows) {
+        }
+        
+        @Override
+        public void onTableComplete(String tableName, long migratedRows) {
+            System.out.printf("表 %s 完成: %d 行%n", tableName, migratedRows);
+        }
+        
+        @Override
+        public void onError(String message, Exception error) {
+            System.err.println(message);
+        }
+    }
+}
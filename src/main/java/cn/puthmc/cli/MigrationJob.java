@@ -0,0 +1,171 @@
+package cn.puthmc.cli;
+
+import cn.puthmc.converter.MigrationOptions;
+import cn.puthmc.db.DatabaseManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 命令行迁移任务定义
+ * 从 JSON 文件读取，包含源和目标连接、要迁移的表和迁移选项
+ */
+public class MigrationJob {
+    
+    private ConnectionSpec source;
+    private ConnectionSpec target;
+    private List<String> tables = new ArrayList<>(); // 只迁移这些表，为空时迁移所有表
+    private List<String> excludeTables = new ArrayList<>(); // 不迁移的表
+    private Map<String, Object> options = new LinkedHashMap<>(); // 迁移选项，键为 MigrationOptions 的属性名
+    private Map<String, MigrationOptions.WriteMode> tableWriteModes = new LinkedHashMap<>(); // 按表指定的写入方式
+    private Map<String, String> tableChangeColumns = new LinkedHashMap<>(); // 按表指定的增量同步变更列
+    private String reportFile; // 迁移结果JSON的输出路径，不设置时不输出
+    
+    /**
+     * 数据库连接定义
+     */
+    public static class ConnectionSpec {
+        private String type; // sqlite 或 mysql
+        private String file; // SQLite 文件路径
+        private String host = "localhost";
+        private int port = 3306;
+        private String database;
+        private String username;
+        private String password;
+        private String passwordEnv; // 从该环境变量读取密码，避免把密码写在任务文件中
+        
+        /**
+         * 创建连接工厂，连接参数不完整时抛出异常
+         * @param role 连接角色，用于错误信息
+         * @return 连接工厂
+         */
+        public DatabaseManager.ConnectionFactory toFactory(String role) {
+            if ("sqlite".equalsIgnoreCase(type)) {
+                if (file == null || file.isEmpty()) {
+                    throw new IllegalArgumentException(role + " 为SQLite时必须指定 file");
+                }
+                return DatabaseManager.sqliteConnectionFactory(file);
+            }
+            if ("mysql".equalsIgnoreCase(type)) {
+                if (database == null || database.isEmpty() || username == null) {
+                    throw new IllegalArgumentException(role + " 为MySQL时必须指定 database 和 username");
+                }
+                return DatabaseManager.mysqlConnectionFactory(host, port, database, username, resolvePassword(role));
+            }
+            throw new IllegalArgumentException(role + " 的 type 只能是 sqlite 或 mysql: " + type);
+        }
+        
+        private String resolvePassword(String role) {
+            if (passwordEnv == null) {
+                return password == null ? "" : password;
+            }
+            String value = System.getenv(passwordEnv);
+            if (value == null) {
+                throw new IllegalArgumentException(role + " 的密码环境变量未设置: " + passwordEnv);
+            }
+            return value;
+        }
+        
+        /**
+         * @return 不含密码的连接描述
+         */
+        public String describe() {
+            return "sqlite".equalsIgnoreCase(type) ? "sqlite:" + file : "mysql://" + host + ":" + port + "/" + database;
+        }
+        
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+        
+        public String getFile() { return file; }
+        public void setFile(String file) { this.file = file; }
+        
+        public String getHost() { return host; }
+        public void setHost(String host) { this.host = host; }
+        
+        public int getPort() { return port; }
+        public void setPort(int port) {
+            if (port < 1 || port > 65535) {
+                throw new IllegalArgumentException("端口必须在1到65535之间: " + port);
+            }
+            this.port = port;
+        }
+        
+        public String getDatabase() { return database; }
+        public void setDatabase(String database) { this.database = database; }
+        
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+        
+        public String getPassword() { return password; }
+        public void setPassword(String password) { this.password = password; }
+        
+        public String getPasswordEnv() { return passwordEnv; }
+        public void setPasswordEnv(String passwordEnv) { this.passwordEnv = passwordEnv; }
+    }
+    
+    public ConnectionSpec getSource() {
+        return source;
+    }
+    
+    public void setSource(ConnectionSpec source) {
+        this.source = source;
+    }
+    
+    public ConnectionSpec getTarget() {
+        return target;
+    }
+    
+    public void setTarget(ConnectionSpec target) {
+        this.target = target;
+    }
+    
+    public List<String> getTables() {
+        return tables;
+    }
+    
+    public void setTables(List<String> tables) {
+        this.tables = new ArrayList<>(tables);
+    }
+    
+    public List<String> getExcludeTables() {
+        return excludeTables;
+    }
+    
+    public void setExcludeTables(List<String> excludeTables) {
+        this.excludeTables = new ArrayList<>(excludeTables);
+    }
+    
+    public Map<String, Object> getOptions() {
+        return options;
+    }
+    
+    public void setOptions(Map<String, Object> options) {
+        this.options = new LinkedHashMap<>(options);
+    }
+    
+    public Map<String, MigrationOptions.WriteMode> getTableWriteModes() {
+        return tableWriteModes;
+    }
+    
+    public void setTableWriteModes(Map<String, MigrationOptions.WriteMode> tableWriteModes) {
+        this.tableWriteModes = new LinkedHashMap<>(tableWriteModes);
+    }
+    
+    public Map<String, String> getTableChangeColumns() {
+        return tableChangeColumns;
+    }
+    
+    public void setTableChangeColumns(Map<String, String> tableChangeColumns) {
+        this.tableChangeColumns = new LinkedHashMap<>(tableChangeColumns);
+    }
+    
+    public String getReportFile() {
+        return reportFile;
+    }
+    
+    public void setReportFile(String reportFile) {
+        this.reportFile = reportFile;
+    }
+}
@@ -0,0 +1,173 @@
+package cn.puthmc.converter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 批次大小和提交间隔的自动调整器
+ * 每写完一个满批次记录写入耗时和估算数据量，用指数加权平均得到每行耗时和每行字节数，
+ * 再把后续批次的行数调整到同时满足目标耗时和目标数据量的值，每次最多放大或缩小一倍。
+ * 提交间隔按配置的提交间隔与批次行数之比随批次大小缩放，并且不小于一个批次。
+ * 同一张表的各个分块共用一个调整器，record 和 getter 可以在不同线程中调用。
+ */
+public class BatchTuner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BatchTuner.class);
+    
+    // 首批使用的探测批次行数，宽行表在测得行宽之前不会一次读入过多数据
+    private static final int PROBE_BATCH_SIZE = 100;
+    
+    private static final int MIN_BATCH_SIZE = 10;
+    
+    // 指数加权平均中新样本的权重
+    private static final double SMOOTHING = 0.3;
+    
+    // 单次调整的最大倍数
+    private static final double MAX_STEP = 2.0;
+    
+    // 变化小于当前值的这个比例时不调整，避免批次大小来回抖动
+    private static final double CHANGE_THRESHOLD = 0.1;
+    
+    /**
+     * 调整结果快照，记录在迁移结果中
+     */
+    public static class Settings {
+        private final int batchSize;
+        private final int commitInterval;
+        private final int adjustments;
+        private final double averageBatchMillis;
+        private final long averageRowBytes;
+        
+        public Settings(int batchSize, int commitInterval, int adjustments, double averageBatchMillis,
+                        long averageRowBytes) {
+            this.batchSize = batchSize;
+            this.commitInterval = commitInterval;
+            this.adjustments = adjustments;
+            this.averageBatchMillis = averageBatchMillis;
+            this.averageRowBytes = averageRowBytes;
+        }
+        
+        public int getBatchSize() { return batchSize; }
+        public int getCommitInterval() { return commitInterval; }
+        public int getAdjustments() { return adjustments; }
+        public double getAverageBatchMillis() { return averageBatchMillis; }
+        public long getAverageRowBytes() { return averageRowBytes; }
+        
+        @Override
+        public String toString() {
+            return String.format("{batchSize=%d, commitInterval=%d, adjustments=%d, batchMillis=%.1f, rowBytes=%d}",
+                                 batchSize, commitInterval, adjustments, averageBatchMillis, averageRowBytes);
+        }
+    }
+    
+    private final String tableName;
+    private final boolean adaptive;
+    private final int maxBatchSize;
+    private final double commitRatio;
+    private final double targetNanos;
+    private final double targetBytes;
+    
+    private volatile int batchSize;
+    private volatile int commitInterval;
+    
+    // 用显式锁而不是 synchronized：虚拟线程在锁内写日志阻塞时不会占住载体线程
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    // 以下字段只在持有 lock 时更新
+    private double rowNanos;
+    private double rowBytes;
+    private long samples;
+    private int adjustments;
+    
+    /**
+     * @param tableName 表名，用于日志
+     * @param options 迁移选项
+     */
+    public BatchTuner(String tableName, MigrationOptions options) {
+        this.tableName = tableName;
+        this.adaptive = options.isAdaptiveBatching();
+        this.maxBatchSize = Math.max(MIN_BATCH_SIZE, options.getMaxBatchSize());
+        this.commitRatio = Math.max(1.0, (double) options.getCommitInterval() / options.getBatchSize());
+        this.targetNanos = options.getTargetBatchMillis() * 1_000_000.0;
+        this.targetBytes = options.getTargetBatchBytes();
+        
+        if (adaptive) {
+            this.batchSize = Math.min(maxBatchSize, Math.min(PROBE_BATCH_SIZE, options.getBatchSize()));
+            this.commitInterval = commitIntervalFor(batchSize);
+        } else {
+            this.batchSize = options.getBatchSize();
+            this.commitInterval = options.getCommitInterval();
+        }
+    }
+    
+    /**
+     * 记录一个满批次的写入情况并调整后续批次的行数
+     * @param rows 批次行数
+     * @param bytes 批次估算字节数
+     * @param nanos 写入耗时（纳秒）
+     */
+    public void record(int rows, long bytes, long nanos) {
+        lock.lock();
+        try {
+            if (rows <= 0) {
+                return;
+            }
+        
+            double nanosPerRow = Math.max(1.0, (double) nanos / rows);
+            double bytesPerRow = Math.max(1.0, (double) bytes / rows);
+            if (samples == 0) {
+                rowNanos = nanosPerRow;
+                rowBytes = bytesPerRow;
+            } else {
+                rowNanos += SMOOTHING * (nanosPerRow - rowNanos);
+                rowBytes += SMOOTHING * (bytesPerRow - rowBytes);
+            }
+            samples++;
+        
+            if (!adaptive) {
+                return;
+            }
+        
+            int current = batchSize;
+            double ideal = Math.min(targetNanos / rowNanos, targetBytes / rowBytes);
+            ideal = Math.max(current / MAX_STEP, Math.min(current * MAX_STEP, ideal));
+            int next = (int) Math.max(MIN_BATCH_SIZE, Math.min(maxBatchSize, ideal));
+        
+            if (Math.abs(next - current) >= current * CHANGE_THRESHOLD) {
+                batchSize = next;
+                commitInterval = commitIntervalFor(next);
+                adjustments++;
+                logger.debug("表 {} 批次行数调整为 {}，提交间隔 {} 行（每行 {} 字节, {} 微秒）",
+                             tableName, next, commitInterval, (long) rowBytes, String.format("%.2f", rowNanos / 1000));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private int commitIntervalFor(int size) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.round(size * commitRatio));
+    }
+    
+    public int getBatchSize() {
+        return batchSize;
+    }
+    
+    public int getCommitInterval() {
+        return commitInterval;
+    }
+    
+    /**
+     * @return 当前调整结果
+     */
+    public Settings snapshot() {
+        lock.lock();
+        try {
+            return new Settings(batchSize, commitInterval, adjustments, rowNanos * batchSize / 1_000_000.0, (long) rowBytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package cn.puthmc.converter;
+
+import java.sql.SQLException;
+
+/**
+ * 批次写入器
+ * 把转换后的行批次写入目标表，事务提交由调用方控制
+ */
+public interface BatchWriter extends AutoCloseable {
+    
+    /**
+     * 写入一个批次
+     * @param batch 行批次
+     */
+    void write(RowBatch batch) throws SQLException;
+    
+    @Override
+    void close() throws SQLException;
+}
@@ -0,0 +1,265 @@
+package cn.puthmc.converter;
+
+import cn.puthmc.db.DatabaseManager;
+import cn.puthmc.model.ColumnInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 数据转换计划
+ * 每个表编译一次：按列的源数据类型和目标数据库类型选出专用转换器，
+ * 逐行转换时只需按列下标取转换器，不再做字符串匹配
+ */
+public class ConversionPlan {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ConversionPlan.class);
+    
+    private static final Integer ONE = 1;
+    private static final Integer ZERO = 0;
+    
+    private static final String[] SPATIAL_TYPES = {
+        "GEOMETRY", "POINT", "LINESTRING", "POLYGON",
+        "MULTIPOINT", "MULTILINESTRING", "MULTIPOLYGON", "GEOMETRYCOLLECTION"
+    };
+    
+    // 转换器只与类型有关，不同表的同类型列共用
+    private static final Map<String, ValueConverter> CONVERTER_CACHE = new ConcurrentHashMap<>();
+    
+    /**
+     * 单列值转换器
+     */
+    @FunctionalInterface
+    public interface ValueConverter {
+        Object convert(Object value);
+    }
+    
+    // 布尔值统一转为 1/0
+    private static final ValueConverter BOOLEAN_TO_INT = value ->
+        value instanceof Boolean ? (((Boolean) value) ? ONE : ZERO) : value;
+    
+    // 目标为SQLite时日期时间以文本保存
+    private static final ValueConverter BOOLEAN_TO_INT_DATE_TO_TEXT = value -> {
+        if (value instanceof Boolean) {
+            return ((Boolean) value) ? ONE : ZERO;
+        }
+        if (value instanceof java.util.Date) {
+            return value.toString();
+        }
+        return value;
+    };
+    
+    private final ValueConverter[] converters;
+    private final RowBatch.ValueKind[] kinds;
+    private final boolean typedReads;
+    
+    private ConversionPlan(ValueConverter[] converters, RowBatch.ValueKind[] kinds, boolean typedReads) {
+        this.converters = converters;
+        this.kinds = kinds;
+        this.typedReads = typedReads;
+    }
+    
+    /**
+     * 为一组列编译转换计划
+     * @param columns 列信息
+     * @param sourceType 源数据库类型
+     * @param targetType 目标数据库类型
+     * @return 转换计划
+     */
+    public static ConversionPlan compile(List<ColumnInfo> columns, DatabaseManager.DatabaseType sourceType,
+                                         DatabaseManager.DatabaseType targetType) {
+        ValueConverter[] converters = new ValueConverter[columns.size()];
+        RowBatch.ValueKind[] kinds = new RowBatch.ValueKind[columns.size()];
+        for (int i = 0; i < converters.length; i++) {
+            ColumnInfo column = columns.get(i);
+            String columnType = column.getDataType() == null ? "" : column.getDataType().toUpperCase();
+            converters[i] = CONVERTER_CACHE.computeIfAbsent(targetType + ":" + columnType,
+                                                            key -> compileColumn(columnType, targetType));
+            kinds[i] = resolveKind(column, columnType, sourceType, targetType);
+        }
+        // MySQL 的列类型是严格的，可以直接用类型化的方法读取
+        return new ConversionPlan(converters, kinds, sourceType == DatabaseManager.DatabaseType.MYSQL);
+    }
+    
+    /**
+     * 按计划中的列存储方式创建行批次
+     * @param capacity 批次容量
+     * @return 行批次
+     */
+    public RowBatch newBatch(int capacity) {
+        return new RowBatch(kinds, capacity, typedReads);
+    }
+    
+    public RowBatch.ValueKind kind(int column) {
+        return kinds[column];
+    }
+    
+    /**
+     * 获取指定列的转换器
+     * @param column 列下标（从0开始）
+     * @return 转换器
+     */
+    public ValueConverter get(int column) {
+        return converters[column];
+    }
+    
+    /**
+     * 转换一个批次中的所有值
+     * @param batch 行批次
+     */
+    public void apply(RowBatch batch) {
+        int rows = batch.size();
+        for (int i = 0; i < converters.length; i++) {
+            ValueConverter converter = converters[i];
+            for (int row = 0; row < rows; row++) {
+                // 基本类型存放的数值列，转换器对其不做任何改动
+                if (batch.isPrimitive(i, row)) {
+                    continue;
+                }
+                Object value = batch.get(i, row);
+                if (value != null) {
+                    batch.set(i, row, converter.convert(value));
+                }
+            }
+        }
+    }
+    
+    /**
+     * 选择列的存储方式
+     * 只有转换器对整数、浮点数和字节数组原样返回的列才按基本类型存放
+     * @param column 列信息
+     * @param columnType 大写的源数据类型
+     * @param sourceType 源数据库类型
+     * @param targetType 目标数据库类型
+     * @return 存储方式
+     */
+    private static RowBatch.ValueKind resolveKind(ColumnInfo column, String columnType,
+                                                  DatabaseManager.DatabaseType sourceType,
+                                                  DatabaseManager.DatabaseType targetType) {
+        boolean toSQLite = targetType == DatabaseManager.DatabaseType.SQLITE;
+        if (columnType.contains("BIT") || columnType.contains("BOOL") || columnType.contains("YEAR") ||
+            (toSQLite && (columnType.contains("JSON") || columnType.contains("ENUM") || columnType.contains("SET")))) {
+            return RowBatch.ValueKind.OBJECT;
+        }
+        
+        if (sourceType == DatabaseManager.DatabaseType.SQLITE) {
+            // SQLite 按声明类型的亲和性判断，驱动把 BLOB 列报告为 VARCHAR
+            if (columnType.contains("INT")) {
+                return RowBatch.ValueKind.LONG;
+            }
+            if (columnType.contains("REAL") || columnType.contains("FLOA") || columnType.contains("DOUB")) {
+                return RowBatch.ValueKind.DOUBLE;
+            }
+            if (columnType.contains("BLOB")) {
+                return RowBatch.ValueKind.BYTES;
+            }
+            return RowBatch.ValueKind.OBJECT;
+        }
+        
+        switch (column.getJdbcType()) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return RowBatch.ValueKind.LONG;
+            case Types.BIGINT:
+                // BIGINT UNSIGNED 超出 long 的范围
+                return columnType.contains("UNSIGNED") ? RowBatch.ValueKind.OBJECT : RowBatch.ValueKind.LONG;
+            case Types.DOUBLE:
+                // FLOAT 列按 Float 读取，改为 double 会改变舍入，不做特化
+                return RowBatch.ValueKind.DOUBLE;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return RowBatch.ValueKind.BYTES;
+            default:
+                return RowBatch.ValueKind.OBJECT;
+        }
+    }
+    
+    /**
+     * 按列类型选择转换器
+     * 规则与逐值判断时一致：布尔值 -> BIT -> JSON -> ENUM/SET -> YEAR -> 日期时间 -> 空间类型 -> 字符串转数值
+     * @param columnType 大写的源数据类型
+     * @param targetType 目标数据库类型
+     * @return 转换器，输入值非空
+     */
+    private static ValueConverter compileColumn(String columnType, DatabaseManager.DatabaseType targetType) {
+        boolean toSQLite = targetType == DatabaseManager.DatabaseType.SQLITE;
+        boolean bit = columnType.contains("BIT");
+        
+        // MySQL JSON / ENUM / SET 转SQLite TEXT
+        if (toSQLite && (columnType.contains("JSON") || columnType.contains("ENUM") || columnType.contains("SET"))) {
+            return value -> {
+                if (value instanceof Boolean) {
+                    return ((Boolean) value) ? ONE : ZERO;
+                }
+                if (bit && value instanceof Number) {
+                    return ((Number) value).intValue() != 0 ? ONE : ZERO;
+                }
+                return value.toString();
+            };
+        }
+        
+        // MySQL YEAR 转SQLite INTEGER
+        if (toSQLite && columnType.contains("YEAR")) {
+            return value -> {
+                if (value instanceof Boolean) {
+                    return ((Boolean) value) ? ONE : ZERO;
+                }
+                if (value instanceof Number) {
+                    return bit ? (((Number) value).intValue() != 0 ? ONE : ZERO) : ((Number) value).intValue();
+                }
+                // Connector/J 默认把 YEAR 读成 java.sql.Date
+                if (value instanceof java.sql.Date) {
+                    return ((java.sql.Date) value).toLocalDate().getYear();
+                }
+                return Integer.parseInt(value.toString());
+            };
+        }
+        
+        boolean spatial = false;
+        for (String spatialType : SPATIAL_TYPES) {
+            if (columnType.contains(spatialType)) {
+                spatial = true;
+                break;
+            }
+        }
+        
+        // 空间数据保持原始格式（WKT字符串或WKB字节数组）
+        boolean parseNumber = !spatial && targetType == DatabaseManager.DatabaseType.MYSQL &&
+            (columnType.contains("INT") || columnType.contains("DECIMAL") || columnType.contains("NUMERIC") ||
+             columnType.contains("FLOAT") || columnType.contains("DOUBLE"));
+        
+        if (!bit && !parseNumber) {
+            return toSQLite ? BOOLEAN_TO_INT_DATE_TO_TEXT : BOOLEAN_TO_INT;
+        }
+        
+        boolean parseAsLong = columnType.contains("INT");
+        return value -> {
+            if (value instanceof Boolean) {
+                return ((Boolean) value) ? ONE : ZERO;
+            }
+            if (bit && value instanceof Number) {
+                return ((Number) value).intValue() != 0 ? ONE : ZERO;
+            }
+            if (toSQLite && value instanceof java.util.Date) {
+                return value.toString();
+            }
+            // 处理字符串到数值的转换
+            if (parseNumber && value instanceof String) {
+                String stringValue = (String) value;
+                try {
+                    return parseAsLong ? (Object) Long.parseLong(stringValue) : (Object) Double.parseDouble(stringValue);
+                } catch (NumberFormatException e) {
+                    logger.warn("无法转换字符串 '{}' 为数值类型 {}", stringValue, columnType);
+                }
+            }
+            return value;
+        };
+    }
+}
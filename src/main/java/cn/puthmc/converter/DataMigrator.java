@@ -1,15 +1,43 @@
 package cn.puthmc.converter;
 
+import cn.puthmc.db.ConnectionPool;
 import cn.puthmc.db.DatabaseManager;
+import cn.puthmc.db.SQLiteFastLoad;
 import cn.puthmc.db.SchemaAnalyzer;
+import cn.puthmc.db.SchemaCache;
+import cn.puthmc.metrics.MigrationMetrics;
+import cn.puthmc.metrics.PrometheusExporter;
 import cn.puthmc.model.ColumnInfo;
 import cn.puthmc.model.TableInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.sql.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 
 /**
@@ -20,13 +48,44 @@ public class DataMigrator {
     
     private static final Logger logger = LoggerFactory.getLogger(DataMigrator.class);
     
-    private static final int BATCH_SIZE = 1000; // 批处理大小
-    private static final int COMMIT_INTERVAL = 5000; // 提交间隔
+    
+    // 数据复制阶段在总进度中所占的区间（0.2 之后），其后为索引构建阶段
+    private static final double DATA_PROGRESS_SPAN = IndexBuilder.PROGRESS_START - 0.2;
+    
+    private final MigrationOptions options;
     
     private volatile boolean cancelled = false;
     
+    // 本次迁移的断点日志，未启用断点时为null
+    private volatile MigrationCheckpoint checkpoint;
+    
+    // 增量同步的水位，未开启增量同步时为null
+    private volatile SyncWatermarks watermarks;
+    
+    // 各表的预期行数，用于进度和预计剩余时间
+    private volatile RowCountTracker rowCounts;
+    
+    // 目标库的并发限制，整表复制和每个分块复制各占一个许可
+    private volatile TargetConcurrencyLimiter targetLimiter = TargetConcurrencyLimiter.UNLIMITED;
+    
+    // 本次迁移在目标库新建的表
+    private final Set<String> createdTables = ConcurrentHashMap.newKeySet();
+    
+    public DataMigrator() {
+        this(new MigrationOptions());
+    }
+    
+    public DataMigrator(MigrationOptions options) {
+        this.options = options;
+    }
+    
+    public MigrationOptions getOptions() {
+        return options;
+    }
+    
     /**
      * 迁移进度回调接口
+     * 并行迁移时回调会被串行化后再调用，实现类无需自行加锁
      */
     public interface ProgressCallback {
         void onProgress(String message, double progress);
@@ -44,41 +103,44 @@ public class DataMigrator {
      */
     public MigrationResult migrate(Connection sourceConn, Connection targetConn, ProgressCallback callback) {
         MigrationResult result = new MigrationResult();
+        startMetricsExport();
         
         try {
-            callback.onProgress("开始分析源数据库结构...", 0.0);
-            
-            // 获取源数据库类型
             DatabaseManager.DatabaseType sourceType = DatabaseManager.getDatabaseType(sourceConn);
             DatabaseManager.DatabaseType targetType = DatabaseManager.getDatabaseType(targetConn);
             
-            logger.info("开始数据迁移: {} -> {}", sourceType, targetType);
+            // 关闭自动提交
+            targetConn.setAutoCommit(false);
             
-            // 分析源数据库结构
-            List<TableInfo> tables = SchemaAnalyzer.getAllTables(sourceConn);
-            result.setTotalTables(tables.size());
+            checkpoint = openCheckpoint(sourceType, targetType);
+            watermarks = openWatermarks(sourceType, targetType);
+            targetLimiter = TargetConcurrencyLimiter.forTarget(targetConn, options.getMaxTargetConcurrency());
             
+            long phaseStart = System.nanoTime();
+            List<TableInfo> tables = prepareTables(sourceConn, null, targetConn, sourceType, targetType, callback, result);
             if (tables.isEmpty()) {
-                callback.onProgress("源数据库中没有找到表", 1.0);
                 return result;
             }
-            
-            callback.onProgress(String.format("找到 %d 个表，开始创建表结构...", tables.size()), 0.1);
-            
-            // 关闭自动提交
-            targetConn.setAutoCommit(false);
-            
-            // 创建表结构
-            createTables(tables, targetConn, targetType, callback);
-            
-            callback.onProgress("表结构创建完成，开始迁移数据...", 0.2);
+            result.endPhase("schema", phaseStart);
             
             // 迁移数据
+            phaseStart = System.nanoTime();
             migrateData(sourceConn, targetConn, tables, sourceType, targetType, callback, result);
             
             // 提交事务
-            targetConn.commit();
+            commitTarget(targetConn);
+            result.endPhase("data", phaseStart);
+            
+            // 数据装载完成后再建索引
+            if (options.isBuildIndexes()) {
+                phaseStart = System.nanoTime();
+                newIndexBuilder(targetType, callback, result).build(targetConn, planIndexes(tables, targetType));
+                result.endPhase("indexes", phaseStart);
+                checkCancelled();
+            }
             
+            saveWatermarks();
+            finishCheckpoint();
             result.setSuccess(true);
             callback.onProgress("数据迁移完成！", 1.0);
             
@@ -107,6 +169,502 @@ public class DataMigrator {
         return result;
     }
     
+    /**
+     * 使用连接工厂执行数据库迁移
+     * 并行度大于1时，每个工作线程从工厂获取独立的源/目标连接，按表并行迁移。
+     * 并行模式下每个表完成后单独提交，失败时只回滚未完成的表。
+     * 开启SQLite快速装载且目标为SQLite文件时，数据写入暂存文件，成功后才替换目标文件。
+     * 开启校验时，迁移成功后再比较源表和目标表的数据，结果记录在迁移结果中。
+     * @param sourceFactory 源数据库连接工厂
+     * @param targetFactory 目标数据库连接工厂
+     * @param callback 进度回调
+     * @return 迁移结果
+     */
+    public MigrationResult migrate(DatabaseManager.ConnectionFactory sourceFactory,
+                                   DatabaseManager.ConnectionFactory targetFactory, ProgressCallback callback) {
+        startMetricsExport();
+        try (ConnectionPool sourcePool = openPool(sourceFactory, options.getSourceInitSql())) {
+            MigrationResult result = load(sourcePool, targetFactory, callback);
+            if (result.isSuccess() && options.isVerify() && !cancelled) {
+                try (ConnectionPool targetPool = openPool(targetFactory, options.getTargetInitSql())) {
+                    verify(sourcePool, targetPool, callback, result);
+                }
+            }
+            return result;
+        }
+    }
+    
+    /**
+     * 用连接池包装连接工厂，工作线程、索引构建和校验借用池中的连接
+     * 未指定池大小时按本次迁移同时使用的连接数计算：主连接，加上数据复制（每个表级工作线程一个连接、
+     * 分块复制时再加分块并行度个，后台统计行数时再加一个）、索引构建和校验三个阶段中的最大值
+     * @param factory 连接工厂
+     * @param initSql 新建连接后执行的SQL
+     * @return 连接池
+     */
+    private ConnectionPool openPool(DatabaseManager.ConnectionFactory factory, List<String> initSql) {
+        int size = options.getConnectionPoolSize();
+        if (size == 0) {
+            int copy = options.getParallelism() * (options.getChunkParallelism() + 1)
+                       + (options.getRowCountMode() == MigrationOptions.RowCountMode.ESTIMATE_THEN_EXACT ? 1 : 0);
+            int verify = Math.max(2, options.getParallelism() * 2);
+            size = 1 + Math.max(copy, Math.max(options.getIndexParallelism(), verify));
+        }
+        ConnectionPool.Config config = new ConnectionPool.Config();
+        config.setMaxSize(size);
+        config.setStatementCacheSize(options.getStatementCacheSize());
+        config.setInitSql(initSql);
+        return new ConnectionPool(factory, config);
+    }
+    
+    /**
+     * 按迁移选项开启指标导出，导出失败不影响迁移
+     */
+    private void startMetricsExport() {
+        if (options.isMetricsJmx()) {
+            MigrationMetrics.getInstance().registerMBean();
+        }
+        if (options.getMetricsHttpPort() > 0) {
+            try {
+                PrometheusExporter.start(options.getMetricsHttpPort());
+            } catch (IOException e) {
+                logger.warn("开启Prometheus指标导出失败，端口 {}: {}", options.getMetricsHttpPort(), e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * 装载数据，目标为SQLite文件时按需使用快速装载
+     */
+    private MigrationResult load(DatabaseManager.ConnectionFactory sourceFactory,
+                                 DatabaseManager.ConnectionFactory targetFactory, ProgressCallback callback) {
+        if (!options.isSqliteFastLoad() || !(targetFactory instanceof DatabaseManager.SQLiteConnectionFactory)) {
+            return migratePooled(sourceFactory, targetFactory, callback);
+        }
+        if (options.getCheckpointFile() != null) {
+            // 快速装载失败时会丢弃暂存文件，断点无从续起
+            logger.info("已启用断点续传，不使用SQLite快速装载");
+            return migratePooled(sourceFactory, targetFactory, callback);
+        }
+        if (options.isDeltaSync()) {
+            // 快速装载整体替换目标文件，增量同步需要保留目标库中已有的表
+            logger.info("增量同步模式，不使用SQLite快速装载");
+            return migratePooled(sourceFactory, targetFactory, callback);
+        }
+        
+        // SQLite快速装载：写入暂存文件，成功后原子替换目标文件
+        SQLiteFastLoad fastLoad = new SQLiteFastLoad(((DatabaseManager.SQLiteConnectionFactory) targetFactory).getFilePath());
+        try {
+            fastLoad.prepare();
+        } catch (IOException e) {
+            logger.error("准备SQLite暂存文件失败", e);
+            MigrationResult result = new MigrationResult();
+            result.setErrorMessage(e.getMessage());
+            callback.onError("迁移失败: " + e.getMessage(), e);
+            return result;
+        }
+        
+        // 替换目标文件前连接池已关闭，暂存文件上不再有打开的连接
+        MigrationResult result = migratePooled(sourceFactory, fastLoad, callback);
+        if (!result.isSuccess()) {
+            fastLoad.discard();
+            return result;
+        }
+        
+        long phaseStart = System.nanoTime();
+        try {
+            fastLoad.publish();
+            result.endPhase("publish", phaseStart);
+        } catch (IOException e) {
+            logger.error("替换SQLite目标文件失败", e);
+            fastLoad.discard();
+            result.setSuccess(false);
+            result.setErrorMessage(e.getMessage());
+            callback.onError("迁移失败: " + e.getMessage(), e);
+        }
+        return result;
+    }
+    
+    /**
+     * 通过目标库连接池执行迁移，返回前关闭连接池
+     */
+    private MigrationResult migratePooled(DatabaseManager.ConnectionFactory sourceFactory,
+                                          DatabaseManager.ConnectionFactory targetFactory, ProgressCallback callback) {
+        try (ConnectionPool targetPool = openPool(targetFactory, options.getTargetInitSql())) {
+            return migrateWithFactories(sourceFactory, targetPool, callback);
+        }
+    }
+    
+    /**
+     * 校验迁移后的数据，校验本身失败不影响迁移结果
+     */
+    private void verify(DatabaseManager.ConnectionFactory sourceFactory, DatabaseManager.ConnectionFactory targetFactory,
+                        ProgressCallback callback, MigrationResult result) {
+        callback.onProgress("开始校验数据...", 1.0);
+        long phaseStart = System.nanoTime();
+        try {
+            DataVerifier.VerificationReport report = new DataVerifier(options).verify(sourceFactory, targetFactory);
+            result.setVerification(report);
+            result.endPhase("verify", phaseStart);
+            if (report.isMatch()) {
+                callback.onProgress(String.format("数据校验通过: %d 个表一致", report.getTables().size()), 1.0);
+            } else {
+                callback.onProgress(String.format("数据校验发现 %d 个表不一致: %s", report.getMismatchedTables().size(),
+                                                  report.getMismatchedTables()), 1.0);
+            }
+        } catch (SQLException e) {
+            logger.error("数据校验失败", e);
+            callback.onError("数据校验失败: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 使用连接工厂执行迁移，所有连接在返回前关闭
+     */
+    private MigrationResult migrateWithFactories(DatabaseManager.ConnectionFactory sourceFactory,
+                                                 DatabaseManager.ConnectionFactory targetFactory,
+                                                 ProgressCallback callback) {
+        MigrationResult result = new MigrationResult();
+        ProgressCallback safeCallback = new SynchronizedProgressCallback(callback);
+        
+        try (Connection sourceConn = sourceFactory.createConnection();
+             Connection targetConn = targetFactory.createConnection()) {
+            
+            DatabaseManager.DatabaseType sourceType = DatabaseManager.getDatabaseType(sourceConn);
+            DatabaseManager.DatabaseType targetType = DatabaseManager.getDatabaseType(targetConn);
+            
+            targetConn.setAutoCommit(false);
+            
+            checkpoint = openCheckpoint(sourceType, targetType);
+            watermarks = openWatermarks(sourceType, targetType);
+            targetLimiter = TargetConcurrencyLimiter.forTarget(targetConn, options.getMaxTargetConcurrency());
+            
+            try {
+                long phaseStart = System.nanoTime();
+                List<TableInfo> tables = prepareTables(sourceConn, sourceFactory, targetConn, sourceType, targetType,
+                                                        safeCallback, result);
+                if (tables.isEmpty()) {
+                    return result;
+                }
+                targetConn.commit();
+                result.endPhase("schema", phaseStart);
+                
+                phaseStart = System.nanoTime();
+                int workers = resolveParallelism(targetType, tables.size());
+                boolean chunking = options.getChunkParallelism() > 1 && targetType != DatabaseManager.DatabaseType.SQLITE &&
+                                   checkpoint == null && !options.isDeltaSync();
+                if (workers > 1 || chunking) {
+                    MigrationContext context = new MigrationContext(sourceFactory, targetFactory, sourceType, targetType,
+                                                                    safeCallback, result);
+                    migrateDataParallel(context, tables, workers);
+                } else {
+                    migrateData(sourceConn, targetConn, tables, sourceType, targetType, safeCallback, result);
+                    commitTarget(targetConn);
+                }
+                result.endPhase("data", phaseStart);
+                
+                if (options.isBuildIndexes()) {
+                    phaseStart = System.nanoTime();
+                    buildIndexes(targetConn, targetFactory, tables, targetType, safeCallback, result);
+                    result.endPhase("indexes", phaseStart);
+                }
+                saveWatermarks();
+                finishCheckpoint();
+            } catch (Exception e) {
+                try {
+                    targetConn.rollback();
+                } catch (SQLException rollbackEx) {
+                    logger.error("回滚事务失败", rollbackEx);
+                }
+                throw e;
+            } finally {
+                if (rowCounts != null) {
+                    rowCounts.close();
+                }
+            }
+            
+            result.setSuccess(true);
+            safeCallback.onProgress("数据迁移完成！", 1.0);
+            
+            logger.info("数据迁移完成: {} 个表, {} 行数据", result.getMigratedTables(), result.getTotalRows());
+            
+        } catch (Exception e) {
+            logger.error("数据迁移失败", e);
+            result.setSuccess(false);
+            result.setErrorMessage(e.getMessage());
+            safeCallback.onError("迁移失败: " + e.getMessage(), e);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * 分析源数据库并在目标库创建表结构
+     * @param sourceConn 源数据库连接
+     * @param sourceFactory 源数据库连接工厂，用于并行统计行数，为null时在源连接上逐表统计
+     * @param targetConn 目标数据库连接
+     * @param sourceType 源数据库类型
+     * @param targetType 目标数据库类型
+     * @param callback 进度回调
+     * @param result 迁移结果
+     * @return 表信息列表，为空表示没有需要迁移的表
+     */
+    private List<TableInfo> prepareTables(Connection sourceConn, DatabaseManager.ConnectionFactory sourceFactory,
+                                          Connection targetConn,
+                                          DatabaseManager.DatabaseType sourceType, DatabaseManager.DatabaseType targetType,
+                                          ProgressCallback callback, MigrationResult result) throws SQLException {
+        callback.onProgress("开始分析源数据库结构...", 0.0);
+        
+        logger.info("开始数据迁移: {} -> {}", sourceType, targetType);
+        
+        // 分析源数据库结构
+        List<TableInfo> tables = selectTables(SchemaCache.getTableStructures(sourceConn, options.getSchemaCacheDir()));
+        countRows(sourceConn, sourceFactory, tables);
+        result.setTotalTables(tables.size());
+        
+        if (tables.isEmpty()) {
+            callback.onProgress("源数据库中没有找到表", 1.0);
+            return tables;
+        }
+        
+        callback.onProgress(String.format("找到 %d 个表，开始创建表结构...", tables.size()), 0.1);
+        
+        // 创建表结构
+        createTables(tables, targetConn, targetType, callback);
+        
+        callback.onProgress("表结构创建完成，开始迁移数据...", 0.2);
+        
+        return tables;
+    }
+    
+    /**
+     * 按行数统计方式统计或估算各表的行数，并记录进度使用的预期行数
+     * 后台统计精确行数需要连接工厂，按大表优先的顺序统计
+     * @param sourceConn 源数据库连接
+     * @param sourceFactory 源数据库连接工厂，可以为null
+     * @param tables 要迁移的表
+     */
+    private void countRows(Connection sourceConn, DatabaseManager.ConnectionFactory sourceFactory,
+                           List<TableInfo> tables) throws SQLException {
+        MigrationOptions.RowCountMode mode = options.getRowCountMode();
+        if (mode == MigrationOptions.RowCountMode.EXACT) {
+            SchemaAnalyzer.countRows(sourceConn, tables, sourceFactory, options.getParallelism());
+        } else {
+            SchemaAnalyzer.estimateRows(sourceConn, tables);
+        }
+        rowCounts = new RowCountTracker(tables);
+        
+        if (mode == MigrationOptions.RowCountMode.ESTIMATE_THEN_EXACT) {
+            if (sourceFactory == null) {
+                logger.info("使用单一源连接迁移，不在后台统计精确行数");
+                return;
+            }
+            List<TableInfo> ordered = new ArrayList<>(tables);
+            ordered.sort(Comparator.comparingLong(TableInfo::getRowCount).reversed());
+            rowCounts.countInBackground(sourceFactory, ordered);
+        }
+    }
+    
+    /**
+     * 按迁移选项筛选要迁移的表，指定了但源库中不存在的表记录警告
+     * @param tables 源库中的所有表
+     * @return 要迁移的表
+     */
+    private List<TableInfo> selectTables(List<TableInfo> tables) {
+        List<TableInfo> selected = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (TableInfo table : tables) {
+            names.add(table.getName());
+            if (options.isTableSelected(table.getName())) {
+                selected.add(table);
+            }
+        }
+        for (String name : options.getIncludeTables()) {
+            if (!names.contains(name)) {
+                logger.warn("源数据库中不存在指定的表: {}", name);
+            }
+        }
+        if (selected.size() < tables.size()) {
+            logger.info("按表筛选迁移 {} / {} 个表", selected.size(), tables.size());
+        }
+        return selected;
+    }
+    
+    /**
+     * 数据装载完成后构建索引
+     * 目标为SQLite时在主连接上依次构建，否则不同表的索引在独立连接上并行构建
+     * @param targetConn 目标数据库主连接
+     * @param targetFactory 目标数据库连接工厂
+     * @param tables 表信息列表
+     * @param targetType 目标数据库类型
+     * @param callback 进度回调
+     * @param result 迁移结果
+     */
+    private void buildIndexes(Connection targetConn, DatabaseManager.ConnectionFactory targetFactory,
+                              List<TableInfo> tables, DatabaseManager.DatabaseType targetType,
+                              ProgressCallback callback, MigrationResult result) throws SQLException {
+        List<IndexBuilder.IndexDefinition> indexes = planIndexes(tables, targetType);
+        if (indexes.isEmpty()) {
+            return;
+        }
+        
+        callback.onProgress(String.format("数据迁移完成，开始创建 %d 个索引...", indexes.size()), IndexBuilder.PROGRESS_START);
+        
+        IndexBuilder builder = newIndexBuilder(targetType, callback, result);
+        if (targetType == DatabaseManager.DatabaseType.SQLITE || options.getIndexParallelism() == 1) {
+            builder.build(targetConn, indexes);
+        } else {
+            builder.buildParallel(targetFactory, indexes, options.getIndexParallelism());
+        }
+        checkCancelled();
+    }
+    
+    private void checkCancelled() {
+        if (cancelled) {
+            throw new RuntimeException("迁移已被取消");
+        }
+    }
+    
+    /**
+     * 按迁移选项打开断点日志
+     * @param sourceType 源数据库类型
+     * @param targetType 目标数据库类型
+     * @return 断点日志，未配置断点文件时返回null
+     */
+    private MigrationCheckpoint openCheckpoint(DatabaseManager.DatabaseType sourceType,
+                                               DatabaseManager.DatabaseType targetType) throws IOException {
+        if (options.getCheckpointFile() == null) {
+            return null;
+        }
+        if (options.isDeltaSync()) {
+            logger.info("增量同步按水位续传，忽略断点文件: {}", options.getCheckpointFile());
+            return null;
+        }
+        MigrationCheckpoint opened = MigrationCheckpoint.open(options.getCheckpointFile(), options.isResume());
+        opened.begin(sourceType, targetType);
+        logger.info("迁移断点记录到: {}", opened.getFile());
+        return opened;
+    }
+    
+    /**
+     * 开启增量同步时读取上次同步的水位
+     * @param sourceType 源数据库类型
+     * @param targetType 目标数据库类型
+     * @return 水位，未开启增量同步时返回null
+     */
+    private SyncWatermarks openWatermarks(DatabaseManager.DatabaseType sourceType,
+                                          DatabaseManager.DatabaseType targetType) throws IOException {
+        createdTables.clear();
+        if (!options.isDeltaSync()) {
+            return null;
+        }
+        if (options.getWatermarkFile() == null) {
+            throw new IllegalStateException("增量同步需要设置水位文件");
+        }
+        return SyncWatermarks.load(options.getWatermarkFile(), sourceType, targetType);
+    }
+    
+    /**
+     * 同步全部成功后写回水位
+     */
+    private void saveWatermarks() throws IOException {
+        if (watermarks != null) {
+            watermarks.save();
+            logger.info("同步水位已保存: {}", watermarks.getFile());
+        }
+    }
+    
+    /**
+     * 迁移全部成功后删除断点日志，下次运行从头开始
+     */
+    private void finishCheckpoint() {
+        if (checkpoint != null) {
+            checkpoint.delete();
+        }
+    }
+    
+    /**
+     * 断点中已完成的表直接计入结果，不再复制
+     * @return 是否跳过
+     */
+    private boolean skipCompletedTable(TableInfo table, ProgressCallback callback, MigrationResult result) {
+        if (checkpoint == null || !checkpoint.isCompleted(table.getName())) {
+            return false;
+        }
+        long rows = checkpoint.getRows(table.getName());
+        rowCounts.markFinished(table.getName(), rows);
+        result.incrementMigratedTables();
+        result.addRows(rows);
+        callback.onTableComplete(table.getName(), rows);
+        logger.info("表 {} 已在之前的运行中完成，跳过: {} 行", table.getName(), rows);
+        return true;
+    }
+    
+    /**
+     * 提交表的全部数据并在断点中标记完成
+     * @param targetConn 目标数据库连接
+     * @param table 表信息
+     * @param rows 表的累计行数
+     */
+    private void completeTable(Connection targetConn, TableInfo table, long rows) throws SQLException {
+        if (checkpoint == null) {
+            return;
+        }
+        targetConn.commit();
+        try {
+            checkpoint.markCompleted(table.getName(), rows);
+        } catch (IOException e) {
+            throw new SQLException("保存迁移断点失败: " + e.getMessage(), e);
+        }
+    }
+    
+    private IndexBuilder newIndexBuilder(DatabaseManager.DatabaseType targetType, ProgressCallback callback,
+                                         MigrationResult result) {
+        IndexBuilder builder = new IndexBuilder(targetType, callback, result, () -> cancelled);
+        MigrationCheckpoint journal = checkpoint;
+        if (journal != null) {
+            builder.setCreatedListener(index -> {
+                try {
+                    journal.markIndexCreated(index.getTableName(), index.getName());
+                } catch (IOException e) {
+                    logger.warn("记录索引 {}.{} 的断点失败", index.getTableName(), index.getName(), e);
+                }
+            });
+        }
+        return builder;
+    }
+    
+    /**
+     * 生成索引定义，续传时去掉之前的运行中已经建好的索引
+     */
+    private List<IndexBuilder.IndexDefinition> planIndexes(List<TableInfo> tables, DatabaseManager.DatabaseType targetType) {
+        List<IndexBuilder.IndexDefinition> indexes = IndexBuilder.plan(tables, targetType);
+        if (options.isDeltaSync()) {
+            // 增量同步保留的表已有索引，只为新建的表建索引
+            indexes.removeIf(index -> !createdTables.contains(index.getTableName()));
+        }
+        if (checkpoint != null) {
+            indexes.removeIf(index -> checkpoint.isIndexCreated(index.getTableName(), index.getName()));
+        }
+        return indexes;
+    }
+    
+    /**
+     * 计算实际使用的工作线程数
+     * SQLite同一时间只允许一个写连接，目标为SQLite时并行写入只会互相等待锁
+     * @param targetType 目标数据库类型
+     * @param tableCount 表数量
+     * @return 工作线程数
+     */
+    private int resolveParallelism(DatabaseManager.DatabaseType targetType, int tableCount) {
+        int workers = Math.min(options.getParallelism(), tableCount);
+        if (workers > 1 && targetType == DatabaseManager.DatabaseType.SQLITE) {
+            logger.info("目标为SQLite，不支持并发写入，使用单线程迁移");
+            return 1;
+        }
+        return workers;
+    }
+    
     /**
      * 创建表结构
      * @param tables 表信息列表
@@ -123,6 +681,14 @@ public class DataMigrator {
             }
             
             TableInfo table = tables.get(i);
+            
+            // 续传时保留断点中已完成或进行中的表，增量同步时保留目标库中已存在的表
+            if ((checkpoint != null && checkpoint.contains(table.getName())) ||
+                (options.isDeltaSync() && tableExists(targetConn, table.getName()))) {
+                logger.debug("保留已有的表: {}", table.getName());
+                continue;
+            }
+            
             String createSql = SqlConverter.generateCreateTableSql(table, targetType);
             
             try (Statement stmt = targetConn.createStatement()) {
@@ -135,6 +701,7 @@ public class DataMigrator {
                 
                 // 创建新表
                 stmt.execute(createSql);
+                createdTables.add(table.getName());
                 
                 logger.debug("创建表: {}", table.getName());
                 
@@ -144,6 +711,24 @@ public class DataMigrator {
         }
     }
     
+    /**
+     * 检查目标库中是否已存在同名表
+     * @param targetConn 目标数据库连接
+     * @param tableName 表名
+     * @return 是否存在
+     */
+    private static boolean tableExists(Connection targetConn, String tableName) throws SQLException {
+        try (ResultSet rs = targetConn.getMetaData().getTables(targetConn.getCatalog(), null, tableName,
+                                                               new String[]{"TABLE"})) {
+            while (rs.next()) {
+                if (tableName.equalsIgnoreCase(rs.getString("TABLE_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
     /**
      * 迁移数据
      * @param sourceConn 源数据库连接
@@ -168,24 +753,48 @@ public class DataMigrator {
             final int tableIndex = i;
             TableInfo table = tables.get(tableIndex);
             
-            if (table.getRowCount() == 0) {
+            if (skipCompletedTable(table, callback, result)) {
+                continue;
+            }
+            
+            if (rowCounts.isKnownEmpty(table.getName())) {
                 logger.debug("跳过空表: {}", table.getName());
                 result.incrementMigratedTables();
                 continue;
             }
             
-            callback.onTableStart(table.getName(), table.getRowCount());
+            rowCounts.markStarted(table.getName());
+            callback.onTableStart(table.getName(), rowCounts.getExpectedRows(table.getName()));
+            
+            BatchTuner tuner = new BatchTuner(table.getName(), options);
+            long migratedRows;
+            TargetConcurrencyLimiter.Permit permit = acquireTargetPermit(() -> cancelled);
+            if (permit == null) {
+                throw new RuntimeException("迁移已被取消");
+            }
+            try {
+                migratedRows = migrateTableData(sourceConn, targetConn, table, sourceType, targetType, tuner,
+                                                (rowCount) -> {
+                                                    // 预期行数可能是估算值，单表进度不超过1
+                                                    double tableFraction = Math.min(1.0, (double) rowCount / Math.max(1, rowCounts.getExpectedRows(table.getName())));
+                                                    double tableProgress = 0.2 + (DATA_PROGRESS_SPAN * (tableIndex + tableFraction) / tables.size());
+                                                    callback.onProgress(String.format("迁移表 %s: %d/%s 行%s",
+                                                                      table.getName(), rowCount, rowCounts.describeRows(table.getName()),
+                                                                      rowCounts.describeRemaining(totalMigratedRows.get() + rowCount)), tableProgress);
+                                                });
+            } finally {
+                permit.release();
+            }
             
-            long migratedRows = migrateTableData(sourceConn, targetConn, table, sourceType, targetType, 
-                                               (rowCount) -> {
-                                                   double tableProgress = 0.2 + (0.8 * (tableIndex + (double)rowCount / table.getRowCount()) / tables.size());
-                                                   callback.onProgress(String.format("迁移表 %s: %d/%d 行", 
-                                                                     table.getName(), rowCount, table.getRowCount()), tableProgress);
-                                               });
+            // 取消时表只迁移了一部分，不能标记完成
+            checkCancelled();
+            rowCounts.markFinished(table.getName(), migratedRows);
+            completeTable(targetConn, table, migratedRows);
             
             totalMigratedRows.addAndGet(migratedRows);
             result.incrementMigratedTables();
             result.addRows(migratedRows);
+            result.recordBatchSettings(table.getName(), tuner.snapshot());
             
             callback.onTableComplete(table.getName(), migratedRows);
             
@@ -194,68 +803,724 @@ public class DataMigrator {
     }
     
     /**
-     * 迁移单个表的数据
-     * @param sourceConn 源数据库连接
-     * @param targetConn 目标数据库连接
-     * @param table 表信息
-     * @param sourceType 源数据库类型
-     * @param targetType 目标数据库类型
-     * @param progressCallback 进度回调
-     * @return 迁移的行数
+     * 并行迁移数据
+     * 工作线程各自持有一对源/目标连接，从共享队列中领取表进行迁移，大表优先以缩短尾部等待。
+     * 任一表失败后其他线程在当前表结束前停止，并回滚各自未提交的数据。
+     * 开启虚拟线程时每个工作者运行在独立的虚拟线程上，同时写入目标库的表数由目标库并发上限约束。
+     * @param context 迁移上下文
+     * @param tables 表信息列表
+     * @param workers 工作线程数
+     */
+    private void migrateDataParallel(MigrationContext context, List<TableInfo> tables, int workers) throws Exception {
+        
+        List<TableInfo> ordered = new ArrayList<>(tables);
+        ordered.sort(Comparator.comparingLong(TableInfo::getRowCount).reversed());
+        Queue<TableInfo> pending = new ConcurrentLinkedQueue<>(ordered);
+        
+        logger.info("并行迁移 {} 个表, 工作线程数: {}{}", tables.size(), workers, options.isVirtualThreads() ? "（虚拟线程）" : "");
+        
+        ExecutorService executor = newWorkerExecutor("dbbridge-migrator-", workers);
+        
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                futures.add(executor.submit(() -> {
+                    runTableWorker(context, pending);
+                    return null;
+                }));
+            }
+            
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    context.fail(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        if (context.failure.get() != null) {
+            throw context.failure.get();
+        }
+        if (cancelled) {
+            throw new RuntimeException("迁移已被取消");
+        }
+    }
+    
+    /**
+     * 并行迁移的工作线程主体
+     * @param context 迁移上下文
+     * @param pending 待迁移的表队列
+     */
+    private void runTableWorker(MigrationContext context, Queue<TableInfo> pending) throws SQLException {
+        
+        try (Connection sourceConn = context.sourceFactory.createConnection();
+             Connection targetConn = context.targetFactory.createConnection()) {
+            
+            targetConn.setAutoCommit(false);
+            
+            TableInfo table;
+            while (!context.isStopped() && (table = pending.poll()) != null) {
+                try {
+                    long rows = migrateSingleTable(context, sourceConn, targetConn, table);
+                    commitTarget(targetConn);
+                    completeTable(targetConn, table, rows);
+                } catch (Exception e) {
+                    context.fail(e);
+                    try {
+                        targetConn.rollback();
+                    } catch (SQLException rollbackEx) {
+                        logger.error("回滚表 {} 失败", table.getName(), rollbackEx);
+                    }
+                    logger.error("迁移表 {} 失败", table.getName(), e);
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * 迁移单个表并更新全局进度
+     * 大表在可以按键切分时走分块并行复制，否则使用单条查询顺序复制
+     * @param context 迁移上下文
+     * @param sourceConn 源数据库连接
+     * @param targetConn 目标数据库连接
+     * @param table 表信息
+     * @return 表的行数
+     */
+    private long migrateSingleTable(MigrationContext context, Connection sourceConn, Connection targetConn,
+                                    TableInfo table) throws Exception {
+        
+        if (skipCompletedTable(table, context.callback, context.result)) {
+            return checkpoint.getRows(table.getName());
+        }
+        
+        if (rowCounts.isKnownEmpty(table.getName())) {
+            logger.debug("跳过空表: {}", table.getName());
+            context.result.incrementMigratedTables();
+            return 0;
+        }
+        
+        rowCounts.markStarted(table.getName());
+        context.callback.onTableStart(table.getName(), rowCounts.getExpectedRows(table.getName()));
+        
+        AtomicLong reportedRows = new AtomicLong(0);
+        Consumer<Long> progress = (rowCount) -> {
+            long done = context.progressRows.addAndGet(rowCount - reportedRows.getAndSet(rowCount));
+            double overall = 0.2 + DATA_PROGRESS_SPAN * Math.min(1.0, (double) done / Math.max(1, rowCounts.getTotalRows()));
+            context.callback.onProgress(String.format("迁移表 %s: %d/%s 行%s",
+                                        table.getName(), rowCount, rowCounts.describeRows(table.getName()),
+                                        rowCounts.describeRemaining(done)), overall);
+        };
+        
+        // 同一张表的各个分块共用一个调整器
+        BatchTuner tuner = new BatchTuner(table.getName(), options);
+        long migratedRows = -1;
+        if (shouldChunk(context, table)) {
+            migratedRows = migrateTableChunked(context, sourceConn, table, tuner, progress);
+        }
+        if (migratedRows < 0) {
+            // 停止时表没有复制完，不能按正常返回记为完成
+            TargetConcurrencyLimiter.Permit permit = acquireTargetPermit(context::isStopped);
+            if (permit == null) {
+                throw new RuntimeException("迁移已被取消");
+            }
+            try {
+                migratedRows = migrateTableData(sourceConn, targetConn, table, context.sourceType, context.targetType,
+                                                tuner, progress);
+            } finally {
+                permit.release();
+            }
+        }
+        context.progressRows.addAndGet(migratedRows - reportedRows.getAndSet(migratedRows));
+        
+        // 取消或其他工作线程失败时分块复制会提前返回，表只迁移了一部分，不能提交
+        if (context.isStopped()) {
+            Exception failure = context.failure.get();
+            throw failure != null ? failure : new RuntimeException("迁移已被取消");
+        }
+        
+        rowCounts.markFinished(table.getName(), migratedRows);
+        context.result.incrementMigratedTables();
+        context.result.addRows(migratedRows);
+        context.result.recordBatchSettings(table.getName(), tuner.snapshot());
+        
+        context.callback.onTableComplete(table.getName(), migratedRows);
+        
+        logger.info("完成表 {} 的数据迁移: {} 行", table.getName(), migratedRows);
+        return migratedRows;
+    }
+    
+    /**
+     * 判断表是否需要分块并行复制
+     * @param context 迁移上下文
+     * @param table 表信息
+     * @return 是否分块
+     */
+    private boolean shouldChunk(MigrationContext context, TableInfo table) {
+        // 分块各自提交，无法用单一的键值高水位描述进度，启用断点时不分块
+        return options.getChunkParallelism() > 1
+               && context.targetType != DatabaseManager.DatabaseType.SQLITE
+               && checkpoint == null
+               && !options.isDeltaSync()
+               && rowCounts.getExpectedRows(table.getName()) >= 2L * options.getChunkRows();
+    }
+    
+    /**
+     * 按键范围分块并行复制单个表
+     * 整表范围交给ForkJoinPool递归二分，空闲线程窃取尚未拆分的大范围，
+     * 避免键分布不均时个别线程拖慢整表。每个线程持有独立连接，每块单独提交，
+     * 因此失败时已提交的分块会保留在目标表中。
+     * 开启虚拟线程时预先切好分块，由虚拟线程工作者从队列领取（ForkJoinPool 的工作线程只能是平台线程）。
+     * @param context 迁移上下文
+     * @param sourceConn 用于查询键范围的源数据库连接
+     * @param table 表信息
+     * @param tuner 批次大小调整器
+     * @param progressCallback 进度回调，参数为整表累计行数
+     * @return 迁移的行数，表没有可用的切分键时返回-1
+     */
+    private long migrateTableChunked(MigrationContext context, Connection sourceConn, TableInfo table,
+                                     BatchTuner tuner, Consumer<Long> progressCallback) throws Exception {
+        
+        String keyColumn = KeyRangePartitioner.resolveSplitKey(sourceConn, table, context.sourceType);
+        if (keyColumn == null) {
+            logger.debug("表 {} 没有可用的切分键，使用顺序复制", table.getName());
+            return -1;
+        }
+        
+        KeyRangePartitioner.KeyRange bounds = KeyRangePartitioner.getKeyBounds(sourceConn, table, keyColumn, context.sourceType);
+        if (bounds == null) {
+            return 0;
+        }
+        
+        long chunkSpan = KeyRangePartitioner.chunkSpan(bounds, rowCounts.getExpectedRows(table.getName()), options.getChunkRows());
+        String selectSql = generateSelectSql(table, context.sourceType) +
+                           KeyRangePartitioner.rangeCondition(keyColumn, context.sourceType);
+        
+        logger.info("分块复制表 {}: 键 {} 范围 {}, 每块键跨度 {}", table.getName(), keyColumn, bounds, chunkSpan);
+        
+        AtomicLong tableRows = new AtomicLong(0);
+        if (options.isVirtualThreads()) {
+            copyRangesOnVirtualThreads(context, table, selectSql, bounds, chunkSpan, tableRows, tuner, progressCallback);
+            return tableRows.get();
+        }
+        
+        Map<Thread, Connection[]> connections = new ConcurrentHashMap<>();
+        ForkJoinPool pool = new ForkJoinPool(options.getChunkParallelism());
+        
+        try {
+            pool.invoke(new RangeCopyTask(context, table, selectSql, bounds, chunkSpan,
+                                          connections, tableRows, tuner, progressCallback));
+        } finally {
+            pool.shutdownNow();
+            for (Connection[] pair : connections.values()) {
+                DatabaseManager.closeConnection(pair[0]);
+                DatabaseManager.closeConnection(pair[1]);
+            }
+        }
+        
+        // 其他工作线程失败后尚未执行的分块直接返回，invoke 仍正常结束
+        if (context.failure.get() != null) {
+            throw context.failure.get();
+        }
+        return tableRows.get();
+    }
+    
+    /**
+     * 在虚拟线程上分块复制单个表
+     * 整表范围先二分到不超过块大小，分块并行度个工作者各持一对连接从队列领取分块
+     */
+    private void copyRangesOnVirtualThreads(MigrationContext context, TableInfo table, String selectSql,
+                                            KeyRangePartitioner.KeyRange bounds, long chunkSpan, AtomicLong tableRows,
+                                            BatchTuner tuner, Consumer<Long> progressCallback) throws Exception {
+        
+        Queue<KeyRangePartitioner.KeyRange> ranges = new ConcurrentLinkedQueue<>();
+        Deque<KeyRangePartitioner.KeyRange> splitting = new ArrayDeque<>();
+        splitting.push(bounds);
+        while (!splitting.isEmpty()) {
+            KeyRangePartitioner.KeyRange range = splitting.pop();
+            if (range.span() > chunkSpan) {
+                KeyRangePartitioner.KeyRange[] halves = range.split();
+                splitting.push(halves[1]);
+                splitting.push(halves[0]);
+            } else {
+                ranges.add(range);
+            }
+        }
+        
+        int workers = Math.min(options.getChunkParallelism(), ranges.size());
+        ExecutorService executor = newWorkerExecutor("dbbridge-chunk-", workers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                futures.add(executor.submit(() -> {
+                    Connection[] pair = openConnectionPair(context);
+                    try {
+                        KeyRangePartitioner.KeyRange range;
+                        while (!context.isStopped() && (range = ranges.poll()) != null) {
+                            copyRange(context, table, selectSql, range, pair, tableRows, tuner, progressCallback);
+                        }
+                    } finally {
+                        DatabaseManager.closeConnection(pair[0]);
+                        DatabaseManager.closeConnection(pair[1]);
+                    }
+                    return null;
+                }));
+            }
+            
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    context.fail(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        if (context.failure.get() != null) {
+            throw context.failure.get();
+        }
+    }
+    
+    /**
+     * 在给定连接上复制一个键范围并提交
+     * @param pair 源/目标连接
+     */
+    private void copyRange(MigrationContext context, TableInfo table, String selectSql, KeyRangePartitioner.KeyRange range,
+                           Connection[] pair, AtomicLong tableRows, BatchTuner tuner,
+                           Consumer<Long> progressCallback) throws SQLException {
+        
+        TargetConcurrencyLimiter.Permit permit = acquireTargetPermit(context::isStopped);
+        if (permit == null) {
+            // 迁移已停止，这个范围不再复制
+            return;
+        }
+        try {
+            long[] reported = {0};
+            long rows = copyRows(pair[0], pair[1], table, selectSql, new Object[]{range.getLower(), range.getUpper()},
+                                 context.sourceType, context.targetType, false, tuner, null, (rowCount) -> {
+                                     progressCallback.accept(tableRows.addAndGet(rowCount - reported[0]));
+                                     reported[0] = rowCount;
+                                 });
+            tableRows.addAndGet(rows - reported[0]);
+            
+            if (cancelled) {
+                pair[1].rollback();
+                return;
+            }
+            commitTarget(pair[1]);
+        } catch (SQLException e) {
+            context.fail(e);
+            throw new SQLException("复制表 " + table.getName() + " 的键范围 " + range + " 失败: " + e.getMessage(), e);
+        } finally {
+            permit.release();
+        }
+    }
+    
+    /**
+     * 键范围复制任务
+     * 范围超过块大小时二分后并行执行，否则在当前线程的连接上复制并提交
+     */
+    private class RangeCopyTask extends RecursiveAction {
+        private final MigrationContext context;
+        private final TableInfo table;
+        private final String selectSql;
+        private final KeyRangePartitioner.KeyRange range;
+        private final long chunkSpan;
+        private final Map<Thread, Connection[]> connections;
+        private final AtomicLong tableRows;
+        private final BatchTuner tuner;
+        private final Consumer<Long> progressCallback;
+        
+        RangeCopyTask(MigrationContext context, TableInfo table, String selectSql, KeyRangePartitioner.KeyRange range,
+                      long chunkSpan, Map<Thread, Connection[]> connections, AtomicLong tableRows,
+                      BatchTuner tuner, Consumer<Long> progressCallback) {
+            this.context = context;
+            this.table = table;
+            this.selectSql = selectSql;
+            this.range = range;
+            this.chunkSpan = chunkSpan;
+            this.connections = connections;
+            this.tableRows = tableRows;
+            this.tuner = tuner;
+            this.progressCallback = progressCallback;
+        }
+        
+        @Override
+        protected void compute() {
+            if (context.isStopped()) {
+                return;
+            }
+            
+            if (range.span() > chunkSpan) {
+                KeyRangePartitioner.KeyRange[] halves = range.split();
+                invokeAll(new RangeCopyTask(context, table, selectSql, halves[0], chunkSpan, connections, tableRows, tuner, progressCallback),
+                          new RangeCopyTask(context, table, selectSql, halves[1], chunkSpan, connections, tableRows, tuner, progressCallback));
+                return;
+            }
+            
+            try {
+                Connection[] pair = connections.get(Thread.currentThread());
+                if (pair == null) {
+                    pair = openConnectionPair(context);
+                    connections.put(Thread.currentThread(), pair);
+                }
+                copyRange(context, table, selectSql, range, pair, tableRows, tuner, progressCallback);
+            } catch (SQLException e) {
+                context.fail(e);
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        }
+    }
+    
+    /**
+     * 为分块复制打开一对源/目标连接，目标连接关闭自动提交
+     */
+    private static Connection[] openConnectionPair(MigrationContext context) throws SQLException {
+        Connection sourceConn = context.sourceFactory.createConnection();
+        try {
+            Connection targetConn = context.targetFactory.createConnection();
+            targetConn.setAutoCommit(false);
+            return new Connection[]{sourceConn, targetConn};
+        } catch (SQLException e) {
+            DatabaseManager.closeConnection(sourceConn);
+            throw e;
+        }
+    }
+    
+    /**
+     * 等待目标库的并发许可
+     * @param stopped 停止条件，等待期间成立时放弃等待
+     * @return 许可，复制结束后在 finally 中释放；停止或线程被中断时返回null
+     */
+    private TargetConcurrencyLimiter.Permit acquireTargetPermit(BooleanSupplier stopped) {
+        try {
+            return targetLimiter.acquire(stopped);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+    
+    /**
+     * 创建工作线程执行器
+     * 开启虚拟线程时每个任务一个虚拟线程，否则为固定大小的平台线程池
+     * @param prefix 线程名前缀
+     * @param workers 工作线程数
+     * @return 执行器
+     */
+    private ExecutorService newWorkerExecutor(String prefix, int workers) {
+        if (options.isVirtualThreads()) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 1).factory());
+        }
+        return Executors.newFixedThreadPool(workers, namedThreadFactory(prefix));
+    }
+    
+    /**
+     * 创建带名称前缀的守护线程工厂
+     * @param prefix 线程名前缀
+     * @return 线程工厂
+     */
+    private static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger threadIndex = new AtomicInteger(0);
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    /**
+     * 迁移单个表的数据
+     * @param sourceConn 源数据库连接
+     * @param targetConn 目标数据库连接
+     * @param table 表信息
+     * @param sourceType 源数据库类型
+     * @param targetType 目标数据库类型
+     * @param tuner 批次大小调整器
+     * @param progressCallback 进度回调
+     * @return 迁移的行数，续传时包括之前的运行中已提交的行数
      */
     private long migrateTableData(Connection sourceConn, Connection targetConn, TableInfo table,
                                 DatabaseManager.DatabaseType sourceType, DatabaseManager.DatabaseType targetType,
-                                Consumer<Long> progressCallback) throws SQLException {
+                                BatchTuner tuner, Consumer<Long> progressCallback) throws SQLException {
+        
+        if (watermarks != null) {
+            return syncTableDelta(sourceConn, targetConn, table, sourceType, targetType, tuner, progressCallback);
+        }
         
         String selectSql = generateSelectSql(table, sourceType);
-        String insertSql = SqlConverter.generateInsertSql(table.getName(), table.getColumns(), targetType);
+        if (checkpoint == null) {
+            return copyRows(sourceConn, targetConn, table, selectSql, new Object[0], sourceType, targetType, false,
+                            tuner, null, progressCallback);
+        }
         
-        long migratedRows = 0;
+        // 有断点键时按键顺序读取，每次提交后记录最大键值；续传时从该键值之后继续
+        String keyColumn = KeyRangePartitioner.resolveCheckpointKey(sourceConn, table, sourceType);
+        int keyIndex = keyColumn == null ? -1 : indexOfColumn(table, keyColumn);
+        MigrationCheckpoint.TableTracker tracker;
+        try {
+            tracker = checkpoint.start(table.getName(), keyColumn, keyIndex);
+        } catch (IOException e) {
+            throw new SQLException("保存迁移断点失败: " + e.getMessage(), e);
+        }
+        
+        Long resumeKey = tracker.getLastKey();
+        if (resumeKey == null && options.isResume()) {
+            // 从头复制时清掉上次运行可能留下的部分数据
+            clearTable(targetConn, table, targetType);
+        }
+        if (keyColumn != null) {
+            selectSql += KeyRangePartitioner.keysetCondition(keyColumn, sourceType, resumeKey != null);
+        }
         
-        try (PreparedStatement selectStmt = sourceConn.prepareStatement(selectSql);
-             PreparedStatement insertStmt = targetConn.prepareStatement(insertSql);
-             ResultSet rs = selectStmt.executeQuery()) {
+        copyRows(sourceConn, targetConn, table, selectSql, resumeKey != null ? new Object[]{resumeKey} : new Object[0],
+                 sourceType, targetType, false, tuner, tracker, progressCallback);
+        return tracker.getRows();
+    }
+    
+    /**
+     * 增量同步单个表
+     * 有水位时只读取水位之后变化的行，按主键覆盖写入目标表；没有水位、检测方式改变或表是本次新建的时全量复制，
+     * 已存在的表先清空。同步前先查询检测列的当前最大值作为本次的上界，之后才变化的行留给下次同步。
+     * 删除的行检测不到，仍保留在目标表中。
+     * @return 传输的行数
+     */
+    private long syncTableDelta(Connection sourceConn, Connection targetConn, TableInfo table,
+                                DatabaseManager.DatabaseType sourceType, DatabaseManager.DatabaseType targetType,
+                                BatchTuner tuner, Consumer<Long> progressCallback) throws SQLException {
+        
+        String selectSql = generateSelectSql(table, sourceType);
+        boolean created = createdTables.contains(table.getName());
+        SyncWatermarks.TableWatermark previous = watermarks.get(table.getName());
+        SyncWatermarks.TableWatermark next = resolveWatermark(sourceConn, table, sourceType);
+        watermarks.put(table.getName(), next);
+        
+        boolean incremental = !created && previous != null && next != null &&
+                              previous.getMode() == next.getMode() && next.getColumn().equals(previous.getColumn());
+        if (!incremental) {
+            logger.info("表 {} 全量同步{}", table.getName(), next == null ? "（没有变更列和可用的整数键）" : "");
+            if (!created) {
+                clearTable(targetConn, table, targetType);
+            }
+            return copyRows(sourceConn, targetConn, table, selectSql, new Object[0], sourceType, targetType, false,
+                            tuner, null, progressCallback);
+        }
+        
+        if (next.getValue() == null) {
+            return 0;
+        }
+        
+        // 变更列可能有多行取值相同，下界取闭区间，边界上的行会重复传输但覆盖写入不影响结果
+        String column = SqlConverter.quoteIdentifier(next.getColumn(), sourceType);
+        String lowerOp = next.getMode() == SyncWatermarks.Mode.CHANGE_COLUMN ? " >= ?" : " > ?";
+        Object[] params;
+        if (previous.getValue() == null) {
+            selectSql += " WHERE " + column + " <= ?";
+            params = new Object[]{next.getValue()};
+        } else {
+            selectSql += " WHERE " + column + lowerOp + " AND " + column + " <= ?";
+            params = new Object[]{previous.getValue(), next.getValue()};
+        }
+        
+        logger.info("表 {} 增量同步: {} 从 {} 到 {}", table.getName(), next.getColumn(), previous.getValue(), next.getValue());
+        return copyRows(sourceConn, targetConn, table, selectSql, params, sourceType, targetType, true,
+                        tuner, null, progressCallback);
+    }
+    
+    /**
+     * 确定表的变更检测方式并查询检测列的当前最大值
+     * 表中有变更列且有主键时按变更列检测新增和修改，否则按单调递增的整数键只检测新增
+     * @return 本次同步的水位，表既没有变更列也没有可用的整数键时返回null
+     */
+    private SyncWatermarks.TableWatermark resolveWatermark(Connection sourceConn, TableInfo table,
+                                                           DatabaseManager.DatabaseType sourceType) throws SQLException {
+        String changeColumn = options.getChangeColumn(table.getName());
+        SyncWatermarks.Mode mode = null;
+        String column = null;
+        
+        if (changeColumn != null && table.hasPrimaryKey()) {
+            for (ColumnInfo candidate : table.getColumns()) {
+                if (candidate.getName().equalsIgnoreCase(changeColumn)) {
+                    mode = SyncWatermarks.Mode.CHANGE_COLUMN;
+                    column = candidate.getName();
+                    break;
+                }
+            }
+        }
+        if (column == null) {
+            column = KeyRangePartitioner.resolveCheckpointKey(sourceConn, table, sourceType);
+            if (column == null) {
+                return null;
+            }
+            mode = SyncWatermarks.Mode.KEY;
+        }
+        
+        String sql = "SELECT MAX(" + SqlConverter.quoteIdentifier(column, sourceType) + ") FROM " +
+                     SqlConverter.quoteIdentifier(table.getName(), sourceType);
+        try (Statement stmt = sourceConn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            Object value = null;
+            if (rs.next()) {
+                Object max = rs.getObject(1);
+                if (max instanceof Long || max instanceof Integer || max instanceof Short || max instanceof Byte) {
+                    value = ((Number) max).longValue();
+                } else if (max instanceof Double || max instanceof Float) {
+                    value = ((Number) max).doubleValue();
+                } else if (max != null) {
+                    // 日期时间按数据库的文本格式保存，比较时由数据库转换
+                    value = rs.getString(1);
+                }
+            }
+            return new SyncWatermarks.TableWatermark(mode, column, value);
+        }
+    }
+    
+    private static int indexOfColumn(TableInfo table, String columnName) {
+        for (int i = 0; i < table.getColumns().size(); i++) {
+            if (table.getColumns().get(i).getName().equals(columnName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private static void clearTable(Connection targetConn, TableInfo table,
+                                   DatabaseManager.DatabaseType targetType) throws SQLException {
+        try (Statement stmt = targetConn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM " + SqlConverter.quoteIdentifier(table.getName(), targetType));
+        }
+    }
+    
+    /**
+     * 执行查询并把结果批量写入目标表
+     * 开启流水线时读取、转换、写入分别在不同线程上重叠执行，否则在当前线程上依次执行
+     * @param sourceConn 源数据库连接
+     * @param targetConn 目标数据库连接
+     * @param table 表信息
+     * @param selectSql 查询SQL
+     * @param params 查询参数
+     * @param sourceType 源数据库类型
+     * @param targetType 目标数据库类型
+     * @param upsert 是否按主键覆盖写入
+     * @param tuner 批次大小调整器
+     * @param tracker 断点跟踪器，未启用断点时为null
+     * @param progressCallback 进度回调
+     * @return 迁移的行数
+     */
+    private long copyRows(Connection sourceConn, Connection targetConn, TableInfo table, String selectSql,
+                          Object[] params, DatabaseManager.DatabaseType sourceType,
+                          DatabaseManager.DatabaseType targetType, boolean upsert, BatchTuner tuner,
+                          MigrationCheckpoint.TableTracker tracker,
+                          Consumer<Long> progressCallback) throws SQLException {
+        
+        String insertSql = SqlConverter.generateInsertSql(table.getName(), table.getColumns(), targetType);
+        long[] migratedRows = {0};
+        long[] uncommittedRows = {0};
+        
+        try (PreparedStatement selectStmt = DatabaseManager.prepareStreamingQuery(sourceConn, selectSql, options.getFetchSize());
+             BatchWriter writer = upsert
+                 ? new PreparedStatementBatchWriter(targetConn, SqlConverter.generateUpsertSql(table.getName(), table.getColumns(), targetType))
+                 : createWriter(targetConn, table, insertSql, targetType)) {
+            
+            for (int i = 0; i < params.length; i++) {
+                selectStmt.setObject(i + 1, params[i]);
+            }
             
-            int batchCount = 0;
+            // 处理数据类型转换，转换规则和列的存储方式按列预先编译
+            ConversionPlan plan = ConversionPlan.compile(table.getColumns(), sourceType, targetType);
+            MigrationMetrics metrics = MigrationMetrics.getInstance();
+            RowPipeline.BatchConverter converter = batch -> {
+                metrics.recordRead(table.getName(), batch.size(), batch.estimateBytes());
+                plan.apply(batch);
+            };
             
-            while (rs.next() && !cancelled) {
-                // 设置插入参数
-                for (int i = 0; i < table.getColumns().size(); i++) {
-                    ColumnInfo column = table.getColumns().get(i);
-                    Object value = rs.getObject(i + 1);
-                    
-                    // 处理数据类型转换
-                    value = convertValue(value, column, targetType);
-                    
-                    insertStmt.setObject(i + 1, value);
+            RowPipeline.BatchSink sink = batch -> {
+                long start = System.nanoTime();
+                writer.write(batch);
+                long elapsed = System.nanoTime() - start;
+                metrics.recordWrite(table.getName(), batch.size(), batch.estimateBytes(), elapsed);
+                migratedRows[0] += batch.size();
+                uncommittedRows[0] += batch.size();
+                if (tracker != null) {
+                    tracker.batchWritten(batch);
                 }
                 
-                insertStmt.addBatch();
-                batchCount++;
-                migratedRows++;
-                
-                // 批量执行
-                if (batchCount >= BATCH_SIZE) {
-                    insertStmt.executeBatch();
-                    insertStmt.clearBatch();
-                    batchCount = 0;
-                    
-                    // 定期提交
-                    if (migratedRows % COMMIT_INTERVAL == 0) {
-                        targetConn.commit();
+                // 未提交行数达到提交间隔时提交，批次大小变化后不依赖行数恰好是提交间隔的整数倍
+                if (uncommittedRows[0] >= tuner.getCommitInterval()) {
+                    commitTarget(targetConn);
+                    uncommittedRows[0] = 0;
+                    if (tracker != null) {
+                        tracker.committed();
                     }
-                    
-                    progressCallback.accept(migratedRows);
                 }
-            }
+                
+                if (batch.isFull()) {
+                    tuner.record(batch.size(), batch.estimateBytes(), elapsed);
+                    progressCallback.accept(migratedRows[0]);
+                }
+            };
             
-            // 执行剩余的批处理
-            if (batchCount > 0) {
-                insertStmt.executeBatch();
+            try (ResultSet rs = selectStmt.executeQuery()) {
+                if (options.isPipelined()) {
+                    new RowPipeline(plan::newBatch, tuner::getBatchSize, options.getPipelineQueueCapacity())
+                        .run(rs, converter, sink, () -> cancelled);
+                } else {
+                    RowBatch batch = plan.newBatch(tuner.getBatchSize());
+                    while (!cancelled && batch.fill(rs, () -> cancelled) > 0) {
+                        converter.convert(batch);
+                        sink.accept(batch);
+                        if (!batch.isFull()) {
+                            break;
+                        }
+                        if (batch.capacity() != tuner.getBatchSize()) {
+                            batch = plan.newBatch(tuner.getBatchSize());
+                        }
+                    }
+                }
             }
         }
         
-        return migratedRows;
+        return migratedRows[0];
+    }
+    
+    /**
+     * 提交目标库事务并记录提交耗时
+     * @param targetConn 目标数据库连接
+     */
+    private static void commitTarget(Connection targetConn) throws SQLException {
+        long start = System.nanoTime();
+        targetConn.commit();
+        MigrationMetrics.getInstance().recordCommit(System.nanoTime() - start);
+    }
+    
+    /**
+     * 按迁移选项创建目标表写入器
+     * @param targetConn 目标数据库连接
+     * @param table 表信息
+     * @param insertSql 单行INSERT语句
+     * @param targetType 目标数据库类型
+     * @return 写入器
+     */
+    private BatchWriter createWriter(Connection targetConn, TableInfo table, String insertSql,
+                                     DatabaseManager.DatabaseType targetType) throws SQLException {
+        if (targetType == DatabaseManager.DatabaseType.MYSQL) {
+            switch (options.getWriteMode(table.getName())) {
+                case MULTI_ROW:
+                    // 批次大小可能被自动调大，每条语句的行数按批次行数上限准备
+                    int maxRows = options.isAdaptiveBatching() ? options.getMaxBatchSize() : options.getBatchSize();
+                    return new MultiRowInsertWriter(targetConn, table.getName(), table.getColumns(), maxRows);
+                case LOAD_DATA:
+                    return new LoadDataWriter(targetConn, table.getName(), table.getColumns());
+                default:
+                    break;
+            }
+        }
+        return new PreparedStatementBatchWriter(targetConn, insertSql);
     }
     
     /**
@@ -289,117 +1554,120 @@ public class DataMigrator {
     }
     
     /**
-     * 转换数据值
-     * @param value 原始值
-     * @param column 列信息
-     * @param targetType 目标数据库类型
-     * @return 转换后的值
+     * 取消迁移
      */
-    private Object convertValue(Object value, ColumnInfo column, DatabaseManager.DatabaseType targetType) {
-        if (value == null) {
-            return null;
-        }
-        
-        String columnType = column.getDataType().toUpperCase();
+    public void cancel() {
+        this.cancelled = true;
+        logger.info("数据迁移已被取消");
+    }
+    
+    /**
+     * 并行迁移的共享上下文
+     */
+    private class MigrationContext {
+        final DatabaseManager.ConnectionFactory sourceFactory;
+        final DatabaseManager.ConnectionFactory targetFactory;
+        final DatabaseManager.DatabaseType sourceType;
+        final DatabaseManager.DatabaseType targetType;
+        final ProgressCallback callback;
+        final MigrationResult result;
+        final AtomicLong progressRows = new AtomicLong(0);
+        final AtomicReference<Exception> failure = new AtomicReference<>();
         
-        // 处理布尔值
-        if (value instanceof Boolean) {
-            return ((Boolean) value) ? 1 : 0;
+        MigrationContext(DatabaseManager.ConnectionFactory sourceFactory, DatabaseManager.ConnectionFactory targetFactory,
+                         DatabaseManager.DatabaseType sourceType, DatabaseManager.DatabaseType targetType,
+                         ProgressCallback callback, MigrationResult result) {
+            this.sourceFactory = sourceFactory;
+            this.targetFactory = targetFactory;
+            this.sourceType = sourceType;
+            this.targetType = targetType;
+            this.callback = callback;
+            this.result = result;
         }
         
-        // 处理BIT类型
-        if (columnType.contains("BIT")) {
-            if (value instanceof Boolean) {
-                return ((Boolean) value) ? 1 : 0;
-            }
-            if (value instanceof Number) {
-                return ((Number) value).intValue() != 0 ? 1 : 0;
-            }
+        /**
+         * 记录首个失败原因，其他工作线程随后停止
+         */
+        void fail(Exception e) {
+            failure.compareAndSet(null, e);
         }
         
-        // 处理JSON类型
-        if (columnType.contains("JSON")) {
-            if (targetType == DatabaseManager.DatabaseType.SQLITE) {
-                // MySQL JSON转SQLite TEXT
-                return value.toString();
-            }
+        boolean isStopped() {
+            return cancelled || failure.get() != null;
         }
+    }
+    
+    /**
+     * 串行化的进度回调
+     * 并行迁移时保证回调不会被多个工作线程同时调用。回调可能阻塞在控制台或界面更新上，
+     * 使用显式锁而不是 synchronized，工作线程为虚拟线程时等待期间不会占住载体线程。
+     */
+    private static class SynchronizedProgressCallback implements ProgressCallback {
+        private final ProgressCallback delegate;
+        private final ReentrantLock lock = new ReentrantLock();
         
-        // 处理ENUM和SET类型
-        if (columnType.contains("ENUM") || columnType.contains("SET")) {
-            if (targetType == DatabaseManager.DatabaseType.SQLITE) {
-                // MySQL ENUM/SET转SQLite TEXT
-                return value.toString();
-            }
+        SynchronizedProgressCallback(ProgressCallback delegate) {
+            this.delegate = delegate;
         }
         
-        // 处理YEAR类型
-        if (columnType.contains("YEAR")) {
-            if (targetType == DatabaseManager.DatabaseType.SQLITE) {
-                // MySQL YEAR转SQLite INTEGER
-                if (value instanceof Number) {
-                    return ((Number) value).intValue();
-                }
-                return Integer.parseInt(value.toString());
+        @Override
+        public void onProgress(String message, double progress) {
+            lock.lock();
+            try {
+                delegate.onProgress(message, progress);
+            } finally {
+                lock.unlock();
             }
         }
         
-        // 处理日期时间
-        if (value instanceof Timestamp || value instanceof java.util.Date) {
-            if (targetType == DatabaseManager.DatabaseType.SQLITE) {
-                return value.toString();
+        @Override
+        public void onTableStart(String tableName, long totalRows) {
+            lock.lock();
+            try {
+                delegate.onTableStart(tableName, totalRows);
+            } finally {
+                lock.unlock();
             }
         }
         
-        // 处理MySQL空间数据类型（转换为BLOB时保持原始格式）
-        if (columnType.contains("GEOMETRY") || columnType.contains("POINT") || 
-            columnType.contains("LINESTRING") || columnType.contains("POLYGON") ||
-            columnType.contains("MULTIPOINT") || columnType.contains("MULTILINESTRING") ||
-            columnType.contains("MULTIPOLYGON") || columnType.contains("GEOMETRYCOLLECTION")) {
-            // 空间数据保持原始格式（WKT字符串或WKB字节数组）
-            return value;
+        @Override
+        public void onTableComplete(String tableName, long migratedRows) {
+            lock.lock();
+            try {
+                delegate.onTableComplete(tableName, migratedRows);
+            } finally {
+                lock.unlock();
+            }
         }
         
-        // 处理字符串到数值的转换
-        if (targetType == DatabaseManager.DatabaseType.MYSQL && value instanceof String) {
-            String stringValue = (String) value;
-            if (columnType.contains("INT") || columnType.contains("DECIMAL") || 
-                columnType.contains("NUMERIC") || columnType.contains("FLOAT") || 
-                columnType.contains("DOUBLE")) {
-                try {
-                    if (columnType.contains("INT")) {
-                        return Long.parseLong(stringValue);
-                    } else {
-                        return Double.parseDouble(stringValue);
-                    }
-                } catch (NumberFormatException e) {
-                    logger.warn("无法转换字符串 '{}' 为数值类型 {}", stringValue, columnType);
-                }
+        @Override
+        public void onError(String message, Exception error) {
+            lock.lock();
+            try {
+                delegate.onError(message, error);
+            } finally {
+                lock.unlock();
             }
         }
-        
-        return value;
-    }
-    
-    /**
-     * 取消迁移
-     */
-    public void cancel() {
-        this.cancelled = true;
-        logger.info("数据迁移已被取消");
     }
     
     /**
      * 迁移结果类
+     * 计数器可被多个工作线程同时更新
      */
     public static class MigrationResult {
-        private boolean success = false;
-        private String errorMessage;
-        private int totalTables = 0;
-        private int migratedTables = 0;
-        private long totalRows = 0;
-        private long startTime = System.currentTimeMillis();
-        private long endTime;
+        private volatile boolean success = false;
+        private volatile String errorMessage;
+        private volatile int totalTables = 0;
+        private final AtomicInteger migratedTables = new AtomicInteger(0);
+        private final AtomicLong totalRows = new AtomicLong(0);
+        private final AtomicInteger createdIndexes = new AtomicInteger(0);
+        private final AtomicInteger failedIndexes = new AtomicInteger(0);
+        private final Map<String, BatchTuner.Settings> batchSettings = new ConcurrentHashMap<>();
+        private final long startTime = System.currentTimeMillis();
+        private volatile long endTime;
+        private volatile DataVerifier.VerificationReport verification;
+        private final Map<String, Long> phaseMillis = new ConcurrentHashMap<>();
         
         // Getters and Setters
         public boolean isSuccess() { return success; }
@@ -414,11 +1682,45 @@ public class DataMigrator {
         public int getTotalTables() { return totalTables; }
         public void setTotalTables(int totalTables) { this.totalTables = totalTables; }
         
-        public int getMigratedTables() { return migratedTables; }
-        public void incrementMigratedTables() { this.migratedTables++; }
+        public int getMigratedTables() { return migratedTables.get(); }
+        public void incrementMigratedTables() { this.migratedTables.incrementAndGet(); }
+        
+        public long getTotalRows() { return totalRows.get(); }
+        public void addRows(long rows) { this.totalRows.addAndGet(rows); }
+        
+        public int getCreatedIndexes() { return createdIndexes.get(); }
+        public void incrementCreatedIndexes() { this.createdIndexes.incrementAndGet(); }
+        
+        public int getFailedIndexes() { return failedIndexes.get(); }
+        public void incrementFailedIndexes() { this.failedIndexes.incrementAndGet(); }
+        
+        /**
+         * @return 各表最终使用的批次行数和提交间隔
+         */
+        public Map<String, BatchTuner.Settings> getBatchSettings() { return batchSettings; }
+        public void recordBatchSettings(String tableName, BatchTuner.Settings settings) {
+            this.batchSettings.put(tableName, settings);
+        }
+        
+        /**
+         * @return 迁移后的数据校验结果，未开启校验时为null
+         */
+        public DataVerifier.VerificationReport getVerification() { return verification; }
+        public void setVerification(DataVerifier.VerificationReport verification) { this.verification = verification; }
+        
+        /**
+         * 记录一个阶段结束，同名阶段的耗时累加
+         * @param phase 阶段名：schema、data、indexes、publish、verify
+         * @param startNanos 阶段开始时的 System.nanoTime()
+         */
+        public void endPhase(String phase, long startNanos) {
+            phaseMillis.merge(phase, (System.nanoTime() - startNanos) / 1_000_000, Long::sum);
+        }
         
-        public long getTotalRows() { return totalRows; }
-        public void addRows(long rows) { this.totalRows += rows; }
+        /**
+         * @return 各阶段耗时（毫秒），未执行的阶段不出现
+         */
+        public Map<String, Long> getPhaseMillis() { return new TreeMap<>(phaseMillis); }
         
         public long getDuration() { 
             return endTime > 0 ? endTime - startTime : System.currentTimeMillis() - startTime; 
@@ -426,8 +1728,10 @@ public class DataMigrator {
         
         @Override
         public String toString() {
-            return String.format("MigrationResult{success=%s, tables=%d/%d, rows=%d, duration=%dms}", 
-                               success, migratedTables, totalTables, totalRows, getDuration());
+            return String.format("MigrationResult{success=%s, tables=%d/%d, rows=%d, indexes=%d, failedIndexes=%d, duration=%dms, phases=%s, batchSettings=%s, verified=%s}", 
+                               success, getMigratedTables(), totalTables, getTotalRows(), getCreatedIndexes(),
+                               getFailedIndexes(), getDuration(), getPhaseMillis(), batchSettings,
+                               verification == null ? "-" : verification.isMatch());
         }
     }
 }
\ No newline at end of file
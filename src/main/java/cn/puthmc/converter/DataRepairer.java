@@ -0,0 +1,405 @@
+package cn.puthmc.converter;
+
+import cn.puthmc.db.DatabaseManager;
+import cn.puthmc.model.ColumnInfo;
+import cn.puthmc.model.TableInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 数据差异修复器
+ * 与 DataVerifier 相同地把每张表按主键分块，在两边各读取一遍得到块哈希并逐块比较，找出不一致的块。
+ * 对这些块按主键逐行比较：
+ * 源表有而目标表没有或内容不同的行按主键覆盖写入目标表，目标表多出的行按主键删除，其余行不做任何写入。
+ * 不需要重新装载整张表就能修正目标库的偏差。没有主键的表无法定位差异行，只报告不修复。
+ */
+public class DataRepairer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DataRepairer.class);
+    
+    /**
+     * 单表修复结果
+     */
+    public static class TableRepair {
+        private final String tableName;
+        private int chunks;
+        private int differingChunks;
+        private long upsertedRows;
+        private long deletedRows;
+        private String error;
+        
+        public TableRepair(String tableName) {
+            this.tableName = tableName;
+        }
+        
+        public String getTableName() { return tableName; }
+        public int getChunks() { return chunks; }
+        public int getDifferingChunks() { return differingChunks; }
+        
+        /**
+         * @return 覆盖写入（仅比较时为需要覆盖写入）的行数
+         */
+        public long getUpsertedRows() { return upsertedRows; }
+        
+        /**
+         * @return 删除（仅比较时为需要删除）的行数
+         */
+        public long getDeletedRows() { return deletedRows; }
+        
+        /**
+         * @return 无法比较或修复的原因，成功时为null
+         */
+        public String getError() { return error; }
+        
+        @Override
+        public String toString() {
+            if (error != null) {
+                return tableName + ": " + error;
+            }
+            return String.format("%s: %d/%d 块不同, 覆盖 %d 行, 删除 %d 行",
+                                 tableName, differingChunks, chunks, upsertedRows, deletedRows);
+        }
+    }
+    
+    /**
+     * 修复结果
+     */
+    public static class RepairReport {
+        private final boolean applied;
+        private final List<TableRepair> tables = new ArrayList<>();
+        private long duration;
+        
+        public RepairReport(boolean applied) {
+            this.applied = applied;
+        }
+        
+        /**
+         * @return 是否已写入目标库，为false时只是比较
+         */
+        public boolean isApplied() { return applied; }
+        public List<TableRepair> getTables() { return tables; }
+        public long getDuration() { return duration; }
+        
+        public long getUpsertedRows() {
+            return tables.stream().mapToLong(TableRepair::getUpsertedRows).sum();
+        }
+        
+        public long getDeletedRows() {
+            return tables.stream().mapToLong(TableRepair::getDeletedRows).sum();
+        }
+        
+        /**
+         * @return 是否所有表都完成了比较（和修复）
+         */
+        public boolean isSuccess() {
+            return tables.stream().allMatch(table -> table.getError() == null);
+        }
+        
+        @Override
+        public String toString() {
+            List<TableRepair> changed = new ArrayList<>();
+            for (TableRepair table : tables) {
+                if (table.getError() != null || table.getDifferingChunks() > 0) {
+                    changed.add(table);
+                }
+            }
+            return String.format("RepairReport{applied=%s, tables=%d, upserted=%d, deleted=%d, changed=%s, duration=%dms}",
+                                 applied, tables.size(), getUpsertedRows(), getDeletedRows(), changed, duration);
+        }
+    }
+    
+    /**
+     * 一行的哈希和值
+     */
+    private static class RowData {
+        final long hash;
+        final Object[] values;
+        
+        RowData(long hash, Object[] values) {
+            this.hash = hash;
+            this.values = values;
+        }
+    }
+    
+    private final MigrationOptions options;
+    private final DataVerifier verifier;
+    
+    public DataRepairer() {
+        this(new MigrationOptions());
+    }
+    
+    public DataRepairer(MigrationOptions options) {
+        this.options = options;
+        this.verifier = new DataVerifier(options);
+    }
+    
+    /**
+     * 只比较不写入，报告需要覆盖写入和删除的行数
+     * @param sourceFactory 源数据库连接工厂
+     * @param targetFactory 目标数据库连接工厂
+     * @return 比较结果
+     */
+    public RepairReport diff(DatabaseManager.ConnectionFactory sourceFactory,
+                             DatabaseManager.ConnectionFactory targetFactory) throws SQLException {
+        return run(sourceFactory, targetFactory, false);
+    }
+    
+    /**
+     * 比较并修复目标库，使其与源库一致
+     * @param sourceFactory 源数据库连接工厂
+     * @param targetFactory 目标数据库连接工厂
+     * @return 修复结果
+     */
+    public RepairReport repair(DatabaseManager.ConnectionFactory sourceFactory,
+                               DatabaseManager.ConnectionFactory targetFactory) throws SQLException {
+        return run(sourceFactory, targetFactory, true);
+    }
+    
+    private RepairReport run(DatabaseManager.ConnectionFactory sourceFactory,
+                             DatabaseManager.ConnectionFactory targetFactory, boolean apply) throws SQLException {
+        long start = System.currentTimeMillis();
+        RepairReport report = new RepairReport(apply);
+        List<DataVerifier.TablePlan> plans = new ArrayList<>();
+        DatabaseManager.DatabaseType sourceType;
+        DatabaseManager.DatabaseType targetType;
+        
+        try (Connection sourceConn = sourceFactory.createConnection();
+             Connection targetConn = targetFactory.createConnection()) {
+            sourceType = DatabaseManager.getDatabaseType(sourceConn);
+            targetType = DatabaseManager.getDatabaseType(targetConn);
+            Map<String, TableInfo> targetTables = DataVerifier.targetTables(targetConn);
+            for (TableInfo table : verifier.selectTables(sourceConn, sourceFactory)) {
+                DataVerifier.TablePlan plan = new DataVerifier.TablePlan(table);
+                verifier.planTable(sourceConn, targetConn, plan, targetTables, sourceType, targetType);
+                plans.add(plan);
+            }
+        }
+        
+        int threads = Math.max(2, options.getParallelism() * 2);
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "dbbridge-repair-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        try {
+            List<Future<DataVerifier.ChunkDigest>> sourceDigests = new ArrayList<>();
+            List<Future<DataVerifier.ChunkDigest>> targetDigests = new ArrayList<>();
+            for (DataVerifier.TablePlan plan : plans) {
+                TableRepair repair = new TableRepair(plan.table.getName());
+                report.getTables().add(repair);
+                if (plan.report.getError() != null) {
+                    repair.error = plan.report.getError();
+                    sourceDigests.add(null);
+                    targetDigests.add(null);
+                    continue;
+                }
+                RowHasher sourceHasher = DataVerifier.sourceHasher(plan, sourceType, targetType);
+                RowHasher targetHasher = RowHasher.forTarget(plan.targetColumns, plan.keyIndexes);
+                sourceDigests.add(executor.submit(() -> verifier.digest(sourceFactory, plan, sourceHasher, sourceType)));
+                targetDigests.add(executor.submit(() -> verifier.digest(targetFactory, plan, targetHasher, targetType)));
+            }
+            
+            List<Runnable> tasks = new ArrayList<>();
+            for (int i = 0; i < plans.size(); i++) {
+                DataVerifier.TablePlan plan = plans.get(i);
+                TableRepair repair = report.getTables().get(i);
+                if (sourceDigests.get(i) == null) {
+                    continue;
+                }
+                
+                BitSet differing;
+                try {
+                    differing = DataVerifier.compareDigests(plan, DataVerifier.await(sourceDigests.get(i)),
+                                                            DataVerifier.await(targetDigests.get(i)));
+                    repair.chunks = plan.chunkCount;
+                    repair.differingChunks = differing.cardinality();
+                } catch (SQLException e) {
+                    repair.error = "读取失败: " + e.getMessage();
+                    logger.error("比较表 {} 时读取失败", plan.table.getName(), e);
+                    continue;
+                }
+                
+                if (differing.isEmpty()) {
+                    continue;
+                }
+                if (!plan.hasKey()) {
+                    repair.error = "没有主键，无法定位差异行";
+                    continue;
+                }
+                Runnable task = () -> {
+                    try {
+                        repairTable(sourceFactory, targetFactory, plan, differing, sourceType, targetType, apply, repair);
+                    } catch (SQLException e) {
+                        repair.error = (apply ? "修复失败: " : "比较失败: ") + e.getMessage();
+                        logger.error("{}表 {} 失败", apply ? "修复" : "比较", plan.table.getName(), e);
+                    }
+                };
+                tasks.add(task);
+            }
+            
+            if (targetType == DatabaseManager.DatabaseType.SQLITE) {
+                // SQLite 同一时间只允许一个写事务，等所有读取结束后逐表修复
+                tasks.forEach(Runnable::run);
+            } else {
+                List<Future<?>> repairs = new ArrayList<>();
+                for (Runnable task : tasks) {
+                    repairs.add(executor.submit(task));
+                }
+                for (Future<?> future : repairs) {
+                    DataVerifier.await(future);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        report.duration = System.currentTimeMillis() - start;
+        for (TableRepair table : report.getTables()) {
+            if (table.getError() != null || table.getDifferingChunks() > 0) {
+                logger.info("{} {}", apply ? "修复" : "比较", table);
+            }
+        }
+        logger.info("数据{}完成: {} 个表, 覆盖 {} 行, 删除 {} 行, 耗时 {} ms", apply ? "修复" : "比较",
+                    report.getTables().size(), report.getUpsertedRows(), report.getDeletedRows(), report.getDuration());
+        return report;
+    }
+    
+    /**
+     * 逐个处理不一致的块，每块修复后提交
+     */
+    private void repairTable(DatabaseManager.ConnectionFactory sourceFactory,
+                             DatabaseManager.ConnectionFactory targetFactory, DataVerifier.TablePlan plan,
+                             BitSet differing, DatabaseManager.DatabaseType sourceType,
+                             DatabaseManager.DatabaseType targetType, boolean apply,
+                             TableRepair repair) throws SQLException {
+        RowHasher sourceHasher = DataVerifier.sourceHasher(plan, sourceType, targetType);
+        RowHasher targetHasher = RowHasher.forTarget(plan.targetColumns, plan.keyIndexes);
+        
+        try (Connection sourceConn = sourceFactory.createConnection();
+             Connection targetConn = targetFactory.createConnection()) {
+            targetConn.setAutoCommit(false);
+            try {
+                if (plan.keyColumn != null) {
+                    for (int chunk = differing.nextSetBit(0); chunk >= 0; chunk = differing.nextSetBit(chunk + 1)) {
+                        long lower = plan.lower + chunk * plan.span;
+                        long upper = lower + plan.span - 1;
+                        Map<String, RowData> sourceRows = readRows(sourceConn, plan, sourceHasher, sourceType, lower, upper, null);
+                        Map<String, RowData> targetRows = readRows(targetConn, plan, targetHasher, targetType, lower, upper, null);
+                        apply(targetConn, plan, targetType, sourceRows, targetRows, apply, repair);
+                    }
+                } else {
+                    // 按主键哈希分块：重新扫描整表，只保留不一致的块中的行
+                    Map<String, RowData> sourceRows = readRows(sourceConn, plan, sourceHasher, sourceType, 0, 0, differing);
+                    Map<String, RowData> targetRows = readRows(targetConn, plan, targetHasher, targetType, 0, 0, differing);
+                    apply(targetConn, plan, targetType, sourceRows, targetRows, apply, repair);
+                }
+            } catch (SQLException e) {
+                targetConn.rollback();
+                throw e;
+            }
+        }
+    }
+    
+    /**
+     * 读取一个键值范围或属于指定块的行
+     * @return 主键到行哈希和值的映射
+     */
+    private Map<String, RowData> readRows(Connection conn, DataVerifier.TablePlan plan, RowHasher hasher,
+                                          DatabaseManager.DatabaseType dbType, long lower, long upper,
+                                          BitSet chunks) throws SQLException {
+        Map<String, RowData> rows = new HashMap<>();
+        boolean ranged = chunks == null;
+        int columnCount = plan.table.getColumns().size();
+        try (PreparedStatement stmt = DatabaseManager.prepareStreamingQuery(conn, DataVerifier.selectSql(plan, dbType, ranged),
+                                                                            options.getFetchSize())) {
+            if (ranged) {
+                stmt.setLong(1, lower);
+                stmt.setLong(2, upper);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Object[] values = new Object[columnCount];
+                    String[] row = hasher.read(rs, values);
+                    if (chunks == null || chunks.get(plan.chunkOf(hasher, row))) {
+                        rows.put(hasher.key(row), new RowData(hasher.rowHash(row), values));
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+    
+    /**
+     * 按主键比较两边的行，删除目标表多出的行，覆盖写入缺失和内容不同的行，然后提交
+     */
+    private void apply(Connection targetConn, DataVerifier.TablePlan plan, DatabaseManager.DatabaseType targetType,
+                       Map<String, RowData> sourceRows, Map<String, RowData> targetRows, boolean apply,
+                       TableRepair repair) throws SQLException {
+        List<Object[]> upserts = new ArrayList<>();
+        for (Map.Entry<String, RowData> entry : sourceRows.entrySet()) {
+            RowData target = targetRows.remove(entry.getKey());
+            if (target == null || target.hash != entry.getValue().hash) {
+                upserts.add(entry.getValue().values);
+            }
+        }
+        List<RowData> deletes = new ArrayList<>(targetRows.values());
+        
+        repair.upsertedRows += upserts.size();
+        repair.deletedRows += deletes.size();
+        if (!apply || (upserts.isEmpty() && deletes.isEmpty())) {
+            return;
+        }
+        
+        TableInfo table = plan.table;
+        if (!deletes.isEmpty()) {
+            try (PreparedStatement delete = targetConn.prepareStatement(
+                     SqlConverter.generateDeleteByKeySql(table.getName(), table.getPrimaryKeyColumns(), targetType))) {
+                for (RowData row : deletes) {
+                    for (int i = 0; i < plan.keyIndexes.length; i++) {
+                        delete.setObject(i + 1, row.values[plan.keyIndexes[i]]);
+                    }
+                    delete.addBatch();
+                }
+                delete.executeBatch();
+            }
+        }
+        
+        if (!upserts.isEmpty()) {
+            List<ColumnInfo> columns = table.getColumns();
+            int batchSize = Math.min(options.getBatchSize(), upserts.size());
+            RowBatch batch = new RowBatch(columns.size(), batchSize);
+            try (BatchWriter writer = new PreparedStatementBatchWriter(targetConn,
+                     SqlConverter.generateUpsertSql(table.getName(), columns, targetType))) {
+                for (Object[] values : upserts) {
+                    int row = batch.size();
+                    for (int i = 0; i < values.length; i++) {
+                        batch.set(i, row, values[i]);
+                    }
+                    batch.setSize(row + 1);
+                    if (batch.isFull()) {
+                        writer.write(batch);
+                        batch.clear();
+                    }
+                }
+                writer.write(batch);
+            }
+        }
+        targetConn.commit();
+    }
+}
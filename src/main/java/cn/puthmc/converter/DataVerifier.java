@@ -0,0 +1,642 @@
+package cn.puthmc.converter;
+
+import cn.puthmc.db.DatabaseManager;
+import cn.puthmc.db.SchemaAnalyzer;
+import cn.puthmc.db.SchemaCache;
+import cn.puthmc.model.ColumnInfo;
+import cn.puthmc.model.TableInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 数据校验器
+ * 把每张表按主键切分成若干块，源表和目标表各顺序读取一遍，逐行计算哈希并按块累加，
+ * 累加与行的读取顺序无关，两边的查询都不需要排序。块哈希或行数不一致时，
+ * 只重新读取这些块并按主键逐行比较，报告缺失、多出和内容不同的行。
+ * 单列整数主键按键值范围分块，不一致的块按范围查询；其他主键按主键哈希分块，不一致的块需要再扫描一遍表；
+ * 没有主键的表只比较整表哈希。不同表以及同一张表的源、目标两边并行读取，每个读取任务使用独立连接。
+ */
+public class DataVerifier {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DataVerifier.class);
+    
+    // 单表的块数上限，键值非常稀疏时放大每块的键跨度
+    private static final int MAX_CHUNKS = 1_000_000;
+    
+    /**
+     * 行差异类型
+     */
+    public enum DifferenceType {
+        MISSING, // 源表有、目标表没有
+        EXTRA,   // 目标表有、源表没有
+        CHANGED  // 两边都有但内容不同
+    }
+    
+    /**
+     * 单行差异
+     */
+    public static class RowDifference {
+        private final DifferenceType type;
+        private final String key;
+        
+        public RowDifference(DifferenceType type, String key) {
+            this.type = type;
+            this.key = key;
+        }
+        
+        public DifferenceType getType() { return type; }
+        
+        /**
+         * @return 主键值，复合主键以逗号分隔
+         */
+        public String getKey() { return key; }
+        
+        @Override
+        public String toString() {
+            return type + "(" + key + ")";
+        }
+    }
+    
+    /**
+     * 不一致的块
+     */
+    public static class ChunkMismatch {
+        private final String range;
+        private final long sourceRows;
+        private final long targetRows;
+        
+        public ChunkMismatch(String range, long sourceRows, long targetRows) {
+            this.range = range;
+            this.sourceRows = sourceRows;
+            this.targetRows = targetRows;
+        }
+        
+        /**
+         * @return 块的描述：键值范围，或按主键哈希分块时的块号
+         */
+        public String getRange() { return range; }
+        public long getSourceRows() { return sourceRows; }
+        public long getTargetRows() { return targetRows; }
+        
+        @Override
+        public String toString() {
+            return range + " " + sourceRows + "/" + targetRows;
+        }
+    }
+    
+    /**
+     * 单表校验结果
+     */
+    public static class TableReport {
+        private final String tableName;
+        private long sourceRows;
+        private long targetRows;
+        private int chunks;
+        private final List<ChunkMismatch> mismatchedChunks = new ArrayList<>();
+        private final List<RowDifference> differences = new ArrayList<>();
+        private boolean truncated;
+        private String error;
+        
+        public TableReport(String tableName) {
+            this.tableName = tableName;
+        }
+        
+        public String getTableName() { return tableName; }
+        public long getSourceRows() { return sourceRows; }
+        public long getTargetRows() { return targetRows; }
+        public int getChunks() { return chunks; }
+        public List<ChunkMismatch> getMismatchedChunks() { return mismatchedChunks; }
+        public List<RowDifference> getDifferences() { return differences; }
+        
+        /**
+         * @return 差异行数超过上限，只报告了一部分
+         */
+        public boolean isTruncated() { return truncated; }
+        
+        /**
+         * @return 无法校验的原因（目标表不存在、缺少列或读取失败），可以校验时为null
+         */
+        public String getError() { return error; }
+        
+        public boolean isMatch() {
+            return error == null && mismatchedChunks.isEmpty();
+        }
+        
+        @Override
+        public String toString() {
+            if (error != null) {
+                return tableName + ": " + error;
+            }
+            if (isMatch()) {
+                return String.format("%s: 一致 (%d 行, %d 块)", tableName, sourceRows, chunks);
+            }
+            return String.format("%s: 不一致 (源 %d 行, 目标 %d 行, %d/%d 块不同, 差异行 %s%s)",
+                                 tableName, sourceRows, targetRows, mismatchedChunks.size(), chunks,
+                                 differences, truncated ? " ..." : "");
+        }
+    }
+    
+    /**
+     * 校验结果
+     */
+    public static class VerificationReport {
+        private final List<TableReport> tables = new ArrayList<>();
+        private long duration;
+        
+        public List<TableReport> getTables() { return tables; }
+        public long getDuration() { return duration; }
+        
+        public boolean isMatch() {
+            for (TableReport table : tables) {
+                if (!table.isMatch()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * @return 不一致或无法校验的表
+         */
+        public List<TableReport> getMismatchedTables() {
+            List<TableReport> mismatched = new ArrayList<>();
+            for (TableReport table : tables) {
+                if (!table.isMatch()) {
+                    mismatched.add(table);
+                }
+            }
+            return mismatched;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("VerificationReport{match=%s, tables=%d, mismatched=%s, duration=%dms}",
+                                 isMatch(), tables.size(), getMismatchedTables(), duration);
+        }
+    }
+    
+    /**
+     * 一张表的校验计划
+     */
+    static class TablePlan {
+        final TableReport report;
+        final TableInfo table;
+        List<ColumnInfo> targetColumns;
+        int[] keyIndexes;
+        String keyColumn;          // 按范围分块的整数键列，按主键哈希分块时为null
+        int keyIndex = -1;
+        long lower;
+        long span;
+        int chunkCount = 1;
+        
+        TablePlan(TableInfo table) {
+            this.table = table;
+            this.report = new TableReport(table.getName());
+        }
+        
+        boolean hasKey() {
+            return keyIndexes.length > 0;
+        }
+        
+        int chunkOf(RowHasher hasher, String[] row) {
+            if (chunkCount == 1) {
+                return 0;
+            }
+            if (keyColumn != null) {
+                try {
+                    long key = Long.parseLong(row[keyIndex]);
+                    return (int) Math.max(0, Math.min(chunkCount - 1, Math.floorDiv(key - lower, span)));
+                } catch (NumberFormatException e) {
+                    // 不是整数的键值在两边落入同一块，但按范围查询时找不到
+                }
+            }
+            return (int) Math.floorMod(hasher.keyHash(row), (long) chunkCount);
+        }
+        
+        String describe(int chunk) {
+            if (keyColumn != null) {
+                long start = lower + chunk * span;
+                return keyColumn + " [" + start + ", " + (start + span - 1) + "]";
+            }
+            return hasKey() ? "bucket " + chunk : "全表";
+        }
+    }
+    
+    /**
+     * 一边的块哈希
+     */
+    static class ChunkDigest {
+        final long[] sums;
+        final long[] counts;
+        long rows;
+        
+        ChunkDigest(int chunks) {
+            this.sums = new long[chunks];
+            this.counts = new long[chunks];
+        }
+    }
+    
+    private final MigrationOptions options;
+    
+    public DataVerifier() {
+        this(new MigrationOptions());
+    }
+    
+    public DataVerifier(MigrationOptions options) {
+        this.options = options;
+    }
+    
+    /**
+     * 校验源库所有表与目标库中同名表的数据是否一致
+     * @param sourceFactory 源数据库连接工厂
+     * @param targetFactory 目标数据库连接工厂
+     * @return 校验结果
+     */
+    public VerificationReport verify(DatabaseManager.ConnectionFactory sourceFactory,
+                                     DatabaseManager.ConnectionFactory targetFactory) throws SQLException {
+        long start = System.currentTimeMillis();
+        VerificationReport report = new VerificationReport();
+        List<TablePlan> plans = new ArrayList<>();
+        DatabaseManager.DatabaseType sourceType;
+        DatabaseManager.DatabaseType targetType;
+        
+        try (Connection sourceConn = sourceFactory.createConnection();
+             Connection targetConn = targetFactory.createConnection()) {
+            sourceType = DatabaseManager.getDatabaseType(sourceConn);
+            targetType = DatabaseManager.getDatabaseType(targetConn);
+            Map<String, TableInfo> targetTables = targetTables(targetConn);
+            for (TableInfo table : selectTables(sourceConn, sourceFactory)) {
+                TablePlan plan = new TablePlan(table);
+                planTable(sourceConn, targetConn, plan, targetTables, sourceType, targetType);
+                plans.add(plan);
+                report.getTables().add(plan.report);
+            }
+        }
+        
+        int threads = Math.max(2, options.getParallelism() * 2);
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "dbbridge-verify-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        try {
+            // 第一遍：两边并行计算所有表的块哈希
+            List<Future<ChunkDigest>> sourceDigests = new ArrayList<>();
+            List<Future<ChunkDigest>> targetDigests = new ArrayList<>();
+            for (TablePlan plan : plans) {
+                if (plan.report.getError() != null) {
+                    sourceDigests.add(null);
+                    targetDigests.add(null);
+                    continue;
+                }
+                RowHasher sourceHasher = sourceHasher(plan, sourceType, targetType);
+                RowHasher targetHasher = RowHasher.forTarget(plan.targetColumns, plan.keyIndexes);
+                sourceDigests.add(executor.submit(() -> digest(sourceFactory, plan, sourceHasher, sourceType)));
+                targetDigests.add(executor.submit(() -> digest(targetFactory, plan, targetHasher, targetType)));
+            }
+            
+            // 第二遍：只读取不一致的块，逐行比较
+            List<Future<?>> drillDowns = new ArrayList<>();
+            for (int i = 0; i < plans.size(); i++) {
+                TablePlan plan = plans.get(i);
+                if (sourceDigests.get(i) == null) {
+                    continue;
+                }
+                BitSet mismatched;
+                try {
+                    mismatched = compareDigests(plan, await(sourceDigests.get(i)), await(targetDigests.get(i)));
+                } catch (SQLException e) {
+                    plan.report.error = "读取失败: " + e.getMessage();
+                    logger.error("校验表 {} 时读取失败", plan.table.getName(), e);
+                    continue;
+                }
+                if (!mismatched.isEmpty() && plan.hasKey()) {
+                    drillDowns.add(executor.submit(() -> {
+                        try {
+                            findDifferences(sourceFactory, targetFactory, plan, mismatched, sourceType, targetType);
+                        } catch (SQLException e) {
+                            plan.report.error = "逐行比较失败: " + e.getMessage();
+                            logger.error("逐行比较表 {} 时失败", plan.table.getName(), e);
+                        }
+                        return null;
+                    }));
+                }
+            }
+            for (Future<?> future : drillDowns) {
+                await(future);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        report.duration = System.currentTimeMillis() - start;
+        for (TableReport table : report.getTables()) {
+            if (table.isMatch()) {
+                logger.debug("校验 {}", table);
+            } else {
+                logger.warn("校验 {}", table);
+            }
+        }
+        logger.info("数据校验完成: {} 个表, {} 个不一致, 耗时 {} ms",
+                    report.getTables().size(), report.getMismatchedTables().size(), report.getDuration());
+        return report;
+    }
+    
+    /**
+     * 读取源库中要校验的表，行数只用于切分校验块
+     * 精确统计时通过源库连接工厂按并行度统计，否则使用统计信息估算
+     */
+    List<TableInfo> selectTables(Connection sourceConn, DatabaseManager.ConnectionFactory sourceFactory) throws SQLException {
+        List<TableInfo> tables = new ArrayList<>();
+        for (TableInfo table : SchemaCache.getTableStructures(sourceConn, options.getSchemaCacheDir())) {
+            if (options.isTableSelected(table.getName())) {
+                tables.add(table);
+            }
+        }
+        if (options.getRowCountMode() == MigrationOptions.RowCountMode.EXACT) {
+            SchemaAnalyzer.countRows(sourceConn, tables, sourceFactory, options.getParallelism());
+        } else {
+            SchemaAnalyzer.estimateRows(sourceConn, tables);
+        }
+        return tables;
+    }
+    
+    /**
+     * 一次读取目标库所有表的结构，按小写表名索引
+     */
+    static Map<String, TableInfo> targetTables(Connection targetConn) throws SQLException {
+        Map<String, TableInfo> tables = new HashMap<>();
+        for (TableInfo table : SchemaAnalyzer.getTableStructures(targetConn)) {
+            tables.put(table.getName().toLowerCase(Locale.ROOT), table);
+        }
+        return tables;
+    }
+    
+    /**
+     * 对应目标表的列，选择分块方式并计算块数
+     */
+    void planTable(Connection sourceConn, Connection targetConn, TablePlan plan, Map<String, TableInfo> targetTables,
+                           DatabaseManager.DatabaseType sourceType, DatabaseManager.DatabaseType targetType) throws SQLException {
+        TableInfo table = plan.table;
+        TableInfo targetTable = targetTables.get(table.getName().toLowerCase(Locale.ROOT));
+        if (targetTable == null || targetTable.getColumns().isEmpty()) {
+            plan.report.error = "目标表不存在";
+            return;
+        }
+        
+        Map<String, ColumnInfo> byName = new HashMap<>();
+        for (ColumnInfo column : targetTable.getColumns()) {
+            byName.put(column.getName().toLowerCase(Locale.ROOT), column);
+        }
+        plan.targetColumns = new ArrayList<>();
+        List<Integer> keyIndexes = new ArrayList<>();
+        List<ColumnInfo> columns = table.getColumns();
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnInfo target = byName.get(columns.get(i).getName().toLowerCase(Locale.ROOT));
+            if (target == null) {
+                plan.report.error = "目标表缺少列 " + columns.get(i).getName();
+                return;
+            }
+            plan.targetColumns.add(target);
+            if (columns.get(i).isPrimaryKey()) {
+                keyIndexes.add(i);
+            }
+        }
+        plan.keyIndexes = keyIndexes.stream().mapToInt(Integer::intValue).toArray();
+        
+        long rowCount = table.getRowCount();
+        int chunkRows = options.getVerifyChunkRows();
+        if (!plan.hasKey()) {
+            logger.info("表 {} 没有主键，只比较整表哈希", table.getName());
+            return;
+        }
+        
+        String keyColumn = KeyRangePartitioner.resolveCheckpointKey(sourceConn, table, sourceType);
+        if (keyColumn != null) {
+            KeyRangePartitioner.KeyRange sourceBounds = KeyRangePartitioner.getKeyBounds(sourceConn, table, keyColumn, sourceType);
+            KeyRangePartitioner.KeyRange targetBounds = KeyRangePartitioner.getKeyBounds(targetConn, table, keyColumn, targetType);
+            KeyRangePartitioner.KeyRange bounds = union(sourceBounds, targetBounds);
+            if (bounds == null) {
+                return;
+            }
+            long span = KeyRangePartitioner.chunkSpan(bounds, rowCount, chunkRows);
+            long chunks = (bounds.span() - 1) / span + 1;
+            if (chunks > MAX_CHUNKS) {
+                span = (bounds.span() - 1) / MAX_CHUNKS + 1;
+                chunks = (bounds.span() - 1) / span + 1;
+            }
+            plan.keyColumn = keyColumn;
+            plan.keyIndex = indexOf(columns, keyColumn);
+            plan.lower = bounds.getLower();
+            plan.span = span;
+            plan.chunkCount = (int) chunks;
+        } else {
+            plan.chunkCount = (int) Math.min(MAX_CHUNKS, Math.max(1, (rowCount + chunkRows - 1) / chunkRows));
+        }
+        plan.report.chunks = plan.chunkCount;
+    }
+    
+    /**
+     * 顺序读取一边的整张表，计算各块的行数和行哈希之和
+     */
+    ChunkDigest digest(DatabaseManager.ConnectionFactory factory, TablePlan plan, RowHasher hasher,
+                               DatabaseManager.DatabaseType dbType) throws SQLException {
+        ChunkDigest digest = new ChunkDigest(plan.chunkCount);
+        try (Connection conn = factory.createConnection();
+             PreparedStatement stmt = DatabaseManager.prepareStreamingQuery(conn, selectSql(plan, dbType, false),
+                                                                            options.getFetchSize());
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                String[] row = hasher.read(rs);
+                int chunk = plan.chunkOf(hasher, row);
+                digest.sums[chunk] += hasher.rowHash(row);
+                digest.counts[chunk]++;
+                digest.rows++;
+            }
+        }
+        return digest;
+    }
+    
+    /**
+     * 逐块比较两边的行数和行哈希之和，记入表的校验结果
+     * @return 不一致的块
+     */
+    static BitSet compareDigests(TablePlan plan, ChunkDigest source, ChunkDigest target) {
+        plan.report.sourceRows = source.rows;
+        plan.report.targetRows = target.rows;
+        plan.report.chunks = plan.chunkCount;
+        
+        BitSet mismatched = new BitSet(plan.chunkCount);
+        for (int i = 0; i < plan.chunkCount; i++) {
+            if (source.sums[i] != target.sums[i] || source.counts[i] != target.counts[i]) {
+                mismatched.set(i);
+                plan.report.mismatchedChunks.add(new ChunkMismatch(plan.describe(i), source.counts[i], target.counts[i]));
+            }
+        }
+        return mismatched;
+    }
+    
+    /**
+     * 读取不一致的块，按主键逐行比较，差异行数达到上限后停止
+     */
+    private void findDifferences(DatabaseManager.ConnectionFactory sourceFactory,
+                                 DatabaseManager.ConnectionFactory targetFactory, TablePlan plan, BitSet mismatched,
+                                 DatabaseManager.DatabaseType sourceType,
+                                 DatabaseManager.DatabaseType targetType) throws SQLException {
+        RowHasher sourceHasher = sourceHasher(plan, sourceType, targetType);
+        RowHasher targetHasher = RowHasher.forTarget(plan.targetColumns, plan.keyIndexes);
+        int limit = options.getVerifyMaxDifferences();
+        
+        try (Connection sourceConn = sourceFactory.createConnection();
+             Connection targetConn = targetFactory.createConnection()) {
+            if (plan.keyColumn != null) {
+                // 按范围分块：逐块做范围查询
+                for (int chunk = mismatched.nextSetBit(0); chunk >= 0; chunk = mismatched.nextSetBit(chunk + 1)) {
+                    long lower = plan.lower + chunk * plan.span;
+                    long upper = lower + plan.span - 1;
+                    Map<String, Long> sourceRows = readRows(sourceConn, plan, sourceHasher, sourceType, lower, upper, null);
+                    Map<String, Long> targetRows = readRows(targetConn, plan, targetHasher, targetType, lower, upper, null);
+                    if (diff(plan, sourceHasher, sourceRows, targetRows, limit)) {
+                        plan.report.truncated |= mismatched.nextSetBit(chunk + 1) >= 0;
+                        return;
+                    }
+                }
+            } else {
+                // 按主键哈希分块：重新扫描整表，只保留不一致的块中的行
+                Map<String, Long> sourceRows = readRows(sourceConn, plan, sourceHasher, sourceType, 0, 0, mismatched);
+                Map<String, Long> targetRows = readRows(targetConn, plan, targetHasher, targetType, 0, 0, mismatched);
+                diff(plan, sourceHasher, sourceRows, targetRows, limit);
+            }
+        }
+    }
+    
+    /**
+     * 读取一个键值范围或属于指定块的行
+     * @return 主键到行哈希的映射
+     */
+    private Map<String, Long> readRows(Connection conn, TablePlan plan, RowHasher hasher,
+                                       DatabaseManager.DatabaseType dbType, long lower, long upper,
+                                       BitSet chunks) throws SQLException {
+        Map<String, Long> rows = new HashMap<>();
+        boolean ranged = chunks == null;
+        try (PreparedStatement stmt = DatabaseManager.prepareStreamingQuery(conn, selectSql(plan, dbType, ranged),
+                                                                            options.getFetchSize())) {
+            if (ranged) {
+                stmt.setLong(1, lower);
+                stmt.setLong(2, upper);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String[] row = hasher.read(rs);
+                    if (chunks == null || chunks.get(plan.chunkOf(hasher, row))) {
+                        rows.put(hasher.key(row), hasher.rowHash(row));
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+    
+    /**
+     * 比较两边的行，记录差异
+     * @return 差异行数是否已达到上限
+     */
+    private static boolean diff(TablePlan plan, RowHasher hasher, Map<String, Long> sourceRows,
+                                Map<String, Long> targetRows, int limit) {
+        List<RowDifference> differences = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : sourceRows.entrySet()) {
+            Long targetHash = targetRows.remove(entry.getKey());
+            if (targetHash == null) {
+                differences.add(new RowDifference(DifferenceType.MISSING, hasher.describeKey(entry.getKey())));
+            } else if (!targetHash.equals(entry.getValue())) {
+                differences.add(new RowDifference(DifferenceType.CHANGED, hasher.describeKey(entry.getKey())));
+            }
+        }
+        for (String key : targetRows.keySet()) {
+            differences.add(new RowDifference(DifferenceType.EXTRA, hasher.describeKey(key)));
+        }
+        differences.sort((a, b) -> a.getKey().compareTo(b.getKey()));
+        
+        List<RowDifference> reported = plan.report.differences;
+        Iterator<RowDifference> iterator = differences.iterator();
+        while (iterator.hasNext() && reported.size() < limit) {
+            reported.add(iterator.next());
+        }
+        if (iterator.hasNext()) {
+            plan.report.truncated = true;
+        }
+        return reported.size() >= limit;
+    }
+    
+    static String selectSql(TablePlan plan, DatabaseManager.DatabaseType dbType, boolean ranged) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        List<ColumnInfo> columns = plan.table.getColumns();
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(SqlConverter.quoteIdentifier(columns.get(i).getName(), dbType));
+        }
+        sql.append(" FROM ").append(SqlConverter.quoteIdentifier(plan.table.getName(), dbType));
+        if (ranged) {
+            sql.append(KeyRangePartitioner.rangeCondition(plan.keyColumn, dbType));
+        }
+        return sql.toString();
+    }
+    
+    static RowHasher sourceHasher(TablePlan plan, DatabaseManager.DatabaseType sourceType,
+                                          DatabaseManager.DatabaseType targetType) {
+        return RowHasher.forSource(plan.table.getColumns(), plan.targetColumns, plan.keyIndexes, sourceType, targetType);
+    }
+    
+    private static KeyRangePartitioner.KeyRange union(KeyRangePartitioner.KeyRange a, KeyRangePartitioner.KeyRange b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return new KeyRangePartitioner.KeyRange(Math.min(a.getLower(), b.getLower()), Math.max(a.getUpper(), b.getUpper()));
+    }
+    
+    private static int indexOf(List<ColumnInfo> columns, String columnName) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).getName().equalsIgnoreCase(columnName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    static <T> T await(Future<T> future) throws SQLException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            throw new SQLException("校验线程执行失败: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("等待校验时被中断", e);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package cn.puthmc.converter;
+
+import cn.puthmc.db.DatabaseManager;
+import cn.puthmc.model.ColumnInfo;
+import cn.puthmc.model.IndexInfo;
+import cn.puthmc.model.TableInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * 索引构建器
+ * 数据装载完成后再统一创建二级索引和唯一索引，避免逐行维护索引拖慢写入。
+ * 同一张表的索引依次构建，不同表的索引可以在多个连接上并行构建。
+ */
+public class IndexBuilder {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IndexBuilder.class);
+    
+    private static final String SQLITE_AUTOINDEX_PREFIX = "sqlite_autoindex_";
+    
+    // 索引构建阶段在总进度中所占的区间
+    static final double PROGRESS_START = 0.9;
+    private static final double PROGRESS_SPAN = 0.1;
+    
+    /**
+     * 索引定义，由同名的多条 IndexInfo 按列序合并而成
+     */
+    public static class IndexDefinition {
+        private final String tableName;
+        private final String name;
+        private final List<ColumnInfo> columns;
+        private final boolean unique;
+        
+        public IndexDefinition(String tableName, String name, List<ColumnInfo> columns, boolean unique) {
+            this.tableName = tableName;
+            this.name = name;
+            this.columns = columns;
+            this.unique = unique;
+        }
+        
+        public String getTableName() { return tableName; }
+        public String getName() { return name; }
+        public List<ColumnInfo> getColumns() { return columns; }
+        public boolean isUnique() { return unique; }
+    }
+    
+    private final DatabaseManager.DatabaseType targetType;
+    private final DataMigrator.ProgressCallback callback;
+    private final DataMigrator.MigrationResult result;
+    private final BooleanSupplier cancelled;
+    private final AtomicInteger finished = new AtomicInteger(0);
+    private Consumer<IndexDefinition> createdListener = index -> {};
+    
+    /**
+     * @param targetType 目标数据库类型
+     * @param callback 进度回调，并行构建时必须是线程安全的
+     * @param result 迁移结果，记录索引构建数量
+     * @param cancelled 取消条件
+     */
+    public IndexBuilder(DatabaseManager.DatabaseType targetType, DataMigrator.ProgressCallback callback,
+                        DataMigrator.MigrationResult result, BooleanSupplier cancelled) {
+        this.targetType = targetType;
+        this.callback = callback;
+        this.result = result;
+        this.cancelled = cancelled;
+    }
+    
+    /**
+     * 设置索引创建成功后的回调，并行构建时会在多个线程中调用
+     * @param createdListener 回调
+     */
+    public void setCreatedListener(Consumer<IndexDefinition> createdListener) {
+        this.createdListener = createdListener;
+    }
+    
+    /**
+     * 根据源表的索引信息生成目标库的索引定义
+     * 跳过主键索引和表达式索引；SQLite 为唯一约束自动生成的索引改为普通命名的唯一索引；
+     * 目标为 SQLite 时索引名在整个库内唯一，重名时加表名前缀
+     * @param tables 表信息列表
+     * @param targetType 目标数据库类型
+     * @return 索引定义列表
+     */
+    public static List<IndexDefinition> plan(List<TableInfo> tables, DatabaseManager.DatabaseType targetType) {
+        List<IndexDefinition> definitions = new ArrayList<>();
+        Set<String> usedNames = new HashSet<>();
+        
+        for (TableInfo table : tables) {
+            Map<String, List<IndexInfo>> grouped = new LinkedHashMap<>();
+            for (IndexInfo index : table.getIndexes()) {
+                grouped.computeIfAbsent(index.getName(), key -> new ArrayList<>()).add(index);
+            }
+            
+            for (Map.Entry<String, List<IndexInfo>> entry : grouped.entrySet()) {
+                List<IndexInfo> parts = entry.getValue();
+                parts.sort(Comparator.comparingInt(IndexInfo::getOrdinalPosition));
+                
+                List<ColumnInfo> columns = new ArrayList<>();
+                for (IndexInfo part : parts) {
+                    ColumnInfo column = findColumn(table, part.getColumnName());
+                    if (column == null) {
+                        columns = null;
+                        break;
+                    }
+                    columns.add(column);
+                }
+                if (columns == null) {
+                    logger.warn("跳过表 {} 的表达式索引或无法识别的索引: {}", table.getName(), entry.getKey());
+                    continue;
+                }
+                if (isPrimaryKey(table, columns)) {
+                    continue;
+                }
+                
+                boolean unique = parts.get(0).isUnique();
+                String name = entry.getKey();
+                if (name.startsWith(SQLITE_AUTOINDEX_PREFIX)) {
+                    StringBuilder generated = new StringBuilder(unique ? "uk_" : "idx_").append(table.getName());
+                    for (ColumnInfo column : columns) {
+                        generated.append('_').append(column.getName());
+                    }
+                    name = generated.toString();
+                }
+                if (targetType == DatabaseManager.DatabaseType.SQLITE &&
+                    usedNames.contains(name.toLowerCase(Locale.ROOT))) {
+                    name = table.getName() + "_" + name;
+                }
+                usedNames.add(name.toLowerCase(Locale.ROOT));
+                
+                definitions.add(new IndexDefinition(table.getName(), name, columns, unique));
+            }
+        }
+        
+        return definitions;
+    }
+    
+    /**
+     * 在一个连接上依次构建所有索引
+     * @param conn 目标数据库连接
+     * @param indexes 索引定义
+     */
+    public void build(Connection conn, List<IndexDefinition> indexes) {
+        build(conn, indexes, indexes.size());
+    }
+    
+    /**
+     * 并行构建索引，每个工作线程使用独立连接，每次领取一张表并构建该表的全部索引
+     * @param targetFactory 目标数据库连接工厂
+     * @param indexes 索引定义
+     * @param parallelism 并行度
+     */
+    public void buildParallel(DatabaseManager.ConnectionFactory targetFactory, List<IndexDefinition> indexes,
+                              int parallelism) throws SQLException {
+        Map<String, List<IndexDefinition>> byTable = new LinkedHashMap<>();
+        for (IndexDefinition index : indexes) {
+            byTable.computeIfAbsent(index.getTableName(), key -> new ArrayList<>()).add(index);
+        }
+        
+        Queue<List<IndexDefinition>> pending = new ConcurrentLinkedQueue<>(byTable.values());
+        int workers = Math.max(1, Math.min(parallelism, byTable.size()));
+        logger.info("并行构建索引: {} 个索引, {} 张表, 并行度 {}", indexes.size(), byTable.size(), workers);
+        
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "dbbridge-index-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(() -> {
+                    try (Connection conn = targetFactory.createConnection()) {
+                        List<IndexDefinition> tableIndexes;
+                        while ((tableIndexes = pending.poll()) != null) {
+                            build(conn, tableIndexes, indexes.size());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof SQLException) {
+                        throw (SQLException) cause;
+                    }
+                    throw new SQLException("索引构建线程执行失败: " + cause.getMessage(), cause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("等待索引构建时被中断", e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private void build(Connection conn, List<IndexDefinition> indexes, int total) {
+        for (IndexDefinition index : indexes) {
+            if (cancelled.getAsBoolean()) {
+                return;
+            }
+            buildIndex(conn, index, total);
+        }
+    }
+    
+    /**
+     * 构建单个索引并通过进度回调报告耗时
+     * 单个索引失败（例如数据违反唯一约束）只记录错误，不影响其他索引
+     */
+    private void buildIndex(Connection conn, IndexDefinition index, int total) {
+        String sql = SqlConverter.generateCreateIndexSql(index.getTableName(), index.getName(), index.getColumns(),
+                                                        index.isUnique(), targetType);
+        long start = System.currentTimeMillis();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+            if (!conn.getAutoCommit()) {
+                conn.commit();
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            result.incrementCreatedIndexes();
+            createdListener.accept(index);
+            
+            int done = finished.incrementAndGet();
+            logger.info("创建索引 {}.{} 完成，耗时 {} ms", index.getTableName(), index.getName(), elapsed);
+            callback.onProgress(String.format("创建索引 %s.%s 完成，耗时 %d ms (%d/%d)",
+                                              index.getTableName(), index.getName(), elapsed, done, total),
+                                PROGRESS_START + PROGRESS_SPAN * done / total);
+        } catch (SQLException e) {
+            rollbackQuietly(conn);
+            int done = finished.incrementAndGet();
+            result.incrementFailedIndexes();
+            logger.error("创建索引 {}.{} 失败: {}", index.getTableName(), index.getName(), sql, e);
+            callback.onError(String.format("创建索引 %s.%s 失败 (%d/%d): %s",
+                                           index.getTableName(), index.getName(), done, total, e.getMessage()), e);
+        }
+    }
+    
+    private static void rollbackQuietly(Connection conn) {
+        try {
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+            }
+        } catch (SQLException e) {
+            logger.warn("回滚失败的索引构建时发生错误", e);
+        }
+    }
+    
+    private static ColumnInfo findColumn(TableInfo table, String columnName) {
+        if (columnName == null) {
+            return null;
+        }
+        for (ColumnInfo column : table.getColumns()) {
+            if (column.getName().equalsIgnoreCase(columnName)) {
+                return column;
+            }
+        }
+        return null;
+    }
+    
+    private static boolean isPrimaryKey(TableInfo table, List<ColumnInfo> columns) {
+        Set<ColumnInfo> primaryKey = new HashSet<>();
+        for (ColumnInfo column : table.getColumns()) {
+            if (column.isPrimaryKey()) {
+                primaryKey.add(column);
+            }
+        }
+        return !primaryKey.isEmpty() && primaryKey.equals(new HashSet<>(columns));
+    }
+}
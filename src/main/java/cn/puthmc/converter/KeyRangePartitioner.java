@@ -0,0 +1,202 @@
+package cn.puthmc.converter;
+
+import cn.puthmc.db.DatabaseManager;
+import cn.puthmc.model.ColumnInfo;
+import cn.puthmc.model.TableInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.List;
+
+/**
+ * 键范围分区器
+ * 根据整数主键或SQLite rowid把表切分成若干键范围，供分块并行复制使用
+ */
+public class KeyRangePartitioner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(KeyRangePartitioner.class);
+    
+    public static final String SQLITE_ROWID = "rowid";
+    
+    /**
+     * 闭区间键范围 [lower, upper]
+     */
+    public static class KeyRange {
+        private final long lower;
+        private final long upper;
+        
+        public KeyRange(long lower, long upper) {
+            this.lower = lower;
+            this.upper = upper;
+        }
+        
+        public long getLower() { return lower; }
+        public long getUpper() { return upper; }
+        
+        /**
+         * 范围包含的键值个数，溢出时返回Long.MAX_VALUE
+         */
+        public long span() {
+            long span = upper - lower + 1;
+            return span > 0 ? span : Long.MAX_VALUE;
+        }
+        
+        /**
+         * 从中点把范围拆成两半
+         */
+        public KeyRange[] split() {
+            // 避免 lower + upper 溢出
+            long mid = (lower >> 1) + (upper >> 1) + (lower & upper & 1);
+            return new KeyRange[]{new KeyRange(lower, mid), new KeyRange(mid + 1, upper)};
+        }
+        
+        @Override
+        public String toString() {
+            return "[" + lower + ", " + upper + "]";
+        }
+    }
+    
+    /**
+     * 选择用于切分的键列
+     * SQLite源总是使用rowid：声明为INT的列仍可能存放文本，按数值范围查询会漏掉这些行。
+     * MySQL源使用单列整数主键。
+     * @param sourceConn 源数据库连接
+     * @param table 表信息
+     * @param sourceType 源数据库类型
+     * @return 键列名，没有可用的键时返回null
+     */
+    public static String resolveSplitKey(Connection sourceConn, TableInfo table, DatabaseManager.DatabaseType sourceType) {
+        if (sourceType == DatabaseManager.DatabaseType.SQLITE) {
+            return hasUsableRowid(sourceConn, table) ? SQLITE_ROWID : null;
+        }
+        
+        List<ColumnInfo> primaryKeys = table.getPrimaryKeyColumns();
+        if (primaryKeys.size() != 1) {
+            return null;
+        }
+        
+        ColumnInfo key = primaryKeys.get(0);
+        String type = key.getDataType() == null ? "" : key.getDataType().toUpperCase();
+        // BIGINT UNSIGNED 超出long范围
+        if (!type.contains("INT") || (type.contains("BIGINT") && type.contains("UNSIGNED"))) {
+            return null;
+        }
+        return key.getName();
+    }
+    
+    /**
+     * 选择断点续传使用的键列，按该列排序读取并记录已提交的最大键值
+     * MySQL源使用单列整数主键；SQLite源使用作为rowid别名的 INTEGER PRIMARY KEY 列，
+     * 只有这种列保证存放的都是整数。普通rowid不在查询结果中，无法记录，不作为断点键。
+     * @param sourceConn 源数据库连接
+     * @param table 表信息
+     * @param sourceType 源数据库类型
+     * @return 键列名，没有可用的键时返回null
+     */
+    public static String resolveCheckpointKey(Connection sourceConn, TableInfo table,
+                                              DatabaseManager.DatabaseType sourceType) {
+        if (sourceType == DatabaseManager.DatabaseType.MYSQL) {
+            return resolveSplitKey(sourceConn, table, sourceType);
+        }
+        
+        List<ColumnInfo> primaryKeys = table.getPrimaryKeyColumns();
+        if (primaryKeys.size() != 1 || !"INTEGER".equalsIgnoreCase(primaryKeys.get(0).getDataType())) {
+            return null;
+        }
+        return hasUsableRowid(sourceConn, table) ? primaryKeys.get(0).getName() : null;
+    }
+    
+    /**
+     * 生成按键列顺序读取的子句
+     * @param keyColumn 键列名
+     * @param sourceType 源数据库类型
+     * @param afterKey 是否只读取大于某个键值的行，为true时带一个参数
+     * @return WHERE/ORDER BY子句
+     */
+    public static String keysetCondition(String keyColumn, DatabaseManager.DatabaseType sourceType, boolean afterKey) {
+        String key = quoteKey(keyColumn, sourceType);
+        return (afterKey ? " WHERE " + key + " > ?" : "") + " ORDER BY " + key;
+    }
+    
+    /**
+     * 查询键列的最小值和最大值
+     * @param sourceConn 源数据库连接
+     * @param table 表信息
+     * @param keyColumn 键列名
+     * @param sourceType 源数据库类型
+     * @return 键范围，表为空时返回null
+     */
+    public static KeyRange getKeyBounds(Connection sourceConn, TableInfo table, String keyColumn,
+                                        DatabaseManager.DatabaseType sourceType) throws SQLException {
+        String key = quoteKey(keyColumn, sourceType);
+        String sql = "SELECT MIN(" + key + "), MAX(" + key + ") FROM " +
+                     SqlConverter.quoteIdentifier(table.getName(), sourceType);
+        
+        try (Statement stmt = sourceConn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (rs.next()) {
+                long lower = rs.getLong(1);
+                if (rs.wasNull()) {
+                    return null;
+                }
+                return new KeyRange(lower, rs.getLong(2));
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 根据平均键密度计算每个分块覆盖的键跨度
+     * @param bounds 整表键范围
+     * @param rowCount 表行数
+     * @param chunkRows 期望的每块行数
+     * @return 每块的键跨度
+     */
+    public static long chunkSpan(KeyRange bounds, long rowCount, int chunkRows) {
+        double density = (double) Math.max(1, rowCount) / bounds.span();
+        return Math.max(1, (long) Math.min(Long.MAX_VALUE, chunkRows / Math.min(1.0, density)));
+    }
+    
+    /**
+     * 生成带键范围条件的WHERE子句
+     * @param keyColumn 键列名
+     * @param sourceType 源数据库类型
+     * @return WHERE子句，参数依次为下界和上界
+     */
+    public static String rangeCondition(String keyColumn, DatabaseManager.DatabaseType sourceType) {
+        String key = quoteKey(keyColumn, sourceType);
+        return " WHERE " + key + " >= ? AND " + key + " <= ?";
+    }
+    
+    private static String quoteKey(String keyColumn, DatabaseManager.DatabaseType sourceType) {
+        return SQLITE_ROWID.equals(keyColumn) ? keyColumn : SqlConverter.quoteIdentifier(keyColumn, sourceType);
+    }
+    
+    /**
+     * 检查SQLite表是否可以按rowid切分
+     * WITHOUT ROWID表没有rowid；存在同名普通列时rowid会被遮蔽
+     */
+    private static boolean hasUsableRowid(Connection sourceConn, TableInfo table) {
+        for (ColumnInfo column : table.getColumns()) {
+            String name = column.getName();
+            if ("rowid".equalsIgnoreCase(name) || "_rowid_".equalsIgnoreCase(name) || "oid".equalsIgnoreCase(name)) {
+                return false;
+            }
+        }
+        
+        String sql = "SELECT sql FROM sqlite_master WHERE type='table' AND name=?";
+        try (PreparedStatement stmt = sourceConn.prepareStatement(sql)) {
+            stmt.setString(1, table.getName());
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    String createSql = rs.getString(1);
+                    return createSql != null && !createSql.toUpperCase().replaceAll("\\s+", " ").contains("WITHOUT ROWID");
+                }
+            }
+        } catch (SQLException e) {
+            logger.warn("检查表 {} 的rowid时发生错误: {}", table.getName(), e.getMessage());
+        }
+        return false;
+    }
+}
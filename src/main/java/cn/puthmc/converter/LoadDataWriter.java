@@ -0,0 +1,231 @@
+package cn.puthmc.converter;
+
+import cn.puthmc.db.DatabaseManager;
+import cn.puthmc.model.ColumnInfo;
+import com.mysql.cj.conf.PropertyKey;
+import com.mysql.cj.conf.RuntimeProperty;
+import com.mysql.cj.jdbc.JdbcConnection;
+import com.mysql.cj.jdbc.JdbcStatement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 基于 LOAD DATA LOCAL INFILE 的批量装载写入器（MySQL目标）
+ * 每个批次在内存中编码为制表符分隔的文本，通过 Connector/J 的 setLocalInfileInputStream 直接发送给服务器，
+ * 不落临时文件。空值写为 \N，反斜杠、制表符、换行等按 LOAD DATA 的转义规则处理，
+ * 二进制列以十六进制传输再由服务器 UNHEX 还原，避免字符集转换破坏数据。
+ */
+public class LoadDataWriter implements BatchWriter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LoadDataWriter.class);
+    
+    private static final byte[] NULL_VALUE = {'\\', 'N'};
+    private static final byte[] HEX_DIGITS = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+    
+    private final String tableName;
+    private final String loadSql;
+    private final boolean[] hexColumns;
+    private final Statement statement;
+    private final JdbcStatement mysqlStatement;
+    private final RuntimeProperty<Boolean> allowLoadLocalInfile;
+    private byte[] buffer = new byte[64 * 1024];
+    private int length;
+    
+    /**
+     * @param targetConn 目标数据库连接，必须是 MySQL Connector/J 连接
+     * @param tableName 表名
+     * @param columns 列信息
+     */
+    public LoadDataWriter(Connection targetConn, String tableName, List<ColumnInfo> columns) throws SQLException {
+        this.tableName = tableName;
+        this.hexColumns = new boolean[columns.size()];
+        for (int i = 0; i < hexColumns.length; i++) {
+            hexColumns[i] = isBinaryColumn(columns.get(i));
+        }
+        this.loadSql = generateLoadSql(tableName, columns, hexColumns);
+        
+        // 只在本写入器执行装载语句期间开启 LOCAL INFILE，避免服务器借其他语句读取本地文件
+        this.allowLoadLocalInfile = targetConn.unwrap(JdbcConnection.class).getPropertySet()
+            .getBooleanProperty(PropertyKey.allowLoadLocalInfile);
+        this.statement = targetConn.createStatement();
+        this.mysqlStatement = statement.unwrap(JdbcStatement.class);
+    }
+    
+    @Override
+    public void write(RowBatch batch) throws SQLException {
+        if (batch.size() == 0) {
+            return;
+        }
+        
+        encode(batch);
+        
+        boolean previous = allowLoadLocalInfile.getValue();
+        allowLoadLocalInfile.setValue(true);
+        long loaded;
+        try {
+            mysqlStatement.setLocalInfileInputStream(new ByteArrayInputStream(buffer, 0, length));
+            loaded = statement.executeLargeUpdate(loadSql);
+        } finally {
+            mysqlStatement.setLocalInfileInputStream(null);
+            allowLoadLocalInfile.setValue(previous);
+        }
+        
+        // LOCAL 装载遇到重复键或数据错误时只产生警告并跳过该行，这里必须核对行数
+        if (loaded != batch.size()) {
+            throw new SQLException(String.format("表 %s 批量装载行数不符: 期望 %d 行, 实际 %d 行%s",
+                                                 tableName, batch.size(), loaded, firstWarning()));
+        }
+    }
+    
+    /**
+     * 把批次编码为 LOAD DATA 默认格式：字段以制表符分隔、行以换行结束、反斜杠转义
+     */
+    private void encode(RowBatch batch) {
+        length = 0;
+        int columnCount = batch.columnCount();
+        for (int row = 0; row < batch.size(); row++) {
+            for (int i = 0; i < columnCount; i++) {
+                if (i > 0) {
+                    append((byte) '\t');
+                }
+                Object value = batch.get(i, row);
+                if (value == null) {
+                    append(NULL_VALUE);
+                } else if (hexColumns[i]) {
+                    appendHex(value instanceof byte[] ? (byte[]) value : toText(value).getBytes(StandardCharsets.UTF_8));
+                } else if (value instanceof byte[]) {
+                    appendEscaped((byte[]) value);
+                } else {
+                    appendEscaped(toText(value).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            append((byte) '\n');
+        }
+    }
+    
+    private static String toText(Object value) {
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        if (value instanceof Boolean) {
+            return ((Boolean) value) ? "1" : "0";
+        }
+        return value.toString();
+    }
+    
+    private void appendEscaped(byte[] bytes) {
+        ensureCapacity(bytes.length * 2);
+        for (byte b : bytes) {
+            switch (b) {
+                case '\\':
+                    buffer[length++] = '\\';
+                    buffer[length++] = '\\';
+                    break;
+                case '\t':
+                    buffer[length++] = '\\';
+                    buffer[length++] = 't';
+                    break;
+                case '\n':
+                    buffer[length++] = '\\';
+                    buffer[length++] = 'n';
+                    break;
+                case '\r':
+                    buffer[length++] = '\\';
+                    buffer[length++] = 'r';
+                    break;
+                case 0:
+                    buffer[length++] = '\\';
+                    buffer[length++] = '0';
+                    break;
+                default:
+                    buffer[length++] = b;
+            }
+        }
+    }
+    
+    private void appendHex(byte[] bytes) {
+        ensureCapacity(bytes.length * 2);
+        for (byte b : bytes) {
+            buffer[length++] = HEX_DIGITS[(b >> 4) & 0x0F];
+            buffer[length++] = HEX_DIGITS[b & 0x0F];
+        }
+    }
+    
+    private void append(byte b) {
+        ensureCapacity(1);
+        buffer[length++] = b;
+    }
+    
+    private void append(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+    
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+    
+    private String firstWarning() {
+        try (ResultSet rs = statement.executeQuery("SHOW WARNINGS LIMIT 1")) {
+            if (rs.next()) {
+                return ": " + rs.getString("Message");
+            }
+        } catch (SQLException e) {
+            logger.debug("读取装载警告失败", e);
+        }
+        return "";
+    }
+    
+    /**
+     * 生成装载语句，二进制列先读入用户变量再 UNHEX
+     */
+    private static String generateLoadSql(String tableName, List<ColumnInfo> columns, boolean[] hexColumns) {
+        StringBuilder sql = new StringBuilder("LOAD DATA LOCAL INFILE 'dbbridge.tsv' INTO TABLE ");
+        sql.append(SqlConverter.quoteIdentifier(tableName, DatabaseManager.DatabaseType.MYSQL));
+        sql.append(" CHARACTER SET utf8mb4");
+        sql.append(" FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n' (");
+        
+        StringBuilder setClause = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) sql.append(", ");
+            
+            String columnName = SqlConverter.quoteIdentifier(columns.get(i).getName(), DatabaseManager.DatabaseType.MYSQL);
+            if (hexColumns[i]) {
+                sql.append("@c").append(i);
+                setClause.append(setClause.length() == 0 ? " SET " : ", ")
+                         .append(columnName).append(" = UNHEX(@c").append(i).append(")");
+            } else {
+                sql.append(columnName);
+            }
+        }
+        sql.append(")").append(setClause);
+        
+        return sql.toString();
+    }
+    
+    private static boolean isBinaryColumn(ColumnInfo column) {
+        if (column.isBinaryType()) {
+            return true;
+        }
+        String type = column.getDataType() == null ? "" : column.getDataType().toUpperCase();
+        return type.contains("GEOMETRY") || type.contains("POINT") || type.contains("LINESTRING") || type.contains("POLYGON");
+    }
+    
+    @Override
+    public void close() throws SQLException {
+        statement.close();
+    }
+}
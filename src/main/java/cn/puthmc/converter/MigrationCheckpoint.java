@@ -0,0 +1,333 @@
+package cn.puthmc.converter;
+
+import cn.puthmc.db.DatabaseManager;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 迁移断点日志
+ * 以JSON文件记录已完成的表、进行中的表最后一次提交时的键值高水位和已建好的索引，
+ * 迁移中断后以续传模式重新运行时跳过已完成的工作，进行中的表从高水位之后继续按键顺序读取。
+ * 每次更新都先写临时文件再原子替换，进程在任意时刻退出都不会留下半个日志文件。
+ */
+public class MigrationCheckpoint {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MigrationCheckpoint.class);
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .enable(SerializationFeature.INDENT_OUTPUT)
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    
+    /**
+     * 表的迁移状态
+     */
+    public enum Status {
+        IN_PROGRESS, // 已开始写入，可能有部分数据已提交
+        COMPLETED    // 全部数据已提交
+    }
+    
+    /**
+     * 单个表的断点
+     */
+    public static class TableState {
+        private Status status;
+        private String keyColumn;
+        private Long highWaterMark;
+        private long rows;
+        
+        public Status getStatus() { return status; }
+        public void setStatus(Status status) { this.status = status; }
+        
+        public String getKeyColumn() { return keyColumn; }
+        public void setKeyColumn(String keyColumn) { this.keyColumn = keyColumn; }
+        
+        public Long getHighWaterMark() { return highWaterMark; }
+        public void setHighWaterMark(Long highWaterMark) { this.highWaterMark = highWaterMark; }
+        
+        public long getRows() { return rows; }
+        public void setRows(long rows) { this.rows = rows; }
+    }
+    
+    /**
+     * 日志文件内容
+     */
+    public static class Journal {
+        private DatabaseManager.DatabaseType sourceType;
+        private DatabaseManager.DatabaseType targetType;
+        private Map<String, TableState> tables = new LinkedHashMap<>();
+        private List<String> indexes = new ArrayList<>();
+        
+        public DatabaseManager.DatabaseType getSourceType() { return sourceType; }
+        public void setSourceType(DatabaseManager.DatabaseType sourceType) { this.sourceType = sourceType; }
+        
+        public DatabaseManager.DatabaseType getTargetType() { return targetType; }
+        public void setTargetType(DatabaseManager.DatabaseType targetType) { this.targetType = targetType; }
+        
+        public Map<String, TableState> getTables() { return tables; }
+        public void setTables(Map<String, TableState> tables) { this.tables = tables; }
+        
+        public List<String> getIndexes() { return indexes; }
+        public void setIndexes(List<String> indexes) { this.indexes = indexes; }
+    }
+    
+    /**
+     * 单个表复制过程中的断点跟踪器
+     * 每写完一个批次记下最后一行的键值，目标库提交后把它作为高水位写入日志
+     */
+    public class TableTracker {
+        private final String tableName;
+        private final int keyIndex;
+        private long rows;
+        private Long lastKey;
+        
+        private TableTracker(String tableName, int keyIndex, long rows, Long lastKey) {
+            this.tableName = tableName;
+            this.keyIndex = keyIndex;
+            this.rows = rows;
+            this.lastKey = lastKey;
+        }
+        
+        /**
+         * 批次写入目标库后调用
+         */
+        public void batchWritten(RowBatch batch) {
+            if (batch.size() == 0) {
+                return;
+            }
+            rows += batch.size();
+            if (keyIndex >= 0) {
+                lastKey = ((Number) batch.get(keyIndex, batch.size() - 1)).longValue();
+            }
+        }
+        
+        /**
+         * 目标库提交后调用，没有断点键的表无法续传，不记录高水位
+         */
+        public void committed() throws SQLException {
+            if (keyIndex < 0) {
+                return;
+            }
+            try {
+                recordCommitted(tableName, lastKey, rows);
+            } catch (IOException e) {
+                throw new SQLException("保存迁移断点失败: " + e.getMessage(), e);
+            }
+        }
+        
+        /**
+         * @return 最后写入的键值，复制开始前即为续传的起点，从头开始时为null
+         */
+        public Long getLastKey() {
+            return lastKey;
+        }
+        
+        /**
+         * @return 包括之前运行中已提交行数在内的累计行数
+         */
+        public long getRows() {
+            return rows;
+        }
+    }
+    
+    private final Path file;
+    private final Journal journal;
+    // 保护 journal 和日志文件写入；更新时持锁写文件，用显式锁避免虚拟线程在文件IO期间占住载体线程
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    private MigrationCheckpoint(Path file, Journal journal) {
+        this.file = file;
+        this.journal = journal;
+    }
+    
+    /**
+     * 打开断点日志
+     * @param filePath 日志文件路径
+     * @param resume 是否续传；为true且文件存在时读取已有断点，否则丢弃旧文件从头开始
+     * @return 断点日志
+     */
+    public static MigrationCheckpoint open(String filePath, boolean resume) throws IOException {
+        Path file = Paths.get(filePath).toAbsolutePath();
+        if (resume && Files.exists(file)) {
+            Journal journal = MAPPER.readValue(file.toFile(), Journal.class);
+            logger.info("读取迁移断点: {} ({} 个表)", file, journal.getTables().size());
+            return new MigrationCheckpoint(file, journal);
+        }
+        
+        Files.deleteIfExists(file);
+        return new MigrationCheckpoint(file, new Journal());
+    }
+    
+    /**
+     * 校验断点与本次迁移的数据库类型一致并写入日志
+     * @param sourceType 源数据库类型
+     * @param targetType 目标数据库类型
+     */
+    public void begin(DatabaseManager.DatabaseType sourceType,
+                      DatabaseManager.DatabaseType targetType) throws IOException {
+        lock.lock();
+        try {
+            if ((journal.getSourceType() != null && journal.getSourceType() != sourceType) ||
+                (journal.getTargetType() != null && journal.getTargetType() != targetType)) {
+                throw new IllegalStateException(String.format("断点文件 %s 记录的是 %s -> %s 的迁移，与本次迁移 %s -> %s 不符",
+                                                              file, journal.getSourceType(), journal.getTargetType(),
+                                                              sourceType, targetType));
+            }
+            journal.setSourceType(sourceType);
+            journal.setTargetType(targetType);
+            save();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * 表是否已出现在断点中（已完成或进行中），这类表续传时不能重建
+     */
+    public boolean contains(String tableName) {
+        lock.lock();
+        try {
+            return journal.getTables().containsKey(tableName);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public boolean isCompleted(String tableName) {
+        lock.lock();
+        try {
+            TableState state = journal.getTables().get(tableName);
+            return state != null && state.getStatus() == Status.COMPLETED;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * @return 表已提交的行数，表不在断点中时为0
+     */
+    public long getRows(String tableName) {
+        lock.lock();
+        try {
+            TableState state = journal.getTables().get(tableName);
+            return state == null ? 0 : state.getRows();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * 开始或继续复制一个表
+     * 断点中已有同一键列的进行中记录时从其高水位继续，否则从头开始（调用方负责清空目标表）
+     * @param tableName 表名
+     * @param keyColumn 断点键列，没有可用的键时为null
+     * @param keyIndex 键列在查询结果中的位置，没有可用的键时为-1
+     * @return 跟踪器
+     */
+    public TableTracker start(String tableName, String keyColumn, int keyIndex) throws IOException {
+        lock.lock();
+        try {
+            TableState state = journal.getTables().get(tableName);
+            if (state != null && state.getStatus() == Status.IN_PROGRESS && keyColumn != null &&
+                keyColumn.equals(state.getKeyColumn()) && state.getHighWaterMark() != null) {
+                logger.info("表 {} 从断点继续: {} > {}，已提交 {} 行", tableName, keyColumn, state.getHighWaterMark(), state.getRows());
+                return new TableTracker(tableName, keyIndex, state.getRows(), state.getHighWaterMark());
+            }
+            
+            state = new TableState();
+            state.setStatus(Status.IN_PROGRESS);
+            state.setKeyColumn(keyColumn);
+            journal.getTables().put(tableName, state);
+            save();
+            return new TableTracker(tableName, keyIndex, 0, null);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void recordCommitted(String tableName, Long highWaterMark, long rows) throws IOException {
+        lock.lock();
+        try {
+            TableState state = journal.getTables().get(tableName);
+            state.setHighWaterMark(highWaterMark);
+            state.setRows(rows);
+            save();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * 表的全部数据提交后调用
+     */
+    public void markCompleted(String tableName, long rows) throws IOException {
+        lock.lock();
+        try {
+            TableState state = journal.getTables().computeIfAbsent(tableName, key -> new TableState());
+            state.setStatus(Status.COMPLETED);
+            state.setRows(rows);
+            save();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public boolean isIndexCreated(String tableName, String indexName) {
+        lock.lock();
+        try {
+            return journal.getIndexes().contains(tableName + "." + indexName);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public void markIndexCreated(String tableName, String indexName) throws IOException {
+        lock.lock();
+        try {
+            journal.getIndexes().add(tableName + "." + indexName);
+            save();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * 迁移全部成功后删除日志
+     */
+    public void delete() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("删除断点文件失败: {}", file, e);
+        }
+    }
+    
+    public Path getFile() {
+        return file;
+    }
+    
+    private void save() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        MAPPER.writeValue(temp.toFile(), journal);
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,519 @@
+package cn.puthmc.converter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 迁移选项
+ * 控制数据迁移的并行度等调优参数
+ */
+public class MigrationOptions {
+    
+    /**
+     * 目标表写入方式
+     */
+    public enum WriteMode {
+        BATCH,     // 单行INSERT预编译语句 + JDBC批处理
+        MULTI_ROW, // 多行INSERT语句（仅MySQL目标），每条语句的行数按行宽和 max_allowed_packet 计算
+        LOAD_DATA  // LOAD DATA LOCAL INFILE 批量装载（仅MySQL目标），服务器需开启 local_infile
+    }
+    
+    /**
+     * 迁移开始前统计源表行数的方式，行数用于进度、大表优先排序和分块切分
+     */
+    public enum RowCountMode {
+        EXACT,              // 逐表 COUNT(*)，InnoDB表和大的SQLite文件需要扫描全表
+        ESTIMATE,           // 使用统计信息估算（MySQL的 TABLE_ROWS，SQLite的rowid范围和 sqlite_stat1），表复制完成后按实际行数修正进度
+        ESTIMATE_THEN_EXACT // 先用估算值开始迁移，后台线程再逐表 COUNT(*)，得到精确行数后修正进度（需使用连接工厂迁移）
+    }
+    
+    private int parallelism = 1; // 表级并行度（同时迁移的表数量）
+    private int chunkParallelism = 1; // 表内分块并行度，大于1时大表按键范围分块并行复制
+    private int chunkRows = 100_000; // 每个分块的目标行数
+    private boolean virtualThreads = false; // 表级和分块工作线程使用虚拟线程，适合同时迁移大量表、以阻塞在JDBC调用上为主的场景
+    private int maxTargetConcurrency = 0; // 同一目标库同时进行的复制任务（整表或分块）上限，进程内所有迁移共享；0表示不限制
+    private int connectionPoolSize = 0; // 使用连接工厂迁移时源和目标各自连接池的大小，0表示按并行度自动计算
+    private int statementCacheSize = 64; // 连接池中每个连接缓存的预编译语句数，0表示不缓存
+    private final List<String> sourceInitSql = new ArrayList<>(); // 新建源库连接后执行的SQL，如 PRAGMA 或 SET SESSION
+    private final List<String> targetInitSql = new ArrayList<>(); // 新建目标库连接后执行的SQL
+    private String schemaCacheDir; // 源库表结构缓存目录，为空时每次重新分析表结构；结构未变化时直接使用缓存
+    private RowCountMode rowCountMode = RowCountMode.EXACT; // 统计源表行数的方式
+    private boolean pipelined = false; // 是否使用读取-转换-写入流水线
+    private int pipelineQueueCapacity = 4; // 流水线阶段间队列容量（批次数）
+    private WriteMode writeMode = WriteMode.BATCH; // 目标表写入方式
+    private final Map<String, WriteMode> tableWriteModes = new HashMap<>(); // 按表指定的写入方式
+    private boolean sqliteFastLoad = false; // SQLite目标是否使用快速装载（暂存文件 + 原子替换）
+    private boolean buildIndexes = true; // 数据装载完成后是否创建二级索引和唯一索引
+    private int indexParallelism = 4; // 索引构建并行度（同时构建索引的表数量），SQLite目标固定为1
+    private int fetchSize = 1000; // 源表查询每次取回的行数，MySQL源使用服务端游标；0表示一次性读取全部结果
+    private boolean adaptiveBatching = true; // 是否根据实测的批次耗时和字节数自动调整批次大小和提交间隔
+    private int batchSize = 1000; // 批次行数，开启自动调整时作为初始值
+    private int commitInterval = 5000; // 提交间隔行数，开启自动调整时按其与批次行数的比例随批次大小缩放
+    private int maxBatchSize = 50000; // 自动调整时批次行数的上限
+    private long targetBatchMillis = 200; // 自动调整的目标：每批写入耗时（毫秒）
+    private long targetBatchBytes = 8L * 1024 * 1024; // 自动调整的目标：每批数据量（字节）
+    private String checkpointFile; // 断点日志文件路径，为空时不记录断点；启用时不使用分块复制和SQLite快速装载
+    private boolean resume = false; // 是否从断点日志续传，跳过已完成的表，进行中的表从高水位之后继续
+    private boolean deltaSync = false; // 增量同步：保留目标表，只传输上次同步之后变化的行并按主键覆盖写入
+    private String watermarkFile; // 增量同步的水位文件路径，开启增量同步时必须设置
+    private String changeColumn = "updated_at"; // 增量同步检测修改的变更列名，表中没有该列时按整数键只检测新增
+    private final Map<String, String> tableChangeColumns = new HashMap<>(); // 按表指定的变更列
+    private int cdcBatchSize = 1000; // 触发器变更捕获每批应用的最大变更数
+    private long cdcPollMillis = 500; // 触发器变更捕获在变更日志为空时的轮询间隔（毫秒）
+    private boolean verify = false; // 迁移完成后是否按块哈希校验源表和目标表的数据一致（使用连接工厂迁移时有效）
+    private int verifyChunkRows = 10_000; // 校验时每块的目标行数，块越小逐行比较时重新读取的数据越少
+    private int verifyMaxDifferences = 100; // 校验时每张表最多报告的差异行数
+    private boolean metricsJmx = false; // 是否将迁移指标注册为JMX MBean
+    private int metricsHttpPort = 0; // 以Prometheus文本格式导出迁移指标的本机端口，0表示不开启
+    private final Set<String> includeTables = new LinkedHashSet<>(); // 只迁移这些表，为空时迁移所有表
+    private final Set<String> excludeTables = new LinkedHashSet<>(); // 不迁移的表，优先于 includeTables
+    
+    public MigrationOptions() {}
+    
+    // Getters and Setters
+    public int getParallelism() {
+        return parallelism;
+    }
+    
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("并行度必须大于0: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+    
+    public int getChunkParallelism() {
+        return chunkParallelism;
+    }
+    
+    public void setChunkParallelism(int chunkParallelism) {
+        if (chunkParallelism < 1) {
+            throw new IllegalArgumentException("分块并行度必须大于0: " + chunkParallelism);
+        }
+        this.chunkParallelism = chunkParallelism;
+    }
+    
+    public int getChunkRows() {
+        return chunkRows;
+    }
+    
+    public void setChunkRows(int chunkRows) {
+        if (chunkRows < 1) {
+            throw new IllegalArgumentException("分块行数必须大于0: " + chunkRows);
+        }
+        this.chunkRows = chunkRows;
+    }
+    
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+    
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+    
+    public int getMaxTargetConcurrency() {
+        return maxTargetConcurrency;
+    }
+    
+    public void setMaxTargetConcurrency(int maxTargetConcurrency) {
+        if (maxTargetConcurrency < 0) {
+            throw new IllegalArgumentException("目标库并发上限不能为负数: " + maxTargetConcurrency);
+        }
+        this.maxTargetConcurrency = maxTargetConcurrency;
+    }
+    
+    public int getConnectionPoolSize() {
+        return connectionPoolSize;
+    }
+    
+    public void setConnectionPoolSize(int connectionPoolSize) {
+        if (connectionPoolSize < 0) {
+            throw new IllegalArgumentException("连接池大小不能为负数: " + connectionPoolSize);
+        }
+        this.connectionPoolSize = connectionPoolSize;
+    }
+    
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+    
+    public void setStatementCacheSize(int statementCacheSize) {
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("语句缓存大小不能为负数: " + statementCacheSize);
+        }
+        this.statementCacheSize = statementCacheSize;
+    }
+    
+    public List<String> getSourceInitSql() {
+        return Collections.unmodifiableList(sourceInitSql);
+    }
+    
+    public void setSourceInitSql(Collection<String> sql) {
+        sourceInitSql.clear();
+        sourceInitSql.addAll(sql);
+    }
+    
+    public List<String> getTargetInitSql() {
+        return Collections.unmodifiableList(targetInitSql);
+    }
+    
+    public void setTargetInitSql(Collection<String> sql) {
+        targetInitSql.clear();
+        targetInitSql.addAll(sql);
+    }
+    
+    public String getSchemaCacheDir() {
+        return schemaCacheDir;
+    }
+    
+    public void setSchemaCacheDir(String schemaCacheDir) {
+        this.schemaCacheDir = schemaCacheDir == null || schemaCacheDir.trim().isEmpty() ? null : schemaCacheDir.trim();
+    }
+    
+    public RowCountMode getRowCountMode() {
+        return rowCountMode;
+    }
+    
+    public void setRowCountMode(RowCountMode rowCountMode) {
+        if (rowCountMode == null) {
+            throw new IllegalArgumentException("行数统计方式不能为空");
+        }
+        this.rowCountMode = rowCountMode;
+    }
+    
+    public boolean isPipelined() {
+        return pipelined;
+    }
+    
+    public void setPipelined(boolean pipelined) {
+        this.pipelined = pipelined;
+    }
+    
+    public int getPipelineQueueCapacity() {
+        return pipelineQueueCapacity;
+    }
+    
+    public void setPipelineQueueCapacity(int pipelineQueueCapacity) {
+        if (pipelineQueueCapacity < 1) {
+            throw new IllegalArgumentException("流水线队列容量必须大于0: " + pipelineQueueCapacity);
+        }
+        this.pipelineQueueCapacity = pipelineQueueCapacity;
+    }
+    
+    public WriteMode getWriteMode() {
+        return writeMode;
+    }
+    
+    public void setWriteMode(WriteMode writeMode) {
+        if (writeMode == null) {
+            throw new IllegalArgumentException("写入方式不能为空");
+        }
+        this.writeMode = writeMode;
+    }
+    
+    /**
+     * 获取指定表的写入方式，未单独指定时使用默认写入方式
+     * @param tableName 表名
+     * @return 写入方式
+     */
+    public WriteMode getWriteMode(String tableName) {
+        return tableWriteModes.getOrDefault(tableName, writeMode);
+    }
+    
+    /**
+     * 为指定表单独设置写入方式
+     * @param tableName 表名
+     * @param writeMode 写入方式，为null时取消单独设置
+     */
+    public void setTableWriteMode(String tableName, WriteMode writeMode) {
+        if (writeMode == null) {
+            tableWriteModes.remove(tableName);
+        } else {
+            tableWriteModes.put(tableName, writeMode);
+        }
+    }
+    
+    public boolean isSqliteFastLoad() {
+        return sqliteFastLoad;
+    }
+    
+    public void setSqliteFastLoad(boolean sqliteFastLoad) {
+        this.sqliteFastLoad = sqliteFastLoad;
+    }
+    
+    public boolean isBuildIndexes() {
+        return buildIndexes;
+    }
+    
+    public void setBuildIndexes(boolean buildIndexes) {
+        this.buildIndexes = buildIndexes;
+    }
+    
+    public int getIndexParallelism() {
+        return indexParallelism;
+    }
+    
+    public void setIndexParallelism(int indexParallelism) {
+        if (indexParallelism < 1) {
+            throw new IllegalArgumentException("索引构建并行度必须大于0: " + indexParallelism);
+        }
+        this.indexParallelism = indexParallelism;
+    }
+    
+    public int getFetchSize() {
+        return fetchSize;
+    }
+    
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize < 0) {
+            throw new IllegalArgumentException("取数行数不能为负数: " + fetchSize);
+        }
+        this.fetchSize = fetchSize;
+    }
+    
+    public boolean isAdaptiveBatching() {
+        return adaptiveBatching;
+    }
+    
+    public void setAdaptiveBatching(boolean adaptiveBatching) {
+        this.adaptiveBatching = adaptiveBatching;
+    }
+    
+    public int getBatchSize() {
+        return batchSize;
+    }
+    
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("批次行数必须大于0: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+    
+    public int getCommitInterval() {
+        return commitInterval;
+    }
+    
+    public void setCommitInterval(int commitInterval) {
+        if (commitInterval < 1) {
+            throw new IllegalArgumentException("提交间隔必须大于0: " + commitInterval);
+        }
+        this.commitInterval = commitInterval;
+    }
+    
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+    
+    public void setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("批次行数上限必须大于0: " + maxBatchSize);
+        }
+        this.maxBatchSize = maxBatchSize;
+    }
+    
+    public long getTargetBatchMillis() {
+        return targetBatchMillis;
+    }
+    
+    public void setTargetBatchMillis(long targetBatchMillis) {
+        if (targetBatchMillis < 1) {
+            throw new IllegalArgumentException("目标批次耗时必须大于0: " + targetBatchMillis);
+        }
+        this.targetBatchMillis = targetBatchMillis;
+    }
+    
+    public long getTargetBatchBytes() {
+        return targetBatchBytes;
+    }
+    
+    public void setTargetBatchBytes(long targetBatchBytes) {
+        if (targetBatchBytes < 1) {
+            throw new IllegalArgumentException("目标批次字节数必须大于0: " + targetBatchBytes);
+        }
+        this.targetBatchBytes = targetBatchBytes;
+    }
+    
+    public String getCheckpointFile() {
+        return checkpointFile;
+    }
+    
+    public void setCheckpointFile(String checkpointFile) {
+        this.checkpointFile = checkpointFile == null || checkpointFile.trim().isEmpty() ? null : checkpointFile.trim();
+    }
+    
+    public boolean isResume() {
+        return resume;
+    }
+    
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+    
+    public boolean isDeltaSync() {
+        return deltaSync;
+    }
+    
+    public void setDeltaSync(boolean deltaSync) {
+        this.deltaSync = deltaSync;
+    }
+    
+    public String getWatermarkFile() {
+        return watermarkFile;
+    }
+    
+    public void setWatermarkFile(String watermarkFile) {
+        this.watermarkFile = watermarkFile == null || watermarkFile.trim().isEmpty() ? null : watermarkFile.trim();
+    }
+    
+    public String getChangeColumn() {
+        return changeColumn;
+    }
+    
+    public void setChangeColumn(String changeColumn) {
+        this.changeColumn = changeColumn == null || changeColumn.trim().isEmpty() ? null : changeColumn.trim();
+    }
+    
+    /**
+     * 获取指定表的变更列，未单独指定时使用默认变更列
+     * @param tableName 表名
+     * @return 变更列名，可能为null
+     */
+    public String getChangeColumn(String tableName) {
+        return tableChangeColumns.getOrDefault(tableName, changeColumn);
+    }
+    
+    /**
+     * 为指定表单独设置变更列
+     * @param tableName 表名
+     * @param changeColumn 变更列名，为null时取消单独设置
+     */
+    public void setTableChangeColumn(String tableName, String changeColumn) {
+        if (changeColumn == null) {
+            tableChangeColumns.remove(tableName);
+        } else {
+            tableChangeColumns.put(tableName, changeColumn);
+        }
+    }
+    
+    public int getCdcBatchSize() {
+        return cdcBatchSize;
+    }
+    
+    public void setCdcBatchSize(int cdcBatchSize) {
+        if (cdcBatchSize < 1) {
+            throw new IllegalArgumentException("变更捕获批次大小必须大于0: " + cdcBatchSize);
+        }
+        this.cdcBatchSize = cdcBatchSize;
+    }
+    
+    public long getCdcPollMillis() {
+        return cdcPollMillis;
+    }
+    
+    public void setCdcPollMillis(long cdcPollMillis) {
+        if (cdcPollMillis < 1) {
+            throw new IllegalArgumentException("变更捕获轮询间隔必须大于0: " + cdcPollMillis);
+        }
+        this.cdcPollMillis = cdcPollMillis;
+    }
+    
+    public boolean isVerify() {
+        return verify;
+    }
+    
+    public void setVerify(boolean verify) {
+        this.verify = verify;
+    }
+    
+    public int getVerifyChunkRows() {
+        return verifyChunkRows;
+    }
+    
+    public void setVerifyChunkRows(int verifyChunkRows) {
+        if (verifyChunkRows < 1) {
+            throw new IllegalArgumentException("校验块行数必须大于0: " + verifyChunkRows);
+        }
+        this.verifyChunkRows = verifyChunkRows;
+    }
+    
+    public int getVerifyMaxDifferences() {
+        return verifyMaxDifferences;
+    }
+    
+    public void setVerifyMaxDifferences(int verifyMaxDifferences) {
+        if (verifyMaxDifferences < 0) {
+            throw new IllegalArgumentException("最多报告的差异行数不能为负数: " + verifyMaxDifferences);
+        }
+        this.verifyMaxDifferences = verifyMaxDifferences;
+    }
+    
+    public boolean isMetricsJmx() {
+        return metricsJmx;
+    }
+    
+    public void setMetricsJmx(boolean metricsJmx) {
+        this.metricsJmx = metricsJmx;
+    }
+    
+    public int getMetricsHttpPort() {
+        return metricsHttpPort;
+    }
+    
+    public void setMetricsHttpPort(int metricsHttpPort) {
+        if (metricsHttpPort < 0 || metricsHttpPort > 65535) {
+            throw new IllegalArgumentException("指标端口必须在0到65535之间: " + metricsHttpPort);
+        }
+        this.metricsHttpPort = metricsHttpPort;
+    }
+    
+    public Set<String> getIncludeTables() {
+        return Collections.unmodifiableSet(includeTables);
+    }
+    
+    public void setIncludeTables(Collection<String> tables) {
+        includeTables.clear();
+        includeTables.addAll(tables);
+    }
+    
+    public Set<String> getExcludeTables() {
+        return Collections.unmodifiableSet(excludeTables);
+    }
+    
+    public void setExcludeTables(Collection<String> tables) {
+        excludeTables.clear();
+        excludeTables.addAll(tables);
+    }
+    
+    /**
+     * 判断表是否在迁移范围内，迁移、校验、修复和变更捕获使用同一规则
+     * @param tableName 表名
+     * @return 未被排除，且未指定 includeTables 或在其中
+     */
+    public boolean isTableSelected(String tableName) {
+        if (excludeTables.contains(tableName)) {
+            return false;
+        }
+        return includeTables.isEmpty() || includeTables.contains(tableName);
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("MigrationOptions{parallelism=%d, chunkParallelism=%d, chunkRows=%d, virtualThreads=%s, maxTargetConcurrency=%d, connectionPoolSize=%d, statementCacheSize=%d, sourceInitSql=%s, targetInitSql=%s, schemaCacheDir=%s, rowCountMode=%s, pipelined=%s, pipelineQueueCapacity=%d, writeMode=%s, tableWriteModes=%s, sqliteFastLoad=%s, buildIndexes=%s, indexParallelism=%d, fetchSize=%d, adaptiveBatching=%s, batchSize=%d, commitInterval=%d, maxBatchSize=%d, targetBatchMillis=%d, targetBatchBytes=%d, checkpointFile=%s, resume=%s, deltaSync=%s, watermarkFile=%s, changeColumn=%s, tableChangeColumns=%s, cdcBatchSize=%d, cdcPollMillis=%d, verify=%s, verifyChunkRows=%d, verifyMaxDifferences=%d, metricsJmx=%s, metricsHttpPort=%d, includeTables=%s, excludeTables=%s}",
+                             parallelism, chunkParallelism, chunkRows, virtualThreads, maxTargetConcurrency, connectionPoolSize,
+                             statementCacheSize, sourceInitSql, targetInitSql, schemaCacheDir, rowCountMode, pipelined,
+                             pipelineQueueCapacity, writeMode, tableWriteModes,
+                             sqliteFastLoad, buildIndexes, indexParallelism, fetchSize, adaptiveBatching, batchSize,
+                             commitInterval, maxBatchSize, targetBatchMillis, targetBatchBytes, checkpointFile, resume,
+                             deltaSync, watermarkFile, changeColumn, tableChangeColumns, cdcBatchSize, cdcPollMillis,
+                             verify, verifyChunkRows, verifyMaxDifferences, metricsJmx, metricsHttpPort,
+                             includeTables, excludeTables);
+    }
+}
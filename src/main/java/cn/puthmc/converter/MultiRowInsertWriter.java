@@ -0,0 +1,238 @@
+package cn.puthmc.converter;
+
+import cn.puthmc.db.DatabaseManager;
+import cn.puthmc.model.ColumnInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于多行INSERT语句的写入器（MySQL目标）
+ * 一条语句写入多行，每条语句的行数按估算行宽和服务器的 max_allowed_packet 计算，
+ * 批次末尾不足一条语句的剩余行使用按行数准备的较短语句，行宽超出估算的行退回单行INSERT批处理
+ */
+public class MultiRowInsertWriter implements BatchWriter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MultiRowInsertWriter.class);
+    
+    // 预编译语句参数个数上限
+    private static final int MAX_PARAMETERS = 65535;
+    
+    // max_allowed_packet 查询失败时使用的默认值（MySQL 8.0 默认 64MB，5.7 为 4MB）
+    private static final long DEFAULT_MAX_PACKET = 4L * 1024 * 1024;
+    
+    // 估算误差的余量：只使用包上限的一半
+    private static final int PACKET_SAFETY_DIVISOR = 2;
+    
+    // 无法估算宽度的值按此字节数计
+    private static final int DEFAULT_VALUE_BYTES = 64;
+    
+    // 剩余行数少于此值时直接使用单行批处理
+    private static final int MIN_TAIL_ROWS = 8;
+    
+    // 缓存的剩余行语句个数，批次大小调整后旧的语句会被淘汰
+    private static final int TAIL_STATEMENT_CACHE_SIZE = 4;
+    
+    private final Connection targetConn;
+    private final String singleRowSql;
+    private final int columnCount;
+    private final int rowsPerStatement;
+    private final long statementBudget;
+    private final PreparedStatement multiRowStmt;
+    private final PreparedStatement singleRowStmt;
+    private final Map<Integer, PreparedStatement> tailStmts = new LinkedHashMap<>(16, 0.75f, true);
+    private int pendingSingleRows = 0;
+    
+    /**
+     * @param targetConn 目标数据库连接
+     * @param tableName 表名
+     * @param columns 列信息
+     * @param maxRows 每条语句最多写入的行数，通常为批次容量
+     */
+    public MultiRowInsertWriter(Connection targetConn, String tableName, List<ColumnInfo> columns,
+                                int maxRows) throws SQLException {
+        this.targetConn = targetConn;
+        this.columnCount = columns.size();
+        
+        this.singleRowSql = SqlConverter.generateInsertSql(tableName, columns, DatabaseManager.DatabaseType.MYSQL);
+        this.statementBudget = queryMaxAllowedPacket(targetConn) / PACKET_SAFETY_DIVISOR;
+        
+        long rowBytes = estimateRowBytes(columns);
+        long rowsByPacket = Math.max(1, (statementBudget - singleRowSql.length()) / rowBytes);
+        long rowsByParameters = Math.max(1, MAX_PARAMETERS / Math.max(1, columnCount));
+        this.rowsPerStatement = (int) Math.max(1, Math.min(maxRows, Math.min(rowsByPacket, rowsByParameters)));
+        
+        logger.debug("表 {} 多行INSERT: 每条语句 {} 行（估算行宽 {} 字节, 语句上限 {} 字节）",
+                     tableName, rowsPerStatement, rowBytes, statementBudget);
+        
+        this.singleRowStmt = targetConn.prepareStatement(singleRowSql);
+        try {
+            // 模板只在写入器的生命周期内使用，不做全局缓存：每行上千个参数时模板可达数百KB
+            this.multiRowStmt = targetConn.prepareStatement(SqlConverter.repeatValues(singleRowSql, rowsPerStatement));
+        } catch (SQLException e) {
+            singleRowStmt.close();
+            throw e;
+        }
+    }
+    
+    @Override
+    public void write(RowBatch batch) throws SQLException {
+        int start = 0;
+        long groupBytes = 0;
+        
+        for (int row = 0; row < batch.size(); row++) {
+            long rowBytes = measureRow(batch, row);
+            
+            // 实际数据比估算的宽，当前组装不下这一行时把已累积的行退回单行批处理
+            if (row > start && groupBytes + rowBytes > statementBudget) {
+                addSingleRows(batch, start, row);
+                start = row;
+                groupBytes = 0;
+            }
+            groupBytes += rowBytes;
+            
+            if (row - start + 1 == rowsPerStatement) {
+                flushSingleRows();
+                bindRows(multiRowStmt, batch, start, row + 1);
+                multiRowStmt.executeUpdate();
+                start = row + 1;
+                groupBytes = 0;
+            }
+        }
+        
+        int tail = batch.size() - start;
+        if (tail >= MIN_TAIL_ROWS) {
+            flushSingleRows();
+            PreparedStatement tailStmt = tailStatement(tail);
+            bindRows(tailStmt, batch, start, batch.size());
+            tailStmt.executeUpdate();
+        } else {
+            addSingleRows(batch, start, batch.size());
+        }
+        flushSingleRows();
+    }
+    
+    /**
+     * 获取写入指定行数的语句，最近使用的几条保留在缓存中
+     */
+    private PreparedStatement tailStatement(int rows) throws SQLException {
+        PreparedStatement stmt = tailStmts.get(rows);
+        if (stmt == null) {
+            if (tailStmts.size() >= TAIL_STATEMENT_CACHE_SIZE) {
+                Iterator<PreparedStatement> eldest = tailStmts.values().iterator();
+                eldest.next().close();
+                eldest.remove();
+            }
+            stmt = targetConn.prepareStatement(SqlConverter.repeatValues(singleRowSql, rows));
+            tailStmts.put(rows, stmt);
+        }
+        return stmt;
+    }
+    
+    public int getRowsPerStatement() {
+        return rowsPerStatement;
+    }
+    
+    private void addSingleRows(RowBatch batch, int from, int to) throws SQLException {
+        for (int row = from; row < to; row++) {
+            bindRows(singleRowStmt, batch, row, row + 1);
+            singleRowStmt.addBatch();
+            pendingSingleRows++;
+        }
+    }
+    
+    private void flushSingleRows() throws SQLException {
+        if (pendingSingleRows > 0) {
+            singleRowStmt.executeBatch();
+            singleRowStmt.clearBatch();
+            pendingSingleRows = 0;
+        }
+    }
+    
+    private void bindRows(PreparedStatement stmt, RowBatch batch, int from, int to) throws SQLException {
+        int parameterIndex = 1;
+        for (int row = from; row < to; row++) {
+            for (int i = 0; i < columnCount; i++) {
+                batch.bind(stmt, parameterIndex++, i, row);
+            }
+        }
+    }
+    
+    /**
+     * 估算一行数据在SQL文本中的字节数
+     * 驱动在客户端展开参数，字符串按 utf8mb4 每字符4字节、二进制按转义后2倍计算
+     */
+    private long measureRow(RowBatch batch, int row) {
+        long bytes = 0;
+        for (int i = 0; i < columnCount; i++) {
+            bytes += 2; // 分隔符
+            if (batch.isPrimitive(i, row)) {
+                bytes += 24;
+                continue;
+            }
+            Object value = batch.get(i, row);
+            if (value instanceof String) {
+                bytes += 2 + 4L * ((String) value).length();
+            } else if (value instanceof byte[]) {
+                bytes += 10 + 2L * ((byte[]) value).length;
+            } else {
+                bytes += value == null ? 4 : DEFAULT_VALUE_BYTES;
+            }
+        }
+        return bytes;
+    }
+    
+    /**
+     * 按列定义估算行宽，用于确定每条语句的行数
+     * 大文本和大二进制列的声明长度没有参考意义，按默认值计，实际超出时由 write 中的逐行检查兜底
+     */
+    private static long estimateRowBytes(List<ColumnInfo> columns) {
+        long bytes = 0;
+        for (ColumnInfo column : columns) {
+            bytes += 2;
+            int size = column.getSize();
+            if ((column.isStringType() || column.isBinaryType()) && size > 0 && size <= 1024) {
+                bytes += 4L * size + 2;
+            } else if (column.isStringType() || column.isBinaryType()) {
+                bytes += 4 * DEFAULT_VALUE_BYTES;
+            } else {
+                bytes += 24;
+            }
+        }
+        return Math.max(1, bytes);
+    }
+    
+    private static long queryMaxAllowedPacket(Connection conn) {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT @@max_allowed_packet")) {
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            logger.warn("查询 max_allowed_packet 失败，使用默认值 {} 字节", DEFAULT_MAX_PACKET, e);
+        }
+        return DEFAULT_MAX_PACKET;
+    }
+    
+    @Override
+    public void close() throws SQLException {
+        try {
+            for (PreparedStatement stmt : tailStmts.values()) {
+                stmt.close();
+            }
+            tailStmts.clear();
+            multiRowStmt.close();
+        } finally {
+            singleRowStmt.close();
+        }
+    }
+}
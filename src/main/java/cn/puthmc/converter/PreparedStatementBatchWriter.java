@@ -0,0 +1,39 @@
+package cn.puthmc.converter;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * 基于单行INSERT预编译语句和JDBC批处理的写入器
+ */
+public class PreparedStatementBatchWriter implements BatchWriter {
+    
+    private final PreparedStatement insertStmt;
+    
+    public PreparedStatementBatchWriter(Connection targetConn, String insertSql) throws SQLException {
+        this.insertStmt = targetConn.prepareStatement(insertSql);
+    }
+    
+    @Override
+    public void write(RowBatch batch) throws SQLException {
+        if (batch.size() == 0) {
+            return;
+        }
+        
+        for (int row = 0; row < batch.size(); row++) {
+            for (int i = 0; i < batch.columnCount(); i++) {
+                batch.bind(insertStmt, i + 1, i, row);
+            }
+            insertStmt.addBatch();
+        }
+        
+        insertStmt.executeBatch();
+        insertStmt.clearBatch();
+    }
+    
+    @Override
+    public void close() throws SQLException {
+        insertStmt.close();
+    }
+}
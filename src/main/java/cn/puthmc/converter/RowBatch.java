@@ -0,0 +1,279 @@
+package cn.puthmc.converter;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 行批次
+ * 按列存放一批从源表读出的数据，在读取、转换、写入各阶段之间传递并循环复用。
+ * 整数和浮点列存放在基本类型数组中，读取和绑定时使用类型化的JDBC方法，避免逐值装箱。
+ */
+public class RowBatch {
+    
+    /**
+     * 列的存储方式
+     */
+    public enum ValueKind {
+        LONG,   // long[] 存储，getLong/setLong
+        DOUBLE, // double[] 存储，getDouble/setDouble
+        BYTES,  // byte[] 存储，getBytes/setBytes
+        OBJECT  // 对象存储，getObject/setObject
+    }
+    
+    // 估算数据量时最多抽样的行数
+    private static final int ESTIMATE_SAMPLE_ROWS = 64;
+    
+    // 无法估算宽度的值按此字节数计
+    private static final int DEFAULT_VALUE_BYTES = 16;
+    
+    private final int columnCount;
+    private final int capacity;
+    private final ValueKind[] kinds;
+    private final boolean typedReads;
+    private final Object[][] objects; // [列][行]，基本类型列中存放无法按基本类型保存的值
+    private final long[][] longs;     // LONG 列的值
+    private final double[][] doubles; // DOUBLE 列的值
+    private final boolean[][] nulls;  // 基本类型列的空值标记
+    private int size;
+    
+    public RowBatch(int columnCount, int capacity) {
+        this(objectKinds(columnCount), capacity, false);
+    }
+    
+    /**
+     * @param kinds 各列的存储方式
+     * @param capacity 批次容量（行数）
+     * @param typedReads 是否用类型化的JDBC方法读取。源库列类型严格时才能开启，
+     *                   SQLite 同一列可能存放不同类型的值，只能按对象读取再按实际类型存放
+     */
+    public RowBatch(ValueKind[] kinds, int capacity, boolean typedReads) {
+        this.columnCount = kinds.length;
+        this.capacity = capacity;
+        this.kinds = kinds.clone();
+        this.typedReads = typedReads;
+        this.objects = new Object[columnCount][capacity];
+        this.longs = new long[columnCount][];
+        this.doubles = new double[columnCount][];
+        this.nulls = new boolean[columnCount][];
+        
+        for (int i = 0; i < columnCount; i++) {
+            if (kinds[i] == ValueKind.LONG) {
+                longs[i] = new long[capacity];
+                nulls[i] = new boolean[capacity];
+            } else if (kinds[i] == ValueKind.DOUBLE) {
+                doubles[i] = new double[capacity];
+                nulls[i] = new boolean[capacity];
+            }
+        }
+    }
+    
+    /**
+     * 从结果集读取数据直到批次填满或结果集结束
+     * @param rs 结果集
+     * @param stopped 停止条件，返回true时提前结束读取
+     * @return 读取的行数，小于容量表示没有更多数据
+     */
+    public int fill(ResultSet rs, BooleanSupplier stopped) throws SQLException {
+        clear();
+        while (size < capacity && !stopped.getAsBoolean() && rs.next()) {
+            for (int i = 0; i < columnCount; i++) {
+                read(rs, i, size);
+            }
+            size++;
+        }
+        return size;
+    }
+    
+    private void read(ResultSet rs, int column, int row) throws SQLException {
+        int index = column + 1;
+        if (!typedReads) {
+            set(column, row, rs.getObject(index));
+            return;
+        }
+        
+        switch (kinds[column]) {
+            case LONG:
+                longs[column][row] = rs.getLong(index);
+                nulls[column][row] = rs.wasNull();
+                break;
+            case DOUBLE:
+                doubles[column][row] = rs.getDouble(index);
+                nulls[column][row] = rs.wasNull();
+                break;
+            case BYTES:
+                objects[column][row] = rs.getBytes(index);
+                break;
+            default:
+                objects[column][row] = rs.getObject(index);
+        }
+    }
+    
+    /**
+     * 把一个值绑定到预编译语句的参数上
+     * @param stmt 预编译语句
+     * @param parameterIndex 参数下标（从1开始）
+     * @param column 列下标
+     * @param row 行下标
+     */
+    public void bind(PreparedStatement stmt, int parameterIndex, int column, int row) throws SQLException {
+        Object value = objects[column][row];
+        switch (kinds[column]) {
+            case LONG:
+                if (value == null) {
+                    if (nulls[column][row]) {
+                        stmt.setNull(parameterIndex, Types.BIGINT);
+                    } else {
+                        stmt.setLong(parameterIndex, longs[column][row]);
+                    }
+                    return;
+                }
+                break;
+            case DOUBLE:
+                if (value == null) {
+                    if (nulls[column][row]) {
+                        stmt.setNull(parameterIndex, Types.DOUBLE);
+                    } else {
+                        stmt.setDouble(parameterIndex, doubles[column][row]);
+                    }
+                    return;
+                }
+                break;
+            case BYTES:
+                if (value instanceof byte[]) {
+                    stmt.setBytes(parameterIndex, (byte[]) value);
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        stmt.setObject(parameterIndex, value);
+    }
+    
+    /**
+     * 清空批次，释放上一批数据的引用
+     */
+    public void clear() {
+        for (Object[] column : objects) {
+            Arrays.fill(column, 0, size, null);
+        }
+        size = 0;
+    }
+    
+    /**
+     * 获取值，基本类型列的值会被装箱
+     */
+    public Object get(int column, int row) {
+        Object value = objects[column][row];
+        if (value != null || nulls[column] == null || nulls[column][row]) {
+            return value;
+        }
+        return kinds[column] == ValueKind.LONG ? (Object) longs[column][row] : (Object) doubles[column][row];
+    }
+    
+    /**
+     * 设置值，基本类型列中类型相符的值拆箱存放，其余值按对象存放
+     */
+    public void set(int column, int row, Object value) {
+        switch (kinds[column]) {
+            case LONG:
+                if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                    objects[column][row] = null;
+                    longs[column][row] = ((Number) value).longValue();
+                    nulls[column][row] = false;
+                    return;
+                }
+                nulls[column][row] = value == null;
+                break;
+            case DOUBLE:
+                if (value instanceof Double) {
+                    objects[column][row] = null;
+                    doubles[column][row] = (Double) value;
+                    nulls[column][row] = false;
+                    return;
+                }
+                nulls[column][row] = value == null;
+                break;
+            default:
+                break;
+        }
+        objects[column][row] = value;
+    }
+    
+    /**
+     * 值是否以基本类型存放（含空值），这类值无需再做类型转换
+     */
+    public boolean isPrimitive(int column, int row) {
+        return nulls[column] != null && objects[column][row] == null;
+    }
+    
+    public ValueKind kind(int column) {
+        return kinds[column];
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * 设置批次行数，用于手动填充数据后
+     * @param size 行数
+     */
+    public void setSize(int size) {
+        if (size < 0 || size > capacity) {
+            throw new IllegalArgumentException("批次行数超出范围: " + size);
+        }
+        this.size = size;
+    }
+    
+    public int capacity() {
+        return capacity;
+    }
+    
+    public int columnCount() {
+        return columnCount;
+    }
+    
+    public boolean isFull() {
+        return size == capacity;
+    }
+    
+    /**
+     * 估算批次数据量（字节），行数较多时均匀抽取至多 ESTIMATE_SAMPLE_ROWS 行再按比例放大
+     * 字符串按UTF-16每字符2字节计，无法估算宽度的对象按 DEFAULT_VALUE_BYTES 计
+     */
+    public long estimateBytes() {
+        if (size == 0) {
+            return 0;
+        }
+        int step = Math.max(1, size / ESTIMATE_SAMPLE_ROWS);
+        long sampled = 0;
+        int sampledRows = 0;
+        for (int row = 0; row < size; row += step) {
+            for (int i = 0; i < columnCount; i++) {
+                Object value = objects[i][row];
+                if (value == null) {
+                    sampled += nulls[i] != null ? 8 : 1;
+                } else if (value instanceof String) {
+                    sampled += 2L * ((String) value).length();
+                } else if (value instanceof byte[]) {
+                    sampled += ((byte[]) value).length;
+                } else {
+                    sampled += DEFAULT_VALUE_BYTES;
+                }
+            }
+            sampledRows++;
+        }
+        return sampled * size / sampledRows;
+    }
+    
+    private static ValueKind[] objectKinds(int columnCount) {
+        ValueKind[] kinds = new ValueKind[columnCount];
+        Arrays.fill(kinds, ValueKind.OBJECT);
+        return kinds;
+    }
+}
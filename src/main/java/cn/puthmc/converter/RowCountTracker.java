@@ -0,0 +1,262 @@
+package cn.puthmc.converter;
+
+import cn.puthmc.db.DatabaseManager;
+import cn.puthmc.db.SchemaAnalyzer;
+import cn.puthmc.model.TableInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 迁移进度使用的各表预期行数
+ * 预期行数从迁移开始前统计或估算的行数开始；后台统计出某表的精确行数，或某表复制完成得到实际行数时，
+ * 更新该表的预期行数并调整合计，进度比例和预计剩余时间按最新的合计计算。
+ * 行数为估算值的表即使估算为0也要复制，只有精确行数为0的表才能作为空表跳过。
+ * 后台统计在一个守护线程上按给定顺序逐表执行 COUNT(*)，跳过已开始或已完成复制的表，所有方法可以在不同线程中调用。
+ */
+public class RowCountTracker implements AutoCloseable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RowCountTracker.class);
+    
+    // 进度回调在虚拟线程工作者上调用，用显式锁而不是 synchronized，锁内不做IO
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    // 以下字段只在持有 lock 时访问（构造函数除外）
+    private final Map<String, Long> expectedRows = new HashMap<>();
+    private final Set<String> exact = new HashSet<>();
+    private final Set<String> started = new HashSet<>();
+    private final Set<String> finished = new HashSet<>();
+    private long totalRows;
+    // 第一个表开始复制的时间，预计剩余时间从这里开始按平均速度计算
+    private long startNanos;
+    
+    private volatile Thread counter;
+    private volatile boolean stopped = false;
+    
+    /**
+     * @param tables 要迁移的表，使用其中统计或估算的行数
+     */
+    public RowCountTracker(List<TableInfo> tables) {
+        for (TableInfo table : tables) {
+            expectedRows.put(table.getName(), table.getRowCount());
+            if (!table.isRowCountEstimated()) {
+                exact.add(table.getName());
+            }
+            totalRows += table.getRowCount();
+        }
+    }
+    
+    /**
+     * 表的预期行数
+     */
+    public long getExpectedRows(String tableName) {
+        lock.lock();
+        try {
+            return expected(tableName);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * 所有表的预期行数合计
+     */
+    public long getTotalRows() {
+        lock.lock();
+        try {
+            return totalRows;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * 表是否确定为空表（精确行数为0），空表不需要复制
+     */
+    public boolean isKnownEmpty(String tableName) {
+        lock.lock();
+        try {
+            return exact.contains(tableName) && expected(tableName) == 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * 用于进度消息的表行数，估算值前加“约”
+     */
+    public String describeRows(String tableName) {
+        lock.lock();
+        try {
+            return (exact.contains(tableName) ? "" : "约") + expected(tableName);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * 标记表开始复制，后台统计不再统计该表
+     */
+    public void markStarted(String tableName) {
+        lock.lock();
+        try {
+            if (started.isEmpty()) {
+                startNanos = System.nanoTime();
+            }
+            started.add(tableName);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * 表复制完成，以实际复制的行数作为该表的行数
+     */
+    public void markFinished(String tableName, long rows) {
+        lock.lock();
+        try {
+            finished.add(tableName);
+            update(tableName, rows);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * 记录后台统计出的精确行数，表已复制完成时以实际行数为准
+     */
+    private void recordExact(String tableName, long rows) {
+        long previous;
+        lock.lock();
+        try {
+            if (finished.contains(tableName)) {
+                return;
+            }
+            previous = expected(tableName);
+            update(tableName, rows);
+        } finally {
+            lock.unlock();
+        }
+        if (previous != rows) {
+            logger.debug("表 {} 的精确行数为 {}，估算值 {}", tableName, rows, previous);
+        }
+    }
+    
+    // 以下两个方法由调用方持有 lock
+    private long expected(String tableName) {
+        return expectedRows.getOrDefault(tableName, 0L);
+    }
+    
+    private void update(String tableName, long rows) {
+        totalRows += rows - expected(tableName);
+        expectedRows.put(tableName, rows);
+        exact.add(tableName);
+    }
+    
+    /**
+     * 按开始复制以来的平均速度估算剩余时间
+     * @param doneRows 已复制的行数
+     * @return 预计剩余秒数，还没有进度时返回-1
+     */
+    public long remainingSeconds(long doneRows) {
+        lock.lock();
+        try {
+            if (started.isEmpty() || doneRows <= 0) {
+                return -1;
+            }
+            double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+            return (long) Math.ceil(elapsedSeconds * Math.max(0, totalRows - doneRows) / doneRows);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * 用于进度消息的预计剩余时间，无法估算时为空字符串
+     * @param doneRows 已复制的行数
+     */
+    public String describeRemaining(long doneRows) {
+        long seconds = remainingSeconds(doneRows);
+        return seconds < 0 ? "" : String.format("，预计剩余 %d 秒", seconds);
+    }
+    
+    /**
+     * 启动后台统计，按给定顺序逐表统计精确行数
+     * @param factory 源数据库连接工厂，后台线程从中取一个连接
+     * @param tables 要统计的表，已有精确行数的表跳过
+     */
+    public void countInBackground(DatabaseManager.ConnectionFactory factory, List<TableInfo> tables) {
+        List<String> pending = new ArrayList<>();
+        lock.lock();
+        try {
+            for (TableInfo table : tables) {
+                if (!exact.contains(table.getName())) {
+                    pending.add(table.getName());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        
+        Thread thread = new Thread(() -> countPending(factory, pending), "dbbridge-count");
+        thread.setDaemon(true);
+        counter = thread;
+        thread.start();
+        logger.info("后台统计 {} 个表的精确行数", pending.size());
+    }
+    
+    private void countPending(DatabaseManager.ConnectionFactory factory, List<String> pending) {
+        int counted = 0;
+        try (Connection conn = factory.createConnection()) {
+            for (String tableName : pending) {
+                if (isStartedOrFinished(tableName)) {
+                    continue;
+                }
+                if (stopped) {
+                    break;
+                }
+                recordExact(tableName, SchemaAnalyzer.countTableRows(conn, tableName));
+                counted++;
+            }
+        } catch (SQLException e) {
+            // 统计失败只影响进度显示的准确度
+            if (!stopped) {
+                logger.warn("后台统计行数失败: {}", e.getMessage());
+            }
+        }
+        logger.debug("后台统计完成 {} 个表的精确行数", counted);
+    }
+    
+    private boolean isStartedOrFinished(String tableName) {
+        lock.lock();
+        try {
+            return started.contains(tableName) || finished.contains(tableName);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * 停止后台统计，正在执行的 COUNT(*) 结束后线程退出
+     */
+    @Override
+    public void close() {
+        stopped = true;
+        Thread thread = counter;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package cn.puthmc.converter;
+
+import cn.puthmc.db.DatabaseManager;
+import cn.puthmc.model.ColumnInfo;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 行哈希计算器
+ * 把源表和目标表读出的值规范化为相同的文本形式后计算64位行哈希，用于比较两个库中的数据是否一致。
+ * 源表的值先经过与迁移相同的转换计划，再与目标表的值一起按目标列的类型规范化：
+ * 数值去掉多余的零和精度后缀，日期时间统一为 "yyyy-MM-dd HH:mm:ss[.f]"，二进制转为十六进制。
+ */
+public class RowHasher {
+    
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long NULL_MARK = 0x9e3779b97f4a7c15L;
+    private static final char KEY_SEPARATOR = '\u0001';
+    
+    private static final HexFormat HEX = HexFormat.of();
+    
+    /**
+     * 按目标列类型划分的值类别
+     */
+    enum ValueClass {
+        NUMERIC,
+        TEMPORAL,
+        BINARY,
+        TEXT
+    }
+    
+    private final ConversionPlan plan;
+    private final ValueClass[] classes;
+    private final int[] keyIndexes;
+    
+    private RowHasher(ConversionPlan plan, ValueClass[] classes, int[] keyIndexes) {
+        this.plan = plan;
+        this.classes = classes;
+        this.keyIndexes = keyIndexes;
+    }
+    
+    /**
+     * 创建读取源表的哈希计算器，读出的值先按迁移时的转换计划转换
+     * @param sourceColumns 源表列，与查询的列顺序一致
+     * @param targetColumns 与源表列一一对应的目标表列
+     * @param keyIndexes 主键列在查询中的下标
+     * @param sourceType 源数据库类型
+     * @param targetType 目标数据库类型
+     * @return 哈希计算器
+     */
+    public static RowHasher forSource(List<ColumnInfo> sourceColumns, List<ColumnInfo> targetColumns, int[] keyIndexes,
+                                      DatabaseManager.DatabaseType sourceType, DatabaseManager.DatabaseType targetType) {
+        return new RowHasher(ConversionPlan.compile(sourceColumns, sourceType, targetType), classify(targetColumns), keyIndexes);
+    }
+    
+    /**
+     * 创建读取目标表的哈希计算器
+     * @param targetColumns 目标表列，与查询的列顺序一致
+     * @param keyIndexes 主键列在查询中的下标
+     * @return 哈希计算器
+     */
+    public static RowHasher forTarget(List<ColumnInfo> targetColumns, int[] keyIndexes) {
+        return new RowHasher(null, classify(targetColumns), keyIndexes);
+    }
+    
+    /**
+     * 读取结果集的当前行并规范化
+     * @param rs 结果集，列顺序与创建时的列一致
+     * @return 规范化后的各列值，NULL为null
+     */
+    public String[] read(ResultSet rs) throws SQLException {
+        return read(rs, null);
+    }
+    
+    /**
+     * 读取结果集的当前行并规范化，同时保留规范化之前的值
+     * @param rs 结果集，列顺序与创建时的列一致
+     * @param values 接收各列的值，源表为转换后可直接写入目标库的值；为null时不保留
+     * @return 规范化后的各列值，NULL为null
+     */
+    public String[] read(ResultSet rs, Object[] values) throws SQLException {
+        String[] row = new String[classes.length];
+        for (int i = 0; i < row.length; i++) {
+            Object value;
+            if (plan == null && classes[i] == ValueClass.TEMPORAL) {
+                // 驱动对日期时间列返回的对象类型因版本而异，按文本读取最稳定
+                value = rs.getString(i + 1);
+            } else {
+                value = rs.getObject(i + 1);
+                if (plan != null && value != null) {
+                    value = plan.get(i).convert(value);
+                }
+            }
+            if (values != null) {
+                values[i] = value;
+            }
+            row[i] = canonical(value, classes[i]);
+        }
+        return row;
+    }
+    
+    /**
+     * @return 整行的64位哈希
+     */
+    public long rowHash(String[] row) {
+        long hash = FNV_OFFSET;
+        for (String value : row) {
+            hash = update(hash, value);
+        }
+        return mix(hash);
+    }
+    
+    /**
+     * @return 主键值拼接成的文本，用于在两边的行之间对应
+     */
+    public String key(String[] row) {
+        if (keyIndexes.length == 1) {
+            return String.valueOf(row[keyIndexes[0]]);
+        }
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < keyIndexes.length; i++) {
+            if (i > 0) key.append(KEY_SEPARATOR);
+            key.append(row[keyIndexes[i]]);
+        }
+        return key.toString();
+    }
+    
+    /**
+     * @return 主键的64位哈希
+     */
+    public long keyHash(String[] row) {
+        long hash = FNV_OFFSET;
+        for (int index : keyIndexes) {
+            hash = update(hash, row[index]);
+        }
+        return mix(hash);
+    }
+    
+    /**
+     * 按主键显示的文本，用于报告
+     */
+    public String describeKey(String key) {
+        return key.replace(KEY_SEPARATOR, ',');
+    }
+    
+    private static long update(long hash, String value) {
+        if (value == null) {
+            return (hash ^ NULL_MARK) * FNV_PRIME;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        // 值之间的分隔，避免 ("ab","c") 与 ("a","bc") 相同
+        return (hash ^ 0xff) * FNV_PRIME;
+    }
+    
+    // 64位终结混合，使相近的输入在所有位上都充分扩散
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+    
+    private static ValueClass[] classify(List<ColumnInfo> columns) {
+        ValueClass[] classes = new ValueClass[columns.size()];
+        for (int i = 0; i < classes.length; i++) {
+            String type = columns.get(i).getDataType() == null ? "" : columns.get(i).getDataType().toUpperCase(Locale.ROOT);
+            if (type.contains("BLOB") || type.contains("BINARY") || type.contains("GEOMETRY") || type.contains("POINT") ||
+                type.contains("LINESTRING") || type.contains("POLYGON")) {
+                classes[i] = ValueClass.BINARY;
+            } else if (type.contains("DATE") || type.contains("TIME") || type.contains("YEAR")) {
+                classes[i] = ValueClass.TEMPORAL;
+            } else if (type.contains("INT") || type.contains("DEC") || type.contains("NUM") || type.contains("REAL") ||
+                       type.contains("FLOA") || type.contains("DOUB") || type.contains("BIT") || type.contains("BOOL")) {
+                classes[i] = ValueClass.NUMERIC;
+            } else {
+                classes[i] = ValueClass.TEXT;
+            }
+        }
+        return classes;
+    }
+    
+    static String canonical(Object value, ValueClass valueClass) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Boolean) {
+            return ((Boolean) value) ? "1" : "0";
+        }
+        
+        switch (valueClass) {
+            case NUMERIC:
+                if (value instanceof byte[]) {
+                    return new BigInteger(1, (byte[]) value).toString();
+                }
+                if (value instanceof Number) {
+                    return canonicalNumber((Number) value);
+                }
+                String text = value.toString().trim();
+                try {
+                    return new BigDecimal(text).stripTrailingZeros().toPlainString();
+                } catch (NumberFormatException e) {
+                    return text;
+                }
+            case TEMPORAL:
+                return canonicalTemporal(value.toString());
+            case BINARY:
+                if (value instanceof byte[]) {
+                    return HEX.formatHex((byte[]) value);
+                }
+                return HEX.formatHex(value.toString().getBytes(StandardCharsets.UTF_8));
+            default:
+                if (value instanceof byte[]) {
+                    return new String((byte[]) value, StandardCharsets.UTF_8);
+                }
+                if (value instanceof Number) {
+                    return canonicalNumber((Number) value);
+                }
+                return value.toString();
+        }
+    }
+    
+    private static String canonicalNumber(Number number) {
+        if (number instanceof Long || number instanceof Integer || number instanceof Short ||
+            number instanceof Byte || number instanceof BigInteger) {
+            return number.toString();
+        }
+        if (number instanceof BigDecimal) {
+            return ((BigDecimal) number).stripTrailingZeros().toPlainString();
+        }
+        if (number instanceof Float) {
+            float f = number.floatValue();
+            return Float.isFinite(f) ? new BigDecimal(Float.toString(f)).stripTrailingZeros().toPlainString() : number.toString();
+        }
+        double d = number.doubleValue();
+        return Double.isFinite(d) ? BigDecimal.valueOf(d).stripTrailingZeros().toPlainString() : number.toString();
+    }
+    
+    /**
+     * 日期时间统一为空格分隔、秒数完整、去掉小数秒末尾的零
+     */
+    private static String canonicalTemporal(String text) {
+        String value = text.trim().replace('T', ' ');
+        if (value.length() == 16 && value.charAt(13) == ':') {
+            value = value + ":00";
+        }
+        int dot = value.lastIndexOf('.');
+        if (dot > 0 && value.indexOf(':') > 0) {
+            int end = value.length();
+            while (end > dot + 1 && value.charAt(end - 1) == '0') {
+                end--;
+            }
+            value = end == dot + 1 ? value.substring(0, dot) : value.substring(0, end);
+        }
+        return value;
+    }
+}
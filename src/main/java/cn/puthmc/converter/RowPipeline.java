@@ -0,0 +1,204 @@
+package cn.puthmc.converter;
+
+import cn.puthmc.metrics.MigrationMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+
+/**
+ * 读取-转换-写入流水线
+ * 读取阶段和转换阶段各占一个线程，写入阶段在调用线程上执行，阶段之间通过有界队列传递批次。
+ * 队列满时上游阻塞形成背压，源库读取和目标库写入得以重叠，吞吐量趋近较慢的一侧。
+ */
+public class RowPipeline {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RowPipeline.class);
+    
+    private static final long POLL_MILLIS = 100;
+    
+    /**
+     * 批次转换阶段
+     */
+    @FunctionalInterface
+    public interface BatchConverter {
+        void convert(RowBatch batch) throws SQLException;
+    }
+    
+    /**
+     * 批次写入阶段
+     */
+    @FunctionalInterface
+    public interface BatchSink {
+        void accept(RowBatch batch) throws SQLException;
+    }
+    
+    // 结束标记
+    private static final RowBatch END = new RowBatch(0, 0);
+    
+    private final IntFunction<RowBatch> batchFactory;
+    private final IntSupplier batchSize;
+    private final BlockingQueue<RowBatch> convertQueue;
+    private final BlockingQueue<RowBatch> writeQueue;
+    private final BlockingQueue<RowBatch> freeBatches;
+    private final AtomicReference<Throwable> stageError = new AtomicReference<>();
+    private volatile boolean stopped = false;
+    
+    /**
+     * @param batchFactory 批次工厂，参数为批次容量，空闲批次不足或容量不符时调用
+     * @param batchSize 下一个批次的容量，每读取一个批次前查询一次
+     * @param queueCapacity 阶段间队列容量（批次数）
+     */
+    public RowPipeline(IntFunction<RowBatch> batchFactory, IntSupplier batchSize, int queueCapacity) {
+        this.batchFactory = batchFactory;
+        this.batchSize = batchSize;
+        this.convertQueue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writeQueue = new ArrayBlockingQueue<>(queueCapacity);
+        // 每个阶段手上各有一个批次，加上两个队列中的批次
+        this.freeBatches = new ArrayBlockingQueue<>(2 * queueCapacity + 3);
+    }
+    
+    /**
+     * 运行流水线直到结果集读完、被取消或出错
+     * @param rs 源结果集，只在读取线程上访问
+     * @param converter 转换阶段
+     * @param sink 写入阶段，在调用线程上执行
+     * @param cancelled 取消条件
+     */
+    public void run(ResultSet rs, BatchConverter converter, BatchSink sink, BooleanSupplier cancelled) throws SQLException {
+        BooleanSupplier shouldStop = () -> stopped || cancelled.getAsBoolean();
+        
+        // 调用方是虚拟线程（虚拟线程执行模式）时阶段线程也用虚拟线程
+        Thread.Builder builder = Thread.currentThread().isVirtual() ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+        Thread readerThread = builder.name("dbbridge-reader").unstarted(() -> runReader(rs, shouldStop));
+        Thread converterThread = builder.name("dbbridge-converter").unstarted(() -> runConverter(converter, shouldStop));
+        readerThread.start();
+        converterThread.start();
+        
+        MigrationMetrics metrics = MigrationMetrics.getInstance();
+        metrics.registerQueue("convert", convertQueue);
+        metrics.registerQueue("write", writeQueue);
+        try {
+            while (!cancelled.getAsBoolean()) {
+                RowBatch batch = take(writeQueue, shouldStop);
+                if (batch == null || batch == END) {
+                    break;
+                }
+                sink.accept(batch);
+                freeBatches.offer(batch);
+            }
+        } finally {
+            metrics.unregisterQueue("convert", convertQueue);
+            metrics.unregisterQueue("write", writeQueue);
+            stopped = true;
+            join(readerThread);
+            join(converterThread);
+        }
+        
+        Throwable error = stageError.get();
+        if (error instanceof SQLException) {
+            throw (SQLException) error;
+        }
+        if (error != null) {
+            throw new SQLException("流水线阶段执行失败: " + error.getMessage(), error);
+        }
+    }
+    
+    private void runReader(ResultSet rs, BooleanSupplier shouldStop) {
+        try {
+            while (!shouldStop.getAsBoolean()) {
+                // 批次大小调整后，容量不符的空闲批次直接丢弃
+                int capacity = batchSize.getAsInt();
+                RowBatch batch = freeBatches.poll();
+                if (batch == null || batch.capacity() != capacity) {
+                    batch = batchFactory.apply(capacity);
+                }
+                
+                int rows = batch.fill(rs, shouldStop);
+                if (rows > 0 && !put(convertQueue, batch, shouldStop)) {
+                    return;
+                }
+                if (!batch.isFull()) {
+                    break;
+                }
+            }
+        } catch (Throwable e) {
+            stageError.compareAndSet(null, e);
+        } finally {
+            put(convertQueue, END, () -> stopped);
+        }
+    }
+    
+    private void runConverter(BatchConverter converter, BooleanSupplier shouldStop) {
+        try {
+            while (true) {
+                RowBatch batch = take(convertQueue, shouldStop);
+                if (batch == null || batch == END) {
+                    break;
+                }
+                converter.convert(batch);
+                if (!put(writeQueue, batch, shouldStop)) {
+                    return;
+                }
+            }
+        } catch (Throwable e) {
+            stageError.compareAndSet(null, e);
+        } finally {
+            put(writeQueue, END, () -> stopped);
+        }
+    }
+    
+    /**
+     * 带停止检查的阻塞放入
+     * @return 是否放入成功
+     */
+    private boolean put(BlockingQueue<RowBatch> queue, RowBatch batch, BooleanSupplier shouldStop) {
+        try {
+            while (!queue.offer(batch, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (shouldStop.getAsBoolean()) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    /**
+     * 带停止检查的阻塞取出
+     * @return 取出的批次，停止时返回null
+     */
+    private RowBatch take(BlockingQueue<RowBatch> queue, BooleanSupplier shouldStop) {
+        try {
+            RowBatch batch;
+            while ((batch = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                if (shouldStop.getAsBoolean()) {
+                    return null;
+                }
+            }
+            return batch;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+    
+    private void join(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("等待流水线线程 {} 结束时被中断", thread.getName());
+        }
+    }
+}
@@ -0,0 +1,534 @@
+package cn.puthmc.converter;
+
+import cn.puthmc.db.DatabaseManager;
+import cn.puthmc.db.SchemaAnalyzer;
+import cn.puthmc.model.ColumnInfo;
+import cn.puthmc.model.TableInfo;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SQLite源的触发器变更捕获
+ * install 在源库中建立变更日志表，并为每张有主键的表安装 INSERT/UPDATE/DELETE 触发器，把变更行的主键以JSON数组记入日志。
+ * JSON不能保存BLOB，主键中的文本和二进制值按类型加前缀编码为字符串（文本 s:原文，二进制 x:十六进制）。
+ * 应用线程按序号分批读取日志，同一行的多次变更只保留最后一次：删除按主键从目标表删除，
+ * 插入和修改按主键从源表读取当前行，经过与全量迁移相同的类型转换后覆盖写入目标表。
+ * 目标库提交后才清理已应用的日志，中断后重放是幂等的。
+ * 通常先 install，再用 DataMigrator 做一次全量迁移，然后 start；全量迁移期间的变更会在之后重放。
+ */
+public class SQLiteChangeCapture implements AutoCloseable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SQLiteChangeCapture.class);
+    
+    public static final String CHANGELOG_TABLE = SchemaAnalyzer.INTERNAL_TABLE_PREFIX + "changelog";
+    
+    private static final String TRIGGER_PREFIX = SchemaAnalyzer.INTERNAL_TABLE_PREFIX + "cdc_";
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    // 当前时间的毫秒时间戳（SQLite表达式）
+    private static final String NOW_MILLIS = "CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER)";
+    
+    // 主键值在日志中的类型前缀
+    private static final String TEXT_PREFIX = "s:";
+    private static final String BLOB_PREFIX = "x:";
+    
+    private static final char OP_UPSERT = 'U';
+    private static final char OP_DELETE = 'D';
+    
+    /**
+     * 变更应用统计
+     */
+    public static class Stats {
+        private final long appliedChanges;
+        private final long appliedBatches;
+        private final long pendingChanges;
+        private final long lagMillis;
+        private final double changesPerSecond;
+        
+        public Stats(long appliedChanges, long appliedBatches, long pendingChanges, long lagMillis,
+                     double changesPerSecond) {
+            this.appliedChanges = appliedChanges;
+            this.appliedBatches = appliedBatches;
+            this.pendingChanges = pendingChanges;
+            this.lagMillis = lagMillis;
+            this.changesPerSecond = changesPerSecond;
+        }
+        
+        public long getAppliedChanges() { return appliedChanges; }
+        public long getAppliedBatches() { return appliedBatches; }
+        
+        /**
+         * @return 最近一次检查时日志中尚未应用的变更数
+         */
+        public long getPendingChanges() { return pendingChanges; }
+        
+        /**
+         * @return 最近应用的一批中最新一条变更从捕获到目标库提交的延迟，没有待应用变更时为0
+         */
+        public long getLagMillis() { return lagMillis; }
+        
+        public double getChangesPerSecond() { return changesPerSecond; }
+        
+        @Override
+        public String toString() {
+            return String.format("CaptureStats{applied=%d, batches=%d, pending=%d, lag=%dms, rate=%.1f/s}",
+                                 appliedChanges, appliedBatches, pendingChanges, lagMillis, changesPerSecond);
+        }
+    }
+    
+    private final DatabaseManager.ConnectionFactory sourceFactory;
+    private final DatabaseManager.ConnectionFactory targetFactory;
+    private final MigrationOptions options;
+    private final Map<String, TableInfo> tables = new LinkedHashMap<>();
+    
+    private final AtomicLong appliedChanges = new AtomicLong(0);
+    private final AtomicLong appliedBatches = new AtomicLong(0);
+    private volatile long pendingChanges = 0;
+    private volatile long lagMillis = 0;
+    private volatile long startTime = System.currentTimeMillis();
+    
+    private volatile boolean running = false;
+    private Thread applier;
+    
+    /**
+     * @param sourceFactory 源SQLite数据库连接工厂
+     * @param targetFactory 目标数据库连接工厂
+     * @param options 迁移选项，使用其中的变更捕获批次大小、轮询间隔和表筛选
+     */
+    public SQLiteChangeCapture(DatabaseManager.ConnectionFactory sourceFactory,
+                               DatabaseManager.ConnectionFactory targetFactory, MigrationOptions options) {
+        this.sourceFactory = sourceFactory;
+        this.targetFactory = targetFactory;
+        this.options = options;
+    }
+    
+    /**
+     * 在源库中创建变更日志表并为选中的有主键的表安装捕获触发器，可以重复调用，已有的触发器会被重建
+     */
+    public synchronized void install() throws SQLException {
+        try (Connection sourceConn = sourceFactory.createConnection()) {
+            if (DatabaseManager.getDatabaseType(sourceConn) != DatabaseManager.DatabaseType.SQLITE) {
+                throw new IllegalStateException("触发器变更捕获只支持SQLite源数据库");
+            }
+            
+            tables.clear();
+            for (TableInfo table : SchemaAnalyzer.getTableStructures(sourceConn)) {
+                if (!options.isTableSelected(table.getName())) {
+                    continue;
+                }
+                if (!table.hasPrimaryKey()) {
+                    logger.warn("表 {} 没有主键，无法定位变更行，不捕获变更", table.getName());
+                    continue;
+                }
+                tables.put(table.getName(), table);
+            }
+            
+            boolean autoCommit = sourceConn.getAutoCommit();
+            sourceConn.setAutoCommit(false);
+            try (Statement stmt = sourceConn.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS " + quote(CHANGELOG_TABLE) + " (" +
+                             "seq INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                             "table_name TEXT NOT NULL, " +
+                             "op TEXT NOT NULL, " +
+                             "pk TEXT NOT NULL, " +
+                             "captured_at INTEGER NOT NULL DEFAULT (" + NOW_MILLIS + "))");
+                for (TableInfo table : tables.values()) {
+                    for (String sql : generateTriggerSql(table)) {
+                        stmt.execute(sql);
+                    }
+                }
+                sourceConn.commit();
+            } catch (SQLException e) {
+                sourceConn.rollback();
+                throw e;
+            } finally {
+                sourceConn.setAutoCommit(autoCommit);
+            }
+        }
+        logger.info("已为 {} 个表安装变更捕获触发器", tables.size());
+    }
+    
+    /**
+     * 启动后台应用线程，按轮询间隔持续应用变更
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        if (tables.isEmpty()) {
+            throw new IllegalStateException("请先调用 install 安装变更捕获触发器");
+        }
+        
+        running = true;
+        startTime = System.currentTimeMillis();
+        applier = new Thread(this::runApplier, "dbbridge-cdc");
+        applier.setDaemon(true);
+        applier.start();
+        logger.info("变更应用线程已启动，轮询间隔 {} ms，每批最多 {} 条变更",
+                    options.getCdcPollMillis(), options.getCdcBatchSize());
+    }
+    
+    /**
+     * 停止捕获：停止应用线程，先删除触发器不再产生新变更，再把日志中剩余的变更应用到目标库，最后删除变更日志表
+     */
+    public void stop() throws SQLException {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = applier;
+            applier = null;
+        }
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        try (Connection sourceConn = sourceFactory.createConnection()) {
+            dropTriggers(sourceConn);
+            applyPending(sourceConn);
+            try (Statement stmt = sourceConn.createStatement()) {
+                stmt.execute("DROP TABLE IF EXISTS " + quote(CHANGELOG_TABLE));
+            }
+        }
+        logger.info("变更捕获已停止，触发器和变更日志已清理: {}", getStats());
+    }
+    
+    /**
+     * 把日志中当前所有变更应用到目标库后返回
+     * @return 应用的变更数
+     */
+    public long applyPending() throws SQLException {
+        try (Connection sourceConn = sourceFactory.createConnection()) {
+            return applyPending(sourceConn);
+        }
+    }
+    
+    private long applyPending(Connection sourceConn) throws SQLException {
+        try (Connection targetConn = targetFactory.createConnection()) {
+            targetConn.setAutoCommit(false);
+            long total = 0;
+            int applied;
+            while ((applied = applyBatch(sourceConn, targetConn)) > 0) {
+                total += applied;
+            }
+            return total;
+        }
+    }
+    
+    /**
+     * 等同于 stop
+     */
+    @Override
+    public void close() throws SQLException {
+        stop();
+    }
+    
+    public boolean isRunning() {
+        return running;
+    }
+    
+    /**
+     * @return 当前应用统计
+     */
+    public Stats getStats() {
+        long applied = appliedChanges.get();
+        double seconds = Math.max(0.001, (System.currentTimeMillis() - startTime) / 1000.0);
+        return new Stats(applied, appliedBatches.get(), pendingChanges, lagMillis, applied / seconds);
+    }
+    
+    private void runApplier() {
+        while (running) {
+            try (Connection sourceConn = sourceFactory.createConnection();
+                 Connection targetConn = targetFactory.createConnection()) {
+                targetConn.setAutoCommit(false);
+                while (running) {
+                    if (applyBatch(sourceConn, targetConn) == 0) {
+                        Thread.sleep(options.getCdcPollMillis());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (SQLException | RuntimeException e) {
+                // 连接断开或目标库暂时不可用时稍后重连重试，日志中的变更不会丢失
+                logger.error("应用变更失败，{} ms 后重试", options.getCdcPollMillis(), e);
+                try {
+                    Thread.sleep(options.getCdcPollMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * 读取并应用一批变更
+     * @return 本批读取的变更条数，为0表示日志已空
+     */
+    private int applyBatch(Connection sourceConn, Connection targetConn) throws SQLException {
+        // 按表汇总，同一主键只保留最后一次操作
+        Map<String, Map<List<Object>, Character>> changes = new LinkedHashMap<>();
+        long lastSeq = -1;
+        long lastCapturedAt = 0;
+        int count = 0;
+        
+        String sql = "SELECT seq, table_name, op, pk, captured_at FROM " + quote(CHANGELOG_TABLE) + " ORDER BY seq LIMIT ?";
+        try (PreparedStatement stmt = sourceConn.prepareStatement(sql)) {
+            stmt.setInt(1, options.getCdcBatchSize());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    lastSeq = rs.getLong(1);
+                    lastCapturedAt = rs.getLong(5);
+                    count++;
+                    String tableName = rs.getString(2);
+                    if (!tables.containsKey(tableName)) {
+                        continue;
+                    }
+                    changes.computeIfAbsent(tableName, key -> new LinkedHashMap<>())
+                           .put(parseKey(rs.getString(4)), rs.getString(3).charAt(0));
+                }
+            }
+        }
+        
+        if (count == 0) {
+            pendingChanges = 0;
+            lagMillis = 0;
+            return 0;
+        }
+        
+        DatabaseManager.DatabaseType targetType = DatabaseManager.getDatabaseType(targetConn);
+        try {
+            for (Map.Entry<String, Map<List<Object>, Character>> entry : changes.entrySet()) {
+                applyTableChanges(sourceConn, targetConn, tables.get(entry.getKey()), entry.getValue(), targetType);
+            }
+            targetConn.commit();
+        } catch (SQLException | RuntimeException e) {
+            targetConn.rollback();
+            throw e;
+        }
+        
+        // 目标库提交后再清理日志，两步之间中断只会重复应用
+        try (PreparedStatement stmt = sourceConn.prepareStatement(
+                 "DELETE FROM " + quote(CHANGELOG_TABLE) + " WHERE seq <= ?")) {
+            stmt.setLong(1, lastSeq);
+            stmt.executeUpdate();
+        }
+        
+        appliedChanges.addAndGet(count);
+        appliedBatches.incrementAndGet();
+        lagMillis = Math.max(0, System.currentTimeMillis() - lastCapturedAt);
+        try (Statement stmt = sourceConn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + quote(CHANGELOG_TABLE))) {
+            pendingChanges = rs.next() ? rs.getLong(1) : 0;
+        }
+        
+        logger.debug("应用 {} 条变更，延迟 {} ms，剩余 {} 条", count, lagMillis, pendingChanges);
+        return count;
+    }
+    
+    /**
+     * 应用一张表的变更：先删除，再从源表读取当前行覆盖写入
+     * 日志记为修改但源表中已找不到的行（之后又被删除）按删除处理
+     */
+    private void applyTableChanges(Connection sourceConn, Connection targetConn, TableInfo table,
+                                   Map<List<Object>, Character> keyOps,
+                                   DatabaseManager.DatabaseType targetType) throws SQLException {
+        List<ColumnInfo> columns = table.getColumns();
+        List<ColumnInfo> keyColumns = table.getPrimaryKeyColumns();
+        
+        List<List<Object>> deletes = new ArrayList<>();
+        List<List<Object>> upserts = new ArrayList<>();
+        for (Map.Entry<List<Object>, Character> entry : keyOps.entrySet()) {
+            (entry.getValue() == OP_DELETE ? deletes : upserts).add(entry.getKey());
+        }
+        
+        ConversionPlan plan = ConversionPlan.compile(columns, DatabaseManager.DatabaseType.SQLITE, targetType);
+        RowBatch batch = plan.newBatch(Math.max(1, upserts.size()));
+        int row = 0;
+        
+        String selectSql = "SELECT " + columnList(columns) + " FROM " + quote(table.getName()) + keyCondition(keyColumns, DatabaseManager.DatabaseType.SQLITE);
+        try (PreparedStatement select = sourceConn.prepareStatement(selectSql)) {
+            for (List<Object> key : upserts) {
+                bindKey(select, key);
+                try (ResultSet rs = select.executeQuery()) {
+                    if (rs.next()) {
+                        for (int i = 0; i < columns.size(); i++) {
+                            batch.set(i, row, rs.getObject(i + 1));
+                        }
+                        row++;
+                    } else {
+                        deletes.add(key);
+                    }
+                }
+            }
+        }
+        batch.setSize(row);
+        
+        if (!deletes.isEmpty()) {
+            try (PreparedStatement delete = targetConn.prepareStatement(
+                     SqlConverter.generateDeleteByKeySql(table.getName(), keyColumns, targetType))) {
+                for (List<Object> key : deletes) {
+                    bindKey(delete, key);
+                    delete.addBatch();
+                }
+                delete.executeBatch();
+            }
+        }
+        
+        if (row > 0) {
+            plan.apply(batch);
+            try (BatchWriter writer = new PreparedStatementBatchWriter(targetConn,
+                     SqlConverter.generateUpsertSql(table.getName(), columns, targetType))) {
+                writer.write(batch);
+            }
+        }
+    }
+    
+    /**
+     * 生成表的三个捕获触发器；修改主键时先记录旧主键的删除
+     * 先删除同名触发器再创建，重复安装时旧版本的触发器也会被替换
+     */
+    private static List<String> generateTriggerSql(TableInfo table) {
+        String tableName = quote(table.getName());
+        String literal = "'" + table.getName().replace("'", "''") + "'";
+        String insertLog = "INSERT INTO " + quote(CHANGELOG_TABLE) + " (table_name, op, pk) ";
+        String newKey = keyJson(table, "NEW");
+        String oldKey = keyJson(table, "OLD");
+        
+        List<String> sql = new ArrayList<>();
+        for (String suffix : new String[] {"ins", "upd", "del"}) {
+            sql.add("DROP TRIGGER IF EXISTS " + quote(triggerName(table, suffix)));
+        }
+        sql.add("CREATE TRIGGER " + quote(triggerName(table, "ins")) + " AFTER INSERT ON " + tableName +
+                " BEGIN " + insertLog + "VALUES (" + literal + ", '" + OP_UPSERT + "', " + newKey + "); END");
+        sql.add("CREATE TRIGGER " + quote(triggerName(table, "upd")) + " AFTER UPDATE ON " + tableName +
+                " BEGIN " + insertLog + "SELECT " + literal + ", '" + OP_DELETE + "', " + oldKey +
+                " WHERE " + oldKey + " IS NOT " + newKey + "; " +
+                insertLog + "VALUES (" + literal + ", '" + OP_UPSERT + "', " + newKey + "); END");
+        sql.add("CREATE TRIGGER " + quote(triggerName(table, "del")) + " AFTER DELETE ON " + tableName +
+                " BEGIN " + insertLog + "VALUES (" + literal + ", '" + OP_DELETE + "', " + oldKey + "); END");
+        return sql;
+    }
+    
+    private void dropTriggers(Connection sourceConn) throws SQLException {
+        List<String> triggers = new ArrayList<>();
+        try (PreparedStatement stmt = sourceConn.prepareStatement(
+                 "SELECT name FROM sqlite_master WHERE type = 'trigger' AND substr(name, 1, ?) = ?")) {
+            stmt.setInt(1, TRIGGER_PREFIX.length());
+            stmt.setString(2, TRIGGER_PREFIX);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    triggers.add(rs.getString(1));
+                }
+            }
+        }
+        try (Statement stmt = sourceConn.createStatement()) {
+            for (String trigger : triggers) {
+                stmt.execute("DROP TRIGGER IF EXISTS " + quote(trigger));
+            }
+        }
+    }
+    
+    private static String triggerName(TableInfo table, String suffix) {
+        return TRIGGER_PREFIX + table.getName() + "_" + suffix;
+    }
+    
+    /**
+     * 主键的JSON数组表达式；SQLite的列可以存放任意类型的值，按每个值的实际类型编码
+     */
+    private static String keyJson(TableInfo table, String alias) {
+        StringBuilder json = new StringBuilder("json_array(");
+        List<ColumnInfo> keyColumns = table.getPrimaryKeyColumns();
+        for (int i = 0; i < keyColumns.size(); i++) {
+            if (i > 0) json.append(", ");
+            String value = alias + "." + quote(keyColumns.get(i).getName());
+            json.append("CASE typeof(").append(value).append(")")
+                .append(" WHEN 'blob' THEN '").append(BLOB_PREFIX).append("' || hex(").append(value).append(")")
+                .append(" WHEN 'text' THEN '").append(TEXT_PREFIX).append("' || ").append(value)
+                .append(" ELSE ").append(value).append(" END");
+        }
+        return json.append(')').toString();
+    }
+    
+    private static List<Object> parseKey(String json) {
+        try {
+            List<Object> key = new ArrayList<>();
+            for (JsonNode node : MAPPER.readTree(json)) {
+                if (node.isIntegralNumber()) {
+                    key.add(node.longValue());
+                } else if (node.isNumber()) {
+                    key.add(node.doubleValue());
+                } else if (node.isNull()) {
+                    key.add(null);
+                } else {
+                    key.add(decodeKeyText(node.asText()));
+                }
+            }
+            return key;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalStateException("无法解析变更日志中的主键: " + json, e);
+        }
+    }
+    
+    /**
+     * 还原按类型前缀编码的文本或二进制主键值；没有前缀的是旧版本触发器记录的文本
+     */
+    private static Object decodeKeyText(String text) {
+        if (text.startsWith(BLOB_PREFIX)) {
+            return HexFormat.of().parseHex(text, BLOB_PREFIX.length(), text.length());
+        }
+        if (text.startsWith(TEXT_PREFIX)) {
+            return text.substring(TEXT_PREFIX.length());
+        }
+        return text;
+    }
+    
+    private static void bindKey(PreparedStatement stmt, List<Object> key) throws SQLException {
+        for (int i = 0; i < key.size(); i++) {
+            stmt.setObject(i + 1, key.get(i));
+        }
+    }
+    
+    private static String keyCondition(List<ColumnInfo> keyColumns, DatabaseManager.DatabaseType dbType) {
+        StringBuilder sql = new StringBuilder(" WHERE ");
+        for (int i = 0; i < keyColumns.size(); i++) {
+            if (i > 0) sql.append(" AND ");
+            sql.append(SqlConverter.quoteIdentifier(keyColumns.get(i).getName(), dbType)).append(" = ?");
+        }
+        return sql.toString();
+    }
+    
+    private static String columnList(List<ColumnInfo> columns) {
+        StringBuilder sql = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(quote(columns.get(i).getName()));
+        }
+        return sql.toString();
+    }
+    
+    private static String quote(String identifier) {
+        return SqlConverter.quoteIdentifier(identifier, DatabaseManager.DatabaseType.SQLITE);
+    }
+}
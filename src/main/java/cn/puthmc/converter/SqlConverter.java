@@ -24,6 +24,9 @@ public class SqlConverter {
     // MySQL到SQLite的数据类型映射
     private static final Map<String, String> MYSQL_TO_SQLITE_TYPES = new HashMap<>();
     
+    // MySQL TEXT/BLOB 列的索引前缀长度，utf8mb4 下不超过 767 字节
+    private static final int INDEX_PREFIX_LENGTH = 191;
+    
     static {
         // 初始化SQLite到MySQL的类型映射
         SQLITE_TO_MYSQL_TYPES.put("INTEGER", "INT");
@@ -353,6 +356,19 @@ public class SqlConverter {
         return str.replace("'", "''").replace("\\", "\\\\");
     }
     
+    /**
+     * 按目标数据库语法为标识符加引号
+     * @param identifier 表名或列名
+     * @param dbType 数据库类型
+     * @return 加引号后的标识符
+     */
+    public static String quoteIdentifier(String identifier, DatabaseManager.DatabaseType dbType) {
+        if (dbType == DatabaseManager.DatabaseType.MYSQL) {
+            return "`" + identifier + "`";
+        }
+        return "\"" + identifier + "\"";
+    }
+    
     /**
      * 生成插入数据的SQL语句
      * @param tableName 表名
@@ -396,4 +412,129 @@ public class SqlConverter {
         
         return sql.toString();
     }
+    
+    /**
+     * 生成按主键覆盖写入的SQL语句，用于增量同步
+     * MySQL 使用 INSERT ... ON DUPLICATE KEY UPDATE，SQLite 使用 INSERT OR REPLACE
+     * @param tableName 表名
+     * @param columns 列信息
+     * @param targetType 目标数据库类型
+     * @return UPSERT SQL语句模板，参数顺序与 generateInsertSql 相同
+     */
+    public static String generateUpsertSql(String tableName, java.util.List<ColumnInfo> columns,
+                                           DatabaseManager.DatabaseType targetType) {
+        String insertSql = generateInsertSql(tableName, columns, targetType);
+        if (targetType != DatabaseManager.DatabaseType.MYSQL) {
+            return "INSERT OR REPLACE" + insertSql.substring("INSERT".length());
+        }
+        
+        StringBuilder sql = new StringBuilder(insertSql);
+        boolean first = true;
+        for (ColumnInfo column : columns) {
+            if (column.isPrimaryKey()) {
+                continue;
+            }
+            String columnName = quoteIdentifier(column.getName(), targetType);
+            sql.append(first ? " ON DUPLICATE KEY UPDATE " : ", ")
+               .append(columnName).append(" = VALUES(").append(columnName).append(")");
+            first = false;
+        }
+        if (first) {
+            // 所有列都是主键列，已存在的行无需更新
+            return "INSERT IGNORE" + insertSql.substring("INSERT".length());
+        }
+        return sql.toString();
+    }
+    
+    /**
+     * 生成按主键删除单行的SQL语句
+     * @param tableName 表名
+     * @param keyColumns 主键列
+     * @param dbType 数据库类型
+     * @return DELETE SQL语句模板，参数依次为各主键列的值
+     */
+    public static String generateDeleteByKeySql(String tableName, java.util.List<ColumnInfo> keyColumns,
+                                                DatabaseManager.DatabaseType dbType) {
+        StringBuilder sql = new StringBuilder("DELETE FROM ").append(quoteIdentifier(tableName, dbType)).append(" WHERE ");
+        for (int i = 0; i < keyColumns.size(); i++) {
+            if (i > 0) sql.append(" AND ");
+            sql.append(quoteIdentifier(keyColumns.get(i).getName(), dbType)).append(" = ?");
+        }
+        return sql.toString();
+    }
+    
+    /**
+     * 生成多行INSERT语句模板 INSERT ... VALUES (?, ...), (?, ...), ...
+     * @param tableName 表名
+     * @param columns 列信息
+     * @param targetType 目标数据库类型
+     * @param rows 每条语句的行数
+     * @return 多行INSERT语句
+     */
+    public static String generateMultiRowInsertSql(String tableName, java.util.List<ColumnInfo> columns,
+                                                   DatabaseManager.DatabaseType targetType, int rows) {
+        if (rows < 1) {
+            throw new IllegalArgumentException("每条语句的行数必须大于0: " + rows);
+        }
+        
+        String singleRowSql = generateInsertSql(tableName, columns, targetType);
+        if (rows == 1) {
+            return singleRowSql;
+        }
+        
+        return repeatValues(singleRowSql, rows);
+    }
+    
+    /**
+     * 把单行INSERT语句的 VALUES 部分重复为指定行数
+     * @param singleRowSql 单行INSERT语句
+     * @param rows 行数
+     * @return 多行INSERT语句
+     */
+    static String repeatValues(String singleRowSql, int rows) {
+        // 单行语句以 "(?, ..., ?)" 结尾
+        String rowPlaceholders = singleRowSql.substring(singleRowSql.lastIndexOf(" VALUES ") + 8);
+        StringBuilder sql = new StringBuilder(singleRowSql.length() + (rowPlaceholders.length() + 2) * (rows - 1));
+        sql.append(singleRowSql);
+        for (int i = 1; i < rows; i++) {
+            sql.append(", ").append(rowPlaceholders);
+        }
+        return sql.toString();
+    }
+    
+    /**
+     * 生成创建索引SQL
+     * MySQL 中 TEXT/BLOB 列不能直接建索引，使用前缀索引
+     * @param tableName 表名
+     * @param indexName 索引名
+     * @param columns 索引列（按顺序）
+     * @param unique 是否唯一索引
+     * @param targetType 目标数据库类型
+     * @return 创建索引SQL
+     */
+    public static String generateCreateIndexSql(String tableName, String indexName, java.util.List<ColumnInfo> columns,
+                                                boolean unique, DatabaseManager.DatabaseType targetType) {
+        StringBuilder sql = new StringBuilder("CREATE ");
+        if (unique) {
+            sql.append("UNIQUE ");
+        }
+        sql.append("INDEX ").append(quoteIdentifier(indexName, targetType))
+           .append(" ON ").append(quoteIdentifier(tableName, targetType)).append(" (");
+        
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) sql.append(", ");
+            
+            ColumnInfo column = columns.get(i);
+            sql.append(quoteIdentifier(column.getName(), targetType));
+            if (targetType == DatabaseManager.DatabaseType.MYSQL) {
+                String columnType = convertDataType(column.getDataType(), column.getSize(), targetType).toUpperCase();
+                if (columnType.contains("TEXT") || columnType.contains("BLOB")) {
+                    sql.append("(").append(INDEX_PREFIX_LENGTH).append(")");
+                }
+            }
+        }
+        sql.append(")");
+        
+        return sql.toString();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,175 @@
+package cn.puthmc.converter;
+
+import cn.puthmc.db.DatabaseManager;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 增量同步水位
+ * 以JSON文件保存每张表上次同步到的变更列或键列的值，下次同步只读取水位之后的行。
+ * 同步过程中只在内存中更新，整个同步成功后才写回文件；失败时下次从旧水位重新同步，
+ * 增量数据以覆盖方式写入目标表，重复传输不会产生重复行。
+ */
+public class SyncWatermarks {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SyncWatermarks.class);
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .enable(SerializationFeature.INDENT_OUTPUT)
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    
+    /**
+     * 变更检测方式
+     */
+    public enum Mode {
+        CHANGE_COLUMN, // 按更新时间等变更列检测新增和修改的行
+        KEY            // 按单调递增的整数键检测新增的行
+    }
+    
+    /**
+     * 单个表的水位
+     */
+    public static class TableWatermark {
+        private Mode mode;
+        private String column;
+        private Object value;
+        
+        public TableWatermark() {}
+        
+        public TableWatermark(Mode mode, String column, Object value) {
+            this.mode = mode;
+            this.column = column;
+            this.value = value;
+        }
+        
+        public Mode getMode() { return mode; }
+        public void setMode(Mode mode) { this.mode = mode; }
+        
+        public String getColumn() { return column; }
+        public void setColumn(String column) { this.column = column; }
+        
+        /**
+         * @return 水位值，整数/浮点变更列和键列为数值，日期时间和文本变更列为字符串
+         */
+        public Object getValue() { return value; }
+        public void setValue(Object value) { this.value = value; }
+    }
+    
+    /**
+     * 水位文件内容
+     */
+    public static class Journal {
+        private DatabaseManager.DatabaseType sourceType;
+        private DatabaseManager.DatabaseType targetType;
+        private Map<String, TableWatermark> tables = new LinkedHashMap<>();
+        
+        public DatabaseManager.DatabaseType getSourceType() { return sourceType; }
+        public void setSourceType(DatabaseManager.DatabaseType sourceType) { this.sourceType = sourceType; }
+        
+        public DatabaseManager.DatabaseType getTargetType() { return targetType; }
+        public void setTargetType(DatabaseManager.DatabaseType targetType) { this.targetType = targetType; }
+        
+        public Map<String, TableWatermark> getTables() { return tables; }
+        public void setTables(Map<String, TableWatermark> tables) { this.tables = tables; }
+    }
+    
+    private final Path file;
+    private final Journal journal;
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    private SyncWatermarks(Path file, Journal journal) {
+        this.file = file;
+        this.journal = journal;
+    }
+    
+    /**
+     * 读取水位文件，文件不存在时所有表都没有水位
+     * 源或目标数据库类型与文件记录不符时丢弃旧水位，所有表重新全量同步
+     * @param filePath 水位文件路径
+     * @param sourceType 源数据库类型
+     * @param targetType 目标数据库类型
+     * @return 水位
+     */
+    public static SyncWatermarks load(String filePath, DatabaseManager.DatabaseType sourceType,
+                                      DatabaseManager.DatabaseType targetType) throws IOException {
+        Path file = Paths.get(filePath).toAbsolutePath();
+        Journal journal = Files.exists(file) ? MAPPER.readValue(file.toFile(), Journal.class) : new Journal();
+        
+        if ((journal.getSourceType() != null && journal.getSourceType() != sourceType) ||
+            (journal.getTargetType() != null && journal.getTargetType() != targetType)) {
+            logger.warn("水位文件 {} 记录的是 {} -> {} 的同步，与本次 {} -> {} 不符，全部重新同步",
+                        file, journal.getSourceType(), journal.getTargetType(), sourceType, targetType);
+            journal = new Journal();
+        }
+        journal.setSourceType(sourceType);
+        journal.setTargetType(targetType);
+        
+        logger.info("读取同步水位: {} ({} 个表)", file, journal.getTables().size());
+        return new SyncWatermarks(file, journal);
+    }
+    
+    /**
+     * @return 表的水位，没有时返回null
+     */
+    public TableWatermark get(String tableName) {
+        lock.lock();
+        try {
+            return journal.getTables().get(tableName);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * 更新表的水位，调用 save 后才写入文件
+     * @param tableName 表名
+     * @param watermark 水位，为null时删除表的水位
+     */
+    public void put(String tableName, TableWatermark watermark) {
+        lock.lock();
+        try {
+            if (watermark == null) {
+                journal.getTables().remove(tableName);
+            } else {
+                journal.getTables().put(tableName, watermark);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * 写回水位文件，先写临时文件再原子替换
+     */
+    public void save() throws IOException {
+        lock.lock();
+        try {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            MAPPER.writeValue(temp.toFile(), journal);
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public Path getFile() {
+        return file;
+    }
+}
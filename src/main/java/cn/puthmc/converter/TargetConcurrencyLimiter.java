@@ -0,0 +1,120 @@
+package cn.puthmc.converter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 目标库并发限制
+ * 按目标库的JDBC地址共享一个信号量，同一进程内写入同一目标库的所有迁移（例如多个SQLite源文件同时导入一个MySQL库）
+ * 合计同时进行的复制任务不超过上限。虚拟线程模式下工作线程数量不再受平台线程限制，需要靠它避免压垮目标库。
+ * 信号量在等待时不会占住虚拟线程的载体线程。
+ */
+public class TargetConcurrencyLimiter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TargetConcurrencyLimiter.class);
+    
+    // 等待许可时检查取消条件的间隔
+    private static final long POLL_MILLIS = 100;
+    
+    private static final Map<String, TargetConcurrencyLimiter> LIMITERS = new ConcurrentHashMap<>();
+    
+    /**
+     * 不限制并发的实例
+     */
+    public static final TargetConcurrencyLimiter UNLIMITED = new TargetConcurrencyLimiter("*", 0);
+    
+    private final String target;
+    private final int limit;
+    private final Semaphore permits;
+    
+    private TargetConcurrencyLimiter(String target, int limit) {
+        this.target = target;
+        this.limit = limit;
+        this.permits = limit > 0 ? new Semaphore(limit, true) : null;
+    }
+    
+    /**
+     * 获取目标库的并发限制
+     * 同一目标库第一次登记时的上限生效，之后以不同上限登记时沿用已有的上限
+     * @param targetConn 目标数据库连接，用于确定目标库
+     * @param limit 并发上限，0表示不限制
+     * @return 并发限制
+     */
+    public static TargetConcurrencyLimiter forTarget(Connection targetConn, int limit) throws SQLException {
+        if (limit <= 0) {
+            return UNLIMITED;
+        }
+        String target = targetKey(targetConn);
+        TargetConcurrencyLimiter limiter = LIMITERS.computeIfAbsent(target, key -> new TargetConcurrencyLimiter(key, limit));
+        if (limiter.limit != limit) {
+            logger.warn("目标库 {} 的并发上限已设为 {}，忽略本次设置的 {}", target, limiter.limit, limit);
+        }
+        return limiter;
+    }
+    
+    /**
+     * 以去掉连接参数的JDBC地址标识目标库
+     */
+    private static String targetKey(Connection conn) throws SQLException {
+        String url = conn.getMetaData().getURL();
+        int params = url.indexOf('?');
+        return params < 0 ? url : url.substring(0, params);
+    }
+    
+    /**
+     * 等待一个许可，等待期间定期检查取消条件
+     * @param stopped 取消条件，成立时放弃等待
+     * @return 许可，用完后调用 release 归还；放弃等待时返回null
+     */
+    public Permit acquire(BooleanSupplier stopped) throws InterruptedException {
+        if (permits == null) {
+            return Permit.NONE;
+        }
+        long waitStart = System.nanoTime();
+        while (!permits.tryAcquire(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (stopped.getAsBoolean()) {
+                return null;
+            }
+        }
+        long waitedMillis = (System.nanoTime() - waitStart) / 1_000_000;
+        if (waitedMillis >= POLL_MILLIS) {
+            logger.debug("等待目标库 {} 的并发许可 {} ms", target, waitedMillis);
+        }
+        return new Permit(permits);
+    }
+    
+    public int getLimit() {
+        return limit;
+    }
+    
+    /**
+     * 并发许可
+     */
+    public static class Permit {
+        
+        static final Permit NONE = new Permit(null);
+        
+        private final Semaphore permits;
+        
+        private Permit(Semaphore permits) {
+            this.permits = permits;
+        }
+        
+        /**
+         * 归还许可，每个许可只能归还一次
+         */
+        public void release() {
+            if (permits != null) {
+                permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,517 @@
+package cn.puthmc.db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 轻量连接池
+ * 包装一个连接工厂，借出的连接关闭时回到池中而不是真正断开，供并行迁移、索引构建和校验的工作线程反复借用。
+ * 池中连接总数有上限，借不到时最多等待借用超时后报错；空闲超过一定时间的连接借出前先检查是否仍然可用。
+ * 新建的物理连接依次执行初始化SQL和会话初始化回调，可用于设置 PRAGMA 或会话变量。
+ * 每个物理连接缓存最近使用的单参数 prepareStatement 预编译语句，关闭语句时只清空参数并放回缓存。
+ * 归还时关闭调用方遗留的语句和结果集，回滚未提交的事务并恢复自动提交，与关闭物理连接时的行为一致。
+ */
+public class ConnectionPool implements DatabaseManager.ConnectionFactory, AutoCloseable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+    
+    // 检查连接是否可用的超时时间（秒）
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+    
+    /**
+     * 会话初始化回调，在每个新建的物理连接上执行一次
+     */
+    @FunctionalInterface
+    public interface SessionInitializer {
+        void initialize(Connection connection) throws SQLException;
+    }
+    
+    /**
+     * 连接池配置
+     */
+    public static class Config {
+        private int maxSize = 8; // 池中连接总数上限（借出的和空闲的）
+        private long borrowTimeoutMillis = 30_000; // 连接全部借出时的最长等待时间
+        private long validationIdleMillis = 30_000; // 空闲超过该时长的连接借出前先检查是否可用
+        private int statementCacheSize = 64; // 每个连接缓存的预编译语句数，0表示不缓存
+        private List<String> initSql = new ArrayList<>(); // 新建连接后依次执行的SQL
+        private SessionInitializer sessionInitializer; // 新建连接后执行的回调，在初始化SQL之后
+        
+        public int getMaxSize() {
+            return maxSize;
+        }
+        
+        public void setMaxSize(int maxSize) {
+            if (maxSize < 1) {
+                throw new IllegalArgumentException("连接池大小必须大于0: " + maxSize);
+            }
+            this.maxSize = maxSize;
+        }
+        
+        public long getBorrowTimeoutMillis() {
+            return borrowTimeoutMillis;
+        }
+        
+        public void setBorrowTimeoutMillis(long borrowTimeoutMillis) {
+            if (borrowTimeoutMillis < 0) {
+                throw new IllegalArgumentException("借用超时不能为负数: " + borrowTimeoutMillis);
+            }
+            this.borrowTimeoutMillis = borrowTimeoutMillis;
+        }
+        
+        public long getValidationIdleMillis() {
+            return validationIdleMillis;
+        }
+        
+        public void setValidationIdleMillis(long validationIdleMillis) {
+            if (validationIdleMillis < 0) {
+                throw new IllegalArgumentException("空闲检查时长不能为负数: " + validationIdleMillis);
+            }
+            this.validationIdleMillis = validationIdleMillis;
+        }
+        
+        public int getStatementCacheSize() {
+            return statementCacheSize;
+        }
+        
+        public void setStatementCacheSize(int statementCacheSize) {
+            if (statementCacheSize < 0) {
+                throw new IllegalArgumentException("语句缓存大小不能为负数: " + statementCacheSize);
+            }
+            this.statementCacheSize = statementCacheSize;
+        }
+        
+        public List<String> getInitSql() {
+            return initSql;
+        }
+        
+        public void setInitSql(List<String> initSql) {
+            this.initSql = new ArrayList<>(initSql);
+        }
+        
+        public SessionInitializer getSessionInitializer() {
+            return sessionInitializer;
+        }
+        
+        public void setSessionInitializer(SessionInitializer sessionInitializer) {
+            this.sessionInitializer = sessionInitializer;
+        }
+    }
+    
+    private final DatabaseManager.ConnectionFactory factory;
+    private final Config config;
+    private final Semaphore permits;
+    private final Deque<PhysicalConnection> idle = new ConcurrentLinkedDeque<>();
+    private volatile boolean closed = false;
+    
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+    
+    /**
+     * @param factory 创建物理连接的工厂
+     * @param config 连接池配置
+     */
+    public ConnectionPool(DatabaseManager.ConnectionFactory factory, Config config) {
+        this.factory = factory;
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxSize(), true);
+    }
+    
+    /**
+     * 借出一个连接，调用方用完后关闭即归还
+     * @return 连接
+     */
+    @Override
+    public Connection createConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("连接池已关闭");
+        }
+        try {
+            if (!permits.tryAcquire(config.getBorrowTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLException(String.format("连接池已耗尽: %d 个连接全部借出，等待 %d ms 后超时",
+                                                     config.getMaxSize(), config.getBorrowTimeoutMillis()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("等待连接池时被中断", e);
+        }
+        
+        try {
+            PhysicalConnection physical = takeIdle();
+            if (physical == null) {
+                physical = open();
+            }
+            borrowed.incrementAndGet();
+            return physical.lend();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+    
+    /**
+     * 取出一个可用的空闲连接，最近归还的优先；空闲过久且检查不通过的连接直接丢弃
+     */
+    private PhysicalConnection takeIdle() {
+        PhysicalConnection physical;
+        while ((physical = idle.pollFirst()) != null) {
+            long idleMillis = (System.nanoTime() - physical.returnedAt) / 1_000_000;
+            if (idleMillis < config.getValidationIdleMillis() || isValid(physical.connection)) {
+                return physical;
+            }
+            logger.debug("丢弃失效的空闲连接（空闲 {} ms）", idleMillis);
+            physical.closeQuietly();
+        }
+        return null;
+    }
+    
+    private static boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+    
+    private PhysicalConnection open() throws SQLException {
+        Connection connection = factory.createConnection();
+        try {
+            if (!config.getInitSql().isEmpty()) {
+                try (Statement stmt = connection.createStatement()) {
+                    for (String sql : config.getInitSql()) {
+                        stmt.execute(sql);
+                    }
+                }
+            }
+            if (config.getSessionInitializer() != null) {
+                config.getSessionInitializer().initialize(connection);
+            }
+        } catch (SQLException | RuntimeException e) {
+            DatabaseManager.closeConnection(connection);
+            throw e;
+        }
+        created.incrementAndGet();
+        return new PhysicalConnection(connection);
+    }
+    
+    /**
+     * 连接归还：恢复到刚借出时的状态后放回空闲队列，恢复失败或池已关闭时断开
+     */
+    private void release(PhysicalConnection physical) {
+        try {
+            if (closed || !physical.reset()) {
+                physical.closeQuietly();
+            } else {
+                physical.returnedAt = System.nanoTime();
+                idle.offerFirst(physical);
+                // 关闭与归还并发时，确保不会有连接遗留在池中
+                if (closed && idle.remove(physical)) {
+                    physical.closeQuietly();
+                }
+            }
+        } finally {
+            permits.release();
+        }
+    }
+    
+    /**
+     * 关闭连接池，断开所有空闲连接；仍借出的连接在归还时断开
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        PhysicalConnection physical;
+        while ((physical = idle.pollFirst()) != null) {
+            physical.closeQuietly();
+        }
+        long hits = statementHits.get();
+        long total = hits + statementMisses.get();
+        logger.debug("连接池关闭: 新建 {} 个连接, 借出 {} 次, 语句缓存命中 {}/{}", created.get(), borrowed.get(), hits, total);
+    }
+    
+    public long getCreatedConnections() {
+        return created.get();
+    }
+    
+    public long getBorrowedConnections() {
+        return borrowed.get();
+    }
+    
+    public int getIdleConnections() {
+        return idle.size();
+    }
+    
+    /**
+     * 池中的一个物理连接及其语句缓存
+     */
+    private class PhysicalConnection {
+        final Connection connection;
+        // 按SQL缓存的预编译语句，最近最少使用的先淘汰；只在借出该连接的线程上访问
+        final Map<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+        // 本次借出期间创建的不缓存语句，归还时关闭调用方未关闭的；同样只在借出该连接的线程上访问
+        final List<Statement> uncached = new ArrayList<>();
+        volatile long returnedAt = System.nanoTime();
+        
+        PhysicalConnection(Connection connection) {
+            this.connection = connection;
+        }
+        
+        Connection lend() {
+            return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                                                       new Class<?>[]{Connection.class},
+                                                       new LentConnection(this));
+        }
+        
+        /**
+         * 回滚未提交的事务并恢复自动提交
+         * @return 连接是否可以继续使用
+         */
+        boolean reset() {
+            try {
+                if (connection.isClosed()) {
+                    return false;
+                }
+                // 调用方未关闭的语句随连接一起收回，关闭语句同时关闭其结果集
+                for (CachedStatement cached : statements.values()) {
+                    if (cached.current != null) {
+                        cached.current.giveBack();
+                    }
+                }
+                for (Statement stmt : uncached) {
+                    stmt.close();
+                }
+                uncached.clear();
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                connection.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                logger.debug("归还连接时恢复状态失败，断开连接: {}", e.getMessage());
+                return false;
+            }
+        }
+        
+        PreparedStatement prepare(String sql, Connection proxy) throws SQLException {
+            if (config.getStatementCacheSize() == 0) {
+                return track(connection.prepareStatement(sql));
+            }
+            CachedStatement cached = statements.get(sql);
+            if (cached != null && cached.broken) {
+                statements.remove(sql);
+                DatabaseManager.closeStatement(cached.statement);
+                cached = null;
+            }
+            if (cached != null && cached.current == null) {
+                statementHits.incrementAndGet();
+                return cached.lend(proxy);
+            }
+            statementMisses.incrementAndGet();
+            PreparedStatement stmt = connection.prepareStatement(sql);
+            if (cached != null) {
+                // 同一条SQL的缓存语句还在使用中，另建一个不缓存的
+                return track(stmt);
+            }
+            cached = new CachedStatement(stmt);
+            statements.put(sql, cached);
+            evict();
+            return cached.lend(proxy);
+        }
+        
+        /**
+         * 登记一个不缓存的语句，顺带移除已经关闭的，避免长时间借用时列表不断增长
+         */
+        <T extends Statement> T track(T stmt) throws SQLException {
+            Iterator<Statement> it = uncached.iterator();
+            while (it.hasNext()) {
+                if (it.next().isClosed()) {
+                    it.remove();
+                }
+            }
+            uncached.add(stmt);
+            return stmt;
+        }
+        
+        private void evict() {
+            Iterator<CachedStatement> it = statements.values().iterator();
+            while (statements.size() > config.getStatementCacheSize() && it.hasNext()) {
+                CachedStatement oldest = it.next();
+                if (oldest.current == null) {
+                    it.remove();
+                    DatabaseManager.closeStatement(oldest.statement);
+                }
+            }
+        }
+        
+        void closeQuietly() {
+            for (CachedStatement cached : statements.values()) {
+                DatabaseManager.closeStatement(cached.statement);
+            }
+            statements.clear();
+            DatabaseManager.closeConnection(connection);
+        }
+    }
+    
+    /**
+     * 借出的连接，关闭时归还而不是断开；预编译语句走缓存，unwrap 返回物理连接以便使用驱动特有的接口
+     */
+    private class LentConnection implements InvocationHandler {
+        private final PhysicalConnection physical;
+        private boolean returned = false;
+        
+        LentConnection(PhysicalConnection physical) {
+            this.physical = physical;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(physical);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physical.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + physical.connection + "]";
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("连接已归还连接池");
+            }
+            if ("prepareStatement".equals(method.getName()) && args.length == 1) {
+                return physical.prepare((String) args[0], (Connection) proxy);
+            }
+            Object result = invokeTarget(physical.connection, method, args);
+            if (result instanceof Statement) {
+                // createStatement、prepareCall 及多参数的 prepareStatement 不走缓存
+                return physical.track((Statement) result);
+            }
+            return result;
+        }
+    }
+    
+    /**
+     * 缓存的预编译语句
+     */
+    private static class CachedStatement {
+        final PreparedStatement statement;
+        LentStatement current; // 当前借出的语句，未借出时为null
+        boolean broken = false; // 放回缓存时清理失败，下次取用时丢弃
+        
+        CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+        
+        PreparedStatement lend(Connection connection) {
+            current = new LentStatement(this, connection);
+            return (PreparedStatement) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                                                              new Class<?>[]{PreparedStatement.class}, current);
+        }
+    }
+    
+    /**
+     * 借出的缓存语句，关闭时关闭其结果集、清空参数和批次后放回缓存
+     */
+    private static class LentStatement implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection connection;
+        private boolean returned = false;
+        private ResultSet resultSet;
+        
+        LentStatement(CachedStatement cached, Connection connection) {
+            this.cached = cached;
+            this.connection = connection;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    giveBack();
+                    return null;
+                case "isClosed":
+                    return returned || cached.statement.isClosed();
+                case "getConnection":
+                    return connection;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached[" + cached.statement + "]";
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("语句已关闭");
+            }
+            Object result = invokeTarget(cached.statement, method, args);
+            if (result instanceof ResultSet) {
+                // 结果集随语句一起关闭，SQLite上未关闭的结果集会一直持有读锁
+                resultSet = (ResultSet) result;
+            }
+            return result;
+        }
+        
+        void giveBack() {
+            if (returned) {
+                return;
+            }
+            returned = true;
+            try {
+                if (resultSet != null) {
+                    resultSet.close();
+                }
+                cached.statement.clearParameters();
+                cached.statement.clearBatch();
+                cached.statement.clearWarnings();
+            } catch (SQLException e) {
+                cached.broken = true;
+            } finally {
+                cached.current = null;
+            }
+        }
+    }
+    
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -1,10 +1,18 @@
 package cn.puthmc.db;
 
+import com.mysql.cj.conf.PropertyKey;
+import com.mysql.cj.jdbc.JdbcConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.*;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 数据库连接管理器
@@ -14,10 +22,45 @@ public class DatabaseManager {
     
     private static final Logger logger = LoggerFactory.getLogger(DatabaseManager.class);
     
+    private static final String LOCAL_INFILE_JAIL = "/nonexistent-dbbridge-infile";
+    
+    // 每个MySQL连接上尚未关闭的游标读取语句数
+    private static final Map<JdbcConnection, Integer> cursorFetchStatements = new ConcurrentHashMap<>();
+    
     public enum DatabaseType {
         SQLITE, MYSQL
     }
     
+    /**
+     * 数据库连接工厂
+     * 并行迁移时每个工作线程通过它获取独立的连接
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection createConnection() throws SQLException;
+    }
+    
+    /**
+     * SQLite连接工厂，保留文件路径供快速装载等需要直接操作文件的场景使用
+     */
+    public static class SQLiteConnectionFactory implements ConnectionFactory {
+        
+        private final String filePath;
+        
+        public SQLiteConnectionFactory(String filePath) {
+            this.filePath = filePath;
+        }
+        
+        @Override
+        public Connection createConnection() throws SQLException {
+            return createSQLiteConnection(filePath);
+        }
+        
+        public String getFilePath() {
+            return filePath;
+        }
+    }
+    
     /**
  * 创建SQLite数据库连接
      * @param filePath SQLite数据库文件路径
@@ -59,6 +102,11 @@ public class DatabaseManager {
             props.setProperty("useUnicode", "true");
             props.setProperty("characterEncoding", "UTF-8");
             props.setProperty("autoReconnect", "true");
+            // 驱动把JDBC批处理改写为多行INSERT，减少网络往返
+            props.setProperty("rewriteBatchedStatements", "true");
+            // 协商 LOCAL INFILE 能力供批量装载使用，但把服务器可请求的本地文件限制在一个不存在的目录下；
+            // 批量装载写入器只在执行自己的装载语句时临时放开，并且总是提供内存数据流
+            props.setProperty("allowLoadLocalInfileInPath", LOCAL_INFILE_JAIL);
             
             Connection conn = DriverManager.getConnection(url, props);
             logger.info("成功连接到MySQL数据库: {}:{}/{}", host, port, database);
@@ -69,6 +117,133 @@ public class DatabaseManager {
         }
     }
     
+    /**
+     * 创建SQLite连接工厂
+     * @param filePath SQLite数据库文件路径
+     * @return 连接工厂
+     */
+    public static SQLiteConnectionFactory sqliteConnectionFactory(String filePath) {
+        return new SQLiteConnectionFactory(filePath);
+    }
+    
+    /**
+     * 创建MySQL连接工厂
+     * @param host 主机地址
+     * @param port 端口号
+     * @param database 数据库名
+     * @param username 用户名
+     * @param password 密码
+     * @return 连接工厂
+     */
+    public static ConnectionFactory mysqlConnectionFactory(String host, int port, String database,
+                                                           String username, String password) {
+        return () -> createMySQLConnection(host, port, database, username, password);
+    }
+    
+    /**
+     * 创建流式读取的查询语句
+     * MySQL 默认把整个结果集缓存在堆上，这里改用服务端游标按 fetchSize 分批取数，
+     * 内存占用与表大小无关，并且读取期间同一连接仍可执行其他语句（如元数据查询）
+     * @param connection 数据库连接
+     * @param sql 查询SQL
+     * @param fetchSize 每次取回的行数，0表示使用驱动默认行为（MySQL 为一次性读取全部结果）
+     * @return 预编译语句
+     */
+    public static PreparedStatement prepareStreamingQuery(Connection connection, String sql, int fetchSize) throws SQLException {
+        if (fetchSize > 0 && getDatabaseType(connection) == DatabaseType.MYSQL) {
+            JdbcConnection mysqlConnection = connection.unwrap(JdbcConnection.class);
+            // 游标读取要求服务端预编译语句，且直到读完结果 useCursorFetch 都必须保持开启；
+            // 它是整个连接的属性，语句关闭后要恢复，否则连接池复用该连接时之后的语句也会受影响
+            acquireCursorFetch(mysqlConnection);
+            PreparedStatement stmt;
+            try {
+                stmt = mysqlConnection.serverPrepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                stmt.setFetchSize(fetchSize);
+            } catch (SQLException | RuntimeException e) {
+                releaseCursorFetch(mysqlConnection);
+                throw e;
+            }
+            return (PreparedStatement) Proxy.newProxyInstance(DatabaseManager.class.getClassLoader(),
+                                                              new Class<?>[]{PreparedStatement.class},
+                                                              new CursorFetchStatement(stmt, mysqlConnection));
+        }
+        
+        PreparedStatement stmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        if (fetchSize > 0) {
+            stmt.setFetchSize(fetchSize);
+        }
+        return stmt;
+    }
+    
+    /**
+     * 登记一条使用游标读取的语句，第一条语句打开连接的 useCursorFetch
+     */
+    private static void acquireCursorFetch(JdbcConnection connection) {
+        cursorFetchStatements.compute(connection, (conn, count) -> {
+            if (count == null) {
+                conn.getPropertySet().getBooleanProperty(PropertyKey.useCursorFetch).setValue(true);
+                return 1;
+            }
+            return count + 1;
+        });
+    }
+    
+    /**
+     * 注销一条使用游标读取的语句，最后一条语句关闭后把 useCursorFetch 恢复为连接配置的值
+     */
+    private static void releaseCursorFetch(JdbcConnection connection) {
+        cursorFetchStatements.computeIfPresent(connection, (conn, count) -> {
+            if (count > 1) {
+                return count - 1;
+            }
+            conn.getPropertySet().getBooleanProperty(PropertyKey.useCursorFetch).resetValue();
+            return null;
+        });
+    }
+    
+    /**
+     * 游标读取语句的包装，关闭时注销语句
+     */
+    private static class CursorFetchStatement implements InvocationHandler {
+        private final PreparedStatement statement;
+        private final JdbcConnection connection;
+        private boolean released = false;
+        
+        CursorFetchStatement(PreparedStatement statement, JdbcConnection connection) {
+            this.statement = statement;
+            this.connection = connection;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    try {
+                        statement.close();
+                    } finally {
+                        if (!released) {
+                            released = true;
+                            releaseCursorFetch(connection);
+                        }
+                    }
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CursorFetch[" + statement + "]";
+                default:
+                    break;
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+    
     /**
      * 测试数据库连接
      * @param connection 数据库连接
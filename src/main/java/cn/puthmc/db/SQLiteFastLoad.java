@@ -0,0 +1,100 @@
+package cn.puthmc.db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+
+/**
+ * SQLite目标快速装载
+ * 迁移写入同目录下一个全新的暂存文件，连接关闭日志、关闭同步、使用大页缓存和独占锁，
+ * 迁移成功后把暂存文件原子重命名为目标文件，失败时删除暂存文件，目标文件始终不会处于写了一半的状态。
+ * 注意目标文件会被整体替换，其中不属于本次迁移的表不会保留。
+ */
+public class SQLiteFastLoad implements DatabaseManager.ConnectionFactory {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SQLiteFastLoad.class);
+    
+    private static final String STAGING_SUFFIX = ".dbbridge-staging";
+    
+    // 页缓存大小，负数表示以KB为单位（256MB）
+    private static final String CACHE_SIZE = "-262144";
+    
+    // 批量写入时较大的页可以减少B树分裂和页头开销，必须在建表之前设置
+    private static final String PAGE_SIZE = "16384";
+    
+    private final Path targetPath;
+    private final Path stagingPath;
+    
+    /**
+     * @param filePath 目标SQLite数据库文件路径
+     */
+    public SQLiteFastLoad(String filePath) {
+        this.targetPath = Paths.get(filePath).toAbsolutePath();
+        this.stagingPath = targetPath.resolveSibling(targetPath.getFileName() + STAGING_SUFFIX);
+    }
+    
+    /**
+     * 删除上次遗留的暂存文件，保证从全新的文件开始写入
+     */
+    public void prepare() throws IOException {
+        Files.deleteIfExists(stagingPath);
+        logger.info("SQLite快速装载: 暂存文件 {}", stagingPath);
+    }
+    
+    @Override
+    public Connection createConnection() throws SQLException {
+        Properties props = new Properties();
+        props.setProperty("foreign_keys", "true");
+        props.setProperty("journal_mode", "OFF");
+        props.setProperty("synchronous", "OFF");
+        props.setProperty("cache_size", CACHE_SIZE);
+        props.setProperty("page_size", PAGE_SIZE);
+        props.setProperty("locking_mode", "EXCLUSIVE");
+        props.setProperty("temp_store", "MEMORY");
+        
+        return DriverManager.getConnection("jdbc:sqlite:" + stagingPath, props);
+    }
+    
+    /**
+     * 迁移成功后用暂存文件替换目标文件，调用前必须关闭所有暂存文件上的连接
+     */
+    public void publish() throws IOException {
+        try {
+            Files.move(stagingPath, targetPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            // 同目录下重命名一般都是原子的，个别文件系统不支持时退化为普通替换
+            logger.warn("文件系统不支持原子重命名，改为普通替换: {}", targetPath);
+            Files.move(stagingPath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        logger.info("SQLite快速装载完成: {}", targetPath);
+    }
+    
+    /**
+     * 迁移失败或取消时删除暂存文件，目标文件保持原样
+     */
+    public void discard() {
+        try {
+            Files.deleteIfExists(stagingPath);
+        } catch (IOException e) {
+            logger.warn("删除暂存文件失败: {}", stagingPath, e);
+        }
+    }
+    
+    public Path getTargetPath() {
+        return targetPath;
+    }
+    
+    public Path getStagingPath() {
+        return stagingPath;
+    }
+}
@@ -3,65 +3,84 @@ package cn.puthmc.db;
 import cn.puthmc.model.ColumnInfo;
 import cn.puthmc.model.IndexInfo;
 import cn.puthmc.model.TableInfo;
+import com.mysql.cj.MysqlType;
+import com.mysql.cj.conf.PropertyKey;
+import com.mysql.cj.jdbc.JdbcConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 /**
  * 数据库结构分析器
  * 用于分析SQLite和MySQL数据库的表结构、索引、约束等信息
+ * 表结构按整个数据库批量读取：MySQL的列和索引各用一条 information_schema 查询，
+ * SQLite遍历一次 sqlite_master 并通过表值 pragma 函数读取列和索引，查询次数与表的数量无关。
  */
 public class SchemaAnalyzer {
     
     private static final Logger logger = LoggerFactory.getLogger(SchemaAnalyzer.class);
     
+    // 本工具在源库中创建的内部表（如变更日志）的名称前缀，结构分析时跳过
+    public static final String INTERNAL_TABLE_PREFIX = "_dbbridge_";
+    
+    // SQLite驱动元数据按声明类型推断JDBC类型的规则，批量读取时沿用以保持结果一致
+    private static final Pattern SQLITE_INTEGER_TYPE = Pattern.compile(".*(INT|BOOL).*");
+    private static final Pattern SQLITE_VARCHAR_TYPE = Pattern.compile(".*(CHAR|CLOB|TEXT|BLOB).*");
+    private static final Pattern SQLITE_FLOAT_TYPE = Pattern.compile(".*(REAL|FLOA|DOUB|DEC|NUM).*");
+    private static final int SQLITE_DEFAULT_COLUMN_SIZE = 2000000000;
+    
+    private static final Pattern MYSQL_TINYINT1 = Pattern.compile("tinyint\\(1\\)(?! unsigned).*", Pattern.CASE_INSENSITIVE);
+    
     /**
-     * 获取数据库中所有表的信息
+     * 获取数据库中所有表的信息，包括行数
      * @param connection 数据库连接
      * @return 表信息列表
      */
     public static List<TableInfo> getAllTables(Connection connection) throws SQLException {
-        List<TableInfo> tables = new ArrayList<>();
+        List<TableInfo> tables = getTableStructures(connection);
+        countRows(connection, tables, null, 1);
+        return tables;
+    }
+    
+    /**
+     * 获取数据库中所有表的结构（列和索引），不统计行数
+     * @param connection 数据库连接
+     * @return 表信息列表，按表名排序
+     */
+    public static List<TableInfo> getTableStructures(Connection connection) throws SQLException {
         DatabaseManager.DatabaseType dbType = DatabaseManager.getDatabaseType(connection);
         
         try {
-            DatabaseMetaData metaData = connection.getMetaData();
-            
-            // 获取表列表
-            try (ResultSet rs = metaData.getTables(null, null, "%", new String[]{"TABLE"})) {
-                while (rs.next()) {
-                    String tableName = rs.getString("TABLE_NAME");
-                    
-                    // 跳过系统表
-                    if (isSystemTable(tableName, dbType)) {
-                        continue;
-                    }
-                    
-                    TableInfo tableInfo = new TableInfo();
-                    tableInfo.setName(tableName);
-                    tableInfo.setComment(rs.getString("REMARKS"));
-                    
-                    // 获取列信息
-                    tableInfo.setColumns(getTableColumns(connection, tableName));
-                    
-                    // 获取索引信息
-                    tableInfo.setIndexes(getTableIndexes(connection, tableName));
-                    
-                    // 获取行数
-                    tableInfo.setRowCount(getTableRowCount(connection, tableName));
-                    
-                    tables.add(tableInfo);
-                    logger.debug("分析表: {} ({}列, {}行)", tableName, 
-                               tableInfo.getColumns().size(), tableInfo.getRowCount());
-                }
+            List<TableInfo> tables;
+            if (dbType == DatabaseManager.DatabaseType.SQLITE) {
+                tables = loadSQLiteTables(connection);
+            } else if (dbType == DatabaseManager.DatabaseType.MYSQL) {
+                tables = loadMySQLTables(connection);
+            } else {
+                tables = loadTablesWithMetaData(connection);
             }
             
+            for (TableInfo table : tables) {
+                logger.debug("分析表: {} ({}列, {}个索引列)", table.getName(),
+                           table.getColumns().size(), table.getIndexes().size());
+            }
             logger.info("成功分析 {} 个表", tables.size());
             return tables;
-            
+        
         } catch (SQLException e) {
             logger.error("分析数据库结构时发生错误", e);
             throw e;
@@ -69,51 +88,199 @@ public class SchemaAnalyzer {
     }
     
     /**
-     * 获取表的列信息
+     * 统计各表的行数
+     * 提供连接工厂且并行度大于1时，由多个线程各自打开连接并行统计，否则在给定连接上逐表统计
      * @param connection 数据库连接
-     * @param tableName 表名
-     * @return 列信息列表
+     * @param tables 要统计的表，行数写回表信息
+     * @param factory 并行统计使用的连接工厂，可以为null
+     * @param parallelism 并行度
      */
-    public static List<ColumnInfo> getTableColumns(Connection connection, String tableName) throws SQLException {
-        List<ColumnInfo> columns = new ArrayList<>();
-        DatabaseManager.DatabaseType dbType = DatabaseManager.getDatabaseType(connection);
+    public static void countRows(Connection connection, List<TableInfo> tables,
+                                 DatabaseManager.ConnectionFactory factory, int parallelism) throws SQLException {
+        int workers = factory == null ? 1 : Math.min(parallelism, tables.size());
+        if (workers <= 1) {
+            for (TableInfo table : tables) {
+                table.setRowCount(getTableRowCount(connection, table.getName()));
+            }
+            return;
+        }
+        
+        Queue<TableInfo> pending = new ConcurrentLinkedQueue<>(tables);
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "dbbridge-count-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
         
         try {
-            DatabaseMetaData metaData = connection.getMetaData();
-            
-            // 获取主键信息
-            List<String> primaryKeys = new ArrayList<>();
-            try (ResultSet pkRs = metaData.getPrimaryKeys(null, null, tableName)) {
-                while (pkRs.next()) {
-                    primaryKeys.add(pkRs.getString("COLUMN_NAME"));
-                }
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(() -> {
+                    try (Connection conn = factory.createConnection()) {
+                        TableInfo table;
+                        while ((table = pending.poll()) != null) {
+                            table.setRowCount(getTableRowCount(conn, table.getName()));
+                        }
+                    }
+                    return null;
+                }));
             }
             
-            // 获取列信息
-            try (ResultSet rs = metaData.getColumns(null, null, tableName, "%")) {
-                while (rs.next()) {
-                    ColumnInfo column = new ColumnInfo();
-                    column.setName(rs.getString("COLUMN_NAME"));
-                    column.setDataType(rs.getString("TYPE_NAME"));
-                    column.setSize(rs.getInt("COLUMN_SIZE"));
-                    column.setNullable(rs.getInt("NULLABLE") == DatabaseMetaData.columnNullable);
-                    column.setDefaultValue(rs.getString("COLUMN_DEF"));
-                    column.setComment(rs.getString("REMARKS"));
-                    column.setPrimaryKey(primaryKeys.contains(column.getName()));
-                    
-                    // 检查是否为自增列
-                    if (dbType == DatabaseManager.DatabaseType.SQLITE) {
-                        column.setAutoIncrement(checkSQLiteAutoIncrement(connection, tableName, column.getName()));
-                    } else {
-                        column.setAutoIncrement("YES".equals(rs.getString("IS_AUTOINCREMENT")));
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof SQLException) {
+                        throw (SQLException) cause;
                     }
-                    
-                    columns.add(column);
+                    throw new SQLException("行数统计线程执行失败: " + cause.getMessage(), cause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("等待行数统计时被中断", e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * 估算各表的行数，不扫描表数据
+     * MySQL读取 information_schema.TABLES 的 TABLE_ROWS，InnoDB表为采样统计值，偏差可能较大；
+     * SQLite按rowid的最小值和最大值估算，删除过行时偏大，ANALYZE 生成的 sqlite_stat1 中行数更小时取后者，
+     * 没有rowid的表只使用 sqlite_stat1。无法估算的表和其他类型的数据库仍执行 COUNT(*)。
+     * 估算的行数标记为估算值；SQLite表没有任何rowid时可以确定是空表，不标记为估算值。
+     * @param connection 数据库连接
+     * @param tables 要估算的表，行数写回表信息
+     */
+    public static void estimateRows(Connection connection, List<TableInfo> tables) throws SQLException {
+        DatabaseManager.DatabaseType dbType = DatabaseManager.getDatabaseType(connection);
+        Map<String, Long> statistics = dbType == DatabaseManager.DatabaseType.MYSQL ? loadMySQLRowEstimates(connection) :
+                                       dbType == DatabaseManager.DatabaseType.SQLITE ? loadSQLiteStat1(connection) :
+                                       new HashMap<>();
+        
+        for (TableInfo table : tables) {
+            Long estimate = statistics.get(table.getName());
+            boolean estimated = estimate != null;
+            if (dbType == DatabaseManager.DatabaseType.SQLITE) {
+                Long range = sqliteRowidRange(connection, table);
+                if (range != null) {
+                    estimate = estimate == null ? range : Math.min(estimate, range);
+                    estimated = range > 0;
                 }
             }
             
-            return columns;
-            
+            if (estimate == null) {
+                table.setRowCount(getTableRowCount(connection, table.getName()));
+                table.setRowCountEstimated(false);
+            } else {
+                table.setRowCount(estimate);
+                table.setRowCountEstimated(estimated);
+            }
+        }
+    }
+    
+    /**
+     * 读取MySQL当前数据库各表的统计行数，统计值为空的表不包含在结果中
+     */
+    private static Map<String, Long> loadMySQLRowEstimates(Connection connection) throws SQLException {
+        Map<String, Long> estimates = new HashMap<>();
+        String sql = "SELECT TABLE_NAME, TABLE_ROWS FROM information_schema.TABLES " +
+                     "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_TYPE = 'BASE TABLE'";
+        try (PreparedStatement stmt = connection.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                long rows = rs.getLong(2);
+                if (!rs.wasNull()) {
+                    estimates.put(rs.getString(1), rows);
+                }
+            }
+        }
+        return estimates;
+    }
+    
+    /**
+     * 读取SQLite的 sqlite_stat1 中各表的行数（每条统计记录的第一个数字），没有执行过 ANALYZE 时为空
+     */
+    private static Map<String, Long> loadSQLiteStat1(Connection connection) throws SQLException {
+        Map<String, Long> estimates = new HashMap<>();
+        try (PreparedStatement exists = connection.prepareStatement(
+                 "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'sqlite_stat1'");
+             ResultSet rs = exists.executeQuery()) {
+            if (!rs.next()) {
+                return estimates;
+            }
+        }
+        
+        String sql = "SELECT tbl, MAX(CAST(stat AS INTEGER)) FROM sqlite_stat1 GROUP BY tbl";
+        try (PreparedStatement stmt = connection.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                estimates.put(rs.getString(1), rs.getLong(2));
+            }
+        }
+        return estimates;
+    }
+    
+    /**
+     * 按rowid的最小值和最大值估算SQLite表的行数
+     * min 和 max 分别放在子查询中，SQLite只需各读一次B树的首尾页
+     * @return 行数上限，表为空时为0；没有rowid的表（WITHOUT ROWID，或rowid的各个别名都被列名占用）返回null
+     */
+    private static Long sqliteRowidRange(Connection connection, TableInfo table) {
+        String rowid = null;
+        for (String alias : new String[] {"rowid", "_rowid_", "oid"}) {
+            boolean shadowed = false;
+            for (ColumnInfo column : table.getColumns()) {
+                shadowed |= alias.equalsIgnoreCase(column.getName());
+            }
+            if (!shadowed) {
+                rowid = alias;
+                break;
+            }
+        }
+        if (rowid == null) {
+            return null;
+        }
+        
+        String tableName = escapeTableName(table.getName());
+        String sql = "SELECT (SELECT MIN(" + rowid + ") FROM " + tableName + "), (SELECT MAX(" + rowid + ") FROM " + tableName + ")";
+        try (PreparedStatement stmt = connection.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            long min = rs.getLong(1);
+            if (rs.wasNull()) {
+                return 0L;
+            }
+            return rs.getLong(2) - min + 1;
+        } catch (SQLException e) {
+            logger.debug("表 {} 无法按rowid估算行数: {}", table.getName(), e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * 获取表的列信息
+     * @param connection 数据库连接
+     * @param tableName 表名
+     * @return 列信息列表，表不存在时为空
+     */
+    public static List<ColumnInfo> getTableColumns(Connection connection, String tableName) throws SQLException {
+        DatabaseManager.DatabaseType dbType = DatabaseManager.getDatabaseType(connection);
+        
+        try {
+            Map<String, List<ColumnInfo>> columns;
+            if (dbType == DatabaseManager.DatabaseType.SQLITE) {
+                columns = loadSQLiteColumns(connection, tableName);
+            } else if (dbType == DatabaseManager.DatabaseType.MYSQL) {
+                columns = loadMySQLColumns(connection, tableName);
+            } else {
+                return getColumnsWithMetaData(connection, tableName);
+            }
+            return columns.getOrDefault(tableName, new ArrayList<>());
+        
         } catch (SQLException e) {
             logger.error("获取表 {} 的列信息时发生错误", tableName, e);
             throw e;
@@ -127,32 +294,19 @@ public class SchemaAnalyzer {
      * @return 索引信息列表
      */
     public static List<IndexInfo> getTableIndexes(Connection connection, String tableName) throws SQLException {
-        List<IndexInfo> indexes = new ArrayList<>();
+        DatabaseManager.DatabaseType dbType = DatabaseManager.getDatabaseType(connection);
         
         try {
-            DatabaseMetaData metaData = connection.getMetaData();
-            
-            try (ResultSet rs = metaData.getIndexInfo(null, null, tableName, false, false)) {
-                while (rs.next()) {
-                    String indexName = rs.getString("INDEX_NAME");
-                    
-                    // 跳过主键索引
-                    if (indexName == null || "PRIMARY".equals(indexName)) {
-                        continue;
-                    }
-                    
-                    IndexInfo index = new IndexInfo();
-                    index.setName(indexName);
-                    index.setUnique(!rs.getBoolean("NON_UNIQUE"));
-                    index.setColumnName(rs.getString("COLUMN_NAME"));
-                    index.setOrdinalPosition(rs.getInt("ORDINAL_POSITION"));
-                    
-                    indexes.add(index);
-                }
+            Map<String, List<IndexInfo>> indexes;
+            if (dbType == DatabaseManager.DatabaseType.SQLITE) {
+                indexes = loadSQLiteIndexes(connection, tableName);
+            } else if (dbType == DatabaseManager.DatabaseType.MYSQL) {
+                indexes = loadMySQLIndexes(connection, tableName);
+            } else {
+                return getIndexesWithMetaData(connection, tableName);
             }
-            
-            return indexes;
-            
+            return indexes.getOrDefault(tableName, new ArrayList<>());
+        
         } catch (SQLException e) {
             logger.error("获取表 {} 的索引信息时发生错误", tableName, e);
             throw e;
@@ -166,66 +320,411 @@ public class SchemaAnalyzer {
      * @return 行数
      */
     public static long getTableRowCount(Connection connection, String tableName) {
+        try {
+            return countTableRows(connection, tableName);
+        } catch (SQLException e) {
+            logger.warn("获取表 {} 的行数时发生错误: {}", tableName, e.getMessage());
+        }
+        
+        return 0;
+    }
+    
+    /**
+     * 用 COUNT(*) 统计表的行数，出错时抛出异常
+     * @param connection 数据库连接
+     * @param tableName 表名
+     * @return 行数
+     */
+    public static long countTableRows(Connection connection, String tableName) throws SQLException {
         String sql = "SELECT COUNT(*) FROM " + escapeTableName(tableName);
         
         try (PreparedStatement stmt = connection.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
-            
-            if (rs.next()) {
-                return rs.getLong(1);
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+    
+    /**
+     * 读取SQLite数据库的所有表，列和索引各一条查询
+     */
+    private static List<TableInfo> loadSQLiteTables(Connection connection) throws SQLException {
+        List<TableInfo> tables = new ArrayList<>();
+        String sql = "SELECT name FROM sqlite_master WHERE type = 'table' ORDER BY name";
+        try (PreparedStatement stmt = connection.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                String tableName = rs.getString(1);
+                if (!isSystemTable(tableName, DatabaseManager.DatabaseType.SQLITE)) {
+                    tables.add(new TableInfo(tableName));
+                }
             }
-            
-        } catch (SQLException e) {
-            logger.warn("获取表 {} 的行数时发生错误: {}", tableName, e.getMessage());
         }
         
-        return 0;
+        attach(tables, loadSQLiteColumns(connection, null), loadSQLiteIndexes(connection, null));
+        return tables;
     }
     
     /**
-     * 检查是否为系统表
-     * @param tableName 表名
-     * @param dbType 数据库类型
-     * @return 是否为系统表
+     * 通过 pragma_table_xinfo 读取列信息，类型推断与SQLite驱动的 getColumns 一致
+     * @param tableName 只读取该表，为null时读取所有表
+     * @return 表名到列信息的映射
      */
-    private static boolean isSystemTable(String tableName, DatabaseManager.DatabaseType dbType) {
-        if (dbType == DatabaseManager.DatabaseType.SQLITE) {
-            return tableName.startsWith("sqlite_");
-        } else if (dbType == DatabaseManager.DatabaseType.MYSQL) {
-            return tableName.startsWith("information_schema") || 
-                   tableName.startsWith("performance_schema") ||
-                   tableName.startsWith("mysql") ||
-                   tableName.startsWith("sys");
+    private static Map<String, List<ColumnInfo>> loadSQLiteColumns(Connection connection, String tableName) throws SQLException {
+        Map<String, List<ColumnInfo>> columns = new LinkedHashMap<>();
+        String sql = "SELECT m.name, c.name, c.type, c.\"notnull\", c.dflt_value, c.pk, m.sql LIKE '%AUTOINCREMENT%' " +
+                     "FROM sqlite_master m JOIN pragma_table_xinfo(m.name) c " +
+                     "WHERE m.type = 'table'" + (tableName == null ? "" : " AND m.name = ?");
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            if (tableName != null) {
+                stmt.setString(1, tableName);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ColumnInfo column = new ColumnInfo();
+                    column.setName(rs.getString(2));
+                    setSQLiteType(column, rs.getString(3));
+                    column.setNullable(rs.getInt(4) == 0);
+                    column.setDefaultValue(rs.getString(5));
+                    column.setPrimaryKey(rs.getInt(6) > 0);
+                    // AUTOINCREMENT 只能用于单列的 INTEGER PRIMARY KEY
+                    column.setAutoIncrement(rs.getInt(6) == 1 && rs.getBoolean(7) &&
+                                            "INTEGER".equalsIgnoreCase(column.getDataType()));
+                    columns.computeIfAbsent(rs.getString(1), key -> new ArrayList<>()).add(column);
+                }
+            }
         }
-        return false;
+        return columns;
     }
     
     /**
-     * 检查SQLite列是否为自增列
-     * @param connection 数据库连接
-     * @param tableName 表名
-     * @param columnName 列名
-     * @return 是否为自增列
+     * 按声明类型设置类型名、JDBC类型和长度，括号中的长度不参与类型名
      */
-    private static boolean checkSQLiteAutoIncrement(Connection connection, String tableName, String columnName) {
-        String sql = "SELECT sql FROM sqlite_master WHERE type='table' AND name=?";
+    private static void setSQLiteType(ColumnInfo column, String declaredType) {
+        String type = declaredType == null ? "TEXT" : declaredType.toUpperCase();
+        int jdbcType;
+        if (SQLITE_INTEGER_TYPE.matcher(type).find()) {
+            jdbcType = Types.INTEGER;
+        } else if (SQLITE_VARCHAR_TYPE.matcher(type).find()) {
+            jdbcType = Types.VARCHAR;
+        } else if (SQLITE_FLOAT_TYPE.matcher(type).find()) {
+            jdbcType = Types.FLOAT;
+        } else {
+            jdbcType = Types.VARCHAR;
+        }
+        
+        int size = SQLITE_DEFAULT_COLUMN_SIZE;
+        int open = type.indexOf('(');
+        if (open > 0) {
+            int close = type.indexOf(')', open);
+            if (close > 0) {
+                int comma = type.indexOf(',', open);
+                try {
+                    if (comma > 0) {
+                        size = Integer.parseUnsignedInt(type.substring(open + 1, comma))
+                             + Integer.parseUnsignedInt(type.substring(comma + 1, close));
+                    } else {
+                        size = Integer.parseUnsignedInt(type.substring(open + 1, close));
+                    }
+                } catch (NumberFormatException e) {
+                    // 长度不是数字时按未指定处理
+                }
+            }
+            type = type.substring(0, open).trim();
+        }
+        
+        column.setDataType(type);
+        column.setJdbcType(jdbcType);
+        column.setSize(size);
+    }
+    
+    /**
+     * 通过 pragma_index_list 和 pragma_index_info 读取索引信息，包括约束自动创建的索引
+     * @param tableName 只读取该表，为null时读取所有表
+     * @return 表名到索引列的映射
+     */
+    private static Map<String, List<IndexInfo>> loadSQLiteIndexes(Connection connection, String tableName) throws SQLException {
+        Map<String, List<IndexInfo>> indexes = new LinkedHashMap<>();
+        String sql = "SELECT m.name, il.name, il.\"unique\", ii.seqno, ii.name " +
+                     "FROM sqlite_master m JOIN pragma_index_list(m.name) il JOIN pragma_index_info(il.name) ii " +
+                     "WHERE m.type = 'table'" + (tableName == null ? "" : " AND m.name = ?") +
+                     " ORDER BY m.name, il.seq, ii.seqno";
         
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, tableName);
-            
+            if (tableName != null) {
+                stmt.setString(1, tableName);
+            }
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    String createSql = rs.getString("sql");
-                    return createSql != null && 
-                           createSql.toUpperCase().contains(columnName.toUpperCase() + " INTEGER PRIMARY KEY AUTOINCREMENT");
+                while (rs.next()) {
+                    IndexInfo index = new IndexInfo();
+                    index.setName(rs.getString(2));
+                    index.setUnique(rs.getBoolean(3));
+                    index.setOrdinalPosition(rs.getInt(4) + 1);
+                    index.setColumnName(rs.getString(5));
+                    indexes.computeIfAbsent(rs.getString(1), key -> new ArrayList<>()).add(index);
+                }
+            }
+        }
+        return indexes;
+    }
+    
+    /**
+     * 读取当前MySQL数据库的所有表，列和索引各一条 information_schema 查询
+     * 查询限定在连接的当前数据库，不会混入同一实例中其他数据库的同名表
+     */
+    private static List<TableInfo> loadMySQLTables(Connection connection) throws SQLException {
+        List<TableInfo> tables = new ArrayList<>();
+        String sql = "SELECT TABLE_NAME, TABLE_COMMENT FROM information_schema.TABLES " +
+                     "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_TYPE = 'BASE TABLE' ORDER BY TABLE_NAME";
+        try (PreparedStatement stmt = connection.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                String tableName = rs.getString(1);
+                if (!isSystemTable(tableName, DatabaseManager.DatabaseType.MYSQL)) {
+                    TableInfo table = new TableInfo(tableName);
+                    table.setComment(rs.getString(2));
+                    tables.add(table);
                 }
             }
-            
-        } catch (SQLException e) {
-            logger.warn("检查SQLite自增列时发生错误", e);
         }
         
-        return false;
+        attach(tables, loadMySQLColumns(connection, null), loadMySQLIndexes(connection, null));
+        return tables;
+    }
+    
+    /**
+     * 通过 information_schema.COLUMNS 读取列信息，类型名、JDBC类型和长度与MySQL驱动的 getColumns 一致
+     * @param tableName 只读取该表，为null时读取所有表
+     * @return 表名到列信息的映射
+     */
+    private static Map<String, List<ColumnInfo>> loadMySQLColumns(Connection connection, String tableName) throws SQLException {
+        Map<String, List<ColumnInfo>> columns = new LinkedHashMap<>();
+        String sql = "SELECT TABLE_NAME, COLUMN_NAME, COLUMN_TYPE, NUMERIC_PRECISION, CHARACTER_MAXIMUM_LENGTH, " +
+                     "DATETIME_PRECISION, IS_NULLABLE, COLUMN_DEFAULT, COLUMN_COMMENT, COLUMN_KEY, EXTRA " +
+                     "FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE()" +
+                     (tableName == null ? "" : " AND TABLE_NAME = ?") +
+                     " ORDER BY TABLE_NAME, ORDINAL_POSITION";
+        
+        JdbcConnection mysqlConnection = connection.unwrap(JdbcConnection.class);
+        boolean tinyInt1isBit = mysqlConnection.getPropertySet().getBooleanProperty(PropertyKey.tinyInt1isBit).getValue();
+        boolean transformedBitIsBoolean = mysqlConnection.getPropertySet()
+            .getBooleanProperty(PropertyKey.transformedBitIsBoolean).getValue();
+        // MariaDB 10.2.7 起 COLUMN_DEFAULT 中的字符串带引号，没有默认值时为字符串 NULL
+        boolean quotedDefaults = connection.getMetaData().getDatabaseProductVersion().contains("MariaDB");
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            if (tableName != null) {
+                stmt.setString(1, tableName);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String columnType = rs.getString(3);
+                    MysqlType type = MysqlType.getByName(columnType);
+                    
+                    ColumnInfo column = new ColumnInfo();
+                    column.setName(rs.getString(2));
+                    if (tinyInt1isBit && MYSQL_TINYINT1.matcher(columnType).matches()) {
+                        type = transformedBitIsBoolean ? MysqlType.BOOLEAN : MysqlType.BIT;
+                        column.setSize(1);
+                    } else {
+                        column.setSize(mysqlColumnSize(type, rs));
+                    }
+                    column.setDataType(type.getName());
+                    column.setJdbcType(type.getJdbcType());
+                    column.setNullable("YES".equals(rs.getString(7)));
+                    column.setDefaultValue(quotedDefaults ? unquoteMariaDBDefault(rs.getString(8)) : rs.getString(8));
+                    column.setComment(rs.getString(9));
+                    column.setPrimaryKey("PRI".equals(rs.getString(10)));
+                    column.setAutoIncrement(rs.getString(11).toLowerCase().contains("auto_increment"));
+                    columns.computeIfAbsent(rs.getString(1), key -> new ArrayList<>()).add(column);
+                }
+            }
+        }
+        return columns;
+    }
+    
+    /**
+     * 列长度：整数为类型的最大位数，时间类型为字符串形式的长度，其余取精度或最大字符数
+     */
+    private static int mysqlColumnSize(MysqlType type, ResultSet rs) throws SQLException {
+        switch (type) {
+            case DATE:
+                return 10;
+            case YEAR:
+                return 4;
+            case TIME:
+                return 8 + fractionalDigits(rs.getInt(6));
+            case DATETIME:
+            case TIMESTAMP:
+                return 19 + fractionalDigits(rs.getInt(6));
+            default:
+                break;
+        }
+        
+        switch (type.getJdbcType()) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return type.getPrecision().intValue();
+            default:
+                break;
+        }
+        
+        long size = rs.getLong(4);
+        if (rs.wasNull()) {
+            size = rs.getLong(5);
+            if (rs.wasNull()) {
+                size = type.getPrecision();
+            }
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+    
+    private static int fractionalDigits(int precision) {
+        return precision > 0 ? precision + 1 : 0;
+    }
+    
+    /**
+     * 去掉MariaDB默认值字符串的引号，NULL 表示没有默认值
+     */
+    private static String unquoteMariaDBDefault(String value) {
+        if (value == null || "NULL".equals(value)) {
+            return null;
+        }
+        if (value.length() >= 2 && value.startsWith("'") && value.endsWith("'")) {
+            return value.substring(1, value.length() - 1).replace("''", "'");
+        }
+        return value;
+    }
+    
+    /**
+     * 通过 information_schema.STATISTICS 读取索引信息，不含主键索引
+     * 顺序与驱动的 getIndexInfo 一致：唯一索引在前，再按索引名和列序号
+     * @param tableName 只读取该表，为null时读取所有表
+     * @return 表名到索引列的映射
+     */
+    private static Map<String, List<IndexInfo>> loadMySQLIndexes(Connection connection, String tableName) throws SQLException {
+        Map<String, List<IndexInfo>> indexes = new LinkedHashMap<>();
+        String sql = "SELECT TABLE_NAME, INDEX_NAME, NON_UNIQUE, COLUMN_NAME, SEQ_IN_INDEX " +
+                     "FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE() AND INDEX_NAME <> 'PRIMARY'" +
+                     (tableName == null ? "" : " AND TABLE_NAME = ?") +
+                     " ORDER BY TABLE_NAME, NON_UNIQUE, INDEX_NAME, SEQ_IN_INDEX";
+        
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            if (tableName != null) {
+                stmt.setString(1, tableName);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    IndexInfo index = new IndexInfo();
+                    index.setName(rs.getString(2));
+                    index.setUnique(rs.getInt(3) == 0);
+                    index.setColumnName(rs.getString(4));
+                    index.setOrdinalPosition(rs.getInt(5));
+                    indexes.computeIfAbsent(rs.getString(1), key -> new ArrayList<>()).add(index);
+                }
+            }
+        }
+        return indexes;
+    }
+    
+    private static void attach(List<TableInfo> tables, Map<String, List<ColumnInfo>> columns,
+                               Map<String, List<IndexInfo>> indexes) {
+        for (TableInfo table : tables) {
+            table.setColumns(columns.get(table.getName()));
+            table.setIndexes(indexes.get(table.getName()));
+        }
+    }
+    
+    /**
+     * 其他数据库通过 DatabaseMetaData 逐表读取
+     */
+    private static List<TableInfo> loadTablesWithMetaData(Connection connection) throws SQLException {
+        List<TableInfo> tables = new ArrayList<>();
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet rs = metaData.getTables(connection.getCatalog(), null, "%", new String[]{"TABLE"})) {
+            while (rs.next()) {
+                TableInfo tableInfo = new TableInfo();
+                tableInfo.setName(rs.getString("TABLE_NAME"));
+                tableInfo.setComment(rs.getString("REMARKS"));
+                tables.add(tableInfo);
+            }
+        }
+        for (TableInfo table : tables) {
+            table.setColumns(getColumnsWithMetaData(connection, table.getName()));
+            table.setIndexes(getIndexesWithMetaData(connection, table.getName()));
+        }
+        return tables;
+    }
+    
+    private static List<ColumnInfo> getColumnsWithMetaData(Connection connection, String tableName) throws SQLException {
+        List<ColumnInfo> columns = new ArrayList<>();
+        DatabaseMetaData metaData = connection.getMetaData();
+        
+        // 获取主键信息
+        List<String> primaryKeys = new ArrayList<>();
+        try (ResultSet pkRs = metaData.getPrimaryKeys(connection.getCatalog(), null, tableName)) {
+            while (pkRs.next()) {
+                primaryKeys.add(pkRs.getString("COLUMN_NAME"));
+            }
+        }
+        
+        // 获取列信息
+        try (ResultSet rs = metaData.getColumns(connection.getCatalog(), null, tableName, "%")) {
+            while (rs.next()) {
+                ColumnInfo column = new ColumnInfo();
+                column.setName(rs.getString("COLUMN_NAME"));
+                column.setDataType(rs.getString("TYPE_NAME"));
+                column.setJdbcType(rs.getInt("DATA_TYPE"));
+                column.setSize(rs.getInt("COLUMN_SIZE"));
+                column.setNullable(rs.getInt("NULLABLE") == DatabaseMetaData.columnNullable);
+                column.setDefaultValue(rs.getString("COLUMN_DEF"));
+                column.setComment(rs.getString("REMARKS"));
+                column.setPrimaryKey(primaryKeys.contains(column.getName()));
+                column.setAutoIncrement("YES".equals(rs.getString("IS_AUTOINCREMENT")));
+                columns.add(column);
+            }
+        }
+        return columns;
+    }
+    
+    private static List<IndexInfo> getIndexesWithMetaData(Connection connection, String tableName) throws SQLException {
+        List<IndexInfo> indexes = new ArrayList<>();
+        DatabaseMetaData metaData = connection.getMetaData();
+        
+        try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), null, tableName, false, false)) {
+            while (rs.next()) {
+                String indexName = rs.getString("INDEX_NAME");
+                
+                // 跳过主键索引
+                if (indexName == null || "PRIMARY".equals(indexName)) {
+                    continue;
+                }
+                
+                IndexInfo index = new IndexInfo();
+                index.setName(indexName);
+                index.setUnique(!rs.getBoolean("NON_UNIQUE"));
+                index.setColumnName(rs.getString("COLUMN_NAME"));
+                index.setOrdinalPosition(rs.getInt("ORDINAL_POSITION"));
+                indexes.add(index);
+            }
+        }
+        return indexes;
+    }
+    
+    /**
+     * 检查是否为系统表
+     * MySQL只读取连接的当前数据库，不会出现系统库中的表，只需跳过本工具的内部表
+     * @param tableName 表名
+     * @param dbType 数据库类型
+     * @return 是否为系统表
+     */
+    private static boolean isSystemTable(String tableName, DatabaseManager.DatabaseType dbType) {
+        if (dbType == DatabaseManager.DatabaseType.SQLITE && tableName.startsWith("sqlite_")) {
+            return true;
+        }
+        return tableName.startsWith(INTERNAL_TABLE_PREFIX);
     }
     
     /**
@@ -236,4 +735,4 @@ public class SchemaAnalyzer {
     private static String escapeTableName(String tableName) {
         return "`" + tableName + "`";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,245 @@
+package cn.puthmc.db;
+
+import cn.puthmc.model.TableInfo;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mysql.cj.conf.PropertyKey;
+import com.mysql.cj.jdbc.JdbcConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 表结构缓存
+ * 把 SchemaAnalyzer 读取的表结构以JSON文件保存在缓存目录中，每个数据库一个文件。
+ * 每次读取前先查询数据库的结构指纹，与缓存一致时直接使用缓存，否则重新分析并覆盖缓存：
+ * SQLite的指纹为 PRAGMA schema_version 和 sqlite_master 内容的摘要；
+ * MySQL的指纹为 information_schema 中各表的创建时间，以及列和索引定义的校验和。
+ * 指纹只反映表结构，数据变化不会使缓存失效。缓存不含行数。
+ */
+public class SchemaCache {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SchemaCache.class);
+    
+    // 缓存文件格式或表结构的读取方式变化时递增，旧缓存自动失效
+    private static final int FORMAT_VERSION = 1;
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+        .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+        .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+    
+    static {
+        // 模型类的字段都没有非零初始值，省略默认值可以明显减小大库的缓存文件；
+        // 字符串只省略null，空字符串的默认值和注释有意义
+        MAPPER.setSerializationInclusion(JsonInclude.Include.NON_DEFAULT);
+        MAPPER.configOverride(String.class).setInclude(JsonInclude.Value.construct(JsonInclude.Include.NON_NULL, null));
+    }
+    
+    private static final String MYSQL_FINGERPRINT_SQL =
+        "SELECT (SELECT CONCAT(COUNT(*), '/', IFNULL(SUM(CRC32(CONCAT_WS('|', TABLE_NAME, TABLE_TYPE, CREATE_TIME, " +
+        "TABLE_COMMENT))), 0)) FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE()), " +
+        "(SELECT CONCAT(COUNT(*), '/', IFNULL(SUM(CRC32(CONCAT_WS('|', TABLE_NAME, COLUMN_NAME, ORDINAL_POSITION, " +
+        "COLUMN_TYPE, IS_NULLABLE, COLUMN_DEFAULT, COLUMN_KEY, EXTRA, COLUMN_COMMENT))), 0)) " +
+        "FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE()), " +
+        "(SELECT CONCAT(COUNT(*), '/', IFNULL(SUM(CRC32(CONCAT_WS('|', TABLE_NAME, INDEX_NAME, NON_UNIQUE, " +
+        "SEQ_IN_INDEX, COLUMN_NAME))), 0)) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE())";
+    
+    private final Path directory;
+    
+    /**
+     * @param directory 缓存目录，不存在时在第一次写入缓存时创建
+     */
+    public SchemaCache(String directory) {
+        this.directory = Paths.get(directory);
+    }
+    
+    /**
+     * 读取数据库中所有表的结构
+     * @param connection 数据库连接
+     * @param cacheDir 缓存目录，为null时不使用缓存
+     * @return 表信息列表，不含行数
+     */
+    public static List<TableInfo> getTableStructures(Connection connection, String cacheDir) throws SQLException {
+        if (cacheDir == null) {
+            return SchemaAnalyzer.getTableStructures(connection);
+        }
+        return new SchemaCache(cacheDir).getTableStructures(connection);
+    }
+    
+    /**
+     * 读取数据库中所有表的结构，结构指纹与缓存一致时使用缓存
+     * @param connection 数据库连接
+     * @return 表信息列表，不含行数
+     */
+    public List<TableInfo> getTableStructures(Connection connection) throws SQLException {
+        DatabaseManager.DatabaseType dbType = DatabaseManager.getDatabaseType(connection);
+        String database = dbType == null ? null : databaseKey(connection, dbType);
+        if (database == null) {
+            // 内存数据库和不支持的数据库类型没有稳定的标识，不缓存
+            return SchemaAnalyzer.getTableStructures(connection);
+        }
+        
+        String fingerprint = dbType == DatabaseManager.DatabaseType.SQLITE ? sqliteFingerprint(connection)
+                                                                           : mysqlFingerprint(connection);
+        Path file = directory.resolve(UUID.nameUUIDFromBytes(database.getBytes(StandardCharsets.UTF_8)) + ".json");
+        Entry cached = read(file);
+        if (cached != null && cached.version == FORMAT_VERSION && database.equals(cached.database)
+            && fingerprint.equals(cached.fingerprint)) {
+            logger.info("表结构未变化，使用缓存: {} 个表 ({})", cached.tables.size(), file);
+            return cached.tables;
+        }
+        
+        logger.info("{}，重新分析表结构: {}", cached == null ? "没有可用的表结构缓存" : "表结构已变化", database);
+        // 指纹在分析之前读取，分析期间结构发生变化时下次读取会因指纹不同而重新分析
+        List<TableInfo> tables = SchemaAnalyzer.getTableStructures(connection);
+        write(file, new Entry(database, fingerprint, tables));
+        return tables;
+    }
+    
+    /**
+     * 数据库标识：SQLite为主库文件的绝对路径，MySQL为去掉连接参数的JDBC地址加当前数据库名
+     * @return 数据库标识，无法确定时返回null
+     */
+    private static String databaseKey(Connection connection, DatabaseManager.DatabaseType dbType) throws SQLException {
+        if (dbType == DatabaseManager.DatabaseType.SQLITE) {
+            try (PreparedStatement stmt = connection.prepareStatement("SELECT file FROM pragma_database_list WHERE name = 'main'");
+                 ResultSet rs = stmt.executeQuery()) {
+                String path = rs.next() ? rs.getString(1) : null;
+                return path == null || path.isEmpty() ? null : "sqlite:" + new File(path).getAbsolutePath();
+            }
+        }
+        
+        String url = connection.getMetaData().getURL();
+        int params = url.indexOf('?');
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT DATABASE()");
+             ResultSet rs = stmt.executeQuery()) {
+            String schema = rs.next() ? rs.getString(1) : null;
+            return schema == null ? null : (params < 0 ? url : url.substring(0, params)) + "#" + schema;
+        }
+    }
+    
+    private static String sqliteFingerprint(Connection connection) throws SQLException {
+        long schemaVersion;
+        try (PreparedStatement stmt = connection.prepareStatement("PRAGMA schema_version");
+             ResultSet rs = stmt.executeQuery()) {
+            schemaVersion = rs.next() ? rs.getLong(1) : 0;
+        }
+        
+        MessageDigest digest = sha256();
+        try (PreparedStatement stmt = connection.prepareStatement(
+                 "SELECT type, name, tbl_name, sql FROM sqlite_master ORDER BY type, name");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                for (int i = 1; i <= 4; i++) {
+                    String value = rs.getString(i);
+                    digest.update((value == null ? "\0" : value + "\u0001").getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return schemaVersion + "/" + HexFormat.of().formatHex(digest.digest());
+    }
+    
+    private static String mysqlFingerprint(Connection connection) throws SQLException {
+        StringBuilder fingerprint = new StringBuilder();
+        try (PreparedStatement stmt = connection.prepareStatement(MYSQL_FINGERPRINT_SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            fingerprint.append(rs.getString(1)).append(';').append(rs.getString(2)).append(';').append(rs.getString(3));
+        }
+        // 类型映射受这两个连接属性影响
+        JdbcConnection mysqlConnection = connection.unwrap(JdbcConnection.class);
+        fingerprint.append(';').append(mysqlConnection.getPropertySet().getBooleanProperty(PropertyKey.tinyInt1isBit).getValue())
+                   .append(';').append(mysqlConnection.getPropertySet()
+                                           .getBooleanProperty(PropertyKey.transformedBitIsBoolean).getValue());
+        return fingerprint.toString();
+    }
+    
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * 读取缓存文件，文件不存在或损坏时返回null
+     */
+    private static Entry read(Path file) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return MAPPER.readValue(file.toFile(), Entry.class);
+        } catch (IOException e) {
+            logger.warn("表结构缓存 {} 无法读取，将重新分析: {}", file, e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * 写入缓存文件，先写临时文件再原子替换；写入失败不影响迁移
+     */
+    private void write(Path file, Entry entry) {
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                MAPPER.writeValue(temp.toFile(), entry);
+                try {
+                    Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            logger.debug("已写入表结构缓存: {}", file);
+        } catch (IOException e) {
+            logger.warn("写入表结构缓存 {} 失败: {}", file, e.getMessage());
+        }
+    }
+    
+    /**
+     * 缓存文件内容
+     */
+    private static class Entry {
+        private int version;
+        private String database;
+        private String fingerprint;
+        private long savedAt;
+        private List<TableInfo> tables = new ArrayList<>();
+        
+        Entry() {}
+        
+        Entry(String database, String fingerprint, List<TableInfo> tables) {
+            this.version = FORMAT_VERSION;
+            this.database = database;
+            this.fingerprint = fingerprint;
+            this.savedAt = System.currentTimeMillis();
+            this.tables = tables;
+        }
+    }
+}
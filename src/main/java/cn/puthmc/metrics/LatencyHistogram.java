@@ -0,0 +1,108 @@
+package cn.puthmc.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 耗时直方图
+ * 使用固定的桶上界（秒）累计观测次数，与 Prometheus 的 histogram 类型对应；
+ * 分位数按桶内线性插值估算。记录操作无锁，可在多个线程中同时调用。
+ */
+public class LatencyHistogram {
+    
+    // 桶上界（秒），最后隐含一个 +Inf 桶
+    static final double[] BOUNDS = {
+        0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30
+    };
+    
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+    
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+    
+    /**
+     * 记录一次耗时
+     * @param nanos 耗时（纳秒）
+     */
+    public void record(long nanos) {
+        double seconds = nanos / 1e9;
+        int index = 0;
+        while (index < BOUNDS.length && seconds > BOUNDS[index]) {
+            index++;
+        }
+        buckets[index].increment();
+        count.increment();
+        sumNanos.add(nanos);
+    }
+    
+    public long getCount() {
+        return count.sum();
+    }
+    
+    public double getSumSeconds() {
+        return sumNanos.sum() / 1e9;
+    }
+    
+    /**
+     * @return 平均耗时（毫秒），没有观测时为0
+     */
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : sumNanos.sum() / 1e6 / n;
+    }
+    
+    /**
+     * 估算分位数
+     * @param quantile 分位（0到1之间）
+     * @return 耗时（毫秒），没有观测时为0
+     */
+    public double getQuantileMillis(double quantile) {
+        long[] counts = snapshot();
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        
+        double rank = quantile * total;
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0 && seen + counts[i] >= rank) {
+                double lower = i == 0 ? 0 : BOUNDS[i - 1];
+                if (i == BOUNDS.length) {
+                    // 落在 +Inf 桶时只能给出最大的有限上界
+                    return lower * 1000;
+                }
+                double fraction = (rank - seen) / counts[i];
+                return (lower + (BOUNDS[i] - lower) * fraction) * 1000;
+            }
+            seen += counts[i];
+        }
+        return BOUNDS[BOUNDS.length - 1] * 1000;
+    }
+    
+    /**
+     * @return 各桶（非累计）的观测次数，最后一个为 +Inf 桶
+     */
+    long[] snapshot() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+    
+    void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        count.reset();
+        sumNanos.reset();
+    }
+}
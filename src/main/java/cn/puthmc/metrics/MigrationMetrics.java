@@ -0,0 +1,323 @@
+package cn.puthmc.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 迁移指标注册表
+ * 进程内唯一，累计所有迁移的读写行数、字节数、批次写入和提交耗时，按表和工作线程细分，
+ * 并汇总流水线各阶段的队列深度。计数只增不减（reset 除外），与 Prometheus 计数器的语义一致。
+ * 可注册为 JMX MXBean，也可以通过 PrometheusExporter 以文本格式导出。
+ */
+public class MigrationMetrics implements MigrationMetricsMXBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MigrationMetrics.class);
+    
+    public static final String OBJECT_NAME = "cn.puthmc.dbbridge:type=MigrationMetrics";
+    
+    // 速率统计的时间窗口
+    private static final long RATE_WINDOW_NANOS = 10_000_000_000L;
+    
+    private static final MigrationMetrics INSTANCE = new MigrationMetrics();
+    
+    /**
+     * 单个表的计数
+     */
+    public static class TableCounters {
+        final LongAdder rowsRead = new LongAdder();
+        final LongAdder rowsWritten = new LongAdder();
+        final LongAdder bytesWritten = new LongAdder();
+        final LongAdder batches = new LongAdder();
+        
+        public long getRowsRead() { return rowsRead.sum(); }
+        public long getRowsWritten() { return rowsWritten.sum(); }
+        public long getBytesWritten() { return bytesWritten.sum(); }
+        public long getBatches() { return batches.sum(); }
+    }
+    
+    /**
+     * 单个工作线程的计数
+     */
+    public static class WorkerCounters {
+        final LongAdder rowsWritten = new LongAdder();
+        final LongAdder batches = new LongAdder();
+        final LongAdder writeNanos = new LongAdder();
+        
+        public long getRowsWritten() { return rowsWritten.sum(); }
+        public long getBatches() { return batches.sum(); }
+        public long getWriteMillis() { return writeNanos.sum() / 1_000_000; }
+    }
+    
+    /**
+     * 基于计数器的滑动速率：每次查询时与窗口起点的采样比较，窗口超过时长后前移
+     */
+    private static class WindowRate {
+        private final LongAdder counter;
+        private long windowStart = System.nanoTime();
+        private long windowValue;
+        private long lastStart = windowStart;
+        private long lastValue;
+        
+        WindowRate(LongAdder counter) {
+            this.counter = counter;
+        }
+        
+        synchronized double perSecond() {
+            long now = System.nanoTime();
+            long value = counter.sum();
+            if (now - windowStart >= RATE_WINDOW_NANOS) {
+                lastStart = windowStart;
+                lastValue = windowValue;
+                windowStart = now;
+                windowValue = value;
+            }
+            long elapsed = now - lastStart;
+            return elapsed <= 0 ? 0 : (value - lastValue) * 1e9 / elapsed;
+        }
+        
+        synchronized void reset() {
+            windowStart = lastStart = System.nanoTime();
+            windowValue = lastValue = 0;
+        }
+    }
+    
+    private final LongAdder rowsRead = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder batchesWritten = new LongAdder();
+    private final LongAdder commits = new LongAdder();
+    private final LatencyHistogram batchWriteLatency = new LatencyHistogram();
+    private final LatencyHistogram commitLatency = new LatencyHistogram();
+    private final WindowRate rowsReadRate = new WindowRate(rowsRead);
+    private final WindowRate rowsWrittenRate = new WindowRate(rowsWritten);
+    private final WindowRate bytesWrittenRate = new WindowRate(bytesWritten);
+    private final Map<String, TableCounters> tables = new ConcurrentHashMap<>();
+    private final Map<String, WorkerCounters> workers = new ConcurrentHashMap<>();
+    private final Map<String, Set<Collection<?>>> queues = new ConcurrentHashMap<>();
+    
+    private volatile boolean registered = false;
+    
+    private MigrationMetrics() {}
+    
+    public static MigrationMetrics getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * 注册为 JMX MXBean，重复调用无副作用
+     */
+    public synchronized void registerMBean() {
+        if (registered) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(this, new ObjectName(OBJECT_NAME));
+            logger.info("迁移指标已注册到JMX: {}", OBJECT_NAME);
+        } catch (InstanceAlreadyExistsException e) {
+            logger.debug("迁移指标已在JMX中注册");
+        } catch (JMException e) {
+            logger.warn("注册迁移指标MBean失败: {}", e.getMessage());
+            return;
+        }
+        registered = true;
+    }
+    
+    /**
+     * 记录从源表读取的一批行
+     * @param tableName 表名
+     * @param rows 行数
+     * @param bytes 估算字节数
+     */
+    public void recordRead(String tableName, int rows, long bytes) {
+        rowsRead.add(rows);
+        bytesRead.add(bytes);
+        table(tableName).rowsRead.add(rows);
+    }
+    
+    /**
+     * 记录写入目标表的一个批次，工作线程按当前线程名统计
+     * @param tableName 表名
+     * @param rows 行数
+     * @param bytes 估算字节数
+     * @param nanos 写入耗时（纳秒）
+     */
+    public void recordWrite(String tableName, int rows, long bytes, long nanos) {
+        rowsWritten.add(rows);
+        bytesWritten.add(bytes);
+        batchesWritten.increment();
+        batchWriteLatency.record(nanos);
+        
+        TableCounters table = table(tableName);
+        table.rowsWritten.add(rows);
+        table.bytesWritten.add(bytes);
+        table.batches.increment();
+        
+        WorkerCounters worker = workers.computeIfAbsent(Thread.currentThread().getName(), key -> new WorkerCounters());
+        worker.rowsWritten.add(rows);
+        worker.batches.increment();
+        worker.writeNanos.add(nanos);
+    }
+    
+    /**
+     * 记录一次目标库提交
+     * @param nanos 提交耗时（纳秒）
+     */
+    public void recordCommit(long nanos) {
+        commits.increment();
+        commitLatency.record(nanos);
+    }
+    
+    /**
+     * 登记一个流水线队列，队列深度按阶段汇总，流水线结束时调用 unregisterQueue 取消登记
+     * @param stage 阶段名
+     * @param queue 队列
+     */
+    public void registerQueue(String stage, Collection<?> queue) {
+        queues.computeIfAbsent(stage, key -> ConcurrentHashMap.newKeySet()).add(queue);
+    }
+    
+    /**
+     * 取消登记流水线队列
+     * @param stage 阶段名
+     * @param queue 登记时的队列
+     */
+    public void unregisterQueue(String stage, Collection<?> queue) {
+        Set<Collection<?>> stageQueues = queues.get(stage);
+        if (stageQueues != null) {
+            stageQueues.remove(queue);
+        }
+    }
+    
+    private TableCounters table(String tableName) {
+        return tables.computeIfAbsent(tableName, key -> new TableCounters());
+    }
+    
+    public LatencyHistogram getBatchWriteLatency() {
+        return batchWriteLatency;
+    }
+    
+    public LatencyHistogram getCommitLatency() {
+        return commitLatency;
+    }
+    
+    /**
+     * @return 各表的计数，按表名排序
+     */
+    public Map<String, TableCounters> getTables() {
+        return new TreeMap<>(tables);
+    }
+    
+    /**
+     * @return 各工作线程的计数，按线程名排序
+     */
+    public Map<String, WorkerCounters> getWorkers() {
+        return new TreeMap<>(workers);
+    }
+    
+    @Override
+    public long getRowsRead() { return rowsRead.sum(); }
+    
+    @Override
+    public long getRowsWritten() { return rowsWritten.sum(); }
+    
+    @Override
+    public long getBytesRead() { return bytesRead.sum(); }
+    
+    @Override
+    public long getBytesWritten() { return bytesWritten.sum(); }
+    
+    @Override
+    public long getBatchesWritten() { return batchesWritten.sum(); }
+    
+    @Override
+    public long getCommits() { return commits.sum(); }
+    
+    @Override
+    public double getRowsReadPerSecond() { return rowsReadRate.perSecond(); }
+    
+    @Override
+    public double getRowsWrittenPerSecond() { return rowsWrittenRate.perSecond(); }
+    
+    @Override
+    public double getBytesWrittenPerSecond() { return bytesWrittenRate.perSecond(); }
+    
+    @Override
+    public double getBatchWriteMillisMean() { return batchWriteLatency.getMeanMillis(); }
+    
+    @Override
+    public double getBatchWriteMillisP50() { return batchWriteLatency.getQuantileMillis(0.5); }
+    
+    @Override
+    public double getBatchWriteMillisP99() { return batchWriteLatency.getQuantileMillis(0.99); }
+    
+    @Override
+    public double getCommitMillisMean() { return commitLatency.getMeanMillis(); }
+    
+    @Override
+    public double getCommitMillisP99() { return commitLatency.getQuantileMillis(0.99); }
+    
+    @Override
+    public Map<String, Integer> getQueueDepths() {
+        Map<String, Integer> depths = new TreeMap<>();
+        for (Map.Entry<String, Set<Collection<?>>> entry : queues.entrySet()) {
+            int depth = 0;
+            for (Collection<?> queue : entry.getValue()) {
+                depth += queue.size();
+            }
+            depths.put(entry.getKey(), depth);
+        }
+        return depths;
+    }
+    
+    @Override
+    public Map<String, Long> getTableRowsWritten() {
+        Map<String, Long> rows = new TreeMap<>();
+        tables.forEach((name, counters) -> rows.put(name, counters.getRowsWritten()));
+        return rows;
+    }
+    
+    @Override
+    public Map<String, Long> getWorkerRowsWritten() {
+        Map<String, Long> rows = new TreeMap<>();
+        workers.forEach((name, counters) -> rows.put(name, counters.getRowsWritten()));
+        return rows;
+    }
+    
+    @Override
+    public Map<String, Long> getWorkerWriteMillis() {
+        Map<String, Long> millis = new TreeMap<>();
+        workers.forEach((name, counters) -> millis.put(name, counters.getWriteMillis()));
+        return millis;
+    }
+    
+    @Override
+    public void reset() {
+        rowsRead.reset();
+        bytesRead.reset();
+        rowsWritten.reset();
+        bytesWritten.reset();
+        batchesWritten.reset();
+        commits.reset();
+        batchWriteLatency.reset();
+        commitLatency.reset();
+        rowsReadRate.reset();
+        rowsWrittenRate.reset();
+        bytesWrittenRate.reset();
+        tables.clear();
+        workers.clear();
+    }
+}
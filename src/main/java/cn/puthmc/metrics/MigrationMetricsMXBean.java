@@ -0,0 +1,72 @@
+package cn.puthmc.metrics;
+
+import java.util.Map;
+
+/**
+ * 迁移指标的 JMX 管理接口
+ * 注册名为 cn.puthmc.dbbridge:type=MigrationMetrics，可在 JConsole / VisualVM 中查看
+ */
+public interface MigrationMetricsMXBean {
+    
+    long getRowsRead();
+    
+    long getRowsWritten();
+    
+    long getBytesRead();
+    
+    long getBytesWritten();
+    
+    long getBatchesWritten();
+    
+    long getCommits();
+    
+    /**
+     * @return 最近一段时间内每秒读取的行数
+     */
+    double getRowsReadPerSecond();
+    
+    /**
+     * @return 最近一段时间内每秒写入的行数
+     */
+    double getRowsWrittenPerSecond();
+    
+    /**
+     * @return 最近一段时间内每秒写入的字节数（估算）
+     */
+    double getBytesWrittenPerSecond();
+    
+    double getBatchWriteMillisMean();
+    
+    double getBatchWriteMillisP50();
+    
+    double getBatchWriteMillisP99();
+    
+    double getCommitMillisMean();
+    
+    double getCommitMillisP99();
+    
+    /**
+     * @return 各流水线阶段队列中等待的批次数
+     */
+    Map<String, Integer> getQueueDepths();
+    
+    /**
+     * @return 各表已写入的行数
+     */
+    Map<String, Long> getTableRowsWritten();
+    
+    /**
+     * @return 各工作线程已写入的行数
+     */
+    Map<String, Long> getWorkerRowsWritten();
+    
+    /**
+     * @return 各工作线程写入批次累计耗时（毫秒）
+     */
+    Map<String, Long> getWorkerWriteMillis();
+    
+    /**
+     * 清零所有指标
+     */
+    void reset();
+}
@@ -0,0 +1,184 @@
+package cn.puthmc.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * 以 Prometheus 文本格式（0.0.4）导出迁移指标
+ * 使用 JDK 自带的 HttpServer，只监听本机回环地址，路径为 /metrics。每个端口只启动一次，服务线程为守护线程。
+ */
+public class PrometheusExporter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PrometheusExporter.class);
+    
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    
+    private static final Map<Integer, HttpServer> SERVERS = new ConcurrentHashMap<>();
+    
+    private PrometheusExporter() {}
+    
+    /**
+     * 在指定端口启动导出服务，端口已启动时直接返回
+     * @param port 端口
+     * @throws IOException 端口无法绑定
+     */
+    public static synchronized void start(int port) throws IOException {
+        if (SERVERS.containsKey(port)) {
+            return;
+        }
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", PrometheusExporter::handle);
+        server.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dbbridge-metrics-" + port);
+            thread.setDaemon(true);
+            return thread;
+        }));
+        
+        // HttpServer 的分发线程继承启动线程的守护属性，在守护线程中启动，避免导出服务阻止进程退出
+        Thread starter = new Thread(server::start, "dbbridge-metrics-start");
+        starter.setDaemon(true);
+        starter.start();
+        try {
+            starter.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            server.stop(0);
+            throw new IOException("启动指标导出服务被中断", e);
+        }
+        SERVERS.put(port, server);
+        logger.info("Prometheus指标已开启: http://{}:{}/metrics",
+                server.getAddress().getHostString(), server.getAddress().getPort());
+    }
+    
+    /**
+     * 停止指定端口的导出服务
+     * @param port 端口
+     */
+    public static synchronized void stop(int port) {
+        HttpServer server = SERVERS.remove(port);
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+    
+    private static void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = scrape(MigrationMetrics.getInstance()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    /**
+     * 生成当前指标的文本格式
+     * @param metrics 指标注册表
+     * @return Prometheus 文本
+     */
+    public static String scrape(MigrationMetrics metrics) {
+        StringBuilder out = new StringBuilder(4096);
+        
+        counter(out, "dbbridge_rows_read_total", "从源库读取的行数", metrics.getRowsRead());
+        counter(out, "dbbridge_rows_written_total", "写入目标库的行数", metrics.getRowsWritten());
+        counter(out, "dbbridge_bytes_read_total", "从源库读取的估算字节数", metrics.getBytesRead());
+        counter(out, "dbbridge_bytes_written_total", "写入目标库的估算字节数", metrics.getBytesWritten());
+        counter(out, "dbbridge_batches_written_total", "写入目标库的批次数", metrics.getBatchesWritten());
+        counter(out, "dbbridge_commits_total", "目标库提交次数", metrics.getCommits());
+        
+        header(out, "dbbridge_rows_written_per_second", "最近每秒写入的行数", "gauge");
+        sample(out, "dbbridge_rows_written_per_second", null, null, metrics.getRowsWrittenPerSecond());
+        header(out, "dbbridge_bytes_written_per_second", "最近每秒写入的估算字节数", "gauge");
+        sample(out, "dbbridge_bytes_written_per_second", null, null, metrics.getBytesWrittenPerSecond());
+        
+        histogram(out, "dbbridge_batch_write_seconds", "批次写入（executeBatch）耗时", metrics.getBatchWriteLatency());
+        histogram(out, "dbbridge_commit_seconds", "目标库提交耗时", metrics.getCommitLatency());
+        
+        header(out, "dbbridge_queue_depth", "流水线各阶段队列中等待的批次数", "gauge");
+        metrics.getQueueDepths().forEach((stage, depth) ->
+                sample(out, "dbbridge_queue_depth", "stage", stage, depth));
+        
+        Map<String, MigrationMetrics.TableCounters> tables = metrics.getTables();
+        header(out, "dbbridge_table_rows_read_total", "各表从源库读取的行数", "counter");
+        tables.forEach((name, t) -> sample(out, "dbbridge_table_rows_read_total", "table", name, t.getRowsRead()));
+        header(out, "dbbridge_table_rows_written_total", "各表写入目标库的行数", "counter");
+        tables.forEach((name, t) -> sample(out, "dbbridge_table_rows_written_total", "table", name, t.getRowsWritten()));
+        header(out, "dbbridge_table_bytes_written_total", "各表写入目标库的估算字节数", "counter");
+        tables.forEach((name, t) -> sample(out, "dbbridge_table_bytes_written_total", "table", name, t.getBytesWritten()));
+        header(out, "dbbridge_table_batches_written_total", "各表写入目标库的批次数", "counter");
+        tables.forEach((name, t) -> sample(out, "dbbridge_table_batches_written_total", "table", name, t.getBatches()));
+        
+        Map<String, MigrationMetrics.WorkerCounters> workers = metrics.getWorkers();
+        header(out, "dbbridge_worker_rows_written_total", "各工作线程写入的行数", "counter");
+        workers.forEach((name, w) -> sample(out, "dbbridge_worker_rows_written_total", "worker", name, w.getRowsWritten()));
+        header(out, "dbbridge_worker_batches_written_total", "各工作线程写入的批次数", "counter");
+        workers.forEach((name, w) -> sample(out, "dbbridge_worker_batches_written_total", "worker", name, w.getBatches()));
+        header(out, "dbbridge_worker_write_seconds_total", "各工作线程写入批次的累计耗时", "counter");
+        workers.forEach((name, w) -> sample(out, "dbbridge_worker_write_seconds_total", "worker", name, w.getWriteMillis() / 1000.0));
+        
+        return out.toString();
+    }
+    
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        header(out, name, help, "counter");
+        sample(out, name, null, null, value);
+    }
+    
+    private static void histogram(StringBuilder out, String name, String help, LatencyHistogram histogram) {
+        header(out, name, help, "histogram");
+        long[] counts = histogram.snapshot();
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            String le = i < LatencyHistogram.BOUNDS.length
+                ? BigDecimal.valueOf(LatencyHistogram.BOUNDS[i]).toPlainString() : "+Inf";
+            sample(out, name + "_bucket", "le", le, cumulative);
+        }
+        sample(out, name + "_sum", null, null, histogram.getSumSeconds());
+        // 与桶计数取自同一快照，保证 _count 等于 +Inf 桶
+        sample(out, name + "_count", null, null, cumulative);
+    }
+    
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+    
+    private static void sample(StringBuilder out, String name, String label, String labelValue, double value) {
+        out.append(name);
+        if (label != null) {
+            out.append('{').append(label).append("=\"").append(escape(labelValue)).append("\"}");
+        }
+        out.append(' ').append(format(value)).append('\n');
+    }
+    
+    private static String format(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+    
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -7,6 +7,7 @@ public class ColumnInfo {
     
     private String name;
     private String dataType;
+    private int jdbcType; // java.sql.Types 中的类型代码
     private int size;
     private int decimalDigits;
     private boolean nullable;
@@ -40,6 +41,14 @@ public class ColumnInfo {
         this.dataType = dataType;
     }
     
+    public int getJdbcType() {
+        return jdbcType;
+    }
+    
+    public void setJdbcType(int jdbcType) {
+        this.jdbcType = jdbcType;
+    }
+    
     public int getSize() {
         return size;
     }
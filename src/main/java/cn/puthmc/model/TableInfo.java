@@ -13,6 +13,7 @@ public class TableInfo {
     private List<ColumnInfo> columns = new ArrayList<>();
     private List<IndexInfo> indexes = new ArrayList<>();
     private long rowCount;
+    private boolean rowCountEstimated; // 行数是否为统计信息估算的值
     
     public TableInfo() {}
     
@@ -61,6 +62,14 @@ public class TableInfo {
         this.rowCount = rowCount;
     }
     
+    public boolean isRowCountEstimated() {
+        return rowCountEstimated;
+    }
+    
+    public void setRowCountEstimated(boolean rowCountEstimated) {
+        this.rowCountEstimated = rowCountEstimated;
+    }
+    
     // 便利方法
     public void addColumn(ColumnInfo column) {
         if (column != null) {
@@ -0,0 +1,138 @@
+package cn.puthmc.converter;
+
+import cn.puthmc.db.DatabaseManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 差异比较与增量修复测试，源库和目标库都是临时目录中的SQLite文件
+ */
+class DataRepairerTest {
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    void repairsUpdatedDeletedAndExtraRows() throws Exception {
+        DatabaseManager.ConnectionFactory source = DatabaseManager.sqliteConnectionFactory(dir.resolve("source.db").toString());
+        DatabaseManager.ConnectionFactory target = DatabaseManager.sqliteConnectionFactory(dir.resolve("target.db").toString());
+        try (Connection conn = source.createConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE items (id INTEGER PRIMARY KEY, name TEXT, qty INTEGER)");
+            // 主键只取偶数，目标库多出的行插在两行之间
+            stmt.execute("WITH RECURSIVE seq(id) AS (SELECT 2 UNION ALL SELECT id + 2 FROM seq WHERE id < 2000) "
+                         + "INSERT INTO items SELECT id, 'row ' || id, id * 3 FROM seq");
+        }
+        migrate(source, target);
+        
+        try (Connection conn = target.createConnection(); Statement stmt = conn.createStatement()) {
+            assertEquals(1, stmt.executeUpdate("UPDATE items SET qty = -1 WHERE id = 100"));
+            assertEquals(1, stmt.executeUpdate("DELETE FROM items WHERE id = 1200"));
+            stmt.execute("INSERT INTO items VALUES (777, 'extra', 0)");
+        }
+        
+        DataRepairer repairer = new DataRepairer(new MigrationOptions());
+        DataRepairer.RepairReport diff = repairer.diff(source, target);
+        assertTrue(diff.isSuccess(), diff.toString());
+        assertFalse(diff.isApplied());
+        assertEquals(2, diff.getUpsertedRows(), diff.toString());
+        assertEquals(1, diff.getDeletedRows(), diff.toString());
+        DataRepairer.TableRepair items = diff.getTables().get(0);
+        assertEquals("items", items.getTableName());
+        assertTrue(items.getDifferingChunks() > 0 && items.getDifferingChunks() <= 3, diff.toString());
+        // 只比较不写入
+        assertNotEquals(dump(source, "items"), dump(target, "items"));
+        
+        DataRepairer.RepairReport repair = repairer.repair(source, target);
+        assertTrue(repair.isSuccess(), repair.toString());
+        assertTrue(repair.isApplied());
+        assertEquals(2, repair.getUpsertedRows(), repair.toString());
+        assertEquals(1, repair.getDeletedRows(), repair.toString());
+        assertEquals(dump(source, "items"), dump(target, "items"));
+        
+        DataRepairer.RepairReport again = repairer.diff(source, target);
+        assertTrue(again.isSuccess(), again.toString());
+        assertEquals(0, again.getUpsertedRows());
+        assertEquals(0, again.getDeletedRows());
+        assertEquals(0, again.getTables().get(0).getDifferingChunks(), again.toString());
+    }
+    
+    @Test
+    void tableWithoutPrimaryKeyIsReportedButNotWritten() throws Exception {
+        DatabaseManager.ConnectionFactory source = DatabaseManager.sqliteConnectionFactory(dir.resolve("nokey.db").toString());
+        DatabaseManager.ConnectionFactory target = DatabaseManager.sqliteConnectionFactory(dir.resolve("nokey-target.db").toString());
+        try (Connection conn = source.createConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE logs (msg TEXT, n INTEGER)");
+            stmt.execute("WITH RECURSIVE seq(n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < 200) "
+                         + "INSERT INTO logs SELECT 'row ' || n, n FROM seq");
+        }
+        migrate(source, target);
+        
+        try (Connection conn = target.createConnection(); Statement stmt = conn.createStatement()) {
+            assertEquals(1, stmt.executeUpdate("UPDATE logs SET n = -1 WHERE msg = 'row 50'"));
+        }
+        List<String> before = dump(target, "logs");
+        
+        DataRepairer.RepairReport repair = new DataRepairer(new MigrationOptions()).repair(source, target);
+        assertFalse(repair.isSuccess());
+        DataRepairer.TableRepair logs = repair.getTables().get(0);
+        assertEquals("logs", logs.getTableName());
+        assertEquals("没有主键，无法定位差异行", logs.getError());
+        assertTrue(logs.getDifferingChunks() > 0, repair.toString());
+        assertEquals(0, repair.getUpsertedRows());
+        assertEquals(0, repair.getDeletedRows());
+        assertEquals(before, dump(target, "logs"));
+    }
+    
+    private static void migrate(DatabaseManager.ConnectionFactory source,
+                                DatabaseManager.ConnectionFactory target) throws Exception {
+        DataMigrator.MigrationResult result = new DataMigrator(new MigrationOptions()).migrate(source, target, new SilentCallback());
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+    }
+    
+    private static List<String> dump(DatabaseManager.ConnectionFactory factory, String table) throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (Connection conn = factory.createConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM " + table + " ORDER BY 1, 2")) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                StringBuilder row = new StringBuilder();
+                for (int i = 1; i <= columns; i++) {
+                    row.append(rs.getObject(i)).append('|');
+                }
+                rows.add(row.toString());
+            }
+        }
+        return rows;
+    }
+    
+    /**
+     * 测试不需要进度输出
+     */
+    private static class SilentCallback implements DataMigrator.ProgressCallback {
+        @Override
+        public void onProgress(String message, double progress) {}
+        
+        @Override
+        public void onTableStart(String tableName, long totalRows) {}
+        
+        @Override
+        public void onTableComplete(String tableName, long migratedRows) {}
+        
+        @Override
+        public void onError(String message, Exception error) {}
+    }
+}
@@ -0,0 +1,190 @@
+package cn.puthmc.converter;
+
+import cn.puthmc.db.DatabaseManager;
+import cn.puthmc.model.ColumnInfo;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * LOAD DATA 批量装载的往返测试，需要一个开启 local_infile 的 MySQL 服务器
+ * 通过系统属性 dbbridge.test.mysql 或环境变量 DBBRIDGE_TEST_MYSQL 指定 主机:端口 时才运行，例如
+ * mvn test -Ddbbridge.test.mysql=127.0.0.1:3306 -Ddbbridge.test.mysql.user=root -Ddbbridge.test.mysql.password=
+ * 测试在服务器上创建一个临时数据库，结束后删除
+ */
+class LoadDataWriterTest {
+    
+    private static String host;
+    private static int port;
+    private static String user;
+    private static String password;
+    private static String database;
+    
+    @BeforeAll
+    static void createDatabase() throws SQLException {
+        String server = System.getProperty("dbbridge.test.mysql", System.getenv("DBBRIDGE_TEST_MYSQL"));
+        assumeTrue(server != null && !server.isBlank(), "未指定测试用MySQL服务器 (dbbridge.test.mysql)");
+        
+        int colon = server.lastIndexOf(':');
+        host = colon < 0 ? server : server.substring(0, colon);
+        port = colon < 0 ? 3306 : Integer.parseInt(server.substring(colon + 1));
+        user = System.getProperty("dbbridge.test.mysql.user", "root");
+        password = System.getProperty("dbbridge.test.mysql.password", "");
+        database = "dbbridge_test_" + Long.toHexString(System.nanoTime());
+        
+        try (Connection conn = DatabaseManager.createMySQLConnection(host, port, "", user, password);
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE DATABASE " + database + " CHARACTER SET utf8mb4");
+        }
+    }
+    
+    @AfterAll
+    static void dropDatabase() throws SQLException {
+        if (database == null) {
+            return;
+        }
+        try (Connection conn = DatabaseManager.createMySQLConnection(host, port, "", user, password);
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP DATABASE IF EXISTS " + database);
+        }
+    }
+    
+    private static Connection target() throws SQLException {
+        return DatabaseManager.createMySQLConnection(host, port, database, user, password);
+    }
+    
+    @Test
+    void migrationRoundTripsEscapesNullsAndBinary(@TempDir Path dir) throws Exception {
+        String sourceFile = dir.resolve("source.db").toString();
+        List<Object[]> rows = sampleRows();
+        try (Connection source = DatabaseManager.createSQLiteConnection(sourceFile)) {
+            try (Statement stmt = source.createStatement()) {
+                stmt.execute("CREATE TABLE samples (id INTEGER PRIMARY KEY, txt TEXT, bin BLOB, num INTEGER)");
+            }
+            try (PreparedStatement insert = source.prepareStatement("INSERT INTO samples VALUES (?, ?, ?, ?)")) {
+                for (Object[] row : rows) {
+                    for (int i = 0; i < row.length; i++) {
+                        insert.setObject(i + 1, row[i]);
+                    }
+                    insert.executeUpdate();
+                }
+            }
+        }
+        
+        MigrationOptions options = new MigrationOptions();
+        options.setWriteMode(MigrationOptions.WriteMode.LOAD_DATA);
+        DataMigrator.MigrationResult result = new DataMigrator(options).migrate(
+            DatabaseManager.sqliteConnectionFactory(sourceFile),
+            DatabaseManager.mysqlConnectionFactory(host, port, database, user, password), new SilentCallback());
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        assertEquals(rows.size(), result.getTotalRows());
+        
+        try (Connection conn = target();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id, txt, bin, num FROM samples ORDER BY id")) {
+            for (Object[] expected : rows) {
+                assertTrue(rs.next(), "目标表缺少行 " + expected[0]);
+                long id = rs.getLong(1);
+                assertEquals(((Number) expected[0]).longValue(), id);
+                assertEquals(expected[1], rs.getString(2), "txt, id=" + id);
+                assertArrayEquals((byte[]) expected[2], rs.getBytes(3), "bin, id=" + id);
+                long num = rs.getLong(4);
+                assertEquals(expected[3], rs.wasNull() ? null : num, "num, id=" + id);
+            }
+            assertFalse(rs.next(), "目标表行数多于源表");
+        }
+    }
+    
+    @Test
+    void rejectedRowsFailTheBatch() throws SQLException {
+        List<ColumnInfo> columns = List.of(new ColumnInfo("id", "INT"), new ColumnInfo("txt", "VARCHAR"));
+        try (Connection conn = target()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE dup (id INT PRIMARY KEY, txt VARCHAR(20))");
+            }
+            
+            RowBatch batch = new RowBatch(2, 3);
+            for (int row = 0; row < 3; row++) {
+                // 第三行与第一行主键重复，LOCAL 装载只会产生警告并跳过该行
+                batch.set(0, row, row == 2 ? 0 : row);
+                batch.set(1, row, "row" + row);
+            }
+            batch.setSize(3);
+            
+            try (LoadDataWriter writer = new LoadDataWriter(conn, "dup", columns)) {
+                SQLException e = assertThrows(SQLException.class, () -> writer.write(batch));
+                assertTrue(e.getMessage().contains("期望 3 行, 实际 2 行"), e.getMessage());
+                assertTrue(e.getMessage().contains("Duplicate"), e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * 覆盖 LOAD DATA 转义规则的样例数据：id, txt, bin, num
+     */
+    private static List<Object[]> sampleRows() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {1L, null, null, null});
+        rows.add(new Object[] {2L, "", new byte[0], 0L});
+        rows.add(new Object[] {3L, "back\\slash", null, -1L});
+        rows.add(new Object[] {4L, "tab\there", null, Long.MAX_VALUE});
+        rows.add(new Object[] {5L, "new\nline", null, Long.MIN_VALUE});
+        rows.add(new Object[] {6L, "carriage\rreturn\r\n", null, 42L});
+        rows.add(new Object[] {7L, "nul\0byte", null, 7L});
+        // 与空值的编码只差一个字符
+        rows.add(new Object[] {8L, "\\N", "\\N".getBytes(StandardCharsets.US_ASCII), 8L});
+        rows.add(new Object[] {9L, "N", null, 9L});
+        rows.add(new Object[] {10L, "emoji 😀🎉 中文 \\\t\n\r\0 混合", null, 10L});
+        rows.add(new Object[] {11L, "\\", new byte[] {'\\', '\t', '\n', '\r', 0}, 11L});
+        
+        Random random = new Random(20240501);
+        for (long id = 100; id < 200; id++) {
+            byte[] bytes = new byte[random.nextInt(300)];
+            random.nextBytes(bytes);
+            rows.add(new Object[] {id, "row " + id, bytes, id * 31});
+        }
+        // 所有字节值各出现一次
+        byte[] all = new byte[256];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = (byte) i;
+        }
+        rows.add(new Object[] {200L, new String(all, 1, 127, StandardCharsets.US_ASCII), all, 200L});
+        return rows;
+    }
+    
+    /**
+     * 测试不需要进度输出
+     */
+    private static class SilentCallback implements DataMigrator.ProgressCallback {
+        @Override
+        public void onProgress(String message, double progress) {}
+        
+        @Override
+        public void onTableStart(String tableName, long totalRows) {}
+        
+        @Override
+        public void onTableComplete(String tableName, long migratedRows) {}
+        
+        @Override
+        public void onError(String message, Exception error) {}
+    }
+}
@@ -0,0 +1,173 @@
+package cn.puthmc.converter;
+
+import cn.puthmc.db.DatabaseManager;
+import cn.puthmc.db.SchemaAnalyzer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SQLite触发器变更捕获测试，源库和目标库都是临时目录中的SQLite文件
+ */
+class SQLiteChangeCaptureTest {
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    void capturesChangesToBlobAndTextKeys() throws Exception {
+        String sourceFile = dir.resolve("source.db").toString();
+        String targetFile = dir.resolve("target.db").toString();
+        DatabaseManager.ConnectionFactory source = DatabaseManager.sqliteConnectionFactory(sourceFile);
+        DatabaseManager.ConnectionFactory target = DatabaseManager.sqliteConnectionFactory(targetFile);
+        Random random = new Random(7);
+        
+        try (Connection conn = source.createConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE blobs (k BLOB PRIMARY KEY, v TEXT)");
+            // 复合主键，同一列中混放文本、二进制和整数
+            stmt.execute("CREATE TABLE mixed (a TEXT, b, v TEXT, PRIMARY KEY (a, b))");
+            try (PreparedStatement insert = conn.prepareStatement("INSERT INTO blobs VALUES (?, ?)")) {
+                for (int i = 0; i < 20; i++) {
+                    insert.setBytes(1, randomBytes(random));
+                    insert.setString(2, "initial " + i);
+                    insert.executeUpdate();
+                }
+            }
+            stmt.execute("INSERT INTO mixed VALUES ('plain', 1, 'initial')");
+        }
+        
+        MigrationOptions options = new MigrationOptions();
+        try (SQLiteChangeCapture capture = new SQLiteChangeCapture(source, target, options)) {
+            capture.install();
+            DataMigrator.MigrationResult result = new DataMigrator(options).migrate(source, target, new SilentCallback());
+            assertTrue(result.isSuccess(), result.getErrorMessage());
+            
+            // 安装触发器后应用程序的写入不能失败
+            try (Connection conn = source.createConnection(); Statement stmt = conn.createStatement()) {
+                byte[] zeros = new byte[16];
+                try (PreparedStatement insert = conn.prepareStatement("INSERT INTO blobs VALUES (?, ?)")) {
+                    for (int i = 0; i < 10; i++) {
+                        insert.setBytes(1, i == 0 ? zeros : randomBytes(random));
+                        insert.setString(2, "inserted " + i);
+                        insert.executeUpdate();
+                    }
+                }
+                try (PreparedStatement update = conn.prepareStatement("UPDATE blobs SET v = 'updated' WHERE k = ?")) {
+                    update.setBytes(1, zeros);
+                    assertEquals(1, update.executeUpdate());
+                }
+                // 修改二进制主键，目标库中旧主键的行要被删除
+                stmt.execute("UPDATE blobs SET k = randomblob(12) WHERE rowid IN (SELECT rowid FROM blobs ORDER BY k LIMIT 3)");
+                stmt.execute("DELETE FROM blobs WHERE rowid IN (SELECT rowid FROM blobs ORDER BY v DESC, k LIMIT 4)");
+                
+                // 与二进制编码前缀相同的文本主键
+                stmt.execute("INSERT INTO mixed VALUES ('x:00', 'x:00', 'text like blob')");
+                stmt.execute("INSERT INTO mixed VALUES ('x:00', X'00', 'blob')");
+                stmt.execute("INSERT INTO mixed VALUES ('s:', 2, 'text like text prefix')");
+                stmt.execute("INSERT INTO mixed VALUES (X'FF00', 2.5, 'blob in text column')");
+                stmt.execute("UPDATE mixed SET v = 'changed' WHERE a = 'plain'");
+            }
+            
+            assertTrue(capture.applyPending() > 0);
+            assertEquals(dump(source, "blobs"), dump(target, "blobs"));
+            assertEquals(dump(source, "mixed"), dump(target, "mixed"));
+            assertEquals(5, dump(target, "mixed").size());
+        }
+        
+        // stop 清理触发器和变更日志，之后的写入不再记录
+        try (Connection conn = source.createConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO blobs VALUES (X'01', 'after stop')");
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM sqlite_master WHERE type = 'trigger' OR name = '"
+                                                  + SQLiteChangeCapture.CHANGELOG_TABLE + "'")) {
+                assertTrue(rs.next());
+                assertEquals(0, rs.getInt(1));
+            }
+        }
+    }
+    
+    @Test
+    void reinstallReplacesTriggers() throws Exception {
+        String sourceFile = dir.resolve("reinstall.db").toString();
+        DatabaseManager.ConnectionFactory source = DatabaseManager.sqliteConnectionFactory(sourceFile);
+        try (Connection conn = source.createConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE blobs (k BLOB PRIMARY KEY, v TEXT)");
+            // 旧版本安装的触发器把主键直接放进 json_array，写入二进制主键会失败
+            stmt.execute("CREATE TABLE " + SQLiteChangeCapture.CHANGELOG_TABLE + " (seq INTEGER PRIMARY KEY AUTOINCREMENT, "
+                         + "table_name TEXT NOT NULL, op TEXT NOT NULL, pk TEXT NOT NULL, captured_at INTEGER)");
+            stmt.execute("CREATE TRIGGER " + SchemaAnalyzer.INTERNAL_TABLE_PREFIX + "cdc_blobs_ins AFTER INSERT ON blobs "
+                         + "BEGIN INSERT INTO " + SQLiteChangeCapture.CHANGELOG_TABLE + " (table_name, op, pk) "
+                         + "VALUES ('blobs', 'U', json_array(NEW.k)); END");
+        }
+        
+        SQLiteChangeCapture capture = new SQLiteChangeCapture(source,
+            DatabaseManager.sqliteConnectionFactory(dir.resolve("reinstall-target.db").toString()), new MigrationOptions());
+        capture.install();
+        try (Connection conn = source.createConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO blobs VALUES (X'00FF', 'v')");
+            try (ResultSet rs = stmt.executeQuery("SELECT pk FROM " + SQLiteChangeCapture.CHANGELOG_TABLE)) {
+                assertTrue(rs.next());
+                assertEquals("[\"x:00FF\"]", rs.getString(1));
+                assertFalse(rs.next());
+            }
+        }
+    }
+    
+    private static byte[] randomBytes(Random random) {
+        byte[] bytes = new byte[1 + random.nextInt(24)];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+    
+    /**
+     * 按主键顺序读出表中所有行，值以 内容/类型 表示，二进制为十六进制
+     */
+    private static List<String> dump(DatabaseManager.ConnectionFactory factory, String table) throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (Connection conn = factory.createConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM " + table + " ORDER BY 1, 2")) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                StringBuilder row = new StringBuilder();
+                for (int i = 1; i <= columns; i++) {
+                    Object value = rs.getObject(i);
+                    row.append(value instanceof byte[] ? "x:" + HexFormat.of().formatHex((byte[]) value) : value)
+                       .append(value == null ? "" : "/" + value.getClass().getSimpleName()).append('|');
+                }
+                rows.add(row.toString());
+            }
+        }
+        return rows;
+    }
+    
+    /**
+     * 测试不需要进度输出
+     */
+    private static class SilentCallback implements DataMigrator.ProgressCallback {
+        @Override
+        public void onProgress(String message, double progress) {}
+        
+        @Override
+        public void onTableStart(String tableName, long totalRows) {}
+        
+        @Override
+        public void onTableComplete(String tableName, long migratedRows) {}
+        
+        @Override
+        public void onError(String message, Exception error) {}
+    }
+}
@@ -0,0 +1,188 @@
+package cn.puthmc.db;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 连接池测试，物理连接是临时目录中的SQLite文件
+ */
+class ConnectionPoolTest {
+    
+    private static final String SELECT = "SELECT v FROM items WHERE id = ?";
+    
+    @TempDir
+    Path dir;
+    
+    private DatabaseManager.ConnectionFactory factory;
+    
+    @BeforeEach
+    void createDatabase() throws SQLException {
+        factory = DatabaseManager.sqliteConnectionFactory(dir.resolve("pool.db").toString());
+        try (Connection conn = factory.createConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE items (id INTEGER PRIMARY KEY, v TEXT)");
+            stmt.execute("INSERT INTO items VALUES (1, 'a'), (2, 'b')");
+        }
+    }
+    
+    private ConnectionPool pool(int maxSize) {
+        ConnectionPool.Config config = new ConnectionPool.Config();
+        config.setMaxSize(maxSize);
+        config.setBorrowTimeoutMillis(200);
+        return new ConnectionPool(factory, config);
+    }
+    
+    @Test
+    void closedStatementIsReusedFromCache() throws SQLException {
+        try (ConnectionPool pool = pool(1)) {
+            PreparedStatement first;
+            try (Connection conn = pool.createConnection();
+                 PreparedStatement stmt = conn.prepareStatement(SELECT)) {
+                first = stmt.unwrap(PreparedStatement.class);
+                assertEquals("a", queryValue(stmt, 1));
+            }
+            // 归还后再借出的是同一个物理连接，语句仍在缓存中，参数已清空
+            try (Connection conn = pool.createConnection();
+                 PreparedStatement stmt = conn.prepareStatement(SELECT)) {
+                assertSame(first, stmt.unwrap(PreparedStatement.class));
+                assertFalse(first.isClosed());
+                assertEquals("b", queryValue(stmt, 2));
+            }
+            assertEquals(1, pool.getCreatedConnections());
+        }
+    }
+    
+    @Test
+    void sameSqlWhileCachedStatementInUseIsNotCached() throws SQLException {
+        try (ConnectionPool pool = pool(1); Connection conn = pool.createConnection()) {
+            PreparedStatement cached = conn.prepareStatement(SELECT);
+            PreparedStatement second = conn.prepareStatement(SELECT);
+            PreparedStatement secondTarget = second.unwrap(PreparedStatement.class);
+            assertNotSame(cached.unwrap(PreparedStatement.class), secondTarget);
+            assertEquals("b", queryValue(second, 2));
+            second.close();
+            assertTrue(secondTarget.isClosed());
+            
+            // 缓存中的语句不受影响，关闭后再次取用的仍是它
+            assertEquals("a", queryValue(cached, 1));
+            PreparedStatement cachedTarget = cached.unwrap(PreparedStatement.class);
+            cached.close();
+            assertTrue(cached.isClosed());
+            assertFalse(cachedTarget.isClosed());
+            try (PreparedStatement again = conn.prepareStatement(SELECT)) {
+                assertSame(cachedTarget, again.unwrap(PreparedStatement.class));
+            }
+            assertThrows(SQLException.class, () -> cached.setInt(1, 1));
+        }
+    }
+    
+    @Test
+    void returnRollsBackAndRestoresAutoCommit() throws SQLException {
+        try (ConnectionPool pool = pool(1)) {
+            try (Connection conn = pool.createConnection()) {
+                conn.setAutoCommit(false);
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("INSERT INTO items VALUES (3, 'uncommitted')");
+                }
+            }
+            try (Connection conn = pool.createConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM items")) {
+                assertTrue(conn.getAutoCommit());
+                assertTrue(rs.next());
+                assertEquals(2, rs.getInt(1));
+            }
+            assertEquals(1, pool.getCreatedConnections());
+        }
+    }
+    
+    @Test
+    void returnClosesStatementsAndResultSetsLeftOpen() throws SQLException {
+        try (ConnectionPool pool = pool(1)) {
+            Connection conn = pool.createConnection();
+            Statement plain = conn.createStatement();
+            ResultSet plainRows = plain.executeQuery("SELECT * FROM items");
+            PreparedStatement cached = conn.prepareStatement(SELECT);
+            cached.setInt(1, 1);
+            ResultSet cachedRows = cached.executeQuery();
+            PreparedStatement uncached = conn.prepareStatement(SELECT);
+            PreparedStatement uncachedTarget = uncached.unwrap(PreparedStatement.class);
+            uncached.setInt(1, 2);
+            ResultSet uncachedRows = uncached.executeQuery();
+            assertTrue(plainRows.next() && cachedRows.next() && uncachedRows.next());
+            conn.close();
+            
+            assertTrue(plain.isClosed());
+            assertTrue(plainRows.isClosed());
+            assertTrue(cachedRows.isClosed());
+            assertTrue(cached.isClosed());
+            assertTrue(uncachedTarget.isClosed());
+            assertTrue(uncachedRows.isClosed());
+            assertThrows(SQLException.class, conn::createStatement);
+            
+            // 遗留的读取已结束，其他连接可以写入
+            try (Connection writer = factory.createConnection(); Statement stmt = writer.createStatement()) {
+                stmt.execute("INSERT INTO items VALUES (3, 'c')");
+            }
+            assertEquals(1, pool.getIdleConnections());
+        }
+    }
+    
+    @Test
+    void exhaustedPoolTimesOut() throws SQLException {
+        try (ConnectionPool pool = pool(1); Connection held = pool.createConnection()) {
+            long start = System.nanoTime();
+            SQLException e = assertThrows(SQLException.class, pool::createConnection);
+            assertTrue(e.getMessage().contains("连接池已耗尽"), e.getMessage());
+            assertTrue(System.nanoTime() - start >= 200_000_000L);
+            assertFalse(held.isClosed());
+        }
+    }
+    
+    @Test
+    void closeWhileLentClosesConnectionsOnReturn() throws SQLException {
+        ConnectionPool pool = pool(2);
+        Connection lent = pool.createConnection();
+        Connection idle = pool.createConnection();
+        Connection idleTarget = idle.unwrap(Connection.class);
+        idle.close();
+        assertEquals(1, pool.getIdleConnections());
+        
+        pool.close();
+        assertEquals(0, pool.getIdleConnections());
+        assertTrue(idleTarget.isClosed());
+        SQLException e = assertThrows(SQLException.class, pool::createConnection);
+        assertEquals("连接池已关闭", e.getMessage());
+        
+        // 借出的连接在归还前仍可使用，归还时断开
+        Connection lentTarget = lent.unwrap(Connection.class);
+        try (PreparedStatement stmt = lent.prepareStatement(SELECT)) {
+            assertEquals("a", queryValue(stmt, 1));
+        }
+        lent.close();
+        assertTrue(lentTarget.isClosed());
+        assertEquals(0, pool.getIdleConnections());
+    }
+    
+    private static String queryValue(PreparedStatement stmt, int id) throws SQLException {
+        stmt.setInt(1, id);
+        try (ResultSet rs = stmt.executeQuery()) {
+            assertTrue(rs.next());
+            return rs.getString(1);
+        }
+    }
+}